@@ -23,11 +23,16 @@ import cn.edu.tsinghua.iotdb.benchmark.client.*;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.IntervalReporter;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Measurement;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.MetricsServer;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.compare.ResultComparator;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.PersistenceFactory;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary.BinaryLogConverter;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.csv.CSVShutdownHook;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.sqlite.SqliteResultQuery;
 import cn.edu.tsinghua.iotdb.benchmark.syslog.*;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBWrapper;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
@@ -38,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -75,11 +81,79 @@ public class App {
       case Constants.MODE_SERVER_MODE:
         serverMode(config);
         break;
+      case Constants.MODE_COMPARE_RESULT:
+        if (!compareResult(config)) {
+          System.exit(1);
+        }
+        break;
+      case Constants.MODE_CONVERT_BINARY_LOG:
+        convertBinaryLog(config);
+        break;
+      case Constants.MODE_QUERY_RESULT_HISTORY:
+        queryResultHistory(config);
+        break;
       default:
         throw new SQLException("Unsupported mode:" + config.getBENCHMARK_WORK_MODE());
     }
   }
 
+  /**
+   * Benchmark mode: compareResult
+   *
+   * @return false if any regression is found
+   */
+  private static boolean compareResult(Config config) {
+    List<String> files = new ArrayList<>();
+    for (String file : config.getCOMPARE_RESULT_FILES().split(",")) {
+      if (!file.trim().isEmpty()) {
+        files.add(file.trim());
+      }
+    }
+    ResultComparator comparator =
+        new ResultComparator(
+            config.getCOMPARE_BOOTSTRAP_NUMBER(), config.getCOMPARE_THRESHOLD_PERCENT());
+    return comparator.compareFiles(files);
+  }
+
+  /** Benchmark mode: queryResultHistory */
+  private static void queryResultHistory(Config config) {
+    try (SqliteResultQuery query = new SqliteResultQuery(config.getSQLITE_RESULT_FILE())) {
+      if (config.getRESULT_QUERY_SQL().trim().isEmpty()) {
+        SqliteResultQuery.print(
+            query.queryHistory(
+                config.getRESULT_QUERY_OPERATION(),
+                config.getRESULT_QUERY_KEY(),
+                config.getRESULT_QUERY_FILTER(),
+                config.getRESULT_QUERY_RUN_NUMBER()));
+      } else {
+        SqliteResultQuery.print(query.query(config.getRESULT_QUERY_SQL()));
+      }
+    } catch (SQLException e) {
+      LOGGER.error("Failed to query {}", config.getSQLITE_RESULT_FILE(), e);
+    }
+  }
+
+  /** Benchmark mode: convertBinaryLog */
+  private static void convertBinaryLog(Config config) {
+    // results replayed from a log must not be dropped by a full record queue
+    config.setRECORD_DROP_WHEN_FULL(false);
+    PersistenceFactory persistenceFactory = new PersistenceFactory();
+    ITestDataPersistence recorder = persistenceFactory.getPersistence();
+    BinaryLogConverter converter =
+        new BinaryLogConverter(recorder, config.getBINARY_LOG_AGGREGATE_MS());
+    try {
+      long recordNum = converter.convertDir(new File(config.getBINARY_LOG_PATH()));
+      LOGGER.info(
+          "Converted {} records of {} into {}",
+          recordNum,
+          config.getBINARY_LOG_PATH(),
+          config.getTEST_DATA_PERSISTENCE());
+    } catch (IOException e) {
+      LOGGER.error("Failed to convert binary operation log", e);
+    }
+    recorder.close();
+  }
+
   /** Benchmark mode: testWithDefaultPath */
   private static void testWithDefaultPath(Config config) {
     PersistenceFactory persistenceFactory = new PersistenceFactory();
@@ -230,6 +304,24 @@ public class App {
       long st,
       List<Client> clients) {
     executorService.shutdown();
+    List<Measurement> clientMeasurements = new ArrayList<>();
+    for (Client client : clients) {
+      clientMeasurements.add(client.getMeasurement());
+    }
+    IntervalReporter intervalReporter = null;
+    if (config.getRESULT_INTERVAL_MS() > 0) {
+      intervalReporter = new IntervalReporter(clientMeasurements);
+      intervalReporter.start();
+    }
+    MetricsServer metricsServer = null;
+    if (config.getMETRICS_PORT() > 0) {
+      metricsServer = new MetricsServer(clientMeasurements, intervalReporter);
+      try {
+        metricsServer.start();
+      } catch (IOException e) {
+        LOGGER.error("Failed to start metrics server on port {}", config.getMETRICS_PORT(), e);
+      }
+    }
 
     try {
       // wait for all clients finish test
@@ -240,6 +332,12 @@ public class App {
     }
     long en = System.nanoTime();
     LOGGER.info("All clients finished.");
+    if (intervalReporter != null) {
+      intervalReporter.stop();
+    }
+    if (metricsServer != null) {
+      metricsServer.stop();
+    }
     // sum up all the measurements and calculate statistics
     measurement.setElapseTime((en - st) / NANO_TO_SECOND);
     for (Client client : clients) {
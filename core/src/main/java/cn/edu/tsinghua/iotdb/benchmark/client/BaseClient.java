@@ -50,6 +50,8 @@ public abstract class BaseClient extends Client implements Runnable {
   private final DataSchema dataSchema = DataSchema.getInstance();
   private final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
   private long loopIndex;
+  /** Batches of devices of this client in one loop if MULTI_DEVICE_BATCH = true */
+  private final List<Batch> multiDeviceBatches = new ArrayList<>();
 
   public BaseClient(
       int id, CountDownLatch countDownLatch, CyclicBarrier barrier, IWorkload workload) {
@@ -194,14 +196,23 @@ public abstract class BaseClient extends Client implements Runnable {
           for (DeviceSchema deviceSchema : schemas) {
             if (deviceSchema.getDeviceId() < actualDeviceFloor) {
               Batch batch = syntheticWorkload.getOneBatch(deviceSchema, insertLoopIndex);
-              dbWrapper.insertOneBatch(batch);
+              if (config.isMULTI_DEVICE_BATCH()) {
+                multiDeviceBatches.add(batch);
+              } else {
+                dbWrapper.insertOneBatch(batch);
+              }
             }
           }
+          if (!multiDeviceBatches.isEmpty()) {
+            dbWrapper.insertMultiDeviceBatch(multiDeviceBatches);
+          }
         } catch (DBConnectException e) {
           LOGGER.error("Failed to insert one batch data because ", e);
           return false;
         } catch (Exception e) {
           LOGGER.error("Failed to insert one batch data because ", e);
+        } finally {
+          multiDeviceBatches.clear();
         }
         insertLoopIndex++;
       } else {
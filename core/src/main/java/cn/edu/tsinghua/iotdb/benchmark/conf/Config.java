@@ -97,6 +97,11 @@ public class Config {
 
   /** In some database, it will need token to access, such as InfluxDB 2.0 */
   private String TOKEN = "token";
+  /**
+   * Whether to gzip the body of HTTP writes, such as the line protocol of InfluxDB and
+   * VictoriaMetrics
+   */
+  private boolean ENABLE_HTTP_COMPRESSION = false;
 
   // 初始化：分布式数据库
   /** 是否都可见，如果可见就可以向其他node发送 Whether access all nodes, rather than just one coordinator */
@@ -178,6 +183,11 @@ public class Config {
    * clients can larger than devices
    */
   private boolean IS_CLIENT_BIND = true;
+  /**
+   * Whether a client inserts the batches of all its devices in one loop as one multi-device
+   * request, only works if IS_CLIENT_BIND = true and IS_SENSOR_TS_ALIGNMENT = true
+   */
+  private boolean MULTI_DEVICE_BATCH = false;
   /**
    * The number of client if IS_CLIENT_BIND = true: this number must be less than or equal to the
    * number of devices.
@@ -218,6 +228,11 @@ public class Config {
   private int WRITE_OPERATION_TIMEOUT_MS = 120000;
   /** The max time for reading in ms */
   private int READ_OPERATION_TIMEOUT_MS = 300000;
+  /**
+   * The max number of batches that a client has sent but not finished, 1 means that the client
+   * waits for each batch. Only databases supporting asynchronous insertion are pipelined.
+   */
+  private int WRITE_PIPELINE_DEPTH = 1;
 
   // Operation：写入相关参数
   /**
@@ -228,6 +243,12 @@ public class Config {
   private int BATCH_SIZE_PER_WRITE = 1;
   /** Whether create schema before writing */
   private boolean CREATE_SCHEMA = true;
+  /** The number of connections which create schema concurrently, spread over all nodes */
+  private int SCHEMA_CLIENT_NUMBER = 1;
+  /** The max number of time series (or tables) created by one request */
+  private int CREATE_SCHEMA_BATCH_SIZE = 10000;
+  /** The number of retries of a failed schema creation request before the test is aborted */
+  private int CREATE_SCHEMA_RETRY_NUM = 3;
 
   /** Start time of writing data */
   private String START_TIME = "2018-8-30T00:00:00+08:00";
@@ -295,6 +316,11 @@ public class Config {
   private int QUERY_SLIMIT_N = 1;
   /** Offset of output sequences */
   private int QUERY_SLIMIT_OFFSET = 0;
+  /**
+   * The ratio of queries whose server execution time is sampled by explain, e.g. EXPLAIN ANALYZE of
+   * TimescaleDB, 0 means never sample. The time of explain is excluded from latency.
+   */
+  private double QUERY_EXPLAIN_SAMPLE_RATE = 0;
   /** The real time when query is started */
   private long REAL_DATASET_QUERY_START_TIME = 0;
   /** The real time when query is stopped */
@@ -335,6 +361,34 @@ public class Config {
    */
   private String REMARK = "";
 
+  // 输出：记录队列
+  /**
+   * Whether the results of operations are handed to a queue and persisted by a background thread,
+   * instead of by the client threads themselves
+   */
+  private boolean RECORD_ASYNC = true;
+  /** Capacity of the queue of operation results, rounded up to a power of 2 */
+  private int RECORD_QUEUE_SIZE = 65536;
+  /** Whether drop the result when the queue is full, otherwise the client waits for free space */
+  private boolean RECORD_DROP_WHEN_FULL = true;
+  /**
+   * Persist one aggregated result per client, operation and interval in millisecond instead of
+   * every result, 0 means disabled
+   */
+  private long RECORD_ROLLUP_INTERVAL_MS = 0;
+  /** Ratio of successful results still persisted as they are when aggregated */
+  private double RECORD_ROLLUP_RAW_SAMPLE_RATE = 0;
+
+  // 输出：SQLite
+  /** The SQLite file keeping results of all benchmarks */
+  private String SQLITE_RESULT_FILE = "data/benchmark-result.db";
+
+  // 输出：二进制日志
+  /** Directory of binary operation logs to convert in convertBinaryLog mode */
+  private String BINARY_LOG_PATH = "";
+  /** Aggregate the records of each operation into one result per window in millisecond */
+  private long BINARY_LOG_AGGREGATE_MS = 0;
+
   // 输出：MySQL
   /** ratio of real writes into mysql */
   private double MYSQL_REAL_INSERT_RATE = 1.0;
@@ -349,6 +403,53 @@ public class Config {
   /** Whether split result into different csv file */
   private boolean CSV_FILE_SPLIT = true;
 
+  // 输出：区间统计
+  /**
+   * Interval in millisecond of the throughput and latency time series recorded during the test, 0
+   * means disabled
+   */
+  private long RESULT_INTERVAL_MS = 0;
+  /**
+   * An interval is flagged as tainted if the benchmark JVM itself paused longer than this, e.g. for
+   * GC, in millisecond
+   */
+  private long CLIENT_PAUSE_THRESHOLD_MS = 100;
+
+  // 输出：监控接口
+  /**
+   * Port of the http endpoint which exposes live metrics of benchmark in OpenMetrics format at
+   * /metrics, 0 means disabled
+   */
+  private int METRICS_PORT = 0;
+
+  // 输出：延迟归因
+  /** Whether record latency histograms of each storage group */
+  private boolean LATENCY_BY_GROUP = false;
+  /** Record latency histograms of about 1/N of devices chosen by device name, 0 means disabled */
+  private int LATENCY_DEVICE_SAMPLE_STEP = 0;
+  /** Number of slowest storage groups and devices shown for each operation */
+  private int LATENCY_TOP_N = 10;
+
+  // 比较模式
+  /** Interval result files to compare, separated by comma, the first one is baseline */
+  private String COMPARE_RESULT_FILES = "";
+  /** A delta worse than this percent may be a regression */
+  private double COMPARE_THRESHOLD_PERCENT = 5;
+  /** Number of resampling to estimate confidence interval of delta */
+  private int COMPARE_BOOTSTRAP_NUMBER = 1000;
+
+  // 历史结果查询模式
+  /** Operation of the final result to query, e.g. INGESTION or total */
+  private String RESULT_QUERY_OPERATION = "INGESTION";
+  /** Key of the final result to query, e.g. P99 or throughput */
+  private String RESULT_QUERY_KEY = "P99";
+  /** Only query runs with these configurations, like DB_SWITCH=xx, separated by comma */
+  private String RESULT_QUERY_FILTER = "";
+  /** Max number of latest runs to query */
+  private int RESULT_QUERY_RUN_NUMBER = 30;
+  /** Execute this sql instead if not empty */
+  private String RESULT_QUERY_SQL = "";
+
   /** Device ID */
   private List<Integer> DEVICE_CODES = new ArrayList<>();
   /** Sensor number */
@@ -819,6 +920,14 @@ public class Config {
     this.IS_CLIENT_BIND = IS_CLIENT_BIND;
   }
 
+  public boolean isMULTI_DEVICE_BATCH() {
+    return MULTI_DEVICE_BATCH;
+  }
+
+  public void setMULTI_DEVICE_BATCH(boolean MULTI_DEVICE_BATCH) {
+    this.MULTI_DEVICE_BATCH = MULTI_DEVICE_BATCH;
+  }
+
   public int getCLIENT_NUMBER() {
     return CLIENT_NUMBER;
   }
@@ -923,6 +1032,14 @@ public class Config {
     this.WRITE_OPERATION_TIMEOUT_MS = WRITE_OPERATION_TIMEOUT_MS;
   }
 
+  public int getWRITE_PIPELINE_DEPTH() {
+    return WRITE_PIPELINE_DEPTH;
+  }
+
+  public void setWRITE_PIPELINE_DEPTH(int WRITE_PIPELINE_DEPTH) {
+    this.WRITE_PIPELINE_DEPTH = WRITE_PIPELINE_DEPTH;
+  }
+
   public int getREAD_OPERATION_TIMEOUT_MS() {
     return READ_OPERATION_TIMEOUT_MS;
   }
@@ -947,6 +1064,30 @@ public class Config {
     this.CREATE_SCHEMA = CREATE_SCHEMA;
   }
 
+  public int getSCHEMA_CLIENT_NUMBER() {
+    return SCHEMA_CLIENT_NUMBER;
+  }
+
+  public void setSCHEMA_CLIENT_NUMBER(int SCHEMA_CLIENT_NUMBER) {
+    this.SCHEMA_CLIENT_NUMBER = SCHEMA_CLIENT_NUMBER;
+  }
+
+  public int getCREATE_SCHEMA_BATCH_SIZE() {
+    return CREATE_SCHEMA_BATCH_SIZE;
+  }
+
+  public void setCREATE_SCHEMA_BATCH_SIZE(int CREATE_SCHEMA_BATCH_SIZE) {
+    this.CREATE_SCHEMA_BATCH_SIZE = CREATE_SCHEMA_BATCH_SIZE;
+  }
+
+  public int getCREATE_SCHEMA_RETRY_NUM() {
+    return CREATE_SCHEMA_RETRY_NUM;
+  }
+
+  public void setCREATE_SCHEMA_RETRY_NUM(int CREATE_SCHEMA_RETRY_NUM) {
+    this.CREATE_SCHEMA_RETRY_NUM = CREATE_SCHEMA_RETRY_NUM;
+  }
+
   public String getSTART_TIME() {
     return START_TIME;
   }
@@ -1107,6 +1248,14 @@ public class Config {
     this.QUERY_SLIMIT_OFFSET = QUERY_SLIMIT_OFFSET;
   }
 
+  public double getQUERY_EXPLAIN_SAMPLE_RATE() {
+    return QUERY_EXPLAIN_SAMPLE_RATE;
+  }
+
+  public void setQUERY_EXPLAIN_SAMPLE_RATE(double QUERY_EXPLAIN_SAMPLE_RATE) {
+    this.QUERY_EXPLAIN_SAMPLE_RATE = QUERY_EXPLAIN_SAMPLE_RATE;
+  }
+
   public long getREAL_DATASET_QUERY_START_TIME() {
     return REAL_DATASET_QUERY_START_TIME;
   }
@@ -1227,6 +1376,110 @@ public class Config {
     this.CSV_OUTPUT = CSV_OUTPUT;
   }
 
+  public boolean isRECORD_ASYNC() {
+    return RECORD_ASYNC;
+  }
+
+  public void setRECORD_ASYNC(boolean RECORD_ASYNC) {
+    this.RECORD_ASYNC = RECORD_ASYNC;
+  }
+
+  public int getRECORD_QUEUE_SIZE() {
+    return RECORD_QUEUE_SIZE;
+  }
+
+  public void setRECORD_QUEUE_SIZE(int RECORD_QUEUE_SIZE) {
+    this.RECORD_QUEUE_SIZE = RECORD_QUEUE_SIZE;
+  }
+
+  public boolean isRECORD_DROP_WHEN_FULL() {
+    return RECORD_DROP_WHEN_FULL;
+  }
+
+  public void setRECORD_DROP_WHEN_FULL(boolean RECORD_DROP_WHEN_FULL) {
+    this.RECORD_DROP_WHEN_FULL = RECORD_DROP_WHEN_FULL;
+  }
+
+  public long getRECORD_ROLLUP_INTERVAL_MS() {
+    return RECORD_ROLLUP_INTERVAL_MS;
+  }
+
+  public void setRECORD_ROLLUP_INTERVAL_MS(long RECORD_ROLLUP_INTERVAL_MS) {
+    this.RECORD_ROLLUP_INTERVAL_MS = RECORD_ROLLUP_INTERVAL_MS;
+  }
+
+  public double getRECORD_ROLLUP_RAW_SAMPLE_RATE() {
+    return RECORD_ROLLUP_RAW_SAMPLE_RATE;
+  }
+
+  public void setRECORD_ROLLUP_RAW_SAMPLE_RATE(double RECORD_ROLLUP_RAW_SAMPLE_RATE) {
+    this.RECORD_ROLLUP_RAW_SAMPLE_RATE = RECORD_ROLLUP_RAW_SAMPLE_RATE;
+  }
+
+  public String getSQLITE_RESULT_FILE() {
+    return SQLITE_RESULT_FILE;
+  }
+
+  public void setSQLITE_RESULT_FILE(String SQLITE_RESULT_FILE) {
+    this.SQLITE_RESULT_FILE = SQLITE_RESULT_FILE;
+  }
+
+  public String getRESULT_QUERY_OPERATION() {
+    return RESULT_QUERY_OPERATION;
+  }
+
+  public void setRESULT_QUERY_OPERATION(String RESULT_QUERY_OPERATION) {
+    this.RESULT_QUERY_OPERATION = RESULT_QUERY_OPERATION;
+  }
+
+  public String getRESULT_QUERY_KEY() {
+    return RESULT_QUERY_KEY;
+  }
+
+  public void setRESULT_QUERY_KEY(String RESULT_QUERY_KEY) {
+    this.RESULT_QUERY_KEY = RESULT_QUERY_KEY;
+  }
+
+  public String getRESULT_QUERY_FILTER() {
+    return RESULT_QUERY_FILTER;
+  }
+
+  public void setRESULT_QUERY_FILTER(String RESULT_QUERY_FILTER) {
+    this.RESULT_QUERY_FILTER = RESULT_QUERY_FILTER;
+  }
+
+  public int getRESULT_QUERY_RUN_NUMBER() {
+    return RESULT_QUERY_RUN_NUMBER;
+  }
+
+  public void setRESULT_QUERY_RUN_NUMBER(int RESULT_QUERY_RUN_NUMBER) {
+    this.RESULT_QUERY_RUN_NUMBER = RESULT_QUERY_RUN_NUMBER;
+  }
+
+  public String getRESULT_QUERY_SQL() {
+    return RESULT_QUERY_SQL;
+  }
+
+  public void setRESULT_QUERY_SQL(String RESULT_QUERY_SQL) {
+    this.RESULT_QUERY_SQL = RESULT_QUERY_SQL;
+  }
+
+  public String getBINARY_LOG_PATH() {
+    return BINARY_LOG_PATH;
+  }
+
+  public void setBINARY_LOG_PATH(String BINARY_LOG_PATH) {
+    this.BINARY_LOG_PATH = BINARY_LOG_PATH;
+  }
+
+  public long getBINARY_LOG_AGGREGATE_MS() {
+    return BINARY_LOG_AGGREGATE_MS;
+  }
+
+  public void setBINARY_LOG_AGGREGATE_MS(long BINARY_LOG_AGGREGATE_MS) {
+    this.BINARY_LOG_AGGREGATE_MS = BINARY_LOG_AGGREGATE_MS;
+  }
+
   public long getCSV_MAX_LINE() {
     return CSV_MAX_LINE;
   }
@@ -1243,6 +1496,78 @@ public class Config {
     this.CSV_FILE_SPLIT = CSV_FILE_SPLIT;
   }
 
+  public long getRESULT_INTERVAL_MS() {
+    return RESULT_INTERVAL_MS;
+  }
+
+  public void setRESULT_INTERVAL_MS(long RESULT_INTERVAL_MS) {
+    this.RESULT_INTERVAL_MS = RESULT_INTERVAL_MS;
+  }
+
+  public long getCLIENT_PAUSE_THRESHOLD_MS() {
+    return CLIENT_PAUSE_THRESHOLD_MS;
+  }
+
+  public void setCLIENT_PAUSE_THRESHOLD_MS(long CLIENT_PAUSE_THRESHOLD_MS) {
+    this.CLIENT_PAUSE_THRESHOLD_MS = CLIENT_PAUSE_THRESHOLD_MS;
+  }
+
+  public int getMETRICS_PORT() {
+    return METRICS_PORT;
+  }
+
+  public void setMETRICS_PORT(int METRICS_PORT) {
+    this.METRICS_PORT = METRICS_PORT;
+  }
+
+  public boolean isLATENCY_BY_GROUP() {
+    return LATENCY_BY_GROUP;
+  }
+
+  public void setLATENCY_BY_GROUP(boolean LATENCY_BY_GROUP) {
+    this.LATENCY_BY_GROUP = LATENCY_BY_GROUP;
+  }
+
+  public int getLATENCY_DEVICE_SAMPLE_STEP() {
+    return LATENCY_DEVICE_SAMPLE_STEP;
+  }
+
+  public void setLATENCY_DEVICE_SAMPLE_STEP(int LATENCY_DEVICE_SAMPLE_STEP) {
+    this.LATENCY_DEVICE_SAMPLE_STEP = LATENCY_DEVICE_SAMPLE_STEP;
+  }
+
+  public String getCOMPARE_RESULT_FILES() {
+    return COMPARE_RESULT_FILES;
+  }
+
+  public void setCOMPARE_RESULT_FILES(String COMPARE_RESULT_FILES) {
+    this.COMPARE_RESULT_FILES = COMPARE_RESULT_FILES;
+  }
+
+  public double getCOMPARE_THRESHOLD_PERCENT() {
+    return COMPARE_THRESHOLD_PERCENT;
+  }
+
+  public void setCOMPARE_THRESHOLD_PERCENT(double COMPARE_THRESHOLD_PERCENT) {
+    this.COMPARE_THRESHOLD_PERCENT = COMPARE_THRESHOLD_PERCENT;
+  }
+
+  public int getCOMPARE_BOOTSTRAP_NUMBER() {
+    return COMPARE_BOOTSTRAP_NUMBER;
+  }
+
+  public void setCOMPARE_BOOTSTRAP_NUMBER(int COMPARE_BOOTSTRAP_NUMBER) {
+    this.COMPARE_BOOTSTRAP_NUMBER = COMPARE_BOOTSTRAP_NUMBER;
+  }
+
+  public int getLATENCY_TOP_N() {
+    return LATENCY_TOP_N;
+  }
+
+  public void setLATENCY_TOP_N(int LATENCY_TOP_N) {
+    this.LATENCY_TOP_N = LATENCY_TOP_N;
+  }
+
   public List<Integer> getDEVICE_CODES() {
     return DEVICE_CODES;
   }
@@ -1310,4 +1635,12 @@ public class Config {
   public void setTOKEN(String TOKEN) {
     this.TOKEN = TOKEN;
   }
+
+  public boolean isENABLE_HTTP_COMPRESSION() {
+    return ENABLE_HTTP_COMPRESSION;
+  }
+
+  public void setENABLE_HTTP_COMPRESSION(boolean ENABLE_HTTP_COMPRESSION) {
+    this.ENABLE_HTTP_COMPRESSION = ENABLE_HTTP_COMPRESSION;
+  }
 }
@@ -87,6 +87,10 @@ public class ConfigDescriptor {
         config.setPASSWORD(properties.getProperty("PASSWORD", config.getPASSWORD()));
         config.setDB_NAME(properties.getProperty("DB_NAME", config.getDB_NAME()));
         config.setTOKEN(properties.getProperty("TOKEN", config.getTOKEN()));
+        config.setENABLE_HTTP_COMPRESSION(
+            Boolean.parseBoolean(
+                properties.getProperty(
+                    "ENABLE_HTTP_COMPRESSION", config.isENABLE_HTTP_COMPRESSION() + "")));
 
         config.setANOTHER_DB_NAME(
             properties.getProperty("ANOTHER_DB_NAME", config.getANOTHER_DB_NAME() + ""));
@@ -191,6 +195,9 @@ public class ConfigDescriptor {
         config.setIS_CLIENT_BIND(
             Boolean.parseBoolean(
                 properties.getProperty("IS_CLIENT_BIND", config.isIS_CLIENT_BIND() + "")));
+        config.setMULTI_DEVICE_BATCH(
+            Boolean.parseBoolean(
+                properties.getProperty("MULTI_DEVICE_BATCH", config.isMULTI_DEVICE_BATCH() + "")));
         config.setCLIENT_NUMBER(
             Integer.parseInt(
                 properties.getProperty("CLIENT_NUMBER", config.getCLIENT_NUMBER() + "")));
@@ -248,6 +255,10 @@ public class ConfigDescriptor {
             Integer.parseInt(
                 properties.getProperty(
                     "READ_OPERATION_TIMEOUT_MS", config.getREAD_OPERATION_TIMEOUT_MS() + "")));
+        config.setWRITE_PIPELINE_DEPTH(
+            Integer.parseInt(
+                properties.getProperty(
+                    "WRITE_PIPELINE_DEPTH", config.getWRITE_PIPELINE_DEPTH() + "")));
         config.setBATCH_SIZE_PER_WRITE(
             Integer.parseInt(
                 properties.getProperty(
@@ -256,6 +267,18 @@ public class ConfigDescriptor {
         config.setCREATE_SCHEMA(
             Boolean.parseBoolean(
                 properties.getProperty("CREATE_SCHEMA", config.isCREATE_SCHEMA() + "")));
+        config.setSCHEMA_CLIENT_NUMBER(
+            Integer.parseInt(
+                properties.getProperty(
+                    "SCHEMA_CLIENT_NUMBER", config.getSCHEMA_CLIENT_NUMBER() + "")));
+        config.setCREATE_SCHEMA_BATCH_SIZE(
+            Integer.parseInt(
+                properties.getProperty(
+                    "CREATE_SCHEMA_BATCH_SIZE", config.getCREATE_SCHEMA_BATCH_SIZE() + "")));
+        config.setCREATE_SCHEMA_RETRY_NUM(
+            Integer.parseInt(
+                properties.getProperty(
+                    "CREATE_SCHEMA_RETRY_NUM", config.getCREATE_SCHEMA_RETRY_NUM() + "")));
         config.setSTART_TIME(properties.getProperty("START_TIME", config.getSTART_TIME()));
         config.setIS_OUT_OF_ORDER(
             Boolean.parseBoolean(
@@ -312,6 +335,10 @@ public class ConfigDescriptor {
             Integer.parseInt(
                 properties.getProperty(
                     "QUERY_SLIMIT_OFFSET", config.getQUERY_SLIMIT_OFFSET() + "")));
+        config.setQUERY_EXPLAIN_SAMPLE_RATE(
+            Double.parseDouble(
+                properties.getProperty(
+                    "QUERY_EXPLAIN_SAMPLE_RATE", config.getQUERY_EXPLAIN_SAMPLE_RATE() + "")));
         config.setREAL_DATASET_QUERY_START_TIME(
             Long.parseLong(
                 properties.getProperty(
@@ -361,6 +388,33 @@ public class ConfigDescriptor {
                 properties.getProperty(
                     "MYSQL_REAL_INSERT_RATE", config.getMYSQL_REAL_INSERT_RATE() + "")));
 
+        config.setRECORD_ASYNC(
+            Boolean.parseBoolean(
+                properties.getProperty("RECORD_ASYNC", config.isRECORD_ASYNC() + "")));
+        config.setRECORD_QUEUE_SIZE(
+            Integer.parseInt(
+                properties.getProperty("RECORD_QUEUE_SIZE", config.getRECORD_QUEUE_SIZE() + "")));
+        config.setRECORD_DROP_WHEN_FULL(
+            Boolean.parseBoolean(
+                properties.getProperty(
+                    "RECORD_DROP_WHEN_FULL", config.isRECORD_DROP_WHEN_FULL() + "")));
+        config.setRECORD_ROLLUP_INTERVAL_MS(
+            Long.parseLong(
+                properties.getProperty(
+                    "RECORD_ROLLUP_INTERVAL_MS", config.getRECORD_ROLLUP_INTERVAL_MS() + "")));
+        config.setRECORD_ROLLUP_RAW_SAMPLE_RATE(
+            Double.parseDouble(
+                properties.getProperty(
+                    "RECORD_ROLLUP_RAW_SAMPLE_RATE",
+                    config.getRECORD_ROLLUP_RAW_SAMPLE_RATE() + "")));
+        config.setSQLITE_RESULT_FILE(
+            properties.getProperty("SQLITE_RESULT_FILE", config.getSQLITE_RESULT_FILE()));
+        config.setBINARY_LOG_PATH(
+            properties.getProperty("BINARY_LOG_PATH", config.getBINARY_LOG_PATH()));
+        config.setBINARY_LOG_AGGREGATE_MS(
+            Long.parseLong(
+                properties.getProperty(
+                    "BINARY_LOG_AGGREGATE_MS", config.getBINARY_LOG_AGGREGATE_MS() + "")));
         config.setCSV_OUTPUT(
             Boolean.parseBoolean(properties.getProperty("CSV_OUTPUT", config.isCSV_OUTPUT() + "")));
         config.setCSV_MAX_LINE(
@@ -368,6 +422,48 @@ public class ConfigDescriptor {
         config.setCSV_FILE_SPLIT(
             Boolean.parseBoolean(
                 properties.getProperty("CSV_FILE_SPLIT", config.isCSV_FILE_SPLIT() + "")));
+        config.setRESULT_INTERVAL_MS(
+            Long.parseLong(
+                properties.getProperty("RESULT_INTERVAL_MS", config.getRESULT_INTERVAL_MS() + "")));
+        config.setCLIENT_PAUSE_THRESHOLD_MS(
+            Long.parseLong(
+                properties.getProperty(
+                    "CLIENT_PAUSE_THRESHOLD_MS", config.getCLIENT_PAUSE_THRESHOLD_MS() + "")));
+        config.setMETRICS_PORT(
+            Integer.parseInt(
+                properties.getProperty("METRICS_PORT", config.getMETRICS_PORT() + "")));
+        config.setLATENCY_BY_GROUP(
+            Boolean.parseBoolean(
+                properties.getProperty("LATENCY_BY_GROUP", config.isLATENCY_BY_GROUP() + "")));
+        config.setLATENCY_DEVICE_SAMPLE_STEP(
+            Integer.parseInt(
+                properties.getProperty(
+                    "LATENCY_DEVICE_SAMPLE_STEP", config.getLATENCY_DEVICE_SAMPLE_STEP() + "")));
+        config.setLATENCY_TOP_N(
+            Integer.parseInt(
+                properties.getProperty("LATENCY_TOP_N", config.getLATENCY_TOP_N() + "")));
+        config.setRESULT_QUERY_OPERATION(
+            properties.getProperty("RESULT_QUERY_OPERATION", config.getRESULT_QUERY_OPERATION()));
+        config.setRESULT_QUERY_KEY(
+            properties.getProperty("RESULT_QUERY_KEY", config.getRESULT_QUERY_KEY()));
+        config.setRESULT_QUERY_FILTER(
+            properties.getProperty("RESULT_QUERY_FILTER", config.getRESULT_QUERY_FILTER()));
+        config.setRESULT_QUERY_RUN_NUMBER(
+            Integer.parseInt(
+                properties.getProperty(
+                    "RESULT_QUERY_RUN_NUMBER", config.getRESULT_QUERY_RUN_NUMBER() + "")));
+        config.setRESULT_QUERY_SQL(
+            properties.getProperty("RESULT_QUERY_SQL", config.getRESULT_QUERY_SQL()));
+        config.setCOMPARE_RESULT_FILES(
+            properties.getProperty("COMPARE_RESULT_FILES", config.getCOMPARE_RESULT_FILES()));
+        config.setCOMPARE_THRESHOLD_PERCENT(
+            Double.parseDouble(
+                properties.getProperty(
+                    "COMPARE_THRESHOLD_PERCENT", config.getCOMPARE_THRESHOLD_PERCENT() + "")));
+        config.setCOMPARE_BOOTSTRAP_NUMBER(
+            Integer.parseInt(
+                properties.getProperty(
+                    "COMPARE_BOOTSTRAP_NUMBER", config.getCOMPARE_BOOTSTRAP_NUMBER() + "")));
       } catch (IOException e) {
         e.printStackTrace();
       }
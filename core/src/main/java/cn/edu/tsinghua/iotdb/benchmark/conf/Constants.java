@@ -37,6 +37,8 @@ public class Constants {
   public static final String INSERT_USE_SESSION_RECORDS = "SESSION_BY_RECORDS";
   public static final String INSERT_USE_SESSION = "SESSION";
   public static final String INSERT_USE_SESSION_POOL = "SESSION_POOL";
+  public static final String INSERT_USE_COPY = "COPY";
+  public static final String INSERT_USE_MULTI_ROW = "MULTI_ROW";
 
   /** Different version of mode */
   public static final String VERSION_09 = "09";
@@ -82,6 +84,8 @@ public class Constants {
   public static final String DB_CTS = "CTSDB";
   public static final String DB_KAIROS = "KairosDB";
   public static final String DB_TIMESCALE = "TimescaleDB";
+  public static final String DB_TIMESCALE_COPY = DB_TIMESCALE + "-" + INSERT_USE_COPY;
+  public static final String DB_TIMESCALE_MULTI_ROW = DB_TIMESCALE + "-" + INSERT_USE_MULTI_ROW;
   public static final String DB_FAKE = "FakeDB";
   public static final String DB_TAOSDB = "TaosDB";
   public static final String DB_QUESTDB = "QuestDB";
@@ -100,12 +104,17 @@ public class Constants {
   public static final String MODE_QUERY_WITH_REAL_DATASET = "queryWithRealDataSet";
   public static final String MODE_TEST_WITH_DEFAULT_PATH = "testWithDefaultPath";
   public static final String MODE_SERVER_MODE = "serverMODE";
+  public static final String MODE_COMPARE_RESULT = "compareResult";
+  public static final String MODE_CONVERT_BINARY_LOG = "convertBinaryLog";
+  public static final String MODE_QUERY_RESULT_HISTORY = "queryResultHistory";
   /** support test data persistence */
   public static final String TDP_NONE = "None";
 
   public static final String TDP_IOTDB = "IoTDB";
   public static final String TDP_MYSQL = "MySQL";
   public static final String TDP_CSV = "CSV";
+  public static final String TDP_BINARY = "Binary";
+  public static final String TDP_SQLITE = "SQLite";
 
   /** device and storage group assignment */
   public static final String MOD_SG_ASSIGN_MODE = "mod";
@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.utils.IntObjectHashMap;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record throughput, failures and latency of each operation every RESULT_INTERVAL_MS while the
+ * clients are running, so that spikes can be lined up with events of the database under test. Each
+ * interval is printed as one line and appended to data/csvOutput/*-interval-result.csv. Once an
+ * operation is executed, it has a row in every following interval, with zero counts and no latency
+ * if none of it finished, so that stalls are not hidden.
+ *
+ * <p>If LATENCY_BY_GROUP is set, the average latency of each storage group in each interval is also
+ * written to data/csvOutput/*-group-latency-heatmap.csv when stopped, one row per interval and one
+ * column per group.
+ *
+ * <p>Pauses of the benchmark JVM itself are detected by PauseDetector, an interval is flagged as
+ * tainted if the benchmark stalled longer than CLIENT_PAUSE_THRESHOLD_MS in it.
+ */
+public class IntervalReporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IntervalReporter.class);
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private static final double NANO_TO_SECOND = 1000000000.0d;
+  private static final double MICROS_TO_MILLIS = 1000.0d;
+  private static final String CSV_HEAD =
+      "timestamp,elapsed(s),operation,okOperation,okPoint,failOperation,failPoint,"
+          + "throughput(point/s),p50(ms),p99(ms),max(ms),clientPause(ms),gcPause(ms),gcCount,tainted";
+
+  private static final int OK_OPERATION = 0;
+  private static final int OK_POINT = 1;
+  private static final int FAIL_OPERATION = 2;
+  private static final int FAIL_POINT = 3;
+
+  private final List<Measurement> measurements;
+  private final ScheduledExecutorService service;
+  private final PauseDetector pauseDetector = new PauseDetector();
+  private int intervalNum;
+  private int taintedIntervalNum;
+  /** Counters of all clients at the end of last interval, [operation][counter] */
+  private final long[][] lastCounters;
+  /** Latency histogram of all clients in current interval, reset on every interval */
+  private final Histogram[] intervalHistograms;
+  /** Counters of all clients and their increments in current interval, reused by every operation */
+  private final long[] counters = new long[4];
+
+  private final long[] delta = new long[4];
+
+  /** Latency histogram of all clients since start, only updated by report() */
+  private final Histogram[] totalHistograms;
+  /** Latency histograms of the last finished interval, read by MetricsServer */
+  private volatile Snapshot lastSnapshot;
+
+  private final boolean heatmapEnabled;
+  /** Operation number and latency sum of each group in current interval, key is group id */
+  private final IntObjectHashMap<long[]> groupLatency = new IntObjectHashMap<>();
+  /** "timestamp,elapsed" of each row of heatmap */
+  private final List<String> heatmapTimes = new ArrayList<>();
+  /** Average latency (ms) of each group in each interval, indexed by group id, NaN if none */
+  private final List<double[]> heatmapRows = new ArrayList<>();
+
+  private String startDate;
+  private long startTime;
+  private long lastTime;
+  private BufferedWriter writer;
+
+  /** @param measurements measurements of running clients */
+  public IntervalReporter(List<Measurement> measurements) {
+    this.measurements = measurements;
+    this.service =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "interval-reporter");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.heatmapEnabled = config.isLATENCY_BY_GROUP();
+    int operationNum = Operation.values().length;
+    this.lastCounters = new long[operationNum][4];
+    this.intervalHistograms = new Histogram[operationNum];
+    this.totalHistograms = new Histogram[operationNum];
+    for (int i = 0; i < operationNum; i++) {
+      intervalHistograms[i] = new Histogram(Measurement.LATENCY_SIGNIFICANT_DIGITS);
+      totalHistograms[i] = new Histogram(Measurement.LATENCY_SIGNIFICANT_DIGITS);
+    }
+  }
+
+  public void start() {
+    try {
+      File folder = new File("data/csvOutput");
+      if (!folder.exists()) {
+        folder.mkdirs();
+      }
+      startDate = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date());
+      File csv = new File(folder, startDate + "-interval-result.csv");
+      writer = new BufferedWriter(new FileWriter(csv));
+      writer.write(CSV_HEAD);
+      writer.newLine();
+    } catch (IOException e) {
+      LOGGER.error("Failed to create interval result file, only print to console.", e);
+      writer = null;
+    }
+    pauseDetector.start();
+    startTime = System.nanoTime();
+    lastTime = startTime;
+    long interval = config.getRESULT_INTERVAL_MS();
+    service.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop reporting, the last partial interval is reported before return. The reporter thread is
+   * waited for, so that the measurements are no longer read by it once this returns.
+   */
+  public void stop() {
+    service.shutdown();
+    try {
+      while (!service.awaitTermination(config.getRESULT_INTERVAL_MS(), TimeUnit.MILLISECONDS)) {
+        LOGGER.info("Waiting for the interval reporter to finish its report.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    report();
+    pauseDetector.stop();
+    if (taintedIntervalNum > 0) {
+      LOGGER.warn(
+          "{} of {} intervals are tainted, the benchmark itself paused longer than {}ms in them.",
+          taintedIntervalNum,
+          intervalNum,
+          config.getCLIENT_PAUSE_THRESHOLD_MS());
+    }
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        LOGGER.error("Failed to close interval result file.", e);
+      }
+    }
+    if (heatmapEnabled) {
+      writeHeatmap();
+    }
+  }
+
+  private synchronized void report() {
+    long now = System.nanoTime();
+    double intervalSecond = (now - lastTime) / NANO_TO_SECOND;
+    if (intervalSecond <= 0) {
+      return;
+    }
+    lastTime = now;
+    long timestamp = System.currentTimeMillis();
+    String elapsed = String.format("%.3f", (now - startTime) / NANO_TO_SECOND);
+    PauseDetector.Interval pause = pauseDetector.nextInterval();
+    boolean tainted = pause.isTainted(config.getCLIENT_PAUSE_THRESHOLD_MS());
+    intervalNum++;
+    if (tainted) {
+      taintedIntervalNum++;
+    }
+    String clientPause = String.format("%.2f", pause.getMaxPauseMillis());
+    StringBuilder line = new StringBuilder("Interval ").append(elapsed).append("s:");
+    Histogram[] snapshotInterval = new Histogram[intervalHistograms.length];
+    Histogram[] snapshotTotal = new Histogram[totalHistograms.length];
+    boolean active = false;
+    boolean written = false;
+    for (Operation operation : Operation.values()) {
+      int index = operation.ordinal();
+      Arrays.fill(counters, 0);
+      Histogram histogram = intervalHistograms[index];
+      histogram.reset();
+      for (Measurement measurement : measurements) {
+        counters[OK_OPERATION] += measurement.getOkOperationNum(operation);
+        counters[OK_POINT] += measurement.getOkPointNum(operation);
+        counters[FAIL_OPERATION] += measurement.getFailOperationNum(operation);
+        counters[FAIL_POINT] += measurement.getFailPointNum(operation);
+        measurement.addIntervalLatencyHistogram(operation, histogram);
+      }
+      for (int i = 0; i < 4; i++) {
+        delta[i] = counters[i] - lastCounters[index][i];
+        lastCounters[index][i] = counters[i];
+      }
+      if (histogram.getTotalCount() > 0) {
+        totalHistograms[index].add(histogram);
+        snapshotInterval[index] = histogram.copy();
+      }
+      if (totalHistograms[index].getTotalCount() > 0) {
+        snapshotTotal[index] = totalHistograms[index].copy();
+      }
+      String throughput = String.format("%.2f", delta[OK_POINT] / intervalSecond);
+      if (delta[OK_OPERATION] == 0 && delta[FAIL_OPERATION] == 0) {
+        // a stalled operation gets a row of zero, an operation never executed gets none
+        if (counters[OK_OPERATION] > 0 || counters[FAIL_OPERATION] > 0) {
+          written = true;
+          writeCsvLine(
+              getCsvLine(timestamp, elapsed, operation, delta, throughput, "", "", "", clientPause)
+                  + pause.getGcPauseMillis()
+                  + ","
+                  + pause.getGcCount()
+                  + ","
+                  + tainted);
+        }
+        continue;
+      }
+      active = true;
+      written = true;
+      String p50 = String.format("%.2f", Measurement.getPercentile(histogram, 50));
+      String p99 = String.format("%.2f", Measurement.getPercentile(histogram, 99));
+      String max = String.format("%.2f", Measurement.getPercentile(histogram, 100));
+      line.append(" ")
+          .append(operation.getName())
+          .append("[ok=")
+          .append(delta[OK_OPERATION])
+          .append(", fail=")
+          .append(delta[FAIL_OPERATION])
+          .append(", point/s=")
+          .append(throughput)
+          .append(", p50=")
+          .append(p50)
+          .append(", p99=")
+          .append(p99)
+          .append(", max=")
+          .append(max)
+          .append("ms]");
+      writeCsvLine(
+          getCsvLine(timestamp, elapsed, operation, delta, throughput, p50, p99, max, clientPause)
+              + pause.getGcPauseMillis()
+              + ","
+              + pause.getGcCount()
+              + ","
+              + tainted);
+    }
+    lastSnapshot = new Snapshot(timestamp, snapshotInterval, snapshotTotal);
+    if (heatmapEnabled) {
+      addHeatmapRow(timestamp + "," + elapsed);
+    }
+    if (!active) {
+      line.append(" no operation finished");
+    }
+    if (!written) {
+      // an interval may be idle because of a pause, so the pause is written anyway
+      writeCsvLine(
+          timestamp
+              + ","
+              + elapsed
+              + ",,,,,,,,,,"
+              + clientPause
+              + ","
+              + pause.getGcPauseMillis()
+              + ","
+              + pause.getGcCount()
+              + ","
+              + tainted);
+    }
+    line.append(" clientPause=")
+        .append(clientPause)
+        .append("ms, gcPause=")
+        .append(pause.getGcPauseMillis())
+        .append("ms(")
+        .append(pause.getGcCount())
+        .append(")");
+    if (tainted) {
+      line.append(" TAINTED: the benchmark itself stalled");
+      LOGGER.warn(line.toString());
+    } else {
+      LOGGER.info(line.toString());
+    }
+    if (writer != null) {
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        LOGGER.error("Failed to flush interval result file.", e);
+      }
+    }
+  }
+
+  /** @return columns of the row of operation up to clientPause, latency is empty if none */
+  private static String getCsvLine(
+      long timestamp,
+      String elapsed,
+      Operation operation,
+      long[] delta,
+      String throughput,
+      String p50,
+      String p99,
+      String max,
+      String clientPause) {
+    return timestamp
+        + ","
+        + elapsed
+        + ","
+        + operation.getName()
+        + ","
+        + delta[OK_OPERATION]
+        + ","
+        + delta[OK_POINT]
+        + ","
+        + delta[FAIL_OPERATION]
+        + ","
+        + delta[FAIL_POINT]
+        + ","
+        + throughput
+        + ","
+        + p50
+        + ","
+        + p99
+        + ","
+        + max
+        + ","
+        + clientPause
+        + ",";
+  }
+
+  /** Collect the average latency of each storage group in this interval */
+  private void addHeatmapRow(String time) {
+    for (Measurement measurement : measurements) {
+      LatencyAttribution attribution = measurement.getLatencyAttribution();
+      if (attribution != null) {
+        attribution.drainIntervalGroupLatency(groupLatency);
+      }
+    }
+    // groups are registered before recorded, so all the drained groups are in range
+    double[] row = new double[LatencyAttribution.getGroupNum()];
+    Arrays.fill(row, Double.NaN);
+    groupLatency.forEach(
+        (groupId, cell) -> {
+          if (cell[LatencyAttribution.COUNT] > 0) {
+            row[groupId] =
+                cell[LatencyAttribution.LATENCY_SUM]
+                    / (double) cell[LatencyAttribution.COUNT]
+                    / MICROS_TO_MILLIS;
+            cell[LatencyAttribution.COUNT] = 0;
+            cell[LatencyAttribution.LATENCY_SUM] = 0;
+          }
+        });
+    heatmapTimes.add(time);
+    heatmapRows.add(row);
+  }
+
+  private void writeHeatmap() {
+    File csv = new File("data/csvOutput", startDate + "-group-latency-heatmap.csv");
+    try (BufferedWriter bw = new BufferedWriter(new FileWriter(csv))) {
+      int groupNum = LatencyAttribution.getGroupNum();
+      bw.write("timestamp,elapsed(s)");
+      for (int i = 0; i < groupNum; i++) {
+        bw.write("," + LatencyAttribution.getGroupName(i));
+      }
+      bw.newLine();
+      for (int i = 0; i < heatmapRows.size(); i++) {
+        double[] row = heatmapRows.get(i);
+        bw.write(heatmapTimes.get(i));
+        for (int j = 0; j < groupNum; j++) {
+          bw.write(",");
+          if (j < row.length && !Double.isNaN(row[j])) {
+            bw.write(String.format("%.2f", row[j]));
+          }
+        }
+        bw.newLine();
+      }
+    } catch (IOException e) {
+      LOGGER.error("Failed to write group latency heatmap.", e);
+    }
+  }
+
+  private void writeCsvLine(String csvLine) {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.write(csvLine);
+      writer.newLine();
+    } catch (IOException e) {
+      LOGGER.error("Failed to write interval result file.", e);
+    }
+  }
+
+  /** @return latency histograms of the last finished interval, null before the first one */
+  public Snapshot getLastSnapshot() {
+    return lastSnapshot;
+  }
+
+  /** Immutable latency histograms (in microseconds) of an interval, indexed by operation ordinal */
+  public static class Snapshot {
+    private final long timestamp;
+    private final Histogram[] intervalHistograms;
+    private final Histogram[] totalHistograms;
+
+    Snapshot(long timestamp, Histogram[] intervalHistograms, Histogram[] totalHistograms) {
+      this.timestamp = timestamp;
+      this.intervalHistograms = intervalHistograms;
+      this.totalHistograms = totalHistograms;
+    }
+
+    /** @return end time of the interval in millisecond */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /** @return latency of operation in the interval, null if no operation finished */
+    public Histogram getIntervalHistogram(Operation operation) {
+      return intervalHistograms[operation.ordinal()];
+    }
+
+    /** @return latency of operation since start, null if no operation finished */
+    public Histogram getTotalHistogram(Operation operation) {
+      return totalHistograms[operation.ordinal()];
+    }
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.utils.IntObjectHashMap;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency of each storage group and of sampled devices, so that a slow group or a hot device does
+ * not disappear in the latency of all operations. Each client has one instance, in which the
+ * histograms are keyed by the id of group or device and the ordinal of operation.
+ */
+class LatencyAttribution {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private static final int OPERATION_NUM = Operation.values().length;
+  /** Less precise than operation histograms, since there may be a lot of groups and devices */
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  private static final double MILLIS_TO_MICROS = 1000.0;
+
+  /** Ids of groups and devices are shared by all clients, so that histograms can be merged */
+  private static final NameIndex GROUPS = new NameIndex();
+
+  private static final NameIndex DEVICES = new NameIndex();
+
+  static final int COUNT = 0;
+  static final int LATENCY_SUM = 1;
+
+  private final boolean byGroup;
+  private final int deviceSampleStep;
+  /** Latency histograms of groups, key is groupId * OPERATION_NUM + ordinal of operation */
+  private final IntObjectHashMap<Histogram> groupHistograms = new IntObjectHashMap<>();
+  /** Latency histograms of sampled devices, key is deviceId * OPERATION_NUM + ordinal */
+  private final IntObjectHashMap<Histogram> deviceHistograms = new IntObjectHashMap<>();
+  /** Operation number and latency sum (us) of each group in current interval, key is groupId */
+  private final IntObjectHashMap<long[]> intervalGroupLatency = new IntObjectHashMap<>();
+
+  LatencyAttribution() {
+    this.byGroup = config.isLATENCY_BY_GROUP();
+    this.deviceSampleStep = config.getLATENCY_DEVICE_SAMPLE_STEP();
+  }
+
+  static boolean isEnabled() {
+    return config.isLATENCY_BY_GROUP() || config.getLATENCY_DEVICE_SAMPLE_STEP() > 0;
+  }
+
+  /**
+   * Record latency of an operation on one device, called in the thread of client only
+   *
+   * @param operation operation
+   * @param deviceSchema device of operation
+   * @param latency latency in milliseconds
+   */
+  synchronized void record(Operation operation, DeviceSchema deviceSchema, double latency) {
+    long latencyInMicros = Math.max(0, Math.round(latency * MILLIS_TO_MICROS));
+    if (byGroup) {
+      recordGroup(operation, deviceSchema.getGroup(), latencyInMicros);
+    }
+    recordDevice(operation, deviceSchema.getDevice(), latencyInMicros);
+  }
+
+  /**
+   * Record latency of an operation on several devices, e.g. a query. The latency is recorded once
+   * for each group and each sampled device.
+   *
+   * @param operation operation
+   * @param deviceSchemas devices of operation
+   * @param latency latency in milliseconds
+   */
+  synchronized void record(Operation operation, List<DeviceSchema> deviceSchemas, double latency) {
+    long latencyInMicros = Math.max(0, Math.round(latency * MILLIS_TO_MICROS));
+    for (int i = 0; i < deviceSchemas.size(); i++) {
+      DeviceSchema deviceSchema = deviceSchemas.get(i);
+      if (byGroup && !containsGroup(deviceSchemas, i, deviceSchema.getGroup())) {
+        recordGroup(operation, deviceSchema.getGroup(), latencyInMicros);
+      }
+      recordDevice(operation, deviceSchema.getDevice(), latencyInMicros);
+    }
+  }
+
+  /** @return whether one of the first end devices belongs to group */
+  private static boolean containsGroup(List<DeviceSchema> deviceSchemas, int end, String group) {
+    for (int i = 0; i < end; i++) {
+      if (deviceSchemas.get(i).getGroup().equals(group)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void recordGroup(Operation operation, String group, long latencyInMicros) {
+    int groupId = GROUPS.getId(group);
+    getHistogram(groupHistograms, groupId * OPERATION_NUM + operation.ordinal())
+        .recordValue(latencyInMicros);
+    long[] cell = intervalGroupLatency.get(groupId);
+    if (cell == null) {
+      cell = new long[2];
+      intervalGroupLatency.put(groupId, cell);
+    }
+    cell[COUNT]++;
+    cell[LATENCY_SUM] += latencyInMicros;
+  }
+
+  private void recordDevice(Operation operation, String device, long latencyInMicros) {
+    if (deviceSampleStep <= 0 || Math.floorMod(device.hashCode(), deviceSampleStep) != 0) {
+      return;
+    }
+    int deviceId = DEVICES.getId(device);
+    getHistogram(deviceHistograms, deviceId * OPERATION_NUM + operation.ordinal())
+        .recordValue(latencyInMicros);
+  }
+
+  private static Histogram getHistogram(IntObjectHashMap<Histogram> histograms, int key) {
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      histogram = new Histogram(SIGNIFICANT_DIGITS);
+      histograms.put(key, histogram);
+    }
+    return histogram;
+  }
+
+  /**
+   * Merge histograms of another client, which must not be recording any more
+   *
+   * @param other latency attribution of another client
+   */
+  synchronized void merge(LatencyAttribution other) {
+    other.groupHistograms.forEach(
+        (key, histogram) -> getHistogram(groupHistograms, key).add(histogram));
+    other.deviceHistograms.forEach(
+        (key, histogram) -> getHistogram(deviceHistograms, key).add(histogram));
+  }
+
+  /**
+   * Add the operation number and latency sum of each group in current interval to target, and start
+   * a new interval
+   *
+   * @param target key is groupId, value is {operation number, latency sum in microseconds}
+   */
+  synchronized void drainIntervalGroupLatency(IntObjectHashMap<long[]> target) {
+    intervalGroupLatency.forEach(
+        (groupId, cell) -> {
+          if (cell[COUNT] == 0) {
+            return;
+          }
+          long[] targetCell = target.get(groupId);
+          if (targetCell == null) {
+            targetCell = new long[2];
+            target.put(groupId, targetCell);
+          }
+          targetCell[COUNT] += cell[COUNT];
+          targetCell[LATENCY_SUM] += cell[LATENCY_SUM];
+          cell[COUNT] = 0;
+          cell[LATENCY_SUM] = 0;
+        });
+  }
+
+  boolean isEmpty() {
+    return groupHistograms.isEmpty() && deviceHistograms.isEmpty();
+  }
+
+  /**
+   * @param operation operation
+   * @param n max number of groups
+   * @return groups of operation with the highest P99 latency, slowest first
+   */
+  List<NamedHistogram> getSlowestGroups(Operation operation, int n) {
+    return getSlowest(groupHistograms, GROUPS, operation, n);
+  }
+
+  /**
+   * @param operation operation
+   * @param n max number of devices
+   * @return sampled devices of operation with the highest P99 latency, slowest first
+   */
+  List<NamedHistogram> getSlowestDevices(Operation operation, int n) {
+    return getSlowest(deviceHistograms, DEVICES, operation, n);
+  }
+
+  private static List<NamedHistogram> getSlowest(
+      IntObjectHashMap<Histogram> histograms, NameIndex names, Operation operation, int n) {
+    List<NamedHistogram> result = new ArrayList<>();
+    histograms.forEach(
+        (key, histogram) -> {
+          if (key % OPERATION_NUM == operation.ordinal()) {
+            result.add(new NamedHistogram(names.getName(key / OPERATION_NUM), histogram));
+          }
+        });
+    result.sort(
+        (a, b) ->
+            Long.compare(
+                b.getHistogram().getValueAtPercentile(99),
+                a.getHistogram().getValueAtPercentile(99)));
+    return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+  }
+
+  /** @return number of groups that have been recorded by any client */
+  static int getGroupNum() {
+    return GROUPS.size();
+  }
+
+  static String getGroupName(int groupId) {
+    return GROUPS.getName(groupId);
+  }
+
+  /** Latency histogram (in microseconds) of a group or device */
+  static class NamedHistogram {
+    private final String name;
+    private final Histogram histogram;
+
+    NamedHistogram(String name, Histogram histogram) {
+      this.name = name;
+      this.histogram = histogram;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Histogram getHistogram() {
+      return histogram;
+    }
+  }
+
+  /** Assign a dense id to each name */
+  private static class NameIndex {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    int getId(String name) {
+      Integer id = ids.get(name);
+      return id != null ? id : register(name);
+    }
+
+    private synchronized int register(String name) {
+      Integer id = ids.get(name);
+      if (id == null) {
+        id = names.size();
+        names.add(name);
+        ids.put(name, id);
+      }
+      return id;
+    }
+
+    synchronized String getName(int id) {
+      return names.get(id);
+    }
+
+    synchronized int size() {
+      return names.size();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
+
+import java.util.Arrays;
+
+/**
+ * Optional breakdown of operation latency into phases. DBWrapper begins the timer of client thread
+ * before calling the database, and a database can call mark(phase) at the end of each phase, the
+ * time since the previous mark is then added to that phase. Databases that never call mark() are
+ * not affected.
+ *
+ * <p>e.g. build a Tablet, mark(BUILD_REQUEST), insert it, mark(SEND_AND_WAIT)
+ */
+public class LatencyPhaseTimer {
+
+  private static final ThreadLocal<LatencyPhaseTimer> TIMER =
+      ThreadLocal.withInitial(LatencyPhaseTimer::new);
+
+  /** Cost of each phase in nanoseconds, indexed by ordinal of phase */
+  private final long[] phaseCost = new long[LatencyPhase.values().length];
+
+  private long lastMark;
+  private boolean marked;
+
+  private LatencyPhaseTimer() {}
+
+  /** Start timing an operation of current thread */
+  static void begin() {
+    LatencyPhaseTimer timer = TIMER.get();
+    if (timer.marked) {
+      Arrays.fill(timer.phaseCost, 0);
+      timer.marked = false;
+    }
+    timer.lastMark = System.nanoTime();
+  }
+
+  /**
+   * Add the time since begin or the previous mark to phase
+   *
+   * @param phase the phase which is just finished
+   */
+  public static void mark(LatencyPhase phase) {
+    LatencyPhaseTimer timer = TIMER.get();
+    long now = System.nanoTime();
+    timer.phaseCost[phase.ordinal()] += now - timer.lastMark;
+    timer.lastMark = now;
+    timer.marked = true;
+  }
+
+  /**
+   * Add the time since begin or the previous mark until the given time to phase, for a phase
+   * finished by another thread, e.g. a session borrowed by a worker of client
+   *
+   * @param phase the phase which is finished
+   * @param nanoTime when the phase is finished, by System.nanoTime()
+   */
+  public static void markAt(LatencyPhase phase, long nanoTime) {
+    LatencyPhaseTimer timer = TIMER.get();
+    if (nanoTime > timer.lastMark) {
+      timer.phaseCost[phase.ordinal()] += nanoTime - timer.lastMark;
+      timer.lastMark = nanoTime;
+    }
+    timer.marked = true;
+  }
+
+  /** Record the phases of the operation of current thread into measurement */
+  static void end(Measurement measurement, Operation operation) {
+    LatencyPhaseTimer timer = TIMER.get();
+    if (!timer.marked) {
+      return;
+    }
+    for (LatencyPhase phase : LatencyPhase.values()) {
+      long cost = timer.phaseCost[phase.ordinal()];
+      if (cost > 0) {
+        measurement.addPhaseLatency(operation, phase, cost);
+      }
+    }
+    Arrays.fill(timer.phaseCost, 0);
+    timer.marked = false;
+  }
+}
@@ -22,12 +22,15 @@ package cn.edu.tsinghua.iotdb.benchmark.measurement;
 import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.Metric;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.TotalOperationResult;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.TotalResult;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.PersistenceFactory;
-import com.clearspring.analytics.stream.quantile.TDigest;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,30 +41,67 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Measurement {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Measurement.class);
   private static final Config config = ConfigDescriptor.getInstance().getConfig();
-  private static final Map<Operation, TDigest> operationLatencyDigest =
-      new EnumMap<>(Operation.class);
   private static final Map<Operation, Double> operationLatencySumAllClient =
       new EnumMap<>(Operation.class);
   private double createSchemaTime;
+  /** Number of time series registered in createSchemaTime */
+  private long createSchemaSeriesNum;
+
   private double elapseTime;
   private final Map<Operation, Double> operationLatencySumThisClient;
-  private final Map<Operation, Long> okOperationNumMap;
-  private final Map<Operation, Long> failOperationNumMap;
-  private final Map<Operation, Long> okPointNumMap;
-  private final Map<Operation, Long> failPointNumMap;
+  // counters are atomic so that IntervalReporter can read them while the client is running
+  private final Map<Operation, AtomicLong> okOperationNumMap;
+  private final Map<Operation, AtomicLong> failOperationNumMap;
+  private final Map<Operation, AtomicLong> okPointNumMap;
+  private final Map<Operation, AtomicLong> failPointNumMap;
+  /** Number of operations which have been sent to database but not finished */
+  private final Map<Operation, AtomicLong> inFlightOperationNumMap;
+  /**
+   * Latency (in microseconds) of this client. Writing to a recorder is wait-free, the recorded
+   * values are only taken out when reporting, see getIntervalLatencyHistogram
+   */
+  private final Map<Operation, Recorder> operationLatencyRecorder;
+  /** Latency (in microseconds) taken out of the recorders and merged from other measurements */
+  private final Map<Operation, Histogram> operationLatencyHistogram;
+  /** The last interval histogram of each operation, recycled by getIntervalLatencyHistogram */
+  private final Map<Operation, Histogram> operationLatencyIntervalHistogram;
+  /** Latency (in microseconds) of phases, only for operations whose database marks phases */
+  private final Map<Operation, Map<LatencyPhase, Histogram>> phaseLatencyHistogram;
+  /** Latency of storage groups and sampled devices, null if disabled */
+  private final LatencyAttribution latencyAttribution;
+  /** Cost of successful queries of each operation */
+  private final Map<Operation, QueryCost> queryCostMap;
+
   private static final String RESULT_ITEM = "%-20s";
   private static final String LATENCY_ITEM = "%-12s";
-  private static final int COMPRESSION = 100;
+  private static final String NAME_ITEM = "%-30s";
+  private static final String[] HISTOGRAM_METRICS = {"COUNT", "AVG", "P50", "P99", "MAX"};
+  static final String[] QUERY_COST_METRICS = {
+    "QUERY",
+    "ROW",
+    "POINT",
+    "BYTES",
+    "POINT/QUERY",
+    "BYTES/QUERY",
+    "SERVER_TIMED",
+    "SERVER_AVG",
+    "SERVER_RATIO"
+  };
+  /** Precision of latency histogram, 3 means the relative error is less than 0.1% */
+  static final int LATENCY_SIGNIFICANT_DIGITS = 3;
+
+  private static final double MILLIS_TO_MICROS = 1000.0;
 
   static {
     for (Operation operation : Operation.values()) {
-      operationLatencyDigest.put(operation, new TDigest(COMPRESSION));
       operationLatencySumAllClient.put(operation, 0D);
     }
   }
@@ -71,13 +111,24 @@ public class Measurement {
     failOperationNumMap = new EnumMap<>(Operation.class);
     okPointNumMap = new EnumMap<>(Operation.class);
     failPointNumMap = new EnumMap<>(Operation.class);
+    inFlightOperationNumMap = new EnumMap<>(Operation.class);
     operationLatencySumThisClient = new EnumMap<>(Operation.class);
+    operationLatencyRecorder = new EnumMap<>(Operation.class);
+    operationLatencyHistogram = new EnumMap<>(Operation.class);
+    operationLatencyIntervalHistogram = new EnumMap<>(Operation.class);
+    phaseLatencyHistogram = new EnumMap<>(Operation.class);
+    queryCostMap = new EnumMap<>(Operation.class);
+    latencyAttribution = LatencyAttribution.isEnabled() ? new LatencyAttribution() : null;
     for (Operation operation : Operation.values()) {
-      okOperationNumMap.put(operation, 0L);
-      failOperationNumMap.put(operation, 0L);
-      okPointNumMap.put(operation, 0L);
-      failPointNumMap.put(operation, 0L);
+      okOperationNumMap.put(operation, new AtomicLong());
+      failOperationNumMap.put(operation, new AtomicLong());
+      okPointNumMap.put(operation, new AtomicLong());
+      failPointNumMap.put(operation, new AtomicLong());
+      inFlightOperationNumMap.put(operation, new AtomicLong());
       operationLatencySumThisClient.put(operation, 0D);
+      operationLatencyRecorder.put(operation, new Recorder(LATENCY_SIGNIFICANT_DIGITS));
+      operationLatencyHistogram.put(operation, new Histogram(LATENCY_SIGNIFICANT_DIGITS));
+      queryCostMap.put(operation, new QueryCost());
     }
   }
 
@@ -88,12 +139,18 @@ public class Measurement {
    */
   public void mergeMeasurement(Measurement m) {
     for (Operation operation : Operation.values()) {
-      okOperationNumMap.put(
-          operation, okOperationNumMap.get(operation) + m.getOkOperationNum(operation));
-      failOperationNumMap.put(
-          operation, failOperationNumMap.get(operation) + m.getFailOperationNum(operation));
-      okPointNumMap.put(operation, okPointNumMap.get(operation) + m.getOkPointNum(operation));
-      failPointNumMap.put(operation, failPointNumMap.get(operation) + m.getFailPointNum(operation));
+      okOperationNumMap.get(operation).addAndGet(m.getOkOperationNum(operation));
+      failOperationNumMap.get(operation).addAndGet(m.getFailOperationNum(operation));
+      okPointNumMap.get(operation).addAndGet(m.getOkPointNum(operation));
+      failPointNumMap.get(operation).addAndGet(m.getFailPointNum(operation));
+      addLatencyHistogram(operation, m.getLatencyHistogram(operation));
+      queryCostMap.get(operation).merge(m.getQueryCost(operation));
+      Map<LatencyPhase, Histogram> phaseHistograms = m.phaseLatencyHistogram.get(operation);
+      if (phaseHistograms != null) {
+        for (Map.Entry<LatencyPhase, Histogram> entry : phaseHistograms.entrySet()) {
+          getPhaseLatencyHistogram(operation, entry.getKey()).add(entry.getValue());
+        }
+      }
 
       // set operationLatencySumThisClient of this measurement the largest latency sum among all
       // threads
@@ -107,63 +164,75 @@ public class Measurement {
           operationLatencySumAllClient.get(operation)
               + m.getOperationLatencySumThisClient().get(operation));
     }
+    if (latencyAttribution != null && m.latencyAttribution != null) {
+      latencyAttribution.merge(m.latencyAttribution);
+    }
   }
 
   /** Calculate metrics of each operation */
   public void calculateMetrics() {
     for (Operation operation : Operation.values()) {
       double avgLatency;
-      if (okOperationNumMap.get(operation) != 0) {
-        avgLatency = operationLatencySumAllClient.get(operation) / okOperationNumMap.get(operation);
+      if (getOkOperationNum(operation) != 0) {
+        Histogram histogram = getLatencyHistogram(operation);
+        avgLatency = operationLatencySumAllClient.get(operation) / getOkOperationNum(operation);
         Metric.AVG_LATENCY.getTypeValueMap().put(operation, avgLatency);
         Metric.MAX_THREAD_LATENCY_SUM
             .getTypeValueMap()
             .put(operation, operationLatencySumThisClient.get(operation));
         Metric.MIN_LATENCY
             .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.0));
+            .put(operation, histogram.getMinValue() / MILLIS_TO_MICROS);
         Metric.MAX_LATENCY
             .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(1.0));
-        Metric.P10_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.1));
-        Metric.P25_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.25));
-        Metric.MEDIAN_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.5));
-        Metric.P75_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.75));
-        Metric.P90_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.90));
-        Metric.P95_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.95));
-        Metric.P99_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.99));
-        Metric.P999_LATENCY
-            .getTypeValueMap()
-            .put(operation, operationLatencyDigest.get(operation).quantile(0.999));
+            .put(operation, histogram.getMaxValue() / MILLIS_TO_MICROS);
+        Metric.P10_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 10));
+        Metric.P25_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 25));
+        Metric.MEDIAN_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 50));
+        Metric.P75_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 75));
+        Metric.P90_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 90));
+        Metric.P95_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 95));
+        Metric.P99_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 99));
+        Metric.P999_LATENCY.getTypeValueMap().put(operation, getPercentile(histogram, 99.9));
       }
     }
   }
 
+  /**
+   * Get latency of percentile in histogram
+   *
+   * @param histogram latency histogram in microseconds
+   * @param percentile percentile, e.g. 99.9
+   * @return latency in milliseconds
+   */
+  public static double getPercentile(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / MILLIS_TO_MICROS;
+  }
+
   /** Show measurements and record according to TEST_DATA_PERSISTENCE */
   public void showMeasurements() {
     PersistenceFactory persistenceFactory = new PersistenceFactory();
     ITestDataPersistence recorder = persistenceFactory.getPersistence();
     System.out.println(Thread.currentThread().getName() + " measurements:");
     System.out.println("Create schema cost " + String.format("%.2f", createSchemaTime) + " second");
+    String createSchemaThroughput =
+        String.format(
+            "%.2f", createSchemaTime > 0 ? createSchemaSeriesNum / createSchemaTime : 0.0);
+    System.out.println(
+        "Create schema of "
+            + createSchemaSeriesNum
+            + " time series, throughput "
+            + createSchemaThroughput
+            + " series/s");
     System.out.println(
         "Test elapsed time (not include schema creation): "
             + String.format("%.2f", elapseTime)
             + " second");
     recorder.saveResult("total", TotalResult.CREATE_SCHEMA_TIME.getName(), "" + createSchemaTime);
+    recorder.saveResult(
+        "total", TotalResult.CREATE_SCHEMA_SERIES_NUM.getName(), "" + createSchemaSeriesNum);
+    recorder.saveResult(
+        "total", TotalResult.CREATE_SCHEMA_THROUGHPUT.getName(), createSchemaThroughput);
     recorder.saveResult("total", TotalResult.ELAPSED_TIME.getName(), "" + elapseTime);
 
     System.out.println(
@@ -182,32 +251,32 @@ public class Measurement {
         "failPoint",
         "throughput(point/s)");
     for (Operation operation : Operation.values()) {
-      String throughput = String.format("%.2f", okPointNumMap.get(operation) / elapseTime);
+      String throughput = String.format("%.2f", getOkPointNum(operation) / elapseTime);
       System.out.printf(
           format.toString(),
           operation.getName(),
-          okOperationNumMap.get(operation),
-          okPointNumMap.get(operation),
-          failOperationNumMap.get(operation),
-          failPointNumMap.get(operation),
+          getOkOperationNum(operation),
+          getOkPointNum(operation),
+          getFailOperationNum(operation),
+          getFailPointNum(operation),
           throughput);
 
       recorder.saveResult(
           operation.toString(),
           TotalOperationResult.OK_OPERATION_NUM.getName(),
-          "" + okOperationNumMap.get(operation));
+          "" + getOkOperationNum(operation));
       recorder.saveResult(
           operation.toString(),
           TotalOperationResult.OK_POINT_NUM.getName(),
-          "" + okPointNumMap.get(operation));
+          "" + getOkPointNum(operation));
       recorder.saveResult(
           operation.toString(),
           TotalOperationResult.FAIL_OPERATION_NUM.getName(),
-          "" + failOperationNumMap.get(operation));
+          "" + getFailOperationNum(operation));
       recorder.saveResult(
           operation.toString(),
           TotalOperationResult.FAIL_POINT_NUM.getName(),
-          "" + failPointNumMap.get(operation));
+          "" + getFailPointNum(operation));
       recorder.saveResult(
           operation.toString(), TotalOperationResult.THROUGHPUT.getName(), throughput);
     }
@@ -261,9 +330,134 @@ public class Measurement {
     }
     System.out.println(
         "-----------------------------------------------------------------------------------------------------------------------------------------------------------------------");
+    if (!phaseLatencyHistogram.isEmpty()) {
+      showPhaseMetrics(recorder);
+    }
+    if (latencyAttribution != null && !latencyAttribution.isEmpty()) {
+      showSlowestMetrics(recorder);
+    }
+    if (hasQueryCost()) {
+      showQueryCostMetrics(recorder);
+    }
     recorder.close();
   }
 
+  /** Show latency of each phase, only for operations whose database marks phases */
+  private void showPhaseMetrics(ITestDataPersistence recorder) {
+    System.out.println(
+        "--------------------------------------------------Latency Phase (ms) Matrix--------------------------------------------------");
+    System.out.printf(RESULT_ITEM + RESULT_ITEM, "Operation", "Phase");
+    for (String name : HISTOGRAM_METRICS) {
+      System.out.printf(LATENCY_ITEM, name);
+    }
+    System.out.println();
+    for (Map.Entry<Operation, Map<LatencyPhase, Histogram>> operationEntry :
+        phaseLatencyHistogram.entrySet()) {
+      for (Map.Entry<LatencyPhase, Histogram> entry : operationEntry.getValue().entrySet()) {
+        String[] values = getHistogramMetrics(entry.getValue());
+        System.out.printf(
+            RESULT_ITEM + RESULT_ITEM, operationEntry.getKey().getName(), entry.getKey().getName());
+        for (int i = 0; i < values.length; i++) {
+          System.out.printf(LATENCY_ITEM, values[i]);
+          recorder.saveResult(
+              operationEntry.getKey().toString(),
+              entry.getKey().getName() + "_" + HISTOGRAM_METRICS[i],
+              values[i]);
+        }
+        System.out.println();
+      }
+    }
+    System.out.println(
+        "-----------------------------------------------------------------------------------------------------------------------------");
+  }
+
+  /** Show cost of successful queries, only for operations which are executed */
+  private void showQueryCostMetrics(ITestDataPersistence recorder) {
+    System.out.println(
+        "-------------------------------------------------------Query Cost Matrix-------------------------------------------------------");
+    System.out.printf(RESULT_ITEM, "Operation");
+    for (String name : QUERY_COST_METRICS) {
+      System.out.printf(LATENCY_ITEM, name);
+    }
+    System.out.println();
+    for (Map.Entry<Operation, QueryCost> entry : queryCostMap.entrySet()) {
+      if (entry.getValue().getQueryNum() == 0) {
+        continue;
+      }
+      String[] values = entry.getValue().getMetrics();
+      System.out.printf(RESULT_ITEM, entry.getKey().getName());
+      for (int i = 0; i < values.length; i++) {
+        System.out.printf(LATENCY_ITEM, values[i]);
+        recorder.saveResult(
+            entry.getKey().toString(), "QUERY_COST_" + QUERY_COST_METRICS[i], values[i]);
+      }
+      System.out.println();
+    }
+    System.out.println(
+        "-------------------------------------------------------------------------------------------------------------------------------");
+  }
+
+  private boolean hasQueryCost() {
+    for (QueryCost queryCost : queryCostMap.values()) {
+      if (queryCost.getQueryNum() > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Show storage groups and sampled devices with the highest P99 latency of each operation */
+  private void showSlowestMetrics(ITestDataPersistence recorder) {
+    System.out.println(
+        "------------------------------------------------Slowest Groups and Devices (ms)------------------------------------------------");
+    System.out.printf(RESULT_ITEM + NAME_ITEM, "Operation", "Group/Device");
+    for (String name : HISTOGRAM_METRICS) {
+      System.out.printf(LATENCY_ITEM, name);
+    }
+    System.out.println();
+    int topN = config.getLATENCY_TOP_N();
+    for (Operation operation : Operation.values()) {
+      for (LatencyAttribution.NamedHistogram slowest :
+          latencyAttribution.getSlowestGroups(operation, topN)) {
+        showSlowestMetric(recorder, operation, "group", slowest);
+      }
+      for (LatencyAttribution.NamedHistogram slowest :
+          latencyAttribution.getSlowestDevices(operation, topN)) {
+        showSlowestMetric(recorder, operation, "device", slowest);
+      }
+    }
+    System.out.println(
+        "-------------------------------------------------------------------------------------------------------------------------------");
+  }
+
+  private void showSlowestMetric(
+      ITestDataPersistence recorder,
+      Operation operation,
+      String type,
+      LatencyAttribution.NamedHistogram slowest) {
+    String[] values = getHistogramMetrics(slowest.getHistogram());
+    System.out.printf(RESULT_ITEM + NAME_ITEM, operation.getName(), type + ":" + slowest.getName());
+    for (int i = 0; i < values.length; i++) {
+      System.out.printf(LATENCY_ITEM, values[i]);
+      recorder.saveResult(
+          operation.toString(),
+          type + ":" + slowest.getName() + "_" + HISTOGRAM_METRICS[i],
+          values[i]);
+    }
+    System.out.println();
+  }
+
+  /** @return count, AVG, P50, P99 and MAX of latency histogram */
+  private String[] getHistogramMetrics(Histogram histogram) {
+    return new String[] {
+      String.valueOf(histogram.getTotalCount()),
+      String.format("%.2f", histogram.getMean() / MILLIS_TO_MICROS),
+      String.format("%.2f", getPercentile(histogram, 50)),
+      String.format("%.2f", getPercentile(histogram, 99)),
+      String.format("%.2f", getPercentile(histogram, 100))
+    };
+  }
+
   /** output measurement to csv */
   public void outputCSV() {
     MeasurementCsvWriter measurementCsvWriter = new MeasurementCsvWriter();
@@ -281,6 +475,15 @@ public class Measurement {
         outputConfigToCSV(csv);
         outputResultMetricToCSV(csv);
         outputLatencyMetricsToCSV(csv);
+        if (!phaseLatencyHistogram.isEmpty()) {
+          outputPhaseMetricsToCSV(csv);
+        }
+        if (latencyAttribution != null && !latencyAttribution.isEmpty()) {
+          outputSlowestMetricsToCSV(csv);
+        }
+        if (hasQueryCost()) {
+          outputQueryCostMetricsToCSV(csv);
+        }
 
       } catch (IOException e) {
         LOGGER.error("Exception occurred during writing csv file because: ", e);
@@ -403,18 +606,18 @@ public class Measurement {
                 + ","
                 + "throughput(point/s)");
         for (Operation operation : Operation.values()) {
-          String throughput = String.format("%.2f", okPointNumMap.get(operation) / elapseTime);
+          String throughput = String.format("%.2f", getOkPointNum(operation) / elapseTime);
           bw.newLine();
           bw.write(
               operation.getName()
                   + ","
-                  + okOperationNumMap.get(operation)
+                  + getOkOperationNum(operation)
                   + ","
-                  + okPointNumMap.get(operation)
+                  + getOkPointNum(operation)
                   + ","
-                  + failOperationNumMap.get(operation)
+                  + getFailOperationNum(operation)
                   + ","
-                  + failPointNumMap.get(operation)
+                  + getFailPointNum(operation)
                   + ","
                   + throughput);
         }
@@ -424,6 +627,94 @@ public class Measurement {
       }
     }
 
+    /**
+     * Write latency of phases to csv
+     *
+     * @param csv
+     */
+    private void outputPhaseMetricsToCSV(File csv) {
+      try (BufferedWriter bw = new BufferedWriter(new FileWriter(csv, true))) {
+        bw.newLine();
+        bw.write("Latency Phase (ms) Matrix");
+        bw.newLine();
+        bw.write("Operation,Phase," + String.join(",", HISTOGRAM_METRICS));
+        bw.newLine();
+        for (Map.Entry<Operation, Map<LatencyPhase, Histogram>> operationEntry :
+            phaseLatencyHistogram.entrySet()) {
+          for (Map.Entry<LatencyPhase, Histogram> entry : operationEntry.getValue().entrySet()) {
+            bw.write(operationEntry.getKey().getName() + "," + entry.getKey().getName());
+            bw.write("," + String.join(",", getHistogramMetrics(entry.getValue())));
+            bw.newLine();
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.error("Exception occurred during operating buffer writer because: ", e);
+      }
+    }
+
+    /**
+     * Write cost of successful queries to csv
+     *
+     * @param csv
+     */
+    private void outputQueryCostMetricsToCSV(File csv) {
+      try (BufferedWriter bw = new BufferedWriter(new FileWriter(csv, true))) {
+        bw.newLine();
+        bw.write("Query Cost Matrix");
+        bw.newLine();
+        bw.write("Operation," + String.join(",", QUERY_COST_METRICS));
+        bw.newLine();
+        for (Map.Entry<Operation, QueryCost> entry : queryCostMap.entrySet()) {
+          if (entry.getValue().getQueryNum() > 0) {
+            bw.write(
+                entry.getKey().getName() + "," + String.join(",", entry.getValue().getMetrics()));
+            bw.newLine();
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.error("Exception occurred during operating buffer writer because: ", e);
+      }
+    }
+
+    /**
+     * Write the slowest storage groups and sampled devices to csv
+     *
+     * @param csv
+     */
+    private void outputSlowestMetricsToCSV(File csv) {
+      try (BufferedWriter bw = new BufferedWriter(new FileWriter(csv, true))) {
+        bw.newLine();
+        bw.write("Slowest Groups and Devices (ms)");
+        bw.newLine();
+        bw.write("Operation,Type,Name," + String.join(",", HISTOGRAM_METRICS));
+        bw.newLine();
+        int topN = config.getLATENCY_TOP_N();
+        for (Operation operation : Operation.values()) {
+          for (LatencyAttribution.NamedHistogram slowest :
+              latencyAttribution.getSlowestGroups(operation, topN)) {
+            writeSlowestMetric(bw, operation, "group", slowest);
+          }
+          for (LatencyAttribution.NamedHistogram slowest :
+              latencyAttribution.getSlowestDevices(operation, topN)) {
+            writeSlowestMetric(bw, operation, "device", slowest);
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.error("Exception occurred during operating buffer writer because: ", e);
+      }
+    }
+
+    private void writeSlowestMetric(
+        BufferedWriter bw,
+        Operation operation,
+        String type,
+        LatencyAttribution.NamedHistogram slowest)
+        throws IOException {
+      bw.write(operation.getName() + "," + type + "," + slowest.getName());
+      bw.write("," + String.join(",", getHistogramMetrics(slowest.getHistogram())));
+      bw.newLine();
+    }
+
     /**
      * Write Latency metric to csv
      *
@@ -459,43 +750,200 @@ public class Measurement {
     return operationLatencySumThisClient;
   }
 
-  private long getOkOperationNum(Operation operation) {
-    return okOperationNumMap.get(operation);
+  public long getOkOperationNum(Operation operation) {
+    return okOperationNumMap.get(operation).get();
+  }
+
+  public long getFailOperationNum(Operation operation) {
+    return failOperationNumMap.get(operation).get();
+  }
+
+  public long getOkPointNum(Operation operation) {
+    return okPointNumMap.get(operation).get();
   }
 
-  private long getFailOperationNum(Operation operation) {
-    return failOperationNumMap.get(operation);
+  public long getFailPointNum(Operation operation) {
+    return failPointNumMap.get(operation).get();
   }
 
-  private long getOkPointNum(Operation operation) {
-    return okPointNumMap.get(operation);
+  /**
+   * Take the latency recorded since last call out of the recorder, and add it to the total latency
+   * histogram of this measurement. It can be called by other threads while this client is running.
+   *
+   * @param operation operation
+   * @return latency histogram of the interval in microseconds, which is only valid until the next
+   *     call
+   */
+  public synchronized Histogram getIntervalLatencyHistogram(Operation operation) {
+    // recycle the histogram returned last time to avoid allocation on every interval
+    Histogram interval =
+        operationLatencyRecorder
+            .get(operation)
+            .getIntervalHistogram(operationLatencyIntervalHistogram.get(operation));
+    operationLatencyIntervalHistogram.put(operation, interval);
+    operationLatencyHistogram.get(operation).add(interval);
+    return interval;
+  }
+
+  /**
+   * Same as getIntervalLatencyHistogram, but the interval histogram is added into target under the
+   * lock of this measurement, so that it is not recycled by another call while being read.
+   *
+   * @param operation operation
+   * @param target histogram the latency of the interval is added into, in microseconds
+   */
+  public synchronized void addIntervalLatencyHistogram(Operation operation, Histogram target) {
+    target.add(getIntervalLatencyHistogram(operation));
+  }
+
+  /**
+   * Get latency histogram of all operations recorded by or merged into this measurement
+   *
+   * @param operation operation
+   * @return latency histogram, in microseconds
+   */
+  public synchronized Histogram getLatencyHistogram(Operation operation) {
+    getIntervalLatencyHistogram(operation);
+    return operationLatencyHistogram.get(operation);
   }
 
-  private long getFailPointNum(Operation operation) {
-    return failPointNumMap.get(operation);
+  private synchronized void addLatencyHistogram(Operation operation, Histogram histogram) {
+    operationLatencyHistogram.get(operation).add(histogram);
   }
 
+  /**
+   * Record latency of an operation, called in the thread of client only
+   *
+   * @param op operation
+   * @param latency latency in milliseconds
+   */
   public void addOperationLatency(Operation op, double latency) {
-    synchronized (operationLatencyDigest.get(op)) {
-      operationLatencyDigest.get(op).add(latency);
-    }
+    operationLatencyRecorder.get(op).recordValue(Math.round(latency * MILLIS_TO_MICROS));
     operationLatencySumThisClient.put(op, operationLatencySumThisClient.get(op) + latency);
   }
 
+  /**
+   * Record latency of an operation by its storage group and device, do nothing unless
+   * LATENCY_BY_GROUP or LATENCY_DEVICE_SAMPLE_STEP is set. Called in the thread of client only.
+   *
+   * @param op operation
+   * @param deviceSchema device of operation
+   * @param latency latency in milliseconds
+   */
+  public void addAttributedLatency(Operation op, DeviceSchema deviceSchema, double latency) {
+    if (latencyAttribution != null) {
+      latencyAttribution.record(op, deviceSchema, latency);
+    }
+  }
+
+  /**
+   * Record latency of an operation by the storage groups and devices it touches, see
+   * addAttributedLatency(Operation, DeviceSchema, double)
+   *
+   * @param op operation
+   * @param deviceSchemas devices of operation
+   * @param latency latency in milliseconds
+   */
+  public void addAttributedLatency(Operation op, List<DeviceSchema> deviceSchemas, double latency) {
+    if (latencyAttribution != null) {
+      latencyAttribution.record(op, deviceSchemas, latency);
+    }
+  }
+
+  /** @return latency of storage groups and sampled devices, null if disabled */
+  LatencyAttribution getLatencyAttribution() {
+    return latencyAttribution;
+  }
+
+  public long getInFlightOperationNum(Operation operation) {
+    return inFlightOperationNumMap.get(operation).get();
+  }
+
+  /**
+   * Mark an operation sent to database, must be paired with endOperation
+   *
+   * @param operation operation
+   */
+  public void beginOperation(Operation operation) {
+    inFlightOperationNumMap.get(operation).incrementAndGet();
+    LatencyPhaseTimer.begin();
+  }
+
+  /**
+   * Mark an operation finished, and record the latency phases marked by database. It must be called
+   * in the thread which called beginOperation.
+   *
+   * @param operation operation
+   */
+  public void endOperation(Operation operation) {
+    inFlightOperationNumMap.get(operation).decrementAndGet();
+    LatencyPhaseTimer.end(this, operation);
+  }
+
+  /**
+   * Same as beginOperation, but the latency phases are not timed, for operations overlapping each
+   * other in the thread of client, e.g. pipelined writes, whose phases can't be told apart
+   *
+   * @param operation operation
+   */
+  public void beginOverlappedOperation(Operation operation) {
+    inFlightOperationNumMap.get(operation).incrementAndGet();
+  }
+
+  /**
+   * Mark an operation begun by beginOverlappedOperation finished
+   *
+   * @param operation operation
+   */
+  public void endOverlappedOperation(Operation operation) {
+    inFlightOperationNumMap.get(operation).decrementAndGet();
+  }
+
+  /**
+   * Record latency of a phase, called in the thread of client only
+   *
+   * @param operation operation
+   * @param phase phase of operation
+   * @param latencyInNanos latency in nanoseconds
+   */
+  void addPhaseLatency(Operation operation, LatencyPhase phase, long latencyInNanos) {
+    getPhaseLatencyHistogram(operation, phase).recordValue(latencyInNanos / 1000);
+  }
+
+  private Histogram getPhaseLatencyHistogram(Operation operation, LatencyPhase phase) {
+    return phaseLatencyHistogram
+        .computeIfAbsent(operation, k -> new EnumMap<>(LatencyPhase.class))
+        .computeIfAbsent(phase, k -> new Histogram(LATENCY_SIGNIFICANT_DIGITS));
+  }
+
+  public QueryCost getQueryCost(Operation operation) {
+    return queryCostMap.get(operation);
+  }
+
+  /**
+   * Add cost of a successful query
+   *
+   * @param operation
+   * @param status status of query carrying its cost
+   */
+  public void addQueryCost(Operation operation, Status status) {
+    queryCostMap.get(operation).add(status);
+  }
+
   public void addOkPointNum(Operation operation, int pointNum) {
-    okPointNumMap.put(operation, okPointNumMap.get(operation) + pointNum);
+    okPointNumMap.get(operation).addAndGet(pointNum);
   }
 
   public void addFailPointNum(Operation operation, int pointNum) {
-    failPointNumMap.put(operation, failPointNumMap.get(operation) + pointNum);
+    failPointNumMap.get(operation).addAndGet(pointNum);
   }
 
   public void addOkOperationNum(Operation operation) {
-    okOperationNumMap.put(operation, okOperationNumMap.get(operation) + 1);
+    okOperationNumMap.get(operation).incrementAndGet();
   }
 
   public void addFailOperationNum(Operation operation) {
-    failOperationNumMap.put(operation, failOperationNumMap.get(operation) + 1);
+    failOperationNumMap.get(operation).incrementAndGet();
   }
 
   public double getCreateSchemaTime() {
@@ -506,6 +954,14 @@ public class Measurement {
     this.createSchemaTime = createSchemaTime;
   }
 
+  public long getCreateSchemaSeriesNum() {
+    return createSchemaSeriesNum;
+  }
+
+  public void setCreateSchemaSeriesNum(long createSchemaSeriesNum) {
+    this.createSchemaSeriesNum = createSchemaSeriesNum;
+  }
+
   public double getElapseTime() {
     return elapseTime;
   }
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * A lightweight http endpoint which exposes live metrics of the running benchmark at /metrics in
+ * OpenMetrics text format, so that long tests can be watched by Prometheus and Grafana. Counters
+ * are read from the atomic counters of measurements and latency from the last snapshot of
+ * IntervalReporter, so scraping never blocks the clients.
+ */
+public class MetricsServer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServer.class);
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private static final String CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+  private static final String PREFIX = "iotdb_benchmark_";
+  private static final double MICROS_TO_SECOND = 1000000.0d;
+  private static final double MILLIS_TO_SECOND = 1000.0d;
+  /** Upper bounds of latency histogram buckets in millisecond */
+  private static final double[] LATENCY_BUCKETS = {
+    0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+  };
+
+  private static final double[] LATENCY_PERCENTILES = {50, 90, 99, 99.9, 100};
+
+  private final List<Measurement> measurements;
+  private final IntervalReporter intervalReporter;
+  private HttpServer server;
+
+  /**
+   * @param measurements measurements of running clients
+   * @param intervalReporter where latency comes from, latency is not exposed if it is null
+   */
+  public MetricsServer(List<Measurement> measurements, IntervalReporter intervalReporter) {
+    this.measurements = measurements;
+    this.intervalReporter = intervalReporter;
+  }
+
+  public void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(config.getMETRICS_PORT()), 0);
+    server.createContext("/metrics", this::handle);
+    server.setExecutor(
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread thread = new Thread(r, "metrics-server");
+              thread.setDaemon(true);
+              return thread;
+            }));
+    server.start();
+    LOGGER.info("Metrics are exposed at http://0.0.0.0:{}/metrics", config.getMETRICS_PORT());
+  }
+
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(body);
+    }
+  }
+
+  /** @return all metrics in OpenMetrics text format */
+  String scrape() {
+    StringBuilder builder = new StringBuilder();
+    appendOperationMetrics(builder);
+    if (intervalReporter != null) {
+      appendLatencyMetrics(builder, intervalReporter.getLastSnapshot());
+    }
+    appendJvmMetrics(builder);
+    builder.append("# EOF\n");
+    return builder.toString();
+  }
+
+  private void appendOperationMetrics(StringBuilder builder) {
+    int operationNum = Operation.values().length;
+    long[] okOperation = new long[operationNum];
+    long[] failOperation = new long[operationNum];
+    long[] okPoint = new long[operationNum];
+    long[] failPoint = new long[operationNum];
+    long[] inFlight = new long[operationNum];
+    for (Measurement measurement : measurements) {
+      for (Operation operation : Operation.values()) {
+        int index = operation.ordinal();
+        okOperation[index] += measurement.getOkOperationNum(operation);
+        failOperation[index] += measurement.getFailOperationNum(operation);
+        okPoint[index] += measurement.getOkPointNum(operation);
+        failPoint[index] += measurement.getFailPointNum(operation);
+        inFlight[index] += measurement.getInFlightOperationNum(operation);
+      }
+    }
+
+    appendType(builder, "operations", "counter", "Finished operations.");
+    for (Operation operation : Operation.values()) {
+      appendOperationSample(builder, "operations_total", operation, "ok", okOperation);
+      appendOperationSample(builder, "operations_total", operation, "fail", failOperation);
+    }
+    appendType(builder, "points", "counter", "Points of finished operations.");
+    for (Operation operation : Operation.values()) {
+      appendOperationSample(builder, "points_total", operation, "ok", okPoint);
+      appendOperationSample(builder, "points_total", operation, "fail", failPoint);
+    }
+    appendType(builder, "in_flight_operations", "gauge", "Operations sent but not finished.");
+    for (Operation operation : Operation.values()) {
+      appendOperationSample(builder, "in_flight_operations", operation, null, inFlight);
+    }
+  }
+
+  private void appendLatencyMetrics(StringBuilder builder, IntervalReporter.Snapshot snapshot) {
+    if (snapshot == null) {
+      return;
+    }
+    appendType(
+        builder, "interval_latency_seconds", "gauge", "Latency percentiles of the last interval.");
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = snapshot.getIntervalHistogram(operation);
+      if (histogram == null) {
+        continue;
+      }
+      for (double percentile : LATENCY_PERCENTILES) {
+        builder
+            .append(PREFIX)
+            .append("interval_latency_seconds{operation=\"")
+            .append(operation.getName())
+            .append("\",percentile=\"")
+            .append(percentile)
+            .append("\"} ")
+            .append(Measurement.getPercentile(histogram, percentile) / MILLIS_TO_SECOND)
+            .append('\n');
+      }
+    }
+
+    appendType(builder, "latency_seconds", "histogram", "Latency of finished operations.");
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = snapshot.getTotalHistogram(operation);
+      if (histogram == null) {
+        continue;
+      }
+      for (double bucket : LATENCY_BUCKETS) {
+        long count = histogram.getCountBetweenValues(0, (long) (bucket * MILLIS_TO_SECOND));
+        appendBucket(builder, operation, String.valueOf(bucket / MILLIS_TO_SECOND), count);
+      }
+      appendBucket(builder, operation, "+Inf", histogram.getTotalCount());
+      builder
+          .append(PREFIX)
+          .append("latency_seconds_count{operation=\"")
+          .append(operation.getName())
+          .append("\"} ")
+          .append(histogram.getTotalCount())
+          .append('\n');
+      builder
+          .append(PREFIX)
+          .append("latency_seconds_sum{operation=\"")
+          .append(operation.getName())
+          .append("\"} ")
+          .append(histogram.getMean() * histogram.getTotalCount() / MICROS_TO_SECOND)
+          .append('\n');
+    }
+  }
+
+  private void appendJvmMetrics(StringBuilder builder) {
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    appendType(builder, "jvm_heap_bytes", "gauge", "Heap memory of benchmark.");
+    appendJvmSample(builder, "jvm_heap_bytes{area=\"used\"}", heap.getUsed());
+    appendJvmSample(builder, "jvm_heap_bytes{area=\"committed\"}", heap.getCommitted());
+    appendJvmSample(builder, "jvm_heap_bytes{area=\"max\"}", heap.getMax());
+
+    List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    appendType(builder, "jvm_gc_collections", "counter", "Garbage collections of benchmark.");
+    for (GarbageCollectorMXBean collector : collectors) {
+      appendJvmSample(
+          builder,
+          "jvm_gc_collections_total{gc=\"" + collector.getName() + "\"}",
+          collector.getCollectionCount());
+    }
+    appendType(
+        builder, "jvm_gc_collection_seconds", "counter", "Time spent in garbage collection.");
+    for (GarbageCollectorMXBean collector : collectors) {
+      appendJvmSample(
+          builder,
+          "jvm_gc_collection_seconds_total{gc=\"" + collector.getName() + "\"}",
+          collector.getCollectionTime() / MILLIS_TO_SECOND);
+    }
+
+    appendType(builder, "jvm_threads", "gauge", "Live threads of benchmark.");
+    appendJvmSample(builder, "jvm_threads", ManagementFactory.getThreadMXBean().getThreadCount());
+    appendType(builder, "uptime_seconds", "gauge", "Uptime of benchmark.");
+    appendJvmSample(
+        builder,
+        "uptime_seconds",
+        ManagementFactory.getRuntimeMXBean().getUptime() / MILLIS_TO_SECOND);
+  }
+
+  private void appendType(StringBuilder builder, String name, String type, String help) {
+    builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+  }
+
+  private void appendOperationSample(
+      StringBuilder builder, String name, Operation operation, String status, long[] values) {
+    builder.append(PREFIX).append(name).append("{operation=\"").append(operation.getName());
+    if (status != null) {
+      builder.append("\",status=\"").append(status);
+    }
+    builder.append("\"} ").append(values[operation.ordinal()]).append('\n');
+  }
+
+  private void appendBucket(StringBuilder builder, Operation operation, String le, long count) {
+    builder
+        .append(PREFIX)
+        .append("latency_seconds_bucket{operation=\"")
+        .append(operation.getName())
+        .append("\",le=\"")
+        .append(le)
+        .append("\"} ")
+        .append(count)
+        .append('\n');
+  }
+
+  private void appendJvmSample(StringBuilder builder, String sample, double value) {
+    builder.append(PREFIX).append(sample).append(' ').append(value).append('\n');
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Detect pauses of the benchmark JVM itself, in the way of jHiccup: a thread sleeps for a short
+ * time again and again, and any extra time it takes to wake up is a pause which the client threads
+ * suffered too, e.g. GC, safepoint or CPU starvation. Stop-the-world GC reported by GC
+ * notifications is accumulated as well. IntervalReporter takes both out on every interval, so that
+ * a stall of the benchmark is not charged to the database.
+ */
+public class PauseDetector {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PauseDetector.class);
+  private static final long RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final double NANO_TO_MILLIS = 1000000.0d;
+
+  private final Thread thread;
+  private volatile boolean running;
+  /** Longest pause observed by detector thread in current interval */
+  private final AtomicLong maxPauseNanos = new AtomicLong();
+  /** Time, number and longest of stop-the-world GC in current interval */
+  private final AtomicLong gcPauseMillis = new AtomicLong();
+
+  private final AtomicLong gcCount = new AtomicLong();
+  private final AtomicLong maxGcPauseMillis = new AtomicLong();
+
+  private final List<NotificationEmitter> emitters = new ArrayList<>();
+  private final NotificationListener gcListener = this::handleGcNotification;
+
+  public PauseDetector() {
+    thread = new Thread(this::detect, "pause-detector");
+    thread.setDaemon(true);
+  }
+
+  public void start() {
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (bean instanceof NotificationEmitter) {
+        NotificationEmitter emitter = (NotificationEmitter) bean;
+        emitter.addNotificationListener(gcListener, null, null);
+        emitters.add(emitter);
+      }
+    }
+    running = true;
+    thread.start();
+  }
+
+  public void stop() {
+    running = false;
+    thread.interrupt();
+    for (NotificationEmitter emitter : emitters) {
+      try {
+        emitter.removeNotificationListener(gcListener);
+      } catch (ListenerNotFoundException e) {
+        LOGGER.warn("GC listener has been removed.", e);
+      }
+    }
+    emitters.clear();
+  }
+
+  private void detect() {
+    // the shortest wake up delay is the overhead of sleeping itself, not a pause
+    long shortestDelay = Long.MAX_VALUE;
+    while (running) {
+      long start = System.nanoTime();
+      LockSupport.parkNanos(RESOLUTION_NANOS);
+      long delay = System.nanoTime() - start;
+      if (delay < shortestDelay) {
+        shortestDelay = delay;
+      }
+      long pause = delay - shortestDelay;
+      if (pause > maxPauseNanos.get()) {
+        maxPauseNanos.accumulateAndGet(pause, Math::max);
+      }
+    }
+  }
+
+  private void handleGcNotification(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+        notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    // e.g. "G1 Concurrent GC", "ConcurrentMarkSweep" and "ZGC Cycles" mostly run concurrently
+    String name = info.getGcName();
+    if (name.contains("Concurrent") || name.contains("Cycles")) {
+      return;
+    }
+    long duration = info.getGcInfo().getDuration();
+    gcPauseMillis.addAndGet(duration);
+    gcCount.incrementAndGet();
+    maxGcPauseMillis.accumulateAndGet(duration, Math::max);
+  }
+
+  /** @return pauses since the last call, and start a new interval */
+  public Interval nextInterval() {
+    return new Interval(
+        maxPauseNanos.getAndSet(0) / NANO_TO_MILLIS,
+        gcPauseMillis.getAndSet(0),
+        gcCount.getAndSet(0),
+        maxGcPauseMillis.getAndSet(0));
+  }
+
+  /** Pauses of the benchmark JVM in an interval */
+  public static class Interval {
+    private final double maxPauseMillis;
+    private final long gcPauseMillis;
+    private final long gcCount;
+    private final long maxGcPauseMillis;
+
+    Interval(double maxPauseMillis, long gcPauseMillis, long gcCount, long maxGcPauseMillis) {
+      this.maxPauseMillis = maxPauseMillis;
+      this.gcPauseMillis = gcPauseMillis;
+      this.gcCount = gcCount;
+      this.maxGcPauseMillis = maxGcPauseMillis;
+    }
+
+    /** @return longest pause observed by detector thread */
+    public double getMaxPauseMillis() {
+      return maxPauseMillis;
+    }
+
+    /** @return total time of stop-the-world GC */
+    public long getGcPauseMillis() {
+      return gcPauseMillis;
+    }
+
+    public long getGcCount() {
+      return gcCount;
+    }
+
+    /**
+     * @param thresholdInMillis threshold of pause
+     * @return whether the benchmark itself stalled longer than threshold
+     */
+    public boolean isTainted(long thresholdInMillis) {
+      return maxPauseMillis >= thresholdInMillis || maxGcPauseMillis >= thresholdInMillis;
+    }
+  }
+}
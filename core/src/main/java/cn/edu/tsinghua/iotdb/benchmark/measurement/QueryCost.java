@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of successful queries of one operation: rows and non-null points returned, estimated size of
+ * the result, and execution time reported by server. Server time is only counted for queries whose
+ * database reports it, together with the latency of these queries, so that the share of server time
+ * in latency is not diluted by queries without server time.
+ */
+public class QueryCost {
+
+  private final AtomicLong queryNum = new AtomicLong();
+  private final AtomicLong rowNum = new AtomicLong();
+  private final AtomicLong pointNum = new AtomicLong();
+  private final AtomicLong resultBytes = new AtomicLong();
+  private final AtomicLong serverTimeQueryNum = new AtomicLong();
+  // in nanoseconds
+  private final AtomicLong serverTimeSum = new AtomicLong();
+  // in nanoseconds, latency of queries whose server time is known
+  private final AtomicLong serverTimeLatencySum = new AtomicLong();
+
+  /** Add the cost of a successful query */
+  public void add(Status status) {
+    queryNum.incrementAndGet();
+    rowNum.addAndGet(status.getQueryRowNum());
+    pointNum.addAndGet(status.getQueryResultPointNum());
+    resultBytes.addAndGet(status.getQueryResultBytes());
+    if (status.getServerTimeCost() >= 0) {
+      serverTimeQueryNum.incrementAndGet();
+      serverTimeSum.addAndGet(status.getServerTimeCost());
+      serverTimeLatencySum.addAndGet(status.getTimeCost());
+    }
+  }
+
+  public void merge(QueryCost other) {
+    queryNum.addAndGet(other.queryNum.get());
+    rowNum.addAndGet(other.rowNum.get());
+    pointNum.addAndGet(other.pointNum.get());
+    resultBytes.addAndGet(other.resultBytes.get());
+    serverTimeQueryNum.addAndGet(other.serverTimeQueryNum.get());
+    serverTimeSum.addAndGet(other.serverTimeSum.get());
+    serverTimeLatencySum.addAndGet(other.serverTimeLatencySum.get());
+  }
+
+  public long getQueryNum() {
+    return queryNum.get();
+  }
+
+  public long getRowNum() {
+    return rowNum.get();
+  }
+
+  public long getPointNum() {
+    return pointNum.get();
+  }
+
+  public long getResultBytes() {
+    return resultBytes.get();
+  }
+
+  public long getServerTimeQueryNum() {
+    return serverTimeQueryNum.get();
+  }
+
+  /** @return average server time in milliseconds, or -1 if no query reports server time */
+  public double getAvgServerTime() {
+    if (serverTimeQueryNum.get() == 0) {
+      return -1;
+    }
+    return serverTimeSum.get() / 1000000.0 / serverTimeQueryNum.get();
+  }
+
+  /** @return share of server time in latency of queries reporting it, or -1 if there is none */
+  public double getServerTimeRatio() {
+    if (serverTimeLatencySum.get() == 0) {
+      return -1;
+    }
+    return (double) serverTimeSum.get() / serverTimeLatencySum.get();
+  }
+
+  /** @return metrics in the order of Measurement.QUERY_COST_METRICS */
+  String[] getMetrics() {
+    long queries = Math.max(1, getQueryNum());
+    return new String[] {
+      String.valueOf(getQueryNum()),
+      String.valueOf(getRowNum()),
+      String.valueOf(getPointNum()),
+      String.valueOf(getResultBytes()),
+      String.format("%.2f", (double) getPointNum() / queries),
+      String.format("%.2f", (double) getResultBytes() / queries),
+      String.valueOf(getServerTimeQueryNum()),
+      String.format("%.2f", getAvgServerTime()),
+      String.format("%.4f", getServerTimeRatio())
+    };
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * Count the cost of a JDBC query result: rows, non-null values and the estimated size of values.
+ * Size of a value is the size of its binary form, i.e. 1 byte for boolean, 4 bytes for int and
+ * float, 8 bytes for long, double and time, and the length of text.
+ *
+ * <p>Rows are counted while the result is iterated, so the cost of reading each value by getObject
+ * is included in the latency of query. It can not be moved out of the timed region without
+ * buffering the result, and an application reading the result pays for it as well.
+ */
+public class QueryResultCounter {
+
+  /** Whether a column is counted as point, indexed by column index starting from 1 */
+  private final boolean[] valueColumns;
+
+  private long rowNum;
+  private long pointNum;
+  private long resultBytes;
+
+  /**
+   * @param metaData meta data of result
+   * @param keyColumns labels of columns which are not counted as point, e.g. time and device, they
+   *     are case insensitive and only counted in size
+   */
+  public QueryResultCounter(ResultSetMetaData metaData, String... keyColumns) throws SQLException {
+    valueColumns = new boolean[metaData.getColumnCount() + 1];
+    for (int i = 1; i < valueColumns.length; i++) {
+      valueColumns[i] = true;
+      for (String keyColumn : keyColumns) {
+        if (keyColumn.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+          valueColumns[i] = false;
+          break;
+        }
+      }
+    }
+  }
+
+  /** Count the current row of resultSet */
+  public void countRow(ResultSet resultSet) throws SQLException {
+    rowNum++;
+    for (int i = 1; i < valueColumns.length; i++) {
+      Object value = resultSet.getObject(i);
+      if (value == null) {
+        continue;
+      }
+      if (valueColumns[i]) {
+        pointNum++;
+      }
+      resultBytes += sizeOf(value);
+    }
+  }
+
+  static int sizeOf(Object value) {
+    if (value instanceof Boolean || value instanceof Byte) {
+      return 1;
+    } else if (value instanceof Short) {
+      return 2;
+    } else if (value instanceof Integer || value instanceof Float) {
+      return 4;
+    } else if (value instanceof Number || value instanceof Date) {
+      return 8;
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else {
+      return value.toString().length();
+    }
+  }
+
+  /** @return an ok status carrying the counted cost */
+  public Status toStatus() {
+    Status status = new Status(true, (int) Math.min(pointNum, Integer.MAX_VALUE));
+    status.setQueryRowNum(rowNum);
+    status.setQueryResultBytes(resultBytes);
+    return status;
+  }
+
+  public long getRowNum() {
+    return rowNum;
+  }
+
+  public long getPointNum() {
+    return pointNum;
+  }
+
+  public long getResultBytes() {
+    return resultBytes;
+  }
+}
@@ -25,8 +25,18 @@ public class Status {
   private final boolean isOk;
   /** The cost time of query */
   private long costTime;
-  /** The result point of query */
+  /** The result point of query, i.e. the number of non-null values */
   private int queryResultPointNum;
+  /** The result row of query */
+  private long queryRowNum;
+  /** The estimated size of values in the result of query in bytes */
+  private long queryResultBytes;
+  /** The execution time reported by database server in nanoseconds, -1 if it is unknown */
+  private long serverTimeCost = -1;
+  /** The time of cost accounting, e.g. sampled explain, DBWrapper excludes it from costTime */
+  private long accountingTimeCost;
+  /** The points failed to insert, -1 if all the points of a failed insertion failed */
+  private int failPointNum = -1;
   /** The exception occurred */
   private Exception exception;
   /** errorMessage is our self-defined message used to logged, it can be error SQL or anything */
@@ -66,6 +76,46 @@ public class Status {
     this.costTime = costTime;
   }
 
+  public long getQueryRowNum() {
+    return queryRowNum;
+  }
+
+  public void setQueryRowNum(long queryRowNum) {
+    this.queryRowNum = queryRowNum;
+  }
+
+  public long getQueryResultBytes() {
+    return queryResultBytes;
+  }
+
+  public void setQueryResultBytes(long queryResultBytes) {
+    this.queryResultBytes = queryResultBytes;
+  }
+
+  public long getServerTimeCost() {
+    return serverTimeCost;
+  }
+
+  public void setServerTimeCost(long serverTimeCost) {
+    this.serverTimeCost = serverTimeCost;
+  }
+
+  public long getAccountingTimeCost() {
+    return accountingTimeCost;
+  }
+
+  public void setAccountingTimeCost(long accountingTimeCost) {
+    this.accountingTimeCost = accountingTimeCost;
+  }
+
+  public int getFailPointNum() {
+    return failPointNum;
+  }
+
+  public void setFailPointNum(int failPointNum) {
+    this.failPointNum = failPointNum;
+  }
+
   public Exception getException() {
     return exception;
   }
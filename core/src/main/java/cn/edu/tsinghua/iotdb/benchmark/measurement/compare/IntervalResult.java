@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.compare;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval series of one test loaded from *-interval-result.csv, see IntervalReporter. Intervals in
+ * which the benchmark itself stalled (tainted) are skipped, so that they are not compared.
+ * Intervals in which no operation finished count as zero throughput, but have no latency.
+ */
+public class IntervalResult {
+
+  public static final String THROUGHPUT = "throughput(point/s)";
+  public static final String P50 = "p50(ms)";
+  public static final String P99 = "p99(ms)";
+  /** Metrics loaded for each operation */
+  public static final String[] METRICS = {THROUGHPUT, P50, P99};
+
+  private static final String OPERATION = "operation";
+  private static final String TAINTED = "tainted";
+
+  private final String file;
+  /** Values of each interval by operation and metric */
+  private final Map<String, Map<String, List<Double>>> values = new LinkedHashMap<>();
+
+  private int taintedNum;
+
+  private IntervalResult(String file) {
+    this.file = file;
+  }
+
+  /**
+   * Load interval result file
+   *
+   * @param file path of *-interval-result.csv
+   * @return interval series of the test
+   * @throws IOException if the file can not be read or has no required columns
+   */
+  public static IntervalResult load(String file) throws IOException {
+    IntervalResult result = new IntervalResult(file);
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String head = reader.readLine();
+      if (head == null) {
+        throw new IOException("Empty interval result file " + file);
+      }
+      List<String> columns = Arrays.asList(head.split(",", -1));
+      int operationIndex = columns.indexOf(OPERATION);
+      // files written before pauses were detected have no tainted column
+      int taintedIndex = columns.indexOf(TAINTED);
+      int[] metricIndex = new int[METRICS.length];
+      for (int i = 0; i < METRICS.length; i++) {
+        metricIndex[i] = columns.indexOf(METRICS[i]);
+        if (metricIndex[i] < 0 || operationIndex < 0) {
+          throw new IOException("Not an interval result file " + file);
+        }
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] items = line.split(",", -1);
+        if (taintedIndex >= 0 && Boolean.parseBoolean(items[taintedIndex])) {
+          if (!items[operationIndex].isEmpty()) {
+            result.taintedNum++;
+          }
+          continue;
+        }
+        // rows of idle intervals have no operation
+        if (items[operationIndex].isEmpty()) {
+          continue;
+        }
+        Map<String, List<Double>> operationValues =
+            result.values.computeIfAbsent(items[operationIndex], k -> new LinkedHashMap<>());
+        for (int i = 0; i < METRICS.length; i++) {
+          List<Double> metricValues =
+              operationValues.computeIfAbsent(METRICS[i], k -> new ArrayList<>());
+          // latency is empty in intervals where no operation finished
+          if (!items[metricIndex[i]].isEmpty()) {
+            metricValues.add(Double.parseDouble(items[metricIndex[i]]));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  /** @return operations in the order of first appearance */
+  public List<String> getOperations() {
+    return new ArrayList<>(values.keySet());
+  }
+
+  /**
+   * @param operation name of operation
+   * @param metric one of METRICS
+   * @return values of the metric in each interval, empty if the operation is not executed. Latency
+   *     is only of the intervals in which some operation finished
+   */
+  public double[] getValues(String operation, String metric) {
+    Map<String, List<Double>> operationValues = values.get(operation);
+    if (operationValues == null) {
+      return new double[0];
+    }
+    List<Double> list = operationValues.get(metric);
+    double[] result = new double[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = list.get(i);
+    }
+    return result;
+  }
+
+  /** @return number of skipped rows of tainted intervals */
+  public int getTaintedNum() {
+    return taintedNum;
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.compare;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare the interval results of tests with a baseline. For each operation, the mean throughput,
+ * P50 and P99 of intervals are compared, and the confidence interval of the relative delta is
+ * estimated by bootstrap, i.e. resampling the intervals of both tests again and again. A delta is a
+ * regression only if it is worse than the threshold and the whole confidence interval is worse than
+ * the baseline.
+ */
+public class ResultComparator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResultComparator.class);
+  private static final double CONFIDENCE = 0.95;
+  /** Fixed seed, so that the same results always get the same verdict */
+  private static final long SEED = 0;
+
+  private static final String RESULT_ITEM = "%-25s";
+  private static final String METRIC_ITEM = "%-22s";
+  private static final String VALUE_ITEM = "%-16s";
+
+  private final int bootstrapNum;
+  private final double thresholdPercent;
+  private final Random random = new Random(SEED);
+
+  /**
+   * @param bootstrapNum number of resampling, no comparison is made if it is not positive
+   * @param thresholdPercent a delta worse than this (in percent) may be a regression
+   */
+  public ResultComparator(int bootstrapNum, double thresholdPercent) {
+    this.bootstrapNum = bootstrapNum;
+    this.thresholdPercent = thresholdPercent;
+  }
+
+  /**
+   * Compare the interval result files with the first one and print the comparisons
+   *
+   * @param files paths of *-interval-result.csv, the first one is baseline
+   * @return false if any regression is found or any file can not be loaded
+   */
+  public boolean compareFiles(List<String> files) {
+    if (files.size() < 2) {
+      LOGGER.error("At least two interval result files are needed to compare, but got {}", files);
+      return false;
+    }
+    if (bootstrapNum <= 0) {
+      LOGGER.error("COMPARE_BOOTSTRAP_NUMBER should be positive, but got {}", bootstrapNum);
+      return false;
+    }
+    List<IntervalResult> results = new ArrayList<>();
+    for (String file : files) {
+      try {
+        IntervalResult result = IntervalResult.load(file);
+        if (result.getTaintedNum() > 0) {
+          LOGGER.warn("Skip {} tainted intervals of {}", result.getTaintedNum(), file);
+        }
+        results.add(result);
+      } catch (IOException e) {
+        LOGGER.error("Failed to load interval result {}", file, e);
+        return false;
+      }
+    }
+    boolean passed = true;
+    IntervalResult baseline = results.get(0);
+    for (IntervalResult target : results.subList(1, results.size())) {
+      List<Comparison> comparisons = compare(baseline, target);
+      printComparisons(baseline, target, comparisons);
+      for (Comparison comparison : comparisons) {
+        if (comparison.getVerdict() == Verdict.REGRESSION) {
+          passed = false;
+        }
+      }
+    }
+    return passed;
+  }
+
+  /**
+   * Compare each operation and metric of target with baseline, operations not executed in both
+   * tests are ignored
+   *
+   * @param baseline interval result of baseline
+   * @param target interval result to compare
+   * @return comparisons
+   */
+  public List<Comparison> compare(IntervalResult baseline, IntervalResult target) {
+    List<Comparison> comparisons = new ArrayList<>();
+    for (String operation : baseline.getOperations()) {
+      if (!target.getOperations().contains(operation)) {
+        continue;
+      }
+      for (String metric : IntervalResult.METRICS) {
+        comparisons.add(
+            compare(
+                operation,
+                metric,
+                baseline.getValues(operation, metric),
+                target.getValues(operation, metric)));
+      }
+    }
+    return comparisons;
+  }
+
+  private Comparison compare(String operation, String metric, double[] baseline, double[] target) {
+    double baselineMean = mean(baseline);
+    double targetMean = mean(target);
+    if (baseline.length < 2 || target.length < 2 || baselineMean == 0 || bootstrapNum <= 0) {
+      return new Comparison(
+          operation, metric, baselineMean, targetMean, 0, 0, 0, Verdict.INSUFFICIENT_DATA);
+    }
+    double delta = (targetMean - baselineMean) / baselineMean * 100;
+    double[] deltas = new double[bootstrapNum];
+    for (int i = 0; i < bootstrapNum; i++) {
+      double resampledBaseline = resampleMean(baseline);
+      double resampledTarget = resampleMean(target);
+      deltas[i] =
+          resampledBaseline == 0
+              ? 0
+              : (resampledTarget - resampledBaseline) / resampledBaseline * 100;
+    }
+    Arrays.sort(deltas);
+    double alpha = 1 - CONFIDENCE;
+    double lower = deltas[(int) Math.floor(alpha / 2 * (bootstrapNum - 1))];
+    double upper = deltas[(int) Math.ceil((1 - alpha / 2) * (bootstrapNum - 1))];
+
+    // higher throughput is better, while lower latency is better
+    int sign = IntervalResult.THROUGHPUT.equals(metric) ? -1 : 1;
+    double worse = sign * delta;
+    double worseLower = Math.min(sign * lower, sign * upper);
+    double worseUpper = Math.max(sign * lower, sign * upper);
+    Verdict verdict = Verdict.NO_CHANGE;
+    if (worse > thresholdPercent && worseLower > 0) {
+      verdict = Verdict.REGRESSION;
+    } else if (-worse > thresholdPercent && worseUpper < 0) {
+      verdict = Verdict.IMPROVEMENT;
+    }
+    return new Comparison(
+        operation, metric, baselineMean, targetMean, delta, lower, upper, verdict);
+  }
+
+  private double resampleMean(double[] values) {
+    double sum = 0;
+    for (int i = 0; i < values.length; i++) {
+      sum += values[random.nextInt(values.length)];
+    }
+    return sum / values.length;
+  }
+
+  private static double mean(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return values.length == 0 ? 0 : sum / values.length;
+  }
+
+  private void printComparisons(
+      IntervalResult baseline, IntervalResult target, List<Comparison> comparisons) {
+    System.out.println(
+        "---------------------------------------------------------Comparison---------------------------------------------------------");
+    System.out.println("Baseline: " + baseline.getFile());
+    System.out.println("Target:   " + target.getFile());
+    System.out.printf(
+        RESULT_ITEM + METRIC_ITEM + VALUE_ITEM + VALUE_ITEM + VALUE_ITEM + METRIC_ITEM + "%s%n",
+        "Operation",
+        "Metric",
+        "Baseline",
+        "Target",
+        "Delta(%)",
+        (int) (CONFIDENCE * 100) + "% CI(%)",
+        "Verdict");
+    for (Comparison comparison : comparisons) {
+      System.out.printf(
+          RESULT_ITEM + METRIC_ITEM + VALUE_ITEM + VALUE_ITEM + VALUE_ITEM + METRIC_ITEM + "%s%n",
+          comparison.getOperation(),
+          comparison.getMetric(),
+          String.format("%.2f", comparison.getBaselineMean()),
+          String.format("%.2f", comparison.getTargetMean()),
+          String.format("%+.2f", comparison.getDeltaPercent()),
+          String.format(
+              "[%+.2f, %+.2f]", comparison.getLowerPercent(), comparison.getUpperPercent()),
+          comparison.getVerdict());
+    }
+    System.out.println(
+        "-----------------------------------------------------------------------------------------------------------------------------");
+  }
+
+  public enum Verdict {
+    REGRESSION,
+    IMPROVEMENT,
+    NO_CHANGE,
+    /** Less than two intervals in either test, or no resampling */
+    INSUFFICIENT_DATA
+  }
+
+  /** Comparison of the interval mean of one metric of an operation */
+  public static class Comparison {
+    private final String operation;
+    private final String metric;
+    private final double baselineMean;
+    private final double targetMean;
+    private final double deltaPercent;
+    private final double lowerPercent;
+    private final double upperPercent;
+    private final Verdict verdict;
+
+    Comparison(
+        String operation,
+        String metric,
+        double baselineMean,
+        double targetMean,
+        double deltaPercent,
+        double lowerPercent,
+        double upperPercent,
+        Verdict verdict) {
+      this.operation = operation;
+      this.metric = metric;
+      this.baselineMean = baselineMean;
+      this.targetMean = targetMean;
+      this.deltaPercent = deltaPercent;
+      this.lowerPercent = lowerPercent;
+      this.upperPercent = upperPercent;
+      this.verdict = verdict;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    public String getMetric() {
+      return metric;
+    }
+
+    public double getBaselineMean() {
+      return baselineMean;
+    }
+
+    public double getTargetMean() {
+      return targetMean;
+    }
+
+    /** @return relative delta of target to baseline, in percent */
+    public double getDeltaPercent() {
+      return deltaPercent;
+    }
+
+    /** @return lower bound of the confidence interval of delta, in percent */
+    public double getLowerPercent() {
+      return lowerPercent;
+    }
+
+    /** @return upper bound of the confidence interval of delta, in percent */
+    public double getUpperPercent() {
+      return upperPercent;
+    }
+
+    public Verdict getVerdict() {
+      return verdict;
+    }
+  }
+}
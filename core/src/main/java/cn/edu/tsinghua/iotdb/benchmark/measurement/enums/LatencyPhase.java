@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.enums;
+
+/** Phases of an operation, see LatencyPhaseTimer */
+public enum LatencyPhase {
+  /** Build request from workload, e.g. SQL, Tablet or line protocol */
+  BUILD_REQUEST("buildRequest"),
+  /** Wait for a connection or session from pool, or for a worker thread */
+  ACQUIRE_CONNECTION("acquireConnection"),
+  /** Send request and wait for response of database */
+  SEND_AND_WAIT("sendAndWait"),
+  /** Read and parse the response, e.g. iterate the result set of query */
+  PARSE_RESPONSE("parseResponse");
+
+  String name;
+
+  LatencyPhase(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
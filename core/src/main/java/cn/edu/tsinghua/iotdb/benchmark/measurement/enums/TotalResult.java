@@ -21,6 +21,8 @@ package cn.edu.tsinghua.iotdb.benchmark.measurement.enums;
 
 public enum TotalResult {
   CREATE_SCHEMA_TIME("createSchemaTime"),
+  CREATE_SCHEMA_SERIES_NUM("createSchemaSeriesNum"),
+  CREATE_SCHEMA_THROUGHPUT("createSchemaThroughput"),
   ELAPSED_TIME("elapsedTime");
 
   String name;
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+
+import java.util.List;
+
+/**
+ * Emit JDK Flight Recorder events of benchmark, so that a recording shows which operation was
+ * running during a GC pause, lock wait or socket read. e.g. start benchmark with
+ * -XX:StartFlightRecording=filename=benchmark.jfr
+ *
+ * <p>Each begin method returns a started event, and the matching commit method fills the fields
+ * only when the event will be recorded, so the cost is small when recording is off. The events are
+ * created by JfrEventFactory, which is loaded by reflection since it is only built on JDK 11 or
+ * later. If it is not built or the JVM does not support JFR, begin methods return null and commit
+ * methods do nothing.
+ */
+public class BenchmarkEvents {
+
+  private static final String FACTORY_CLASS =
+      "cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.JfrEventFactory";
+  private static final EventFactory FACTORY = loadFactory();
+
+  private BenchmarkEvents() {}
+
+  private static EventFactory loadFactory() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (EventFactory) Class.forName(FACTORY_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  public static OperationEvent beginOperation() {
+    return FACTORY == null ? null : FACTORY.beginOperation();
+  }
+
+  /**
+   * Commit event of insert operation
+   *
+   * @param event returned by beginOperation
+   * @param operation
+   * @param batch
+   * @param status null if operation failed by unexpected exception
+   */
+  public static void commitOperation(
+      OperationEvent event, Operation operation, Batch batch, Status status) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    commit(event, operation, batch.getDeviceSchema().getDevice(), batch.pointNum(), status);
+  }
+
+  /**
+   * Commit event of query operation
+   *
+   * @param event returned by beginOperation
+   * @param operation
+   * @param deviceSchemas devices of query
+   * @param status null if operation failed by unexpected exception
+   */
+  public static void commitOperation(
+      OperationEvent event, Operation operation, List<DeviceSchema> deviceSchemas, Status status) {
+    commitOperation(
+        event,
+        operation,
+        deviceSchemas,
+        status == null ? 0 : status.getQueryResultPointNum(),
+        status);
+  }
+
+  /**
+   * Commit event of operation on multiple devices
+   *
+   * @param event returned by beginOperation
+   * @param operation
+   * @param deviceSchemas devices of operation
+   * @param pointNum number of points inserted or queried
+   * @param status null if operation failed by unexpected exception
+   */
+  public static void commitOperation(
+      OperationEvent event,
+      Operation operation,
+      List<DeviceSchema> deviceSchemas,
+      int pointNum,
+      Status status) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    StringBuilder devices = new StringBuilder();
+    for (DeviceSchema deviceSchema : deviceSchemas) {
+      if (devices.length() > 0) {
+        devices.append(',');
+      }
+      devices.append(deviceSchema.getDevice());
+    }
+    commit(event, operation, devices.toString(), pointNum, status);
+  }
+
+  private static void commit(
+      OperationEvent event, Operation operation, String device, int pointNum, Status status) {
+    if (status == null) {
+      event.commit(operation.getName(), device, pointNum, false, "unexpected exception");
+    } else {
+      String error = status.getException() == null ? null : status.getException().toString();
+      event.commit(operation.getName(), device, pointNum, status.isOk(), error);
+    }
+  }
+
+  public static GenerateEvent beginGenerate() {
+    return FACTORY == null ? null : FACTORY.beginGenerate();
+  }
+
+  /**
+   * Commit event of generating one batch
+   *
+   * @param event returned by beginGenerate
+   * @param workload name of workload
+   * @param batch generated batch
+   */
+  public static void commitGenerate(GenerateEvent event, String workload, Batch batch) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    String device = batch.getDeviceSchema() == null ? null : batch.getDeviceSchema().getDevice();
+    event.commit(workload, device, batch.pointNum());
+  }
+
+  public static RecordEvent beginRecord() {
+    return FACTORY == null ? null : FACTORY.beginRecord();
+  }
+
+  /**
+   * Commit event of saving the result of one operation
+   *
+   * @param event returned by beginRecord
+   * @param persistence type of test data persistence
+   * @param operation name of operation
+   */
+  public static void commitRecord(RecordEvent event, String persistence, String operation) {
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+    event.commit(persistence, operation);
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+/** One insert or query sent to database by DBWrapper, duration is the latency of operation */
+public interface OperationEvent {
+
+  /** @return whether the event will be recorded, see jdk.jfr.Event#shouldCommit() */
+  boolean shouldCommit();
+
+  /**
+   * Fill the fields and commit the event
+   *
+   * @param operation name of operation
+   * @param device device of batch, or devices of query separated by comma
+   * @param pointNum points of batch, or result points of query
+   * @param ok whether the operation succeeded
+   * @param error error of operation, null if none
+   */
+  void commit(String operation, String device, int pointNum, boolean ok, String error);
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Persist the results of operations in background. Clients only put the results into a ring shared
+ * by all recorders, one drainer thread saves them by the wrapped recorders in batches and flushes
+ * the recorders when idle. The other calls, including close, are also run by the drainer in the
+ * order of submission, so a wrapped recorder is only ever used by the drainer thread.
+ */
+public class AsyncRecorder implements ITestDataPersistence {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRecorder.class);
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private static final int DRAIN_BATCH_SIZE = 1024;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static final OperationResultRing RING =
+      new OperationResultRing(config.getRECORD_QUEUE_SIZE());
+  private static final AtomicLong TOTAL_DROPPED = new AtomicLong();
+  /** Calls other than saving results of operations, run by the drainer in order */
+  private static final Queue<Runnable> TASKS = new ConcurrentLinkedQueue<>();
+  /** Recorders which saved results since the last flush, only accessed by the drainer */
+  private static final Set<ITestDataPersistence> UNFLUSHED = new HashSet<>();
+
+  private static Thread drainer;
+
+  private final ITestDataPersistence recorder;
+  private final boolean dropWhenFull;
+  /** Results dropped by this recorder, only updated by the client owning it */
+  private long droppedNum = 0;
+  /** Times this recorder waited for the full ring, only updated by the client owning it */
+  private long waitedNum = 0;
+
+  public AsyncRecorder(ITestDataPersistence recorder) {
+    this.recorder = recorder;
+    this.dropWhenFull = config.isRECORD_DROP_WHEN_FULL();
+    startDrainer();
+  }
+
+  private static synchronized void startDrainer() {
+    if (drainer != null) {
+      return;
+    }
+    drainer =
+        new Thread(
+            () -> {
+              long lastFlushTime = System.nanoTime();
+              while (true) {
+                int drained = RING.drain(DRAIN_BATCH_SIZE, UNFLUSHED);
+                int ran = runTasks();
+                if (drained == 0 || System.nanoTime() - lastFlushTime > FLUSH_INTERVAL_NANOS) {
+                  flush(UNFLUSHED);
+                  UNFLUSHED.clear();
+                  lastFlushTime = System.nanoTime();
+                }
+                if (drained == 0 && ran == 0) {
+                  LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+              }
+            },
+            "record-drainer");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /** Let the recorders write out their batches when idle, or at least once per interval */
+  private static void flush(Set<ITestDataPersistence> recorders) {
+    for (ITestDataPersistence recorder : recorders) {
+      try {
+        recorder.flush();
+      } catch (Exception e) {
+        LOGGER.error("Failed to flush results of operations", e);
+      }
+    }
+  }
+
+  /**
+   * Run the submitted calls, only called by the drainer. The ring is drained before each call, so
+   * results offered by a client before a call are saved before it
+   */
+  private static int runTasks() {
+    int ran = 0;
+    Runnable task;
+    while ((task = TASKS.poll()) != null) {
+      while (RING.drain(DRAIN_BATCH_SIZE, UNFLUSHED) > 0) {
+        // save the results offered before the call
+      }
+      try {
+        task.run();
+      } catch (Exception e) {
+        LOGGER.error("Failed to run call of recorder", e);
+      }
+      ran++;
+    }
+    return ran;
+  }
+
+  @Override
+  public void saveOperationResult(
+      String operation, int okPoint, int failPoint, double latency, String remark) {
+    saveOperationResult(
+        System.currentTimeMillis(),
+        Thread.currentThread().getName(),
+        operation,
+        okPoint,
+        failPoint,
+        latency,
+        remark);
+  }
+
+  @Override
+  public void saveOperationResult(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    if (RING.offer(
+        recorder, recordTime, clientName, operation, okPoint, failPoint, latency, remark)) {
+      return;
+    }
+    if (dropWhenFull) {
+      droppedNum++;
+      TOTAL_DROPPED.incrementAndGet();
+      return;
+    }
+    waitedNum++;
+    while (!RING.offer(
+        recorder, recordTime, clientName, operation, okPoint, failPoint, latency, remark)) {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  @Override
+  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+    TASKS.add(() -> recorder.insertSystemMetrics(systemMetricsMap));
+  }
+
+  @Override
+  public void saveTestConfig() {
+    TASKS.add(recorder::saveTestConfig);
+  }
+
+  @Override
+  public void saveResult(String operation, String key, String value) {
+    TASKS.add(() -> recorder.saveResult(operation, key, value));
+  }
+
+  /**
+   * Wait until the results offered and the calls submitted so far are saved, then flush and close
+   * the wrapped recorder in the drainer
+   */
+  @Override
+  public void close() {
+    long sequence = RING.getClaimSequence();
+    while (RING.getReadSequence() < sequence) {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+    if (droppedNum > 0) {
+      LOGGER.warn(
+          "{} dropped {} results of operations since the record queue of size {} is full, "
+              + "consider enlarging RECORD_QUEUE_SIZE",
+          Thread.currentThread().getName(),
+          droppedNum,
+          RING.getCapacity());
+    }
+    if (waitedNum > 0) {
+      LOGGER.info(
+          "{} waited {} times for the full record queue",
+          Thread.currentThread().getName(),
+          waitedNum);
+    }
+    CompletableFuture<Void> closed = new CompletableFuture<>();
+    TASKS.add(
+        () -> {
+          try {
+            if (UNFLUSHED.remove(recorder)) {
+              flush(Collections.singleton(recorder));
+            }
+            recorder.close();
+            closed.complete(null);
+          } catch (Exception e) {
+            closed.completeExceptionally(e);
+          }
+        });
+    try {
+      closed.join();
+    } catch (CompletionException e) {
+      LOGGER.error("Failed to close recorder", e.getCause());
+    }
+  }
+
+  /** The number of results dropped by all recorders */
+  public static long getTotalDroppedNum() {
+    return TOTAL_DROPPED.get();
+  }
+
+  long getDroppedNum() {
+    return droppedNum;
+  }
+
+  long getWaitedNum() {
+    return waitedNum;
+  }
+}
@@ -44,8 +44,39 @@ public interface ITestDataPersistence {
    * @param latency latency of operation
    * @param remark remark of operation
    */
+  default void saveOperationResult(
+      String operation, int okPoint, int failPoint, double latency, String remark) {
+    saveOperationResult(
+        System.currentTimeMillis(),
+        Thread.currentThread().getName(),
+        operation,
+        okPoint,
+        failPoint,
+        latency,
+        remark);
+  }
+
+  /**
+   * Save measurement result of operation of a client, may be called by a thread other than the
+   * client
+   *
+   * @param recordTime time in millisecond when the operation finished
+   * @param clientName name of the client
+   * @param operation which type of operation
+   * @param okPoint okPoint of operation
+   * @param failPoint failPoint of operation
+   * @param latency latency of operation
+   * @param remark remark of operation
+   * @see AsyncRecorder
+   */
   void saveOperationResult(
-      String operation, int okPoint, int failPoint, double latency, String remark);
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark);
 
   /**
    * Save result of operation
@@ -56,6 +87,9 @@ public interface ITestDataPersistence {
    */
   void saveResult(String operation, String key, String value);
 
+  /** Write out the results buffered by recorder, called by the drainer of AsyncRecorder */
+  default void flush() {}
+
   /** Close record */
   void close();
 }
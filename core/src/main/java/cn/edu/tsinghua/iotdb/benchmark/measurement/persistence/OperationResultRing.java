@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free multi-producer single-consumer ring of operation results. The fields of the
+ * results are kept in preallocated arrays, so that offering a result allocates nothing.
+ */
+class OperationResultRing {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OperationResultRing.class);
+
+  private final int capacity;
+  private final int mask;
+  /** The sequence published into each slot, a slot is readable when it equals the read sequence */
+  private final AtomicLongArray published;
+
+  private final ITestDataPersistence[] recorders;
+  private final long[] recordTimes;
+  private final String[] clientNames;
+  private final String[] operations;
+  private final int[] okPoints;
+  private final int[] failPoints;
+  private final double[] latencies;
+  private final String[] remarks;
+
+  /** The next sequence to be claimed by producers */
+  private final AtomicLong claimSequence = new AtomicLong();
+  /** The next sequence to be read, only written by the consumer */
+  private volatile long readSequence = 0;
+
+  OperationResultRing(int size) {
+    capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    mask = capacity - 1;
+    published = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      published.set(i, -1);
+    }
+    recorders = new ITestDataPersistence[capacity];
+    recordTimes = new long[capacity];
+    clientNames = new String[capacity];
+    operations = new String[capacity];
+    okPoints = new int[capacity];
+    failPoints = new int[capacity];
+    latencies = new double[capacity];
+    remarks = new String[capacity];
+  }
+
+  /**
+   * Put a result into the ring, it will be saved by the given recorder when drained
+   *
+   * @return false if the ring is full
+   */
+  boolean offer(
+      ITestDataPersistence recorder,
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    long sequence;
+    do {
+      sequence = claimSequence.get();
+      if (sequence - readSequence >= capacity) {
+        return false;
+      }
+    } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+    int index = (int) sequence & mask;
+    recorders[index] = recorder;
+    recordTimes[index] = recordTime;
+    clientNames[index] = clientName;
+    operations[index] = operation;
+    okPoints[index] = okPoint;
+    failPoints[index] = failPoint;
+    latencies[index] = latency;
+    remarks[index] = remark;
+    published.lazySet(index, sequence);
+    return true;
+  }
+
+  /**
+   * Save at most limit results in order by their recorders, must only be called by one thread
+   *
+   * @param drainedRecorders the recorders which saved any result are added into it
+   * @return the number of results drained
+   */
+  int drain(int limit, Set<ITestDataPersistence> drainedRecorders) {
+    long sequence = readSequence;
+    int drained = 0;
+    while (drained < limit) {
+      int index = (int) sequence & mask;
+      if (published.get(index) != sequence) {
+        break;
+      }
+      try {
+        recorders[index].saveOperationResult(
+            recordTimes[index],
+            clientNames[index],
+            operations[index],
+            okPoints[index],
+            failPoints[index],
+            latencies[index],
+            remarks[index]);
+      } catch (Exception e) {
+        LOGGER.error("Failed to save result of {}", operations[index], e);
+      }
+      drainedRecorders.add(recorders[index]);
+      recorders[index] = null;
+      clientNames[index] = null;
+      remarks[index] = null;
+      sequence++;
+      drained++;
+    }
+    readSequence = sequence;
+    return drained;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  /** The number of results claimed by producers so far */
+  long getClaimSequence() {
+    return claimSequence.get();
+  }
+
+  /** The number of results drained so far */
+  long getReadSequence() {
+    return readSequence;
+  }
+}
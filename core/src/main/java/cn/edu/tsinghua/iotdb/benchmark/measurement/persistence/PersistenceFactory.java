@@ -22,10 +22,12 @@ package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary.BinaryRecorder;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.csv.CSVRecorder;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.iotdb.IotdbRecorder;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.mysql.MySqlRecorder;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.none.NoneRecorder;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.sqlite.SqliteRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,7 +35,29 @@ public class PersistenceFactory {
   private static final Logger LOGGER = LoggerFactory.getLogger(PersistenceFactory.class);
   private static final Config config = ConfigDescriptor.getInstance().getConfig();
 
+  /**
+   * Appending to the binary log is cheaper than handing the result to another thread, so only other
+   * recorders are aggregated or made asynchronous
+   */
   public ITestDataPersistence getPersistence() {
+    ITestDataPersistence persistence = createPersistence();
+    if (persistence instanceof NoneRecorder || persistence instanceof BinaryRecorder) {
+      return persistence;
+    }
+    if (config.getRECORD_ROLLUP_INTERVAL_MS() > 0) {
+      persistence =
+          new RollupRecorder(
+              persistence,
+              config.getRECORD_ROLLUP_INTERVAL_MS(),
+              config.getRECORD_ROLLUP_RAW_SAMPLE_RATE());
+    }
+    if (config.isRECORD_ASYNC()) {
+      return new AsyncRecorder(persistence);
+    }
+    return persistence;
+  }
+
+  private ITestDataPersistence createPersistence() {
     switch (config.getTEST_DATA_PERSISTENCE()) {
       case Constants.TDP_NONE:
         return new NoneRecorder();
@@ -43,6 +67,10 @@ public class PersistenceFactory {
         return new MySqlRecorder();
       case Constants.TDP_CSV:
         return new CSVRecorder();
+      case Constants.TDP_BINARY:
+        return new BinaryRecorder();
+      case Constants.TDP_SQLITE:
+        return new SqliteRecorder();
       default:
         LOGGER.error(
             "unsupported test data persistence way: {}, use NoneRecorder",
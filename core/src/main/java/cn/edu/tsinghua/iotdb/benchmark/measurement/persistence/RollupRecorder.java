@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+/**
+ * Aggregate the results of operations of one client per interval before persisting. For each
+ * interval and operation one result is saved, whose okPoint and failPoint are the sums, latency is
+ * the average and remark holds the count, percentiles and the compressed latency histogram, so that
+ * the distributions of clients and intervals can be merged later, see {@link
+ * #decodeHistogram(String)}. A sample of raw results and all failed ones are saved as they are.
+ */
+public class RollupRecorder implements ITestDataPersistence {
+
+  public static final String REMARK_PREFIX = "rollup:";
+  private static final String HISTOGRAM_KEY = "histogram=";
+  private static final int SIGNIFICANT_DIGITS = 2;
+  private static final double MILLIS_TO_MICROS = 1000.0;
+
+  private final ITestDataPersistence recorder;
+  private final long intervalMillis;
+  private final double rawSampleRate;
+
+  /** Rollups of the current interval by operation, in order of the first result */
+  private final Map<String, Rollup> rollups = new LinkedHashMap<>();
+
+  private String clientName;
+  private long intervalStart = -1;
+  private double rawSampleCredit = 0;
+
+  public RollupRecorder(ITestDataPersistence recorder, long intervalMillis, double rawSampleRate) {
+    this.recorder = recorder;
+    this.intervalMillis = intervalMillis;
+    this.rawSampleRate = rawSampleRate;
+  }
+
+  private static class Rollup {
+    private long count = 0;
+    private long okPoint = 0;
+    private long failPoint = 0;
+    private double latencySum = 0;
+    private final Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+
+    private void add(int okPoint, int failPoint, double latency) {
+      count++;
+      this.okPoint += okPoint;
+      this.failPoint += failPoint;
+      latencySum += latency;
+      histogram.recordValue(Math.max(0, Math.round(latency * MILLIS_TO_MICROS)));
+    }
+
+    private String toRemark() {
+      ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+      int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+      byte[] bytes = new byte[length];
+      buffer.flip();
+      buffer.get(bytes);
+      return String.format(
+          "%scount=%d,p50=%.2f,p99=%.2f,max=%.2f,%s%s",
+          REMARK_PREFIX,
+          count,
+          histogram.getValueAtPercentile(50) / MILLIS_TO_MICROS,
+          histogram.getValueAtPercentile(99) / MILLIS_TO_MICROS,
+          histogram.getMaxValue() / MILLIS_TO_MICROS,
+          HISTOGRAM_KEY,
+          Base64.getEncoder().encodeToString(bytes));
+    }
+  }
+
+  /**
+   * Decode the latency histogram in microsecond from the remark of a rollup
+   *
+   * @return null if the remark is not of a rollup
+   */
+  public static Histogram decodeHistogram(String remark) throws DataFormatException {
+    byte[] bytes = getHistogramBytes(remark);
+    if (bytes == null) {
+      return null;
+    }
+    return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+  }
+
+  /** @return the compressed latency histogram of a rollup, null if the remark is not of a rollup */
+  public static byte[] getHistogramBytes(String remark) {
+    int index = getHistogramIndex(remark);
+    if (index < 0) {
+      return null;
+    }
+    return Base64.getDecoder().decode(remark.substring(index + HISTOGRAM_KEY.length()));
+  }
+
+  /** @return the remark of a rollup without the histogram */
+  public static String getSummary(String remark) {
+    int index = getHistogramIndex(remark);
+    return index < 0 ? remark : remark.substring(0, index - 1);
+  }
+
+  private static int getHistogramIndex(String remark) {
+    if (remark == null || !remark.startsWith(REMARK_PREFIX)) {
+      return -1;
+    }
+    return remark.indexOf(HISTOGRAM_KEY);
+  }
+
+  @Override
+  public synchronized void saveOperationResult(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    long start = recordTime - recordTime % intervalMillis;
+    if (start != intervalStart) {
+      saveRollups();
+      intervalStart = start;
+    }
+    this.clientName = clientName;
+    rollups.computeIfAbsent(operation, k -> new Rollup()).add(okPoint, failPoint, latency);
+    boolean failed = failPoint > 0 || (remark != null && !remark.isEmpty());
+    rawSampleCredit += rawSampleRate;
+    if (failed || rawSampleCredit >= 1) {
+      if (!failed) {
+        rawSampleCredit -= 1;
+      }
+      recorder.saveOperationResult(
+          recordTime, clientName, operation, okPoint, failPoint, latency, remark);
+    }
+  }
+
+  private void saveRollups() {
+    for (Map.Entry<String, Rollup> entry : rollups.entrySet()) {
+      Rollup rollup = entry.getValue();
+      recorder.saveOperationResult(
+          intervalStart,
+          clientName,
+          entry.getKey(),
+          (int) Math.min(rollup.okPoint, Integer.MAX_VALUE),
+          (int) Math.min(rollup.failPoint, Integer.MAX_VALUE),
+          rollup.latencySum / rollup.count,
+          rollup.toRemark());
+    }
+    rollups.clear();
+  }
+
+  /** Save the rollups of the interval once it has passed */
+  @Override
+  public synchronized void flush() {
+    if (!rollups.isEmpty() && System.currentTimeMillis() >= intervalStart + intervalMillis) {
+      saveRollups();
+    }
+    recorder.flush();
+  }
+
+  @Override
+  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+    recorder.insertSystemMetrics(systemMetricsMap);
+  }
+
+  @Override
+  public void saveTestConfig() {
+    recorder.saveTestConfig();
+  }
+
+  @Override
+  public void saveResult(String operation, String key, String value) {
+    recorder.saveResult(operation, key, value);
+  }
+
+  @Override
+  public synchronized void close() {
+    saveRollups();
+    recorder.close();
+  }
+}
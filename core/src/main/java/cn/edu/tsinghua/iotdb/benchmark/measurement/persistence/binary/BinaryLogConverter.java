@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Convert binary operation logs into another persistence after the test. Each record is saved as it
+ * is, or the records of each client and operation are aggregated into one result per window.
+ */
+public class BinaryLogConverter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryLogConverter.class);
+  private static final Operation[] OPERATIONS = Operation.values();
+
+  private final ITestDataPersistence recorder;
+  private final long aggregateMillis;
+
+  // results of the current window, indexed by ordinal of operation
+  private final long[] operationNums = new long[OPERATIONS.length];
+  private final long[] okPoints = new long[OPERATIONS.length];
+  private final long[] failPoints = new long[OPERATIONS.length];
+  private final double[] latencySums = new double[OPERATIONS.length];
+
+  /**
+   * @param recorder where the results are saved
+   * @param aggregateMillis length of window to aggregate, 0 means no aggregation
+   */
+  public BinaryLogConverter(ITestDataPersistence recorder, long aggregateMillis) {
+    this.recorder = recorder;
+    this.aggregateMillis = aggregateMillis;
+  }
+
+  /**
+   * Convert all logs in the directory
+   *
+   * @return number of records converted
+   */
+  public long convertDir(File dir) throws IOException {
+    List<File> logs = BinaryOperationLog.listLogs(dir);
+    if (logs.isEmpty()) {
+      LOGGER.warn("No binary operation log in {}", dir);
+    }
+    long recordNum = 0;
+    for (File log : logs) {
+      long num = convert(log);
+      LOGGER.info("Converted {} records of {}", num, log);
+      recordNum += num;
+    }
+    return recordNum;
+  }
+
+  /**
+   * Convert one log, the records of a log are in order of time
+   *
+   * @return number of records converted
+   */
+  public long convert(File log) throws IOException {
+    long recordNum = 0;
+    try (BinaryOperationLog.Reader reader = new BinaryOperationLog.Reader(log)) {
+      String clientName = reader.getClientName();
+      long windowStart = -1;
+      while (reader.next()) {
+        recordNum++;
+        if (aggregateMillis <= 0) {
+          recorder.saveOperationResult(
+              reader.getRecordTime(),
+              clientName,
+              reader.getOperation().getName(),
+              reader.getOkPoint(),
+              reader.getFailPoint(),
+              reader.getLatency(),
+              reader.getRemark());
+          continue;
+        }
+        long window = reader.getRecordTime() - reader.getRecordTime() % aggregateMillis;
+        if (window != windowStart) {
+          flushWindow(windowStart, clientName);
+          windowStart = window;
+        }
+        int index = reader.getOperation().ordinal();
+        operationNums[index]++;
+        okPoints[index] += reader.getOkPoint();
+        failPoints[index] += reader.getFailPoint();
+        latencySums[index] += reader.getLatency();
+      }
+      flushWindow(windowStart, clientName);
+    }
+    return recordNum;
+  }
+
+  /** Save one result per operation of the window, latency is the average of the window */
+  private void flushWindow(long windowStart, String clientName) {
+    for (int i = 0; i < OPERATIONS.length; i++) {
+      if (operationNums[i] == 0) {
+        continue;
+      }
+      recorder.saveOperationResult(
+          windowStart,
+          clientName,
+          OPERATIONS[i].getName(),
+          (int) Math.min(okPoints[i], Integer.MAX_VALUE),
+          (int) Math.min(failPoints[i], Integer.MAX_VALUE),
+          latencySums[i] / operationNums[i],
+          "operations=" + operationNums[i]);
+      operationNums[i] = 0;
+      okPoints[i] = 0;
+      failPoints[i] = 0;
+      latencySums[i] = 0;
+    }
+  }
+}
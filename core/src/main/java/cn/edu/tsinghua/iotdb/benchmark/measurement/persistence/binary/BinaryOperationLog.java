@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format of the binary log of operations. A log file begins with a header of {@link #HEADER_SIZE}
+ * bytes, then one record of {@link #RECORD_SIZE} bytes per operation:
+ *
+ * <pre>
+ * offset 0  long   record time in millisecond
+ * offset 8  double latency in millisecond
+ * offset 16 int    okPoint
+ * offset 20 int    failPoint
+ * offset 24 short  ordinal of operation + 1, 0 means the end of log, -1 means an unknown operation
+ * offset 26 short  reserved
+ * offset 28 int    line of remark in the remark file, -1 means no remark
+ * </pre>
+ *
+ * Remarks are rare, they are written as lines into a text file next to the log. Records of unknown
+ * operations are skipped by the reader.
+ */
+public class BinaryOperationLog {
+
+  public static final int MAGIC = 0x49424F4C;
+  public static final short VERSION = 1;
+  public static final int HEADER_SIZE = 64;
+  public static final int RECORD_SIZE = 32;
+  /** Max bytes of client name kept in header */
+  public static final int MAX_NAME_LENGTH = HEADER_SIZE - 20;
+
+  public static final String LOG_SUFFIX = ".bin";
+  public static final String REMARK_SUFFIX = ".remark";
+  /** Code of an operation which is not one of {@link Operation} */
+  static final short UNKNOWN_OPERATION = -1;
+
+  private static final Operation[] OPERATIONS = Operation.values();
+  private static final Map<String, Operation> OPERATION_BY_NAME = new HashMap<>();
+
+  static {
+    for (Operation operation : OPERATIONS) {
+      OPERATION_BY_NAME.put(operation.getName(), operation);
+    }
+  }
+
+  private BinaryOperationLog() {}
+
+  /** @return code of operation kept in record, UNKNOWN_OPERATION if unknown */
+  static short encodeOperation(String operation) {
+    Operation op = OPERATION_BY_NAME.get(operation);
+    return op == null ? UNKNOWN_OPERATION : (short) (op.ordinal() + 1);
+  }
+
+  static void writeHeader(ByteBuffer buffer, long startTime, String clientName) {
+    byte[] name = clientName.getBytes(StandardCharsets.UTF_8);
+    int nameLength = Math.min(name.length, MAX_NAME_LENGTH);
+    buffer.putInt(0, MAGIC);
+    buffer.putShort(4, VERSION);
+    buffer.putShort(6, (short) RECORD_SIZE);
+    buffer.putLong(8, startTime);
+    buffer.putInt(16, nameLength);
+    for (int i = 0; i < nameLength; i++) {
+      buffer.put(20 + i, name[i]);
+    }
+  }
+
+  /** List the log files in directory in order of name */
+  public static List<File> listLogs(File dir) {
+    List<File> logs = new ArrayList<>();
+    File[] files = dir.listFiles((d, name) -> name.endsWith(LOG_SUFFIX));
+    if (files != null) {
+      for (File file : files) {
+        logs.add(file);
+      }
+    }
+    logs.sort((a, b) -> a.getName().compareTo(b.getName()));
+    return logs;
+  }
+
+  /** Read a log file sequentially, the record read last is exposed by getters */
+  public static class Reader implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = RECORD_SIZE * 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final String clientName;
+    private final long startTime;
+    private final File remarkFile;
+    private List<String> remarks;
+
+    private long recordTime;
+    private double latency;
+    private int okPoint;
+    private int failPoint;
+    private Operation operation;
+    private int remarkIndex;
+
+    public Reader(File log) throws IOException {
+      channel = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // read the whole header
+      }
+      if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+        channel.close();
+        throw new IOException(log + " is not a binary operation log");
+      }
+      if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+        channel.close();
+        throw new IOException("Unsupported version of binary operation log " + log);
+      }
+      startTime = header.getLong(8);
+      byte[] name = new byte[header.getInt(16)];
+      for (int i = 0; i < name.length; i++) {
+        name[i] = header.get(20 + i);
+      }
+      clientName = new String(name, StandardCharsets.UTF_8);
+      String path = log.getPath();
+      remarkFile = new File(path.substring(0, path.length() - LOG_SUFFIX.length()) + REMARK_SUFFIX);
+      buffer.flip();
+    }
+
+    /** @return false if there is no more record */
+    public boolean next() throws IOException {
+      int position;
+      short code;
+      do {
+        if (buffer.remaining() < RECORD_SIZE) {
+          buffer.compact();
+          while (buffer.position() < RECORD_SIZE && channel.read(buffer) > 0) {
+            // fill at least one record
+          }
+          buffer.flip();
+          if (buffer.remaining() < RECORD_SIZE) {
+            return false;
+          }
+        }
+        position = buffer.position();
+        code = buffer.getShort(position + 24);
+        if (code == 0) {
+          // the rest of a log not closed normally is zero
+          return false;
+        }
+        if (code < 0 || code > OPERATIONS.length) {
+          // operation unknown to the recorder or to this version
+          buffer.position(position + RECORD_SIZE);
+        }
+      } while (code < 0 || code > OPERATIONS.length);
+      recordTime = buffer.getLong(position);
+      latency = buffer.getDouble(position + 8);
+      okPoint = buffer.getInt(position + 16);
+      failPoint = buffer.getInt(position + 20);
+      operation = OPERATIONS[code - 1];
+      remarkIndex = buffer.getInt(position + 28);
+      buffer.position(position + RECORD_SIZE);
+      return true;
+    }
+
+    public String getClientName() {
+      return clientName;
+    }
+
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public long getRecordTime() {
+      return recordTime;
+    }
+
+    public double getLatency() {
+      return latency;
+    }
+
+    public int getOkPoint() {
+      return okPoint;
+    }
+
+    public int getFailPoint() {
+      return failPoint;
+    }
+
+    public Operation getOperation() {
+      return operation;
+    }
+
+    public String getRemark() throws IOException {
+      if (remarkIndex < 0) {
+        return "";
+      }
+      if (remarks == null) {
+        remarks = new ArrayList<>();
+        if (remarkFile.exists()) {
+          try (BufferedReader reader =
+              new BufferedReader(
+                  new InputStreamReader(new FileInputStream(remarkFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+              remarks.add(line);
+            }
+          }
+        }
+      }
+      return remarkIndex < remarks.size() ? remarks.get(remarkIndex) : "";
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary;
+
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append the results of operations of one client as fixed width records into a memory-mapped file,
+ * see {@link BinaryOperationLog} for the format. The log of each client is written by the client
+ * only, so no lock is needed. Other results are not logged, they can be found in data/csvOutput.
+ */
+public class BinaryRecorder implements ITestDataPersistence {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryRecorder.class);
+
+  /** All logs of one benchmark are in the same directory */
+  public static final String LOG_DIR =
+      "data/binaryLog/" + new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new java.util.Date());
+
+  /** Size of each mapped region, a new region is mapped after the file when full */
+  private static final long REGION_SIZE = BinaryOperationLog.RECORD_SIZE * 256 * 1024L;
+
+  private static final AtomicInteger LOG_ID = new AtomicInteger();
+
+  private final File dir;
+  private final long regionSize;
+  private FileChannel channel;
+  private MappedByteBuffer region;
+  private long regionStart;
+  private File logFile;
+  private BufferedWriter remarkWriter;
+  private int remarkNum = 0;
+  private long recordNum = 0;
+  private boolean failed = false;
+
+  public BinaryRecorder() {
+    this(new File(LOG_DIR), REGION_SIZE);
+  }
+
+  BinaryRecorder(File dir, long regionSize) {
+    this.dir = dir;
+    this.regionSize = regionSize - regionSize % BinaryOperationLog.RECORD_SIZE;
+  }
+
+  /** The log file is created by the first result, when the name of client is known */
+  private void open(long recordTime, String clientName) throws IOException {
+    if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+      throw new IOException("can't create dir " + dir);
+    }
+    String name =
+        String.format("%s-%d", clientName.replaceAll("[^\\w-]", "_"), LOG_ID.getAndIncrement());
+    logFile = new File(dir, name + BinaryOperationLog.LOG_SUFFIX);
+    channel =
+        FileChannel.open(
+            logFile.toPath(),
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    MappedByteBuffer header =
+        channel.map(FileChannel.MapMode.READ_WRITE, 0, BinaryOperationLog.HEADER_SIZE);
+    BinaryOperationLog.writeHeader(header, recordTime, clientName);
+    header.force();
+    unmap(header);
+    regionStart = BinaryOperationLog.HEADER_SIZE;
+    region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+  }
+
+  @Override
+  public void saveOperationResult(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    if (failed) {
+      return;
+    }
+    try {
+      if (channel == null) {
+        open(recordTime, clientName);
+      } else if (!region.hasRemaining()) {
+        regionStart += regionSize;
+        MappedByteBuffer full = region;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        unmap(full);
+      }
+      int remarkIndex = -1;
+      if (remark != null && !remark.isEmpty()) {
+        remarkIndex = saveRemark(remark);
+      }
+      region.putLong(recordTime);
+      region.putDouble(latency);
+      region.putInt(okPoint);
+      region.putInt(failPoint);
+      region.putShort(BinaryOperationLog.encodeOperation(operation));
+      region.putShort((short) 0);
+      region.putInt(remarkIndex);
+      recordNum++;
+    } catch (IOException e) {
+      failed = true;
+      LOGGER.error("Failed to write binary operation log, stop logging of {}", clientName, e);
+    }
+  }
+
+  private int saveRemark(String remark) throws IOException {
+    if (remarkWriter == null) {
+      String path = logFile.getPath();
+      File remarkFile =
+          new File(
+              path.substring(0, path.length() - BinaryOperationLog.LOG_SUFFIX.length())
+                  + BinaryOperationLog.REMARK_SUFFIX);
+      remarkWriter =
+          new BufferedWriter(
+              new OutputStreamWriter(new FileOutputStream(remarkFile), StandardCharsets.UTF_8));
+    }
+    remarkWriter.write(remark.replace('\n', ' ').replace('\r', ' '));
+    remarkWriter.newLine();
+    return remarkNum++;
+  }
+
+  @Override
+  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+    // DO nothing
+  }
+
+  @Override
+  public void saveTestConfig() {
+    // DO nothing
+  }
+
+  @Override
+  public void saveResult(String operation, String key, String value) {
+    // DO nothing
+  }
+
+  /**
+   * Cut the unused part of the last region, a log not closed is ended by zero records. The region is
+   * unmapped before, as a mapped file can't be truncated on some platforms.
+   */
+  @Override
+  public void close() {
+    try {
+      if (remarkWriter != null) {
+        remarkWriter.close();
+      }
+      if (channel != null) {
+        region.force();
+        unmap(region);
+        region = null;
+        channel.truncate(
+            BinaryOperationLog.HEADER_SIZE + recordNum * BinaryOperationLog.RECORD_SIZE);
+        channel.close();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Failed to close binary operation log {}", logFile, e);
+    }
+  }
+
+  /**
+   * Release the mapping of buffer now instead of when it is collected, the buffer must not be used
+   * any more. If it fails, the mapping is released by GC as usual.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException e) {
+        // JDK 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+        return;
+      }
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.debug("Failed to unmap binary operation log, left to GC", e);
+    }
+  }
+
+  File getLogFile() {
+    return logFile;
+  }
+}
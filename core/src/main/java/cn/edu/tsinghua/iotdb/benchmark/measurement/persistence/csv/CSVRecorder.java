@@ -34,6 +34,9 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.Date;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,8 +50,8 @@ public class CSVRecorder implements ITestDataPersistence {
   /** reentrantLock used for writing result into file */
   private static final ReentrantLock reentrantLock = new ReentrantLock(true);
 
-  private static final SimpleDateFormat dateFormat =
-      new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+  private static final DateTimeFormatter DATE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
   private static final SimpleDateFormat projectDateFormat =
       new SimpleDateFormat("yyyy_MM_dd_hh_mm_ss_SSS");
   private static final long EXP_TIME = System.currentTimeMillis();
@@ -146,7 +149,8 @@ public class CSVRecorder implements ITestDataPersistence {
       String firstLine = "id,projectID,operation,result_key,result_value\n";
       serverInfoWriter.append(firstLine);
     }
-    if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+    if ((config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+            || config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_CONVERT_BINARY_LOG))
         && projectWriter != null) {
       String firstLine =
           "id,recordTime,clientName,operation,okPoint,failPoint,latency,rate,remark\n";
@@ -248,41 +252,43 @@ public class CSVRecorder implements ITestDataPersistence {
 
   @Override
   public void saveOperationResult(
-      String operation, int okPoint, int failPoint, double latency, String remark) {
-    if (config.isCSV_FILE_SPLIT()) {
-      if (config.IncrementAndGetCURRENT_CSV_LINE() >= config.getCSV_MAX_LINE()) {
-        reentrantLock.lock();
-        try {
-          createNewCsvOrInsert(operation, okPoint, failPoint, latency, remark);
-        } finally {
-          reentrantLock.unlock();
-        }
-      } else {
-        insert(operation, okPoint, failPoint, latency, remark);
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    if (config.isCSV_FILE_SPLIT()
+        && config.IncrementAndGetCURRENT_CSV_LINE() >= config.getCSV_MAX_LINE()) {
+      reentrantLock.lock();
+      try {
+        createNewCsv();
+      } finally {
+        reentrantLock.unlock();
       }
-    } else {
-      insert(operation, okPoint, failPoint, latency, remark);
     }
+    insert(recordTime, clientName, operation, okPoint, failPoint, latency, remark);
   }
 
-  private void insert(String operation, int okPoint, int failPoint, double latency, String remark) {
+  private void insert(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
     double rate = 0;
     if (latency > 0) {
       // unit: points/second
       rate = okPoint * 1000 / latency;
     }
-    String time = dateFormat.format(new java.util.Date(System.currentTimeMillis()));
+    String time = DATE_FORMATTER.format(Instant.ofEpochMilli(recordTime));
     String line =
         String.format(
             ",%s,%s,%s,%d,%d,%f,%f,%s\n",
-            time,
-            Thread.currentThread().getName(),
-            operation,
-            okPoint,
-            failPoint,
-            latency,
-            rate,
-            remark);
+            time, clientName, operation, okPoint, failPoint, latency, rate, quote(remark));
 
     // when create a new file writer, old file may be closed.
     int count = 0;
@@ -301,11 +307,23 @@ public class CSVRecorder implements ITestDataPersistence {
     }
   }
 
-  private void createNewCsvOrInsert(
-      String operation, int okPoint, int failPoint, double latency, String remark) {
+  /** Quote the field if it contains separator, quote or line break, e.g. the remark of rollup */
+  static String quote(String field) {
+    if (field == null
+        || (field.indexOf(',') < 0
+            && field.indexOf('"') < 0
+            && field.indexOf('\n') < 0
+            && field.indexOf('\r') < 0)) {
+      return field;
+    }
+    return '"' + field.replace("\"", "\"\"") + '"';
+  }
+
+  private void createNewCsv() {
     if (config.getCURRENT_CSV_LINE() >= config.getCSV_MAX_LINE()) {
       FileWriter newProjectWriter = null;
-      if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)) {
+      if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+          || config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_CONVERT_BINARY_LOG)) {
         String firstLine =
             "id,recordTime,clientName,operation,okPoint,failPoint,latency,rate,remark\n";
         try {
@@ -326,8 +344,6 @@ public class CSVRecorder implements ITestDataPersistence {
         LOGGER.error("", e);
       }
       config.resetCURRENT_CSV_LINE();
-    } else {
-      insert(operation, okPoint, failPoint, latency, remark);
     }
   }
 
@@ -36,6 +36,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IotdbRecorder implements ITestDataPersistence {
 
@@ -57,6 +58,7 @@ public class IotdbRecorder implements ITestDataPersistence {
   private static final String OPERATION_RESULT_PREFIX = INSERT_SQL_PREFIX + "." + PROJECT_ID + ".";
   private static final String INSERT_SQL_STR1 = ") values(";
   private static final String INSERT_SQL_STR2 = "(timestamp";
+  private static final Map<String, String> OPERATION_RESULT_SQL = new ConcurrentHashMap<>();
 
   private static final String ENCODING = "PLAIN";
   private static final String COMPRESS = "UNCOMPRESSED";
@@ -70,6 +72,7 @@ public class IotdbRecorder implements ITestDataPersistence {
   private Connection connection;
   private Statement globalStatement;
 
+  /** Number of sql in the batch of globalStatement */
   private long count = 0;
 
   private static int threadID = 0;
@@ -109,7 +112,8 @@ public class IotdbRecorder implements ITestDataPersistence {
 
   private void initSchema() {
     // create time series
-    if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)) {
+    if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+        || config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_CONVERT_BINARY_LOG)) {
       initSingleTestMetrics();
       initResultMetrics();
     }
@@ -209,47 +213,49 @@ public class IotdbRecorder implements ITestDataPersistence {
     }
   }
 
+  /**
+   * The metrics are added to the batch of results and flushed at once, since in server mode they
+   * are inserted periodically and the batch may not be flushed otherwise
+   */
   @Override
-  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
-    try (Statement statement = connection.createStatement()) {
-      long currTime = System.currentTimeMillis();
-      currTime = currTime * 1000000;
-      StringBuilder builder =
-          new StringBuilder(INSERT_SQL_PREFIX)
-              .append(".")
-              .append(localName)
-              .append(".")
-              .append(PROJECT_ID)
-              .append(INSERT_SQL_STR2);
-      StringBuilder valueBuilder = new StringBuilder(INSERT_SQL_STR1).append(currTime);
-      for (Map.Entry entry : systemMetricsMap.entrySet()) {
-        builder.append(",").append(entry.getKey());
-        if (entry.getValue() == null) {
-          valueBuilder.append(",").append(0);
-        } else {
-          valueBuilder.append(",").append(entry.getValue());
-        }
+  public synchronized void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+    long currTime = System.currentTimeMillis();
+    currTime = currTime * 1000000;
+    StringBuilder builder =
+        new StringBuilder(INSERT_SQL_PREFIX)
+            .append(".")
+            .append(localName)
+            .append(".")
+            .append(PROJECT_ID)
+            .append(INSERT_SQL_STR2);
+    StringBuilder valueBuilder = new StringBuilder(INSERT_SQL_STR1).append(currTime);
+    for (Map.Entry entry : systemMetricsMap.entrySet()) {
+      builder.append(",").append(entry.getKey());
+      if (entry.getValue() == null) {
+        valueBuilder.append(",").append(0);
+      } else {
+        valueBuilder.append(",").append(entry.getValue());
       }
-      builder.append(valueBuilder).append(")");
-      statement.execute(builder.toString());
-    } catch (SQLException e) {
-      LOGGER.error("Insert system metric data failed ", e);
     }
+    builder.append(valueBuilder);
+    addBatch(builder);
+    flush();
   }
 
   @Override
   public void saveOperationResult(
-      String operation, int okPoint, int failPoint, double latency, String remark) {
-    StringBuilder builder = new StringBuilder(OPERATION_RESULT_PREFIX);
-    long currTime = System.currentTimeMillis();
-    currTime = currTime * 1000000 + this.getThreadID();
-    builder.append(operation).append(INSERT_SQL_STR2);
-    for (SingleTestMetrics metrics : SingleTestMetrics.values()) {
-      builder.append(",").append(metrics.getName());
-    }
-    builder.append(INSERT_SQL_STR1);
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    long currTime = recordTime * 1000000 + this.getThreadID();
+    StringBuilder builder =
+        new StringBuilder(OPERATION_RESULT_SQL.computeIfAbsent(operation, this::getResultSql));
     builder.append(currTime);
-    builder.append(",'").append(Thread.currentThread().getName()).append("'");
+    builder.append(",'").append(clientName).append("'");
     builder.append(",").append(okPoint);
     builder.append(",").append(failPoint);
     builder.append(",").append(latency);
@@ -257,6 +263,17 @@ public class IotdbRecorder implements ITestDataPersistence {
     addBatch(builder);
   }
 
+  /** The prefix of inserting results of operation, the columns are the same for all results */
+  private String getResultSql(String operation) {
+    StringBuilder builder = new StringBuilder(OPERATION_RESULT_PREFIX);
+    builder.append(operation).append(INSERT_SQL_STR2);
+    for (SingleTestMetrics metrics : SingleTestMetrics.values()) {
+      builder.append(",").append(metrics.getName());
+    }
+    builder.append(INSERT_SQL_STR1);
+    return builder.toString();
+  }
+
   @Override
   public void saveResult(String operation, String key, String value) {
     StringBuilder builder = new StringBuilder(INSERT_SQL_PREFIX);
@@ -269,20 +286,40 @@ public class IotdbRecorder implements ITestDataPersistence {
     addBatch(builder);
   }
 
-  private void addBatch(StringBuilder builder) {
+  /** The batch may be added by clients and flushed by the drainer of AsyncRecorder */
+  private synchronized void addBatch(StringBuilder builder) {
     builder.append(")");
     try {
       globalStatement.addBatch(builder.toString());
       count++;
-      if (count % SEND_TO_IOTDB_BATCH_SIZE == 0) {
-        globalStatement.executeBatch();
-        globalStatement.clearBatch();
+      if (count >= SEND_TO_IOTDB_BATCH_SIZE) {
+        flush();
       }
     } catch (SQLException e) {
       LOGGER.error("Add batch failed", e);
     }
   }
 
+  @Override
+  public synchronized void flush() {
+    if (count == 0) {
+      return;
+    }
+    try {
+      globalStatement.executeBatch();
+    } catch (SQLException e) {
+      LOGGER.error("Failed to save {} results into IoTDB", count, e);
+    } finally {
+      // the failed results are dropped rather than sent again with the next batch
+      count = 0;
+      try {
+        globalStatement.clearBatch();
+      } catch (SQLException e) {
+        LOGGER.error("Failed to clear the batch of results", e);
+      }
+    }
+  }
+
   @Override
   public void saveTestConfig() {
     // TODO save config into IoTDB
@@ -299,10 +336,9 @@ public class IotdbRecorder implements ITestDataPersistence {
   }
 
   @Override
-  public void close() {
+  public synchronized void close() {
+    flush();
     try {
-      globalStatement.executeBatch();
-      globalStatement.clearBatch();
       globalStatement.close();
       connection.close();
     } catch (SQLException e) {
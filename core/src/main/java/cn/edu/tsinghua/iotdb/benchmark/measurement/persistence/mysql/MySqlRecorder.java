@@ -24,6 +24,7 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.RollupRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,9 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 public class MySqlRecorder implements ITestDataPersistence {
@@ -43,9 +47,12 @@ public class MySqlRecorder implements ITestDataPersistence {
   private static final String SAVE_CONFIG = "insert into CONFIG values(NULL, %s, %s, %s)";
   private static final String SAVE_RESULT =
       "insert into FINAL_RESULT values(NULL, '%s', '%s', '%s', '%s')";
+  private static final String INSERT_RESULT =
+      "insert into %s(recordTime, clientName, operation, okPoint, failPoint, latency, rate, remark,"
+          + " histogram) values(?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-  private static final SimpleDateFormat dateFormat =
-      new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+  private static final DateTimeFormatter DATE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
   private static final SimpleDateFormat projectDateFormat =
       new SimpleDateFormat("yyyy_MM_dd_hh_mm_SSS");
 
@@ -80,9 +87,15 @@ public class MySqlRecorder implements ITestDataPersistence {
 
   private final String day;
   private Statement statement;
+  private PreparedStatement insertStatement;
   private Connection connection = null;
   private String localName;
-  private long count = 0;
+  /** Number of results in the batch of insertStatement */
+  private int batchNum = 0;
+  /** Number of results failed to be saved, reported when closed */
+  private long droppedNum = 0;
+
+  private boolean closed = false;
 
   public MySqlRecorder() {
     try {
@@ -143,14 +156,15 @@ public class MySqlRecorder implements ITestDataPersistence {
                 + " result_value VARCHAR(150))AUTO_INCREMENT = 1;");
         LOGGER.info("Table FINAL_RESULT create success!");
       }
-      if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+      if ((config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)
+              || config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_CONVERT_BINARY_LOG))
           && !hasTable(PROJECT_ID)) {
         statement.executeUpdate(
             "create table "
                 + PROJECT_ID
                 + "(id INT UNSIGNED NOT NULL PRIMARY KEY AUTO_INCREMENT, recordTime varchar(50),"
                 + " clientName varchar(50), operation varchar(50), okPoint INTEGER, failPoint INTEGER,"
-                + " latency DOUBLE, rate DOUBLE, remark varchar(1000))AUTO_INCREMENT = 1 COMMENT = \""
+                + " latency DOUBLE, rate DOUBLE, remark varchar(1000), histogram BLOB)AUTO_INCREMENT = 1 COMMENT = \""
                 + COMMENT
                 + "\";");
         LOGGER.info("Table {} create success!", PROJECT_ID);
@@ -161,7 +175,7 @@ public class MySqlRecorder implements ITestDataPersistence {
   }
 
   @Override
-  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+  public synchronized void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
     String sql = "";
     try {
       sql =
@@ -192,83 +206,137 @@ public class MySqlRecorder implements ITestDataPersistence {
     }
   }
 
+  /**
+   * Add the result to the batch, which is executed when full or flushed by the drainer of
+   * AsyncRecorder. The histogram of a rollup is kept in its own column, see RollupRecorder
+   */
   @Override
-  public void saveOperationResult(
-      String operation, int okPoint, int failPoint, double latency, String remark) {
-    if (config.IncrementAndGetCURRENT_CSV_LINE() % 10 < config.getMYSQL_REAL_INSERT_RATE() * 10) {
-      double rate = 0;
-      if (latency > 0) {
-        // unit: points/second
-        rate = okPoint * 1000 / latency;
+  public synchronized void saveOperationResult(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    if (closed
+        || config.IncrementAndGetCURRENT_CSV_LINE() % 10
+            >= config.getMYSQL_REAL_INSERT_RATE() * 10) {
+      return;
+    }
+    double rate = 0;
+    if (latency > 0) {
+      // unit: points/second
+      rate = okPoint * 1000 / latency;
+    }
+    try {
+      if (insertStatement == null) {
+        insertStatement = connection.prepareStatement(String.format(INSERT_RESULT, PROJECT_ID));
       }
-      String time = dateFormat.format(new java.util.Date(System.currentTimeMillis()));
-      String mysqlSql =
-          String.format(
-              "insert into %s values(NULL,'%s','%s','%s',%d,%d,%f,%f,'%s')",
-              PROJECT_ID,
-              time,
-              Thread.currentThread().getName(),
-              operation,
-              okPoint,
-              failPoint,
-              latency,
-              rate,
-              remark);
-      // check whether the connection is valid
-      try {
-        if (!connection.isValid(TIME_OUT)) {
-          LOGGER.info("Try to reconnect to MySQL");
-          try {
-            if (statement != null) {
-              statement.close();
-            }
-            if (connection != null) {
-              connection.close();
-            }
-            Class.forName(Constants.MYSQL_DRIVENAME);
-            connection = DriverManager.getConnection(URL);
-            statement = connection.createStatement();
-          } catch (Exception ex) {
-            LOGGER.error("Reconnect to MySQL failed because", ex);
-          }
-        }
-      } catch (SQLException ex) {
-        LOGGER.error("Test if MySQL connection is valid failed", ex);
+      insertStatement.setString(1, DATE_FORMATTER.format(Instant.ofEpochMilli(recordTime)));
+      insertStatement.setString(2, clientName);
+      insertStatement.setString(3, operation);
+      insertStatement.setInt(4, okPoint);
+      insertStatement.setInt(5, failPoint);
+      insertStatement.setDouble(6, latency);
+      insertStatement.setDouble(7, rate);
+      insertStatement.setString(8, RollupRecorder.getSummary(remark));
+      byte[] histogram = RollupRecorder.getHistogramBytes(remark);
+      if (histogram == null) {
+        insertStatement.setNull(9, Types.BLOB);
+      } else {
+        insertStatement.setBytes(9, histogram);
       }
-      // execute sql
-      try {
-        statement.execute(mysqlSql);
-        count++;
-        if (count % BATCH_SIZE == 0) {
-          statement.executeBatch();
-          statement.clearBatch();
-        }
-      } catch (Exception e) {
-        LOGGER.error("Exception: {}", e.getMessage(), e);
-        try {
-          if (!connection.isValid(TIME_OUT)) {
-            LOGGER.info("Try to reconnect to MySQL");
-            try {
-              Class.forName(Constants.MYSQL_DRIVENAME);
-              connection = DriverManager.getConnection(URL);
-            } catch (Exception ex) {
-              LOGGER.error("Reconnect to MySQL failed because", ex);
-            }
-          }
-        } catch (SQLException ex) {
-          LOGGER.error("Test if MySQL connection is valid failed", ex);
+      insertStatement.addBatch();
+      batchNum++;
+    } catch (SQLException e) {
+      LOGGER.error("{} failed to add result of {} into batch", clientName, operation, e);
+      // the results in batch are discarded as well
+      droppedNum += batchNum + 1;
+      batchNum = 0;
+      reconnectIfInvalid();
+      return;
+    }
+    if (batchNum >= BATCH_SIZE) {
+      flush();
+    }
+  }
+
+  /**
+   * Execute the batch of results, the connection is only checked when failed. A failed batch is not
+   * retried, since some of its results may have been saved, the number of the others is reported
+   * when closed.
+   */
+  @Override
+  public synchronized void flush() {
+    if (closed || batchNum == 0) {
+      return;
+    }
+    try {
+      insertStatement.executeBatch();
+    } catch (SQLException e) {
+      int failedNum = getFailedNum(e, batchNum);
+      droppedNum += failedNum;
+      LOGGER.error(
+          "Failed to save {} of {} results of operations into MySQL", failedNum, batchNum, e);
+      reconnectIfInvalid();
+    } finally {
+      batchNum = 0;
+    }
+  }
+
+  /** @return number of statements failed in a batch, all of them if unknown */
+  private static int getFailedNum(SQLException e, int batchNum) {
+    if (!(e instanceof BatchUpdateException)) {
+      return batchNum;
+    }
+    int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+    if (updateCounts == null) {
+      return batchNum;
+    }
+    // the driver may stop at the first failure, then the rest are not executed
+    int failedNum = batchNum - updateCounts.length;
+    for (int updateCount : updateCounts) {
+      if (updateCount == Statement.EXECUTE_FAILED) {
+        failedNum++;
+      }
+    }
+    return Math.max(0, failedNum);
+  }
+
+  private void reconnectIfInvalid() {
+    try {
+      if (connection.isValid(TIME_OUT)) {
+        if (insertStatement != null) {
+          insertStatement.clearBatch();
         }
-        LOGGER.error(
-            "{} save saveInsertProcess info into mysql failed! Error：{}",
-            Thread.currentThread().getName(),
-            e.getMessage());
-        LOGGER.error("{}", mysqlSql);
+        return;
+      }
+    } catch (SQLException e) {
+      LOGGER.error("Test if MySQL connection is valid failed", e);
+    }
+    LOGGER.info("Try to reconnect to MySQL");
+    try {
+      if (insertStatement != null) {
+        insertStatement.close();
       }
+      statement.close();
+      connection.close();
+    } catch (SQLException e) {
+      LOGGER.warn("Failed to close invalid connection to MySQL", e);
+    }
+    insertStatement = null;
+    try {
+      Class.forName(Constants.MYSQL_DRIVENAME);
+      connection = DriverManager.getConnection(URL);
+      statement = connection.createStatement();
+    } catch (Exception e) {
+      LOGGER.error("Reconnect to MySQL failed because", e);
     }
   }
 
   @Override
-  public void saveResult(String operation, String key, String value) {
+  public synchronized void saveResult(String operation, String key, String value) {
     String sql = String.format(SAVE_RESULT, PROJECT_ID, operation, key, value);
     try {
       statement.executeUpdate(sql);
@@ -278,7 +346,7 @@ public class MySqlRecorder implements ITestDataPersistence {
   }
 
   @Override
-  public void saveTestConfig() {
+  public synchronized void saveTestConfig() {
     String sql = "";
     try {
       if (config.getBENCHMARK_WORK_MODE().equals(Constants.MODE_TEST_WITH_DEFAULT_PATH)) {
@@ -409,11 +477,19 @@ public class MySqlRecorder implements ITestDataPersistence {
   }
 
   @Override
-  public void close() {
+  public synchronized void close() {
+    flush();
+    closed = true;
+    if (droppedNum > 0) {
+      LOGGER.warn("{} results of operations failed to be saved into MySQL", droppedNum);
+    }
     if (connection != null) {
       try {
         statement.executeBatch();
         statement.close();
+        if (insertStatement != null) {
+          insertStatement.close();
+        }
         connection.close();
       } catch (SQLException e) {
         LOGGER.error("Failed to close connection to MySQL, because: ", e);
@@ -38,7 +38,13 @@ public class NoneRecorder implements ITestDataPersistence {
 
   @Override
   public void saveOperationResult(
-      String operation, int okPoint, int failPoint, double latency, String remark) {
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
     // DO nothing
   }
 
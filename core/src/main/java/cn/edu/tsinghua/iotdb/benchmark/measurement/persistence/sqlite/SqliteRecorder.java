@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.sqlite;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.RollupRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.Map;
+
+/**
+ * Save results of all benchmarks into a local SQLite file, so that the history can be queried
+ * across runs, see {@link SqliteResultQuery}. All recorders of a benchmark share one connection and
+ * one row of the run table, results of operations are committed in batches.
+ */
+public class SqliteRecorder implements ITestDataPersistence {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SqliteRecorder.class);
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private static final long EXP_TIME = System.currentTimeMillis();
+  private static final String PROJECT_ID =
+      String.format(
+          "%s_%s_%s_%s",
+          config.getBENCHMARK_WORK_MODE(),
+          config.getDB_SWITCH(),
+          config.getREMARK(),
+          new SimpleDateFormat("yyyy_MM_dd_HH_mm_ss_SSS").format(new java.util.Date(EXP_TIME)));
+  private static final int BATCH_SIZE = 5000;
+  private static final String SQLITE_DRIVER = "org.sqlite.JDBC";
+
+  static final String[] SCHEMA = {
+    "CREATE TABLE IF NOT EXISTS run (run_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+        + " project_id TEXT NOT NULL, start_time INTEGER NOT NULL, work_mode TEXT,"
+        + " db_switch TEXT, remark TEXT, host TEXT)",
+    "CREATE INDEX IF NOT EXISTS run_db_switch ON run(db_switch, start_time)",
+    "CREATE TABLE IF NOT EXISTS config (run_id INTEGER NOT NULL REFERENCES run(run_id),"
+        + " item TEXT NOT NULL, value TEXT, PRIMARY KEY(run_id, item))",
+    "CREATE TABLE IF NOT EXISTS final_result (run_id INTEGER NOT NULL REFERENCES run(run_id),"
+        + " operation TEXT NOT NULL, result_key TEXT NOT NULL, result_value TEXT,"
+        + " PRIMARY KEY(run_id, operation, result_key))",
+    "CREATE INDEX IF NOT EXISTS final_result_key ON final_result(operation, result_key)",
+    "CREATE TABLE IF NOT EXISTS operation_result (run_id INTEGER NOT NULL REFERENCES run(run_id),"
+        + " record_time INTEGER NOT NULL, client TEXT, operation TEXT NOT NULL,"
+        + " ok_point INTEGER, fail_point INTEGER, latency REAL, remark TEXT)",
+    "CREATE INDEX IF NOT EXISTS operation_result_time"
+        + " ON operation_result(run_id, operation, record_time)",
+    "CREATE TABLE IF NOT EXISTS latency_histogram (run_id INTEGER NOT NULL REFERENCES run(run_id),"
+        + " record_time INTEGER NOT NULL, client TEXT, operation TEXT NOT NULL,"
+        + " histogram BLOB NOT NULL)",
+    "CREATE INDEX IF NOT EXISTS latency_histogram_time"
+        + " ON latency_histogram(run_id, operation, record_time)",
+    "CREATE TABLE IF NOT EXISTS system_metric (run_id INTEGER NOT NULL REFERENCES run(run_id),"
+        + " record_time INTEGER NOT NULL, metric TEXT NOT NULL, value REAL)"
+  };
+
+  private static final String INSERT_RUN =
+      "INSERT INTO run(project_id, start_time, work_mode, db_switch, remark, host)"
+          + " VALUES(?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_CONFIG =
+      "INSERT OR REPLACE INTO config(run_id, item, value) VALUES(?, ?, ?)";
+  private static final String INSERT_FINAL_RESULT =
+      "INSERT OR REPLACE INTO final_result(run_id, operation, result_key, result_value)"
+          + " VALUES(?, ?, ?, ?)";
+  private static final String INSERT_OPERATION_RESULT =
+      "INSERT INTO operation_result(run_id, record_time, client, operation, ok_point, fail_point,"
+          + " latency, remark) VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_HISTOGRAM =
+      "INSERT INTO latency_histogram(run_id, record_time, client, operation, histogram)"
+          + " VALUES(?, ?, ?, ?, ?)";
+  private static final String INSERT_SYSTEM_METRIC =
+      "INSERT INTO system_metric(run_id, record_time, metric, value) VALUES(?, ?, ?, ?)";
+
+  /** Shared by all recorders, guarded by the class */
+  private static Connection connection;
+
+  private static long runId;
+  private static PreparedStatement operationStatement;
+  private static PreparedStatement histogramStatement;
+  private static int batchNum = 0;
+
+  public SqliteRecorder() {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        try {
+          connection = open(config.getSQLITE_RESULT_FILE());
+          runId = insertRun(connection);
+          operationStatement = connection.prepareStatement(INSERT_OPERATION_RESULT);
+          histogramStatement = connection.prepareStatement(INSERT_HISTOGRAM);
+          Runtime.getRuntime().addShutdownHook(new Thread(SqliteRecorder::closeConnection));
+        } catch (SQLException e) {
+          LOGGER.error("Failed to init SQLite result file {}", config.getSQLITE_RESULT_FILE(), e);
+          connection = null;
+        }
+      }
+    }
+  }
+
+  /** Open the file in WAL mode and create the tables if not exist */
+  static Connection open(String file) throws SQLException {
+    File parent = new File(file).getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      LOGGER.error("can't create dir {}", parent);
+    }
+    try {
+      Class.forName(SQLITE_DRIVER);
+    } catch (ClassNotFoundException e) {
+      throw new SQLException("SQLite driver not found", e);
+    }
+    Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA journal_mode=WAL");
+      statement.execute("PRAGMA synchronous=NORMAL");
+      for (String sql : SCHEMA) {
+        statement.execute(sql);
+      }
+    }
+    connection.setAutoCommit(false);
+    connection.commit();
+    return connection;
+  }
+
+  private static long insertRun(Connection connection) throws SQLException {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "localName";
+    }
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_RUN)) {
+      statement.setString(1, PROJECT_ID);
+      statement.setLong(2, EXP_TIME);
+      statement.setString(3, config.getBENCHMARK_WORK_MODE());
+      statement.setString(4, config.getDB_SWITCH());
+      statement.setString(5, config.getREMARK());
+      statement.setString(6, host);
+      statement.executeUpdate();
+    }
+    long id;
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT last_insert_rowid()")) {
+      resultSet.next();
+      id = resultSet.getLong(1);
+    }
+    connection.commit();
+    return id;
+  }
+
+  /** Save every configuration of the benchmark, so that runs can be filtered by any of them */
+  @Override
+  public void saveTestConfig() {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        return;
+      }
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_CONFIG)) {
+        for (Field field : Config.class.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          field.setAccessible(true);
+          statement.setLong(1, runId);
+          statement.setString(2, field.getName());
+          statement.setString(3, String.valueOf(field.get(config)));
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException | IllegalAccessException e) {
+        LOGGER.error("Failed to save config into SQLite", e);
+      }
+    }
+  }
+
+  @Override
+  public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        return;
+      }
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_SYSTEM_METRIC)) {
+        long time = System.currentTimeMillis();
+        for (Map.Entry<SystemMetrics, Float> entry : systemMetricsMap.entrySet()) {
+          statement.setLong(1, runId);
+          statement.setLong(2, time);
+          statement.setString(3, entry.getKey().name());
+          if (entry.getValue() == null) {
+            statement.setNull(4, java.sql.Types.REAL);
+          } else {
+            statement.setDouble(4, entry.getValue());
+          }
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        LOGGER.error("Failed to save system metrics into SQLite", e);
+      }
+    }
+  }
+
+  /** The histogram of a rollup is kept in its own table, see RollupRecorder */
+  @Override
+  public void saveOperationResult(
+      long recordTime,
+      String clientName,
+      String operation,
+      int okPoint,
+      int failPoint,
+      double latency,
+      String remark) {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        return;
+      }
+      try {
+        operationStatement.setLong(1, runId);
+        operationStatement.setLong(2, recordTime);
+        operationStatement.setString(3, clientName);
+        operationStatement.setString(4, operation);
+        operationStatement.setInt(5, okPoint);
+        operationStatement.setInt(6, failPoint);
+        operationStatement.setDouble(7, latency);
+        operationStatement.setString(8, RollupRecorder.getSummary(remark));
+        operationStatement.addBatch();
+        byte[] histogram = RollupRecorder.getHistogramBytes(remark);
+        if (histogram != null) {
+          histogramStatement.setLong(1, runId);
+          histogramStatement.setLong(2, recordTime);
+          histogramStatement.setString(3, clientName);
+          histogramStatement.setString(4, operation);
+          histogramStatement.setBytes(5, histogram);
+          histogramStatement.addBatch();
+        }
+        batchNum++;
+      } catch (SQLException e) {
+        LOGGER.error("Failed to add result of {} into batch", operation, e);
+      }
+      if (batchNum >= BATCH_SIZE) {
+        flush();
+      }
+    }
+  }
+
+  @Override
+  public void saveResult(String operation, String key, String value) {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        return;
+      }
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_FINAL_RESULT)) {
+        statement.setLong(1, runId);
+        statement.setString(2, operation);
+        statement.setString(3, key);
+        statement.setString(4, value);
+        statement.executeUpdate();
+        connection.commit();
+      } catch (SQLException e) {
+        LOGGER.error("Failed to save result {} of {} into SQLite", key, operation, e);
+      }
+    }
+  }
+
+  /** Commit the batch of results of operations in one transaction */
+  @Override
+  public void flush() {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null || batchNum == 0) {
+        return;
+      }
+      try {
+        operationStatement.executeBatch();
+        histogramStatement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        LOGGER.error("Failed to save {} results of operations into SQLite", batchNum, e);
+        try {
+          connection.rollback();
+        } catch (SQLException ex) {
+          LOGGER.error("Failed to rollback SQLite", ex);
+        }
+      } finally {
+        batchNum = 0;
+      }
+    }
+  }
+
+  /** The connection is shared, it is closed when the benchmark exits */
+  @Override
+  public void close() {
+    flush();
+  }
+
+  private static void closeConnection() {
+    synchronized (SqliteRecorder.class) {
+      if (connection == null) {
+        return;
+      }
+      try {
+        operationStatement.executeBatch();
+        histogramStatement.executeBatch();
+        connection.commit();
+        connection.close();
+      } catch (SQLException e) {
+        LOGGER.error("Failed to close SQLite result file", e);
+      }
+      connection = null;
+    }
+  }
+}
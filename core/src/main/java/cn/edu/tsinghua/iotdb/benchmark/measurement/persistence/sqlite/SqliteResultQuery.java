@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Query the history of results saved by {@link SqliteRecorder} across runs */
+public class SqliteResultQuery implements AutoCloseable {
+
+  private static final String HISTORY_SQL =
+      "SELECT r.run_id, r.start_time, r.db_switch, r.remark, f.result_value"
+          + " FROM final_result f JOIN run r ON f.run_id = r.run_id"
+          + " WHERE f.operation = ? AND f.result_key = ?";
+  private static final String CONFIG_FILTER =
+      " AND EXISTS (SELECT 1 FROM config c WHERE c.run_id = r.run_id AND c.item = ? AND c.value = ?)";
+  private static final String HISTORY_ORDER = " ORDER BY r.start_time DESC LIMIT ?";
+  private static final String[] HISTORY_HEAD = {"run_id", "start_time", "db_switch", "remark"};
+
+  private final Connection connection;
+
+  public SqliteResultQuery(String file) throws SQLException {
+    connection = SqliteRecorder.open(file);
+  }
+
+  /**
+   * The final result of an operation in the latest runs, the first row is the head
+   *
+   * @param operation e.g. INGESTION or total
+   * @param key e.g. P99 or throughput
+   * @param filter configurations of runs, like DB_SWITCH=IoTDB-012-SESSION_BY_TABLET, separated by
+   *     comma
+   * @param runNum max number of runs
+   */
+  public List<String[]> queryHistory(String operation, String key, String filter, int runNum)
+      throws SQLException {
+    List<String[]> conditions = new ArrayList<>();
+    StringBuilder sql = new StringBuilder(HISTORY_SQL);
+    for (String condition : filter.split(",")) {
+      int index = condition.indexOf('=');
+      if (index > 0) {
+        conditions.add(
+            new String[] {
+              condition.substring(0, index).trim(), condition.substring(index + 1).trim()
+            });
+        sql.append(CONFIG_FILTER);
+      }
+    }
+    sql.append(HISTORY_ORDER);
+    List<String[]> rows = new ArrayList<>();
+    String[] head = new String[HISTORY_HEAD.length + 1];
+    System.arraycopy(HISTORY_HEAD, 0, head, 0, HISTORY_HEAD.length);
+    head[HISTORY_HEAD.length] = operation + "." + key;
+    rows.add(head);
+    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+      int parameter = 1;
+      statement.setString(parameter++, operation);
+      statement.setString(parameter++, key);
+      for (String[] condition : conditions) {
+        statement.setString(parameter++, condition[0]);
+        statement.setString(parameter++, condition[1]);
+      }
+      statement.setInt(parameter, runNum);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          rows.add(
+              new String[] {
+                resultSet.getString(1),
+                dateFormat.format(new java.util.Date(resultSet.getLong(2))),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getString(5)
+              });
+        }
+      }
+    }
+    return rows;
+  }
+
+  /** Execute any query on the result file, the first row is the head */
+  public List<String[]> query(String sql) throws SQLException {
+    List<String[]> rows = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(sql);
+        ResultSet resultSet = statement.executeQuery()) {
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      String[] head = new String[metaData.getColumnCount()];
+      for (int i = 0; i < head.length; i++) {
+        head[i] = metaData.getColumnLabel(i + 1);
+      }
+      rows.add(head);
+      while (resultSet.next()) {
+        String[] row = new String[head.length];
+        for (int i = 0; i < head.length; i++) {
+          row[i] = resultSet.getString(i + 1);
+        }
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  /** Print rows as a table with aligned columns */
+  public static void print(List<String[]> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    int[] widths = new int[rows.get(0).length];
+    for (String[] row : rows) {
+      for (int i = 0; i < row.length; i++) {
+        widths[i] = Math.max(widths[i], String.valueOf(row[i]).length());
+      }
+    }
+    for (String[] row : rows) {
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < row.length; i++) {
+        line.append(String.format("%-" + (widths[i] + 2) + "s", row[i]));
+      }
+      System.out.println(line.toString().trim());
+    }
+    System.out.println((rows.size() - 1) + " rows");
+  }
+
+  @Override
+  public void close() throws SQLException {
+    connection.close();
+  }
+}
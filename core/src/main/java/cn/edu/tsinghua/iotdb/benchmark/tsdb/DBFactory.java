@@ -104,6 +104,8 @@ public class DBFactory {
           dbClass = Constants.OPENTSDB_CLASS;
           break;
         case Constants.DB_TIMESCALE:
+        case Constants.DB_TIMESCALE_COPY:
+        case Constants.DB_TIMESCALE_MULTI_ROW:
           dbClass = Constants.TIMESCALEDB_CLASS;
           break;
         case Constants.DB_TAOSDB:
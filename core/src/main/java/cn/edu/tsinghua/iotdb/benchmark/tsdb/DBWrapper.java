@@ -25,6 +25,9 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.exception.DBConnectException;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Measurement;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.BenchmarkEvents;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.OperationEvent;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.RecordEvent;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.PersistenceFactory;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
@@ -33,7 +36,12 @@ import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public class DBWrapper implements IDatabase {
 
@@ -47,6 +55,10 @@ public class DBWrapper implements IDatabase {
   private IDatabase db;
   private Measurement measurement;
   private ITestDataPersistence recorder;
+  /** Number of batches sent but not recorded, only used by the client thread */
+  private int pendingWriteNum = 0;
+  /** Batches finished by the database, waiting to be recorded by the client thread */
+  private final BlockingQueue<PendingWrite> finishedWrites = new LinkedBlockingQueue<>();
 
   /**
    * Use DBFactory to get database
@@ -67,8 +79,13 @@ public class DBWrapper implements IDatabase {
 
   @Override
   public Status insertOneBatch(Batch batch) throws DBConnectException {
+    if (config.getWRITE_PIPELINE_DEPTH() > 1) {
+      return sendOneBatch(batch);
+    }
     Status status = null;
     Operation operation = Operation.INGESTION;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.insertOneBatch(batch);
@@ -78,8 +95,167 @@ public class DBWrapper implements IDatabase {
     } catch (Exception e) {
       measurement.addFailOperationNum(operation);
       measurement.addFailPointNum(operation, batch.pointNum());
-      recorder.saveOperationResult(operation.getName(), 0, batch.pointNum(), 0, e.toString());
+      saveOperationResult(operation.getName(), 0, batch.pointNum(), 0, e.toString());
       LOGGER.error("Failed to insert one batch because unexpected exception: ", e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, batch, status);
+      measurement.endOperation(operation);
+    }
+    return status;
+  }
+
+  /**
+   * Send one batch without waiting for it, after recording the finished batches and waiting until
+   * less than WRITE_PIPELINE_DEPTH batches are pending. The batch is measured when it is recorded
+   * by a later call or by waitPendingWrites, its latency is from sending to finishing. Latency
+   * phases are not timed, as the phases of batches in flight would be mixed up in the client thread.
+   *
+   * @return ok status if the batch is sent
+   */
+  private Status sendOneBatch(Batch batch) throws DBConnectException {
+    recordFinishedWrites();
+    while (pendingWriteNum >= config.getWRITE_PIPELINE_DEPTH()) {
+      recordFinishedWrite(takeFinishedWrite());
+    }
+    Operation operation = Operation.INGESTION;
+    PendingWrite write = new PendingWrite(batch);
+    measurement.beginOverlappedOperation(operation);
+    write.event = BenchmarkEvents.beginOperation();
+    write.start = System.nanoTime();
+    CompletableFuture<Status> future;
+    try {
+      future = db.insertOneBatchAsync(batch);
+    } catch (DBConnectException ex) {
+      BenchmarkEvents.commitOperation(write.event, operation, batch, null);
+      measurement.endOverlappedOperation(operation);
+      throw ex;
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    pendingWriteNum++;
+    future.whenComplete(
+        (status, e) -> {
+          write.end = System.nanoTime();
+          write.status = status;
+          write.exception = e;
+          finishedWrites.add(write);
+        });
+    return new Status(true);
+  }
+
+  /** Record the batches finished since last call, called in the thread of client only */
+  private void recordFinishedWrites() {
+    PendingWrite write;
+    while ((write = finishedWrites.poll()) != null) {
+      recordFinishedWrite(write);
+    }
+  }
+
+  /** Wait for and record all the batches sent by sendOneBatch */
+  private void waitPendingWrites() {
+    while (pendingWriteNum > 0) {
+      PendingWrite write = takeFinishedWrite();
+      if (write == null) {
+        return;
+      }
+      recordFinishedWrite(write);
+    }
+  }
+
+  private PendingWrite takeFinishedWrite() {
+    try {
+      return finishedWrites.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private void recordFinishedWrite(PendingWrite write) {
+    if (write == null) {
+      return;
+    }
+    pendingWriteNum--;
+    Operation operation = Operation.INGESTION;
+    Batch batch = write.batch;
+    try {
+      // a batch completed exceptionally or without status is failed
+      if (write.exception != null) {
+        Throwable e =
+            write.exception instanceof CompletionException && write.exception.getCause() != null
+                ? write.exception.getCause()
+                : write.exception;
+        write.status =
+            new Status(
+                false, 0, e instanceof Exception ? (Exception) e : new Exception(e), e.toString());
+      } else if (write.status == null) {
+        Exception e = new Exception("No status of the batch is returned by database");
+        write.status = new Status(false, 0, e, e.getMessage());
+      }
+      measureOneBatch(write.status, operation, batch, write.start, write.end);
+    } finally {
+      BenchmarkEvents.commitOperation(write.event, operation, batch, write.status);
+      measurement.endOverlappedOperation(operation);
+    }
+  }
+
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) throws DBConnectException {
+    Status status = null;
+    Operation operation = Operation.INGESTION;
+    int pointNum = 0;
+    List<DeviceSchema> deviceSchemas = new ArrayList<>(batches.size());
+    for (Batch batch : batches) {
+      pointNum += batch.pointNum();
+      deviceSchemas.add(batch.getDeviceSchema());
+    }
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
+    try {
+      long start = System.nanoTime();
+      status = db.insertMultiDeviceBatch(batches);
+      long end = System.nanoTime();
+      setTimeCost(status, start, end);
+      if (status.isOk()) {
+        measureOkOperation(status, operation, pointNum);
+        measurement.addAttributedLatency(
+            operation, deviceSchemas, status.getTimeCost() / NANO_TO_MILLIS);
+        if (!config.isIS_QUIET_MODE()) {
+          double timeInMillis = status.getTimeCost() / NANO_TO_MILLIS;
+          LOGGER.info(
+              "{} insert {} devices latency ,{}, ms, throughput ,{}, points/s",
+              Thread.currentThread().getName(),
+              batches.size(),
+              String.format("%.2f", timeInMillis),
+              pointNum * 1000 / timeInMillis);
+        }
+      } else {
+        // some devices may have been inserted, e.g. by the default insertMultiDeviceBatch
+        int failPointNum = status.getFailPointNum() < 0 ? pointNum : status.getFailPointNum();
+        int okPointNum = pointNum - failPointNum;
+        measurement.addFailOperationNum(operation);
+        measurement.addFailPointNum(operation, failPointNum);
+        if (okPointNum > 0) {
+          measurement.addOkPointNum(operation, okPointNum);
+        }
+        saveOperationResult(
+            operation.getName(), okPointNum, failPointNum, 0, status.getException().toString());
+        LOGGER.error(
+            "Insert multi-device batch failed because {}",
+            status.getErrorMessage(),
+            status.getException());
+      }
+    } catch (DBConnectException ex) {
+      throw ex;
+    } catch (Exception e) {
+      measurement.addFailOperationNum(operation);
+      measurement.addFailPointNum(operation, pointNum);
+      saveOperationResult(operation.getName(), 0, pointNum, 0, e.toString());
+      LOGGER.error("Failed to insert multi-device batch because unexpected exception: ", e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, deviceSchemas, pointNum, status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -88,6 +264,8 @@ public class DBWrapper implements IDatabase {
   public Status insertOneSensorBatch(Batch batch) throws DBConnectException {
     Status status = null;
     Operation operation = Operation.INGESTION;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.insertOneSensorBatch(batch);
@@ -97,12 +275,20 @@ public class DBWrapper implements IDatabase {
     } catch (Exception e) {
       measurement.addFailOperationNum(operation);
       measurement.addFailPointNum(operation, batch.pointNum());
-      recorder.saveOperationResult(operation.getName(), 0, batch.pointNum(), 0, e.toString());
+      saveOperationResult(operation.getName(), 0, batch.pointNum(), 0, e.toString());
       LOGGER.error("Failed to insert one batch because unexpected exception: ", e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, batch, status);
+      measurement.endOperation(operation);
     }
     return status;
   }
 
+  /** Set the latency of operation, excluding the time spent on cost accounting of database */
+  private static void setTimeCost(Status status, long start, long end) {
+    status.setTimeCost(end - start - status.getAccountingTimeCost());
+  }
+
   /**
    * Measure one batch
    *
@@ -113,10 +299,16 @@ public class DBWrapper implements IDatabase {
    * @return
    */
   private Status measureOneBatch(Status status, Operation operation, Batch batch, long start) {
-    long end = System.nanoTime();
-    status.setTimeCost(end - start);
+    return measureOneBatch(status, operation, batch, start, System.nanoTime());
+  }
+
+  private Status measureOneBatch(
+      Status status, Operation operation, Batch batch, long start, long end) {
+    setTimeCost(status, start, end);
     if (status.isOk()) {
       measureOkOperation(status, operation, batch.pointNum());
+      measurement.addAttributedLatency(
+          operation, batch.getDeviceSchema(), status.getTimeCost() / NANO_TO_MILLIS);
       if (!config.isIS_QUIET_MODE()) {
         double timeInMillis = status.getTimeCost() / NANO_TO_MILLIS;
         String formatTimeInMillis = String.format("%.2f", timeInMillis);
@@ -132,7 +324,7 @@ public class DBWrapper implements IDatabase {
     } else {
       measurement.addFailOperationNum(operation);
       measurement.addFailPointNum(operation, batch.pointNum());
-      recorder.saveOperationResult(
+      saveOperationResult(
           operation.getName(), 0, batch.pointNum(), 0, status.getException().toString());
       LOGGER.error("Insert batch failed because", status.getException());
     }
@@ -143,14 +335,19 @@ public class DBWrapper implements IDatabase {
   public Status preciseQuery(PreciseQuery preciseQuery) {
     Status status = null;
     Operation operation = Operation.PRECISE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.preciseQuery(preciseQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, preciseQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, preciseQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -159,14 +356,19 @@ public class DBWrapper implements IDatabase {
   public Status rangeQuery(RangeQuery rangeQuery) {
     Status status = null;
     Operation operation = Operation.RANGE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.rangeQuery(rangeQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, rangeQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, rangeQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -175,14 +377,19 @@ public class DBWrapper implements IDatabase {
   public Status valueRangeQuery(ValueRangeQuery valueRangeQuery) {
     Status status = null;
     Operation operation = Operation.VALUE_RANGE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.valueRangeQuery(valueRangeQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, valueRangeQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, valueRangeQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -191,14 +398,19 @@ public class DBWrapper implements IDatabase {
   public Status aggRangeQuery(AggRangeQuery aggRangeQuery) {
     Status status = null;
     Operation operation = Operation.AGG_RANGE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.aggRangeQuery(aggRangeQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, aggRangeQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, aggRangeQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -207,14 +419,19 @@ public class DBWrapper implements IDatabase {
   public Status aggValueQuery(AggValueQuery aggValueQuery) {
     Status status = null;
     Operation operation = Operation.AGG_VALUE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.aggValueQuery(aggValueQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, aggValueQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, aggValueQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -223,14 +440,20 @@ public class DBWrapper implements IDatabase {
   public Status aggRangeValueQuery(AggRangeValueQuery aggRangeValueQuery) {
     Status status = null;
     Operation operation = Operation.AGG_RANGE_VALUE_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.aggRangeValueQuery(aggRangeValueQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, aggRangeValueQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(
+          event, operation, aggRangeValueQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -239,14 +462,19 @@ public class DBWrapper implements IDatabase {
   public Status groupByQuery(GroupByQuery groupByQuery) {
     Status status = null;
     Operation operation = Operation.GROUP_BY_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.groupByQuery(groupByQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, groupByQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, groupByQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -255,14 +483,19 @@ public class DBWrapper implements IDatabase {
   public Status latestPointQuery(LatestPointQuery latestPointQuery) {
     Status status = null;
     Operation operation = Operation.LATEST_POINT_QUERY;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       long start = System.nanoTime();
       status = db.latestPointQuery(latestPointQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, latestPointQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, latestPointQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -271,15 +504,20 @@ public class DBWrapper implements IDatabase {
   public Status rangeQueryOrderByDesc(RangeQuery rangeQuery) {
     Status status = null;
     Operation operation = Operation.RANGE_QUERY_ORDER_BY_TIME_DESC;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       rangeQuery.setDesc(true);
       long start = System.nanoTime();
       status = db.rangeQueryOrderByDesc(rangeQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, rangeQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, rangeQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -288,15 +526,20 @@ public class DBWrapper implements IDatabase {
   public Status valueRangeQueryOrderByDesc(ValueRangeQuery valueRangeQuery) {
     Status status = null;
     Operation operation = Operation.VALUE_RANGE_QUERY_ORDER_BY_TIME_DESC;
+    measurement.beginOperation(operation);
+    OperationEvent event = BenchmarkEvents.beginOperation();
     try {
       valueRangeQuery.setDesc(true);
       long start = System.nanoTime();
       status = db.valueRangeQueryOrderByDesc(valueRangeQuery);
       long end = System.nanoTime();
-      status.setTimeCost(end - start);
-      handleQueryOperation(status, operation);
+      setTimeCost(status, start, end);
+      handleQueryOperation(status, operation, valueRangeQuery.getDeviceSchema());
     } catch (Exception e) {
       handleUnexpectedQueryException(operation, e);
+    } finally {
+      BenchmarkEvents.commitOperation(event, operation, valueRangeQuery.getDeviceSchema(), status);
+      measurement.endOperation(operation);
     }
     return status;
   }
@@ -322,6 +565,7 @@ public class DBWrapper implements IDatabase {
 
   @Override
   public void close() throws TsdbException {
+    waitPendingWrites();
     db.close();
     if (recorder != null) {
       recorder.close();
@@ -342,8 +586,22 @@ public class DBWrapper implements IDatabase {
       }
       createSchemaTimeInSecond = (end - start) / NANO_TO_SECOND;
       measurement.setCreateSchemaTime(createSchemaTimeInSecond);
+      if (config.isCREATE_SCHEMA()) {
+        long seriesNum = 0;
+        for (DeviceSchema deviceSchema : schemaList) {
+          seriesNum += deviceSchema.getSensors().size();
+        }
+        measurement.setCreateSchemaSeriesNum(seriesNum);
+        LOGGER.info(
+            "Registered {} time series in {} s, {} series/s",
+            seriesNum,
+            String.format("%.2f", createSchemaTimeInSecond),
+            String.format(
+                "%.2f", createSchemaTimeInSecond > 0 ? seriesNum / createSchemaTimeInSecond : 0.0));
+      }
     } catch (Exception e) {
       measurement.setCreateSchemaTime(0);
+      measurement.setCreateSchemaSeriesNum(0);
       throw new TsdbException(e);
     }
   }
@@ -366,7 +624,7 @@ public class DBWrapper implements IDatabase {
     measurement.addOperationLatency(operation, latencyInMillis);
     measurement.addOkOperationNum(operation);
     measurement.addOkPointNum(operation, okPointNum);
-    recorder.saveOperationResult(operation.getName(), okPointNum, 0, latencyInMillis, "");
+    saveOperationResult(operation.getName(), okPointNum, 0, latencyInMillis, "");
   }
 
   /**
@@ -374,10 +632,15 @@ public class DBWrapper implements IDatabase {
    *
    * @param status
    * @param operation
+   * @param deviceSchemas devices of query
    */
-  private void handleQueryOperation(Status status, Operation operation) {
+  private void handleQueryOperation(
+      Status status, Operation operation, List<DeviceSchema> deviceSchemas) {
     if (status.isOk()) {
       measureOkOperation(status, operation, status.getQueryResultPointNum());
+      measurement.addQueryCost(operation, status);
+      measurement.addAttributedLatency(
+          operation, deviceSchemas, status.getTimeCost() / NANO_TO_MILLIS);
       if (!config.isIS_QUIET_MODE()) {
         double timeInMillis = status.getTimeCost() / NANO_TO_MILLIS;
         String formatTimeInMillis = String.format("%.2f", timeInMillis);
@@ -393,7 +656,7 @@ public class DBWrapper implements IDatabase {
       LOGGER.error("Execution fail: {}", status.getErrorMessage(), status.getException());
       measurement.addFailOperationNum(operation);
       // currently we do not have expected result point number for query
-      recorder.saveOperationResult(operation.getName(), 0, 0, 0, status.getException().toString());
+      saveOperationResult(operation.getName(), 0, 0, 0, status.getException().toString());
     }
   }
 
@@ -408,6 +671,36 @@ public class DBWrapper implements IDatabase {
     measurement.addFailOperationNum(operation);
     // currently we do not have expected result point number for query
     LOGGER.error(ERROR_LOG, operation, e);
-    recorder.saveOperationResult(operation.getName(), 0, 0, 0, e.toString());
+    saveOperationResult(operation.getName(), 0, 0, 0, e.toString());
+  }
+
+  /**
+   * Save the result of one operation by recorder
+   *
+   * @param operation
+   * @param okPointNum
+   * @param failPointNum
+   * @param latency
+   * @param remark
+   */
+  private void saveOperationResult(
+      String operation, int okPointNum, int failPointNum, double latency, String remark) {
+    RecordEvent event = BenchmarkEvents.beginRecord();
+    recorder.saveOperationResult(operation, okPointNum, failPointNum, latency, remark);
+    BenchmarkEvents.commitRecord(event, config.getTEST_DATA_PERSISTENCE(), operation);
+  }
+
+  /** A batch sent by sendOneBatch, filled by the thread which finished it */
+  private static class PendingWrite {
+    private final Batch batch;
+    private OperationEvent event;
+    private long start;
+    private long end;
+    private Status status;
+    private Throwable exception;
+
+    private PendingWrite(Batch batch) {
+      this.batch = batch;
+    }
   }
 }
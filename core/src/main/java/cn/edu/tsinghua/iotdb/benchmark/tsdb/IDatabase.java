@@ -33,6 +33,7 @@ import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.ValueRangeQuery;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IDatabase {
 
@@ -68,6 +69,57 @@ public interface IDatabase {
    */
   Status insertOneBatch(Batch batch) throws DBConnectException;
 
+  /**
+   * Insert one batch without waiting for it, used if WRITE_PIPELINE_DEPTH > 1. The returned future
+   * must be completed, normally or exceptionally, within WRITE_OPERATION_TIMEOUT_MS. The default
+   * implementation inserts the batch synchronously.
+   *
+   * @param batch universal insertion data structure
+   * @return future of the status of insertion
+   */
+  default CompletableFuture<Status> insertOneBatchAsync(Batch batch) throws DBConnectException {
+    return CompletableFuture.completedFuture(insertOneBatch(batch));
+  }
+
+  /**
+   * Insert batches of multiple devices in one request, e.g. insertTablets of IoTDB. The default
+   * implementation inserts them one by one and goes on after a failed batch, the returned status
+   * fails if any batch failed, and its failPointNum is the points of the failed batches.
+   *
+   * @param batches batches of different devices
+   * @return status which contains successfully executed flag, error message and so on.
+   */
+  default Status insertMultiDeviceBatch(List<Batch> batches) throws DBConnectException {
+    Status firstFailed = null;
+    int failBatchNum = 0;
+    int failPointNum = 0;
+    for (Batch batch : batches) {
+      Status status = insertOneBatch(batch);
+      if (!status.isOk()) {
+        if (firstFailed == null) {
+          firstFailed = status;
+        }
+        failBatchNum++;
+        failPointNum += batch.pointNum();
+      }
+    }
+    if (firstFailed == null) {
+      return new Status(true);
+    }
+    Status status =
+        new Status(
+            false,
+            0,
+            firstFailed.getException(),
+            failBatchNum
+                + " of "
+                + batches.size()
+                + " devices failed, the first because: "
+                + firstFailed.getErrorMessage());
+    status.setFailPointNum(failPointNum);
+    return status;
+  }
+
   /**
    * Insert single-sensor one batch into the database, the DB implementation needs to resolve the
    * data in batch which contains device schema and Map[Long, List[String]] records. The key of
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Register schema in chunks concurrently on a group of connections, each of which is used by one
+ * chunk at a time. A failed chunk is retried up to CREATE_SCHEMA_RETRY_NUM times, so registering a
+ * chunk must be idempotent, e.g. ignore the time series which already exist. The progress and rate
+ * are logged periodically.
+ *
+ * @param <C> type of connection, e.g. Session or java.sql.Connection
+ */
+public class ParallelSchemaRegister<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelSchemaRegister.class);
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private static final long PROGRESS_INTERVAL_NANOS = 10_000_000_000L;
+  private static final long RETRY_INTERVAL_MILLIS = 1000;
+  private static final double NANO_TO_SECOND = 1000000000.0d;
+
+  private final List<C> connections;
+
+  @FunctionalInterface
+  public interface ChunkRegister<C, T> {
+    /**
+     * Register a chunk of items, must be idempotent
+     *
+     * @param connection connection which is only used by this call until it returns
+     * @param chunk items to register
+     */
+    void register(C connection, List<T> chunk) throws Exception;
+  }
+
+  /** @param connections connections to register schema, usually SCHEMA_CLIENT_NUMBER of them */
+  public ParallelSchemaRegister(List<C> connections) {
+    if (connections.isEmpty()) {
+      throw new IllegalArgumentException("No connection to register schema");
+    }
+    this.connections = connections;
+  }
+
+  /**
+   * Register items in chunks of at most chunkSize, and wait until all of them are registered.
+   *
+   * @param name name of items in log, e.g. time series
+   * @param items items to register
+   * @param chunkSize max number of items in one chunk
+   * @param register how to register a chunk
+   * @throws TsdbException if a chunk still fails after retries
+   */
+  public <T> void register(String name, List<T> items, int chunkSize, ChunkRegister<C, T> register)
+      throws TsdbException {
+    if (items.isEmpty()) {
+      return;
+    }
+    chunkSize = Math.max(1, chunkSize);
+    int chunkNum = (items.size() + chunkSize - 1) / chunkSize;
+    BlockingQueue<C> idleConnections = new LinkedBlockingQueue<>(connections);
+    AtomicInteger threadIndex = new AtomicInteger();
+    ExecutorService pool =
+        Executors.newFixedThreadPool(
+            Math.min(connections.size(), chunkNum),
+            r ->
+                new Thread(
+                    r, "register-" + name.replace(' ', '-') + "-" + threadIndex.getAndIncrement()));
+    Progress progress = new Progress(name, items.size());
+    List<Future<?>> futures = new ArrayList<>(chunkNum);
+    try {
+      for (int from = 0; from < items.size(); from += chunkSize) {
+        List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+        futures.add(
+            pool.submit(
+                () -> {
+                  C connection = idleConnections.take();
+                  try {
+                    registerWithRetry(name, connection, chunk, register);
+                  } finally {
+                    idleConnections.add(connection);
+                  }
+                  progress.add(chunk.size());
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof TsdbException ? (TsdbException) cause : new TsdbException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TsdbException(e);
+    } finally {
+      pool.shutdownNow();
+    }
+    progress.finish();
+  }
+
+  private <T> void registerWithRetry(
+      String name, C connection, List<T> chunk, ChunkRegister<C, T> register) throws Exception {
+    for (int retry = 0; ; retry++) {
+      try {
+        register.register(connection, chunk);
+        return;
+      } catch (Exception e) {
+        if (retry >= config.getCREATE_SCHEMA_RETRY_NUM()) {
+          LOGGER.error("Failed to register {} {} after {} retries", chunk.size(), name, retry);
+          throw e;
+        }
+        LOGGER.warn(
+            "Failed to register {} {}, retry {}/{}: {}",
+            chunk.size(),
+            name,
+            retry + 1,
+            config.getCREATE_SCHEMA_RETRY_NUM(),
+            e.getMessage());
+        Thread.sleep(RETRY_INTERVAL_MILLIS * (retry + 1));
+      }
+    }
+  }
+
+  /** Registered number of items, logged at most once per PROGRESS_INTERVAL_NANOS */
+  private static class Progress {
+    private final String name;
+    private final long total;
+    private final long start = System.nanoTime();
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong lastLog = new AtomicLong(start);
+
+    private Progress(String name, long total) {
+      this.name = name;
+      this.total = total;
+    }
+
+    private void add(int num) {
+      long current = registered.addAndGet(num);
+      long now = System.nanoTime();
+      long last = lastLog.get();
+      if (now - last >= PROGRESS_INTERVAL_NANOS && lastLog.compareAndSet(last, now)) {
+        double elapsed = (now - start) / NANO_TO_SECOND;
+        LOGGER.info(
+            "Registered {}/{} {} ({}%), {} {}/s",
+            current,
+            total,
+            name,
+            String.format("%.1f", current * 100.0 / total),
+            String.format("%.2f", current / elapsed),
+            name);
+      }
+    }
+
+    private void finish() {
+      double elapsed = (System.nanoTime() - start) / NANO_TO_SECOND;
+      LOGGER.info(
+          "Registered {} {} in {} s, {} {}/s",
+          total,
+          name,
+          String.format("%.2f", elapsed),
+          String.format("%.2f", total / elapsed),
+          name);
+    }
+  }
+}
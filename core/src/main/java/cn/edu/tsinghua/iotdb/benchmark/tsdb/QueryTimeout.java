@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.tsdb;
+
+import cn.edu.tsinghua.iotdb.benchmark.utils.HashedWheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Timeout of JDBC queries executed by the client thread itself. A timer shared by all clients
+ * cancels the statement when the timeout expires, since some drivers (e.g. pgjdbc 9.1) accept the
+ * query timeout of statement but never enforce it. The query timeout of statement is also set as a
+ * second line for drivers which enforce it on the server. Either way there is no thread hand-off on
+ * the path of query.
+ *
+ * <p>e.g. try (QueryTimeout timeout = QueryTimeout.start(statement, timeoutMillis)), execute the
+ * query and iterate result, then timeout.stop(). The timeout is closed if the query fails, so that
+ * the timer does not cancel a statement which has been closed.
+ */
+public class QueryTimeout implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryTimeout.class);
+  private static final int TICK_MILLIS = 10;
+  private static final int WHEEL_SIZE = 512;
+  private static final QueryTimeout NONE = new QueryTimeout(null, 0);
+
+  private final HashedWheelTimer.Timeout timeout;
+  private final long timeoutMillis;
+
+  private QueryTimeout(HashedWheelTimer.Timeout timeout, long timeoutMillis) {
+    this.timeout = timeout;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Start the timeout of a query by the shared timer, and by the query timeout of driver if it is
+   * supported
+   *
+   * @param statement statement to be cancelled when the timeout expires
+   * @param timeoutMillis timeout in milliseconds, no timeout if it is not positive
+   */
+  public static QueryTimeout start(Statement statement, long timeoutMillis) {
+    if (timeoutMillis <= 0) {
+      return NONE;
+    }
+    try {
+      statement.setQueryTimeout(toQueryTimeoutSeconds(timeoutMillis));
+    } catch (SQLException | UnsupportedOperationException e) {
+      // the timer below still cancels the query
+    }
+    return new QueryTimeout(
+        TimerHolder.TIMER.newTimeout(() -> cancel(statement), timeoutMillis), timeoutMillis);
+  }
+
+  /**
+   * The query timeout of JDBC is in whole seconds and 0 means no timeout, so the timeout is rounded
+   * up and at least 1 second. The driver may thus fire later than a sub-second timeout, which is
+   * enforced by the timer at the precision of its tick instead.
+   */
+  static int toQueryTimeoutSeconds(long timeoutMillis) {
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (timeoutMillis + 999) / 1000));
+  }
+
+  private static void cancel(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException | UnsupportedOperationException e) {
+      LOGGER.warn("Failed to cancel timeout query", e);
+    }
+  }
+
+  /**
+   * Stop the timeout after the query and its result are finished
+   *
+   * @throws SQLTimeoutException if the statement has been cancelled by the timer, as the result may
+   *     be incomplete
+   */
+  public void stop() throws SQLTimeoutException {
+    if (timeout != null && !timeout.cancel()) {
+      throw new SQLTimeoutException("Query is cancelled after " + timeoutMillis + " ms");
+    }
+  }
+
+  /** Stop the timeout without checking whether it has expired, e.g. after the query failed */
+  @Override
+  public void close() {
+    if (timeout != null) {
+      timeout.cancel();
+    }
+  }
+
+  /** The timer thread is only started by the first query with timeout */
+  private static class TimerHolder {
+    private static final HashedWheelTimer TIMER =
+        new HashedWheelTimer("query-timeout", TICK_MILLIS, WHEEL_SIZE);
+  }
+}
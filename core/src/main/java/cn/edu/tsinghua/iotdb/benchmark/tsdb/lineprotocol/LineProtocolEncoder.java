@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol;
+
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encode batches into InfluxDB line protocol, e.g. group_0,device=d_0 s_0=1.5,s_1=2i 1535558400000.
+ * Lines are written straight from the records into a byte buffer which is reused by the following
+ * requests, so one encoder should only be used by one client.
+ *
+ * <p>The group is the measurement and the device is the only tag. If sensorAsTag is set, each value
+ * is written as a line whose tag sensor is the sensor and whose only field is value, which is what
+ * VictoriaMetrics queries expect.
+ */
+public class LineProtocolEncoder {
+
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] DEVICE_TAG = ",device=".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SENSOR_TAG = ",sensor=".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] VALUE_FIELD = " value=".getBytes(StandardCharsets.UTF_8);
+  private static final int INITIAL_CAPACITY = 64 * 1024;
+
+  private final boolean sensorAsTag;
+  /** the encoded lines are buffer[0, size) */
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+  private int size = 0;
+
+  public LineProtocolEncoder(boolean sensorAsTag) {
+    this.sensorAsTag = sensorAsTag;
+  }
+
+  /** Discard the encoded lines but keep the buffer */
+  public void reset() {
+    size = 0;
+  }
+
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Append all records of the batch. For a batch of one sensor (colIndex != -1), the only value of
+   * each record belongs to the only sensor of the schema, or to the sensor at colIndex if the
+   * schema keeps all sensors.
+   */
+  public void encode(Batch batch) {
+    DeviceSchema deviceSchema = batch.getDeviceSchema();
+    List<String> sensors = deviceSchema.getSensors();
+    int colIndex = sensors.size() == 1 ? 0 : batch.getColIndex();
+    byte[] prefix = escapedPrefix(deviceSchema);
+    byte[][] fieldKeys = new byte[sensors.size()][];
+    for (int i = 0; i < fieldKeys.length; i++) {
+      fieldKeys[i] = escape(sensors.get(i), true);
+    }
+    for (Record record : batch.getRecords()) {
+      List<Object> values = record.getRecordDataValue();
+      if (batch.getColIndex() != -1) {
+        appendLine(prefix, fieldKeys[colIndex], values.get(0), record.getTimestamp());
+      } else if (sensorAsTag) {
+        for (int i = 0; i < values.size(); i++) {
+          appendLine(prefix, fieldKeys[i], values.get(i), record.getTimestamp());
+        }
+      } else {
+        appendLine(prefix, fieldKeys, values, record.getTimestamp());
+      }
+    }
+  }
+
+  /** e.g. group_0,device=d_0 s_0=1.5,s_1=2i 1535558400000 */
+  private void appendLine(byte[] prefix, byte[][] fieldKeys, List<Object> values, long time) {
+    int lineStart = size;
+    append(prefix);
+    char separator = ' ';
+    for (int i = 0; i < values.size(); i++) {
+      if (!isWritable(values.get(i))) {
+        continue;
+      }
+      append(separator);
+      append(fieldKeys[i]);
+      append('=');
+      appendValue(values.get(i));
+      separator = ',';
+    }
+    if (separator == ' ') {
+      // a line needs at least one field
+      size = lineStart;
+      return;
+    }
+    appendTime(time);
+  }
+
+  /**
+   * e.g. group_0,device=d_0 s_0=1.5 1535558400000, or group_0,device=d_0,sensor=s_0 value=1.5
+   * 1535558400000 if sensorAsTag
+   */
+  private void appendLine(byte[] prefix, byte[] fieldKey, Object value, long time) {
+    if (!isWritable(value)) {
+      return;
+    }
+    append(prefix);
+    if (sensorAsTag) {
+      append(SENSOR_TAG);
+      append(fieldKey);
+      append(VALUE_FIELD);
+    } else {
+      append(' ');
+      append(fieldKey);
+      append('=');
+    }
+    appendValue(value);
+    appendTime(time);
+  }
+
+  private void appendTime(long time) {
+    append(' ');
+    appendLong(time);
+    append('\n');
+  }
+
+  /** NaN and infinity can not be written in line protocol */
+  private static boolean isWritable(Object value) {
+    if (value instanceof Double) {
+      return !((Double) value).isNaN() && !((Double) value).isInfinite();
+    } else if (value instanceof Float) {
+      return !((Float) value).isNaN() && !((Float) value).isInfinite();
+    }
+    return value != null;
+  }
+
+  private void appendValue(Object value) {
+    if (value instanceof Boolean) {
+      append((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof Integer || value instanceof Long) {
+      appendLong(((Number) value).longValue());
+      append('i');
+    } else if (value instanceof Number) {
+      appendAscii(value.toString());
+    } else {
+      append('"');
+      appendString(value.toString());
+      append('"');
+    }
+  }
+
+  private void appendLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      appendAscii(Long.toString(value));
+      return;
+    }
+    if (value < 0) {
+      append('-');
+      value = -value;
+    }
+    int digits = 1;
+    for (long v = value / 10; v > 0; v /= 10) {
+      digits++;
+    }
+    ensureCapacity(digits);
+    for (int i = size + digits - 1; i >= size; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    size += digits;
+  }
+
+  /** string field value, where double quote and backslash are escaped */
+  private void appendString(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        append(value.replace("\\", "\\\\").replace("\"", "\\\"").getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+    }
+    ensureCapacity(value.length() * 2);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer[size++] = '\\';
+      }
+      buffer[size++] = (byte) c;
+    }
+  }
+
+  private void appendAscii(String value) {
+    ensureCapacity(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      buffer[size++] = (byte) value.charAt(i);
+    }
+  }
+
+  private void append(char c) {
+    ensureCapacity(1);
+    buffer[size++] = (byte) c;
+  }
+
+  private void append(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  private void ensureCapacity(int length) {
+    if (size + length > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+    }
+  }
+
+  /** e.g. group_0,device=d_0 */
+  private static byte[] escapedPrefix(DeviceSchema deviceSchema) {
+    byte[] measurement = escape(deviceSchema.getGroup(), false);
+    byte[] device = escape(deviceSchema.getDevice(), true);
+    byte[] prefix = new byte[measurement.length + DEVICE_TAG.length + device.length];
+    System.arraycopy(measurement, 0, prefix, 0, measurement.length);
+    System.arraycopy(DEVICE_TAG, 0, prefix, measurement.length, DEVICE_TAG.length);
+    System.arraycopy(device, 0, prefix, measurement.length + DEVICE_TAG.length, device.length);
+    return prefix;
+  }
+
+  /**
+   * Escape comma and space, and also equal sign for keys and tag values, which is not needed for
+   * measurements
+   */
+  private static byte[] escape(String name, boolean escapeEqualSign) {
+    StringBuilder builder = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c == ',' || c == ' ' || (escapeEqualSign && c == '=')) {
+        builder.append('\\');
+      }
+      builder.append(c);
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return new String(buffer, 0, size, StandardCharsets.UTF_8);
+  }
+}
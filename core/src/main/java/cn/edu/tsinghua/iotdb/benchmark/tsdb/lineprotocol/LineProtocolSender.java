@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Post the lines of a {@link LineProtocolEncoder} to a write endpoint, e.g. /write of InfluxDB 1.x
+ * and VictoriaMetrics or /api/v2/write of InfluxDB 2.0. The body is gzipped if
+ * ENABLE_HTTP_COMPRESSION is set.
+ *
+ * <p>The connections are kept alive and reused by the JDK as long as the response is read to the
+ * end, and at most http.maxConnections idle connections per server are kept, which is raised to
+ * CLIENT_NUMBER unless set explicitly.
+ */
+public class LineProtocolSender {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+  private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+  static {
+    if (System.getProperty(MAX_CONNECTIONS_PROPERTY) == null) {
+      System.setProperty(
+          MAX_CONNECTIONS_PROPERTY,
+          String.valueOf(Math.max(DEFAULT_MAX_CONNECTIONS, config.getCLIENT_NUMBER())));
+    }
+  }
+
+  private final URL url;
+  private final String authorization;
+  private final boolean compress = config.isENABLE_HTTP_COMPRESSION();
+  /** reused to gzip the body */
+  private final ExposedByteArrayOutputStream compressed = new ExposedByteArrayOutputStream();
+
+  private final byte[] readBuffer = new byte[4096];
+
+  /**
+   * @param url url of the write endpoint, including the database and precision parameters
+   * @param authorization value of the Authorization header, null if not needed
+   */
+  public LineProtocolSender(String url, String authorization) throws TsdbException {
+    try {
+      this.url = new URL(url);
+    } catch (IOException e) {
+      throw new TsdbException("Illegal write url " + url, e);
+    }
+    this.authorization = authorization;
+  }
+
+  /** Post the encoded lines, and throw an exception if the response is not 2xx */
+  public void send(LineProtocolEncoder encoder) throws TsdbException {
+    if (encoder.size() == 0) {
+      return;
+    }
+    HttpURLConnection connection = null;
+    try {
+      byte[] body = encoder.getBuffer();
+      int length = encoder.size();
+      if (compress) {
+        compressed.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+          gzip.write(body, 0, length);
+        }
+        body = compressed.getBuffer();
+        length = compressed.size();
+      }
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setConnectTimeout(config.getWRITE_OPERATION_TIMEOUT_MS());
+      connection.setReadTimeout(config.getWRITE_OPERATION_TIMEOUT_MS());
+      connection.setFixedLengthStreamingMode(length);
+      connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+      if (compress) {
+        connection.setRequestProperty("Content-Encoding", "gzip");
+      }
+      if (authorization != null) {
+        connection.setRequestProperty("Authorization", authorization);
+      }
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body, 0, length);
+      }
+      int code = connection.getResponseCode();
+      if (code / 100 != 2) {
+        throw new TsdbException(
+            "Failed to write to "
+                + url
+                + ", "
+                + code
+                + ": "
+                + readFully(connection.getErrorStream()));
+      }
+      readFully(connection.getInputStream());
+    } catch (IOException e) {
+      if (connection != null) {
+        // read the error response so that the connection can be reused
+        try {
+          readFully(connection.getErrorStream());
+        } catch (IOException ignored) {
+          // the connection is closed
+        }
+      }
+      throw new TsdbException("Failed to write to " + url, e);
+    }
+  }
+
+  /** Read the response to the end and close it, which returns the connection to the pool */
+  private String readFully(InputStream in) throws IOException {
+    if (in == null) {
+      return "";
+    }
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    try (InputStream input = in) {
+      int read;
+      while ((read = input.read(readBuffer)) != -1) {
+        response.write(readBuffer, 0, read);
+      }
+    }
+    return new String(response.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Precision parameter of InfluxDB 1.x and VictoriaMetrics for TIMESTAMP_PRECISION, which is u
+   * rather than us for microseconds
+   */
+  public static String getV1Precision(String timestampPrecision) {
+    return "us".equals(timestampPrecision) ? "u" : timestampPrecision;
+  }
+
+  /** ByteArrayOutputStream whose buffer can be read without copying */
+  private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+    private byte[] getBuffer() {
+      return buf;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer for a large number of short timeouts which are mostly cancelled before they expire, in
+ * the way of Netty's HashedWheelTimer. Scheduling and cancelling cost O(1) without any lock, and a
+ * single daemon thread advances the wheel every tick and runs expired tasks, so a task may run up
+ * to one tick later than its deadline. Tasks must be short as they are run by the timer thread.
+ */
+public class HashedWheelTimer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private final long tickNanos;
+  private final Queue<Timeout>[] wheel;
+  private final int mask;
+  /** Timeouts scheduled by other threads, moved into wheel by timer thread on every tick */
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+  private final long startTime;
+  private long tick;
+
+  /**
+   * Create and start a timer
+   *
+   * @param name name of timer thread
+   * @param tickMillis duration of a tick
+   * @param wheelSize number of buckets, rounded up to a power of 2
+   */
+  @SuppressWarnings("unchecked")
+  public HashedWheelTimer(String name, long tickMillis, int wheelSize) {
+    tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+    int size = Integer.highestOneBit(Math.max(1, wheelSize * 2 - 1));
+    wheel = new Queue[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+    mask = size - 1;
+    startTime = System.nanoTime();
+    Thread worker = new Thread(this::run, name);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Schedule task to run after delay
+   *
+   * @param task task to run by timer thread
+   * @param delayMillis delay in milliseconds
+   * @return timeout which can be cancelled
+   */
+  public Timeout newTimeout(Runnable task, long delayMillis) {
+    Timeout timeout =
+        new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private void run() {
+    while (true) {
+      long deadline = startTime + (tick + 1) * tickNanos;
+      long now;
+      while ((now = System.nanoTime()) < deadline) {
+        LockSupport.parkNanos(deadline - now);
+      }
+      transferPendingTimeouts();
+      expireTimeouts(wheel[(int) (tick & mask)]);
+      tick++;
+    }
+  }
+
+  private void transferPendingTimeouts() {
+    Timeout timeout;
+    while ((timeout = pendingTimeouts.poll()) != null) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long ticks = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+      timeout.remainingRounds = (ticks - tick) / wheel.length;
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  private void expireTimeouts(Queue<Timeout> bucket) {
+    for (int i = bucket.size(); i > 0; i--) {
+      Timeout timeout = bucket.poll();
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      if (timeout.remainingRounds > 0) {
+        timeout.remainingRounds--;
+        bucket.add(timeout);
+      } else {
+        timeout.expire();
+      }
+    }
+  }
+
+  public static class Timeout {
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(INIT);
+    // only accessed by timer thread
+    private long remainingRounds;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /** @return true if the task will never run, false if it has expired already */
+    public boolean cancel() {
+      return state.compareAndSet(INIT, CANCELLED) || state.get() == CANCELLED;
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    private void expire() {
+      if (state.compareAndSet(INIT, EXPIRED)) {
+        try {
+          task.run();
+        } catch (Exception e) {
+          LOGGER.error("Failed to run timeout task", e);
+        }
+      }
+    }
+  }
+}
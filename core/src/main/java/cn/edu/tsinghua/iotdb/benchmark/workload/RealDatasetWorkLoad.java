@@ -20,6 +20,8 @@
 package cn.edu.tsinghua.iotdb.benchmark.workload;
 
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.BenchmarkEvents;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.GenerateEvent;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.AggRangeQuery;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.AggRangeValueQuery;
@@ -104,7 +106,10 @@ public class RealDatasetWorkLoad implements IWorkload {
 
   public Batch getOneBatch() {
     if (reader.hasNextBatch()) {
-      return reader.nextBatch();
+      GenerateEvent event = BenchmarkEvents.beginGenerate();
+      Batch batch = reader.nextBatch();
+      BenchmarkEvents.commitGenerate(event, "realDataset", batch);
+      return batch;
     } else {
       return null;
     }
@@ -23,7 +23,10 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.distribution.PoissonDistribution;
 import cn.edu.tsinghua.iotdb.benchmark.distribution.ProbTool;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.BenchmarkEvents;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.GenerateEvent;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DataSchema;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,7 +62,8 @@ public class SingletonWorkload {
 
   private Batch getOrderedBatch() {
     long curLoop = insertLoop.getAndIncrement();
-    DeviceSchema deviceSchema = new DeviceSchema((int) curLoop % config.getDEVICE_NUMBER());
+    DeviceSchema deviceSchema =
+        DataSchema.getInstance().getDeviceSchema((int) curLoop % config.getDEVICE_NUMBER());
     Batch batch = new Batch();
     for (long batchOffset = 0; batchOffset < config.getBATCH_SIZE_PER_WRITE(); batchOffset++) {
       long stepOffset =
@@ -71,25 +75,33 @@ public class SingletonWorkload {
   }
 
   public Batch getOneBatch() throws WorkloadException {
+    GenerateEvent event = BenchmarkEvents.beginGenerate();
+    Batch batch;
     if (!config.isIS_OUT_OF_ORDER()) {
-      return getOrderedBatch();
+      batch = getOrderedBatch();
     } else {
-      switch (config.getOUT_OF_ORDER_MODE()) {
-        case 0:
-          return getDistOutOfOrderBatch();
-        case 1:
-          return getLocalOutOfOrderBatch();
-        default:
-          throw new WorkloadException(
-              "Unsupported out of order mode: " + config.getOUT_OF_ORDER_MODE());
-      }
+      batch = getOutOfOrderBatch();
+    }
+    BenchmarkEvents.commitGenerate(event, "singleton", batch);
+    return batch;
+  }
+
+  private Batch getOutOfOrderBatch() throws WorkloadException {
+    switch (config.getOUT_OF_ORDER_MODE()) {
+      case 0:
+        return getDistOutOfOrderBatch();
+      case 1:
+        return getLocalOutOfOrderBatch();
+      default:
+        throw new WorkloadException(
+            "Unsupported out of order mode: " + config.getOUT_OF_ORDER_MODE());
     }
   }
 
   private Batch getDistOutOfOrderBatch() {
     long curLoop = insertLoop.getAndIncrement();
     int deviceIndex = (int) (curLoop % config.getDEVICE_NUMBER());
-    DeviceSchema deviceSchema = new DeviceSchema(deviceIndex);
+    DeviceSchema deviceSchema = DataSchema.getInstance().getDeviceSchema(deviceIndex);
 
     Batch batch = new Batch();
     PoissonDistribution poissonDistribution = new PoissonDistribution(poissonRandom);
@@ -27,6 +27,8 @@ import cn.edu.tsinghua.iotdb.benchmark.distribution.PoissonDistribution;
 import cn.edu.tsinghua.iotdb.benchmark.distribution.ProbTool;
 import cn.edu.tsinghua.iotdb.benchmark.function.Function;
 import cn.edu.tsinghua.iotdb.benchmark.function.FunctionParam;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.BenchmarkEvents;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.jfr.GenerateEvent;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
@@ -51,6 +53,10 @@ public class SyntheticWorkload implements IWorkload {
   private final Map<Operation, Long> operationLoops;
 
   private final Random queryDeviceRandom;
+  /** Reused by getQueryDeviceSchemaList to avoid allocation on every query */
+  private int[] queryDeviceIndex;
+
+  private final List<String> querySensorBuffer = new ArrayList<>();
   private static final Random random = new Random(config.getDATA_SEED());
   private static final Random dataRandom = new Random(config.getDATA_SEED());
 
@@ -138,36 +144,41 @@ public class SyntheticWorkload implements IWorkload {
 
   @Override
   public Batch getOneBatch(DeviceSchema deviceSchema, long loopIndex) throws WorkloadException {
+    GenerateEvent event = BenchmarkEvents.beginGenerate();
+    Batch batch;
     if (!config.isIS_OUT_OF_ORDER()) {
-      return getOrderedBatch(deviceSchema, loopIndex);
+      batch = getOrderedBatch(deviceSchema, loopIndex);
     } else {
-      switch (config.getOUT_OF_ORDER_MODE()) {
-        case 0:
-          return getDistOutOfOrderBatch(deviceSchema);
-        case 1:
-          return getLocalOutOfOrderBatch(deviceSchema, loopIndex);
-        default:
-          throw new WorkloadException(
-              "Unsupported out of order mode: " + config.getOUT_OF_ORDER_MODE());
-      }
+      batch = getOutOfOrderBatch(deviceSchema, loopIndex);
     }
+    BenchmarkEvents.commitGenerate(event, "synthetic", batch);
+    return batch;
   }
 
   @Override
   public Batch getOneBatch(DeviceSchema deviceSchema, long loopIndex, int colIndex)
       throws WorkloadException {
+    GenerateEvent event = BenchmarkEvents.beginGenerate();
+    Batch batch;
     if (!config.isIS_OUT_OF_ORDER()) {
-      return getOrderedBatch(deviceSchema, loopIndex, colIndex);
+      batch = getOrderedBatch(deviceSchema, loopIndex, colIndex);
     } else {
-      switch (config.getOUT_OF_ORDER_MODE()) {
-        case 0:
-          return getDistOutOfOrderBatch(deviceSchema);
-        case 1:
-          return getLocalOutOfOrderBatch(deviceSchema, loopIndex);
-        default:
-          throw new WorkloadException(
-              "Unsupported out of order mode: " + config.getOUT_OF_ORDER_MODE());
-      }
+      batch = getOutOfOrderBatch(deviceSchema, loopIndex);
+    }
+    BenchmarkEvents.commitGenerate(event, "synthetic", batch);
+    return batch;
+  }
+
+  private Batch getOutOfOrderBatch(DeviceSchema deviceSchema, long loopIndex)
+      throws WorkloadException {
+    switch (config.getOUT_OF_ORDER_MODE()) {
+      case 0:
+        return getDistOutOfOrderBatch(deviceSchema);
+      case 1:
+        return getLocalOutOfOrderBatch(deviceSchema, loopIndex);
+      default:
+        throw new WorkloadException(
+            "Unsupported out of order mode: " + config.getOUT_OF_ORDER_MODE());
     }
   }
 
@@ -335,38 +346,57 @@ public class SyntheticWorkload implements IWorkload {
   private List<DeviceSchema> getQueryDeviceSchemaList(boolean typeAllow) throws WorkloadException {
     checkQuerySchemaParams();
     List<DeviceSchema> queryDevices = new ArrayList<>();
-    List<Integer> clientDevicesIndex = new ArrayList<>();
-    for (int m = 0; m < config.getDEVICE_NUMBER() * config.getREAL_INSERT_RATE(); m++) {
-      clientDevicesIndex.add(m);
-    }
-    Collections.shuffle(clientDevicesIndex, queryDeviceRandom);
+    int[] clientDevicesIndex = getShuffledQueryDeviceIndex();
     for (int m = 0;
         queryDevices.size() < config.getQUERY_DEVICE_NUM() && m < config.getDEVICE_NUMBER();
         m++) {
-      DeviceSchema deviceSchema = new DeviceSchema(clientDevicesIndex.get(m));
-      List<String> sensors = deviceSchema.getSensors();
-      Collections.shuffle(sensors, queryDeviceRandom);
-      List<String> querySensors = new ArrayList<>();
+      DeviceSchema deviceSchema = DataSchema.getInstance().getDeviceSchema(clientDevicesIndex[m]);
+      // the sensors of device schema are shared, so shuffle a copy of them
+      querySensorBuffer.clear();
+      querySensorBuffer.addAll(deviceSchema.getSensors());
+      Collections.shuffle(querySensorBuffer, queryDeviceRandom);
+      List<String> querySensors = new ArrayList<>(config.getQUERY_SENSOR_NUM());
       for (int i = 0;
           querySensors.size() < config.getQUERY_SENSOR_NUM() && i < config.getSENSOR_NUMBER();
           i++) {
         if (!typeAllow) {
-          String type = DBUtil.getDataType(Integer.parseInt(sensors.get(i).split("_")[1]));
+          String type =
+              DBUtil.getDataType(Integer.parseInt(querySensorBuffer.get(i).split("_")[1]));
           if (type.equals("BOOLEAN") || type.equals("TEXT")) {
             continue;
           }
         }
-        querySensors.add(sensors.get(i));
+        querySensors.add(querySensorBuffer.get(i));
       }
       if (querySensors.size() != config.getQUERY_SENSOR_NUM()) {
         continue;
       }
-      deviceSchema.setSensors(querySensors);
-      queryDevices.add(deviceSchema);
+      queryDevices.add(new DeviceSchema(deviceSchema, querySensors));
     }
     return queryDevices;
   }
 
+  /**
+   * Shuffle device index [0, DEVICE_NUMBER * REAL_INSERT_RATE) in the same way as
+   * Collections.shuffle, but without boxing or allocating a new list for every query.
+   */
+  private int[] getShuffledQueryDeviceIndex() {
+    int size = (int) Math.ceil(config.getDEVICE_NUMBER() * config.getREAL_INSERT_RATE());
+    if (queryDeviceIndex == null || queryDeviceIndex.length != size) {
+      queryDeviceIndex = new int[size];
+    }
+    for (int i = 0; i < size; i++) {
+      queryDeviceIndex[i] = i;
+    }
+    for (int i = size; i > 1; i--) {
+      int j = queryDeviceRandom.nextInt(i);
+      int tmp = queryDeviceIndex[i - 1];
+      queryDeviceIndex[i - 1] = queryDeviceIndex[j];
+      queryDeviceIndex[j] = tmp;
+    }
+    return queryDeviceIndex;
+  }
+
   private void checkQuerySchemaParams() throws WorkloadException {
     if (!(config.getQUERY_DEVICE_NUM() > 0
         && config.getQUERY_DEVICE_NUM() <= config.getDEVICE_NUMBER())) {
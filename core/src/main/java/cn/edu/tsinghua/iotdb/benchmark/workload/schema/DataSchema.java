@@ -34,11 +34,28 @@ public class DataSchema {
   private static final Logger LOGGER = LoggerFactory.getLogger(DataSchema.class);
   private static final Config config = ConfigDescriptor.getInstance().getConfig();
   private static final Map<Integer, List<DeviceSchema>> CLIENT_BIND_SCHEMA = new HashMap<>();
+  /** All device schemas, indexed by deviceId - FIRST_DEVICE_INDEX */
+  private static DeviceSchema[] DEVICE_SCHEMAS = new DeviceSchema[0];
 
   public Map<Integer, List<DeviceSchema>> getClientBindSchema() {
     return CLIENT_BIND_SCHEMA;
   }
 
+  /**
+   * Get the shared schema of device. The schema must not be modified, use new
+   * DeviceSchema(deviceSchema, sensors) to get a schema with other sensors.
+   *
+   * @param deviceId id of device
+   * @return schema of device, a new one if the device is not managed by this benchmark
+   */
+  public DeviceSchema getDeviceSchema(int deviceId) {
+    int index = deviceId - config.getFIRST_DEVICE_INDEX();
+    if (index >= 0 && index < DEVICE_SCHEMAS.length) {
+      return DEVICE_SCHEMAS[index];
+    }
+    return new DeviceSchema(deviceId);
+  }
+
   private DataSchema() {
     createClientBindSchema();
   }
@@ -60,19 +77,37 @@ public class DataSchema {
       return;
     }
 
+    DEVICE_SCHEMAS = new DeviceSchema[config.getDEVICE_CODES().size()];
+    for (int i = 0; i < DEVICE_SCHEMAS.length; i++) {
+      DEVICE_SCHEMAS[i] = new DeviceSchema(config.getDEVICE_CODES().get(i));
+    }
+
     int deviceId = 0;
     // The number of devices that cannot be divided equally
     int mod = config.getDEVICE_NUMBER() % config.getCLIENT_NUMBER();
     for (int clientId = 0; clientId < config.getCLIENT_NUMBER(); clientId++) {
-      List<DeviceSchema> deviceSchemaList = new ArrayList<>();
+      List<DeviceSchema> deviceSchemaList = new ArrayList<>(eachClientDeviceNum + 1);
       for (int j = 0; j < eachClientDeviceNum; j++) {
-        deviceSchemaList.add(new DeviceSchema(config.getDEVICE_CODES().get(deviceId++)));
+        deviceSchemaList.add(DEVICE_SCHEMAS[deviceId++]);
       }
       // The part that cannot be divided equally is given to clients with a smaller number.
       if (clientId < mod) {
-        deviceSchemaList.add(new DeviceSchema(config.getDEVICE_CODES().get(deviceId++)));
+        deviceSchemaList.add(DEVICE_SCHEMAS[deviceId++]);
       }
       CLIENT_BIND_SCHEMA.put(clientId, deviceSchemaList);
     }
+    logMemoryUsage();
+  }
+
+  private void logMemoryUsage() {
+    Runtime runtime = Runtime.getRuntime();
+    long usedMB = (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024;
+    long maxMB = runtime.maxMemory() / 1024 / 1024;
+    LOGGER.info(
+        "Created schema of {} devices with {} sensors each, heap used after creation: {} MB / {} MB",
+        DEVICE_SCHEMAS.length,
+        config.getSENSOR_NUMBER(),
+        usedMB,
+        maxMB);
   }
 }
@@ -32,7 +32,8 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 
 public class DeviceSchema implements Cloneable {
@@ -49,13 +50,19 @@ public class DeviceSchema implements Cloneable {
   private List<String> sensors;
   /** Only used for synthetic data set */
   private int deviceId;
+  /** Cached full path of device, built on first use, see getDevicePath(String) */
+  private DevicePath devicePath;
+
+  /** Read-only view of SENSOR_CODES which is shared by all synthetic devices */
+  private static List<String> sharedSensors;
+  /** The SENSOR_CODES list that sharedSensors is a view of */
+  private static List<String> sharedSensorsSource;
 
   public DeviceSchema() {}
 
   public DeviceSchema(int deviceId) {
     this.deviceId = deviceId;
     this.device = DEVICE_NAME_PREFIX + deviceId;
-    sensors = new ArrayList<>();
     try {
       createEvenlyAllocDeviceSchema();
     } catch (WorkloadException e) {
@@ -69,10 +76,37 @@ public class DeviceSchema implements Cloneable {
     this.sensors = sensors;
   }
 
+  /**
+   * Create a schema of the same device with another sensor list, e.g. the sensors of a query. The
+   * group, device name and cached device path are shared with the given schema.
+   *
+   * @param deviceSchema schema of the device
+   * @param sensors sensors of the new schema
+   */
+  public DeviceSchema(DeviceSchema deviceSchema, List<String> sensors) {
+    this.group = deviceSchema.group;
+    this.device = deviceSchema.device;
+    this.deviceId = deviceSchema.deviceId;
+    this.devicePath = deviceSchema.devicePath;
+    this.sensors = sensors;
+  }
+
   private void createEvenlyAllocDeviceSchema() throws WorkloadException {
     int thisDeviceGroupIndex = calGroupId(deviceId);
     group = config.getDB_NAME() + thisDeviceGroupIndex;
-    sensors.addAll(config.getSENSOR_CODES());
+    sensors = getSharedSensors();
+  }
+
+  /**
+   * All synthetic devices have the same sensors, so they share one read-only list instead of each
+   * holding a copy of SENSOR_CODES.
+   */
+  private static synchronized List<String> getSharedSensors() {
+    if (sharedSensorsSource != config.getSENSOR_CODES()) {
+      sharedSensorsSource = config.getSENSOR_CODES();
+      sharedSensors = Collections.unmodifiableList(sharedSensorsSource);
+    }
+    return sharedSensors;
   }
 
   int calGroupId(int deviceId) throws WorkloadException {
@@ -95,6 +129,7 @@ public class DeviceSchema implements Cloneable {
 
   public void setDevice(String device) {
     this.device = device;
+    this.devicePath = null;
   }
 
   public int getDeviceId() {
@@ -107,8 +142,13 @@ public class DeviceSchema implements Cloneable {
 
   public void setGroup(String group) {
     this.group = group;
+    this.devicePath = null;
   }
 
+  /**
+   * Get sensors of device. NOTICE: the list may be shared with other devices and is read-only in
+   * that case, copy it before modification.
+   */
   public List<String> getSensors() {
     return sensors;
   }
@@ -117,6 +157,37 @@ public class DeviceSchema implements Cloneable {
     this.sensors = sensors;
   }
 
+  /**
+   * Get the full path of device, e.g. root.test.g_0.d_0. The path is built once and cached, so it
+   * can be used on every insertion without string concatenation.
+   *
+   * @param rootPath the prefix of path, e.g. root.test
+   * @return rootPath.group.device
+   */
+  public String getDevicePath(String rootPath) {
+    return getCachedDevicePath(rootPath).path;
+  }
+
+  /**
+   * Get the UTF-8 encoding of getDevicePath(rootPath), which is also cached.
+   *
+   * @param rootPath the prefix of path, e.g. root.test
+   * @return UTF-8 bytes of rootPath.group.device, must not be modified
+   */
+  public byte[] getDevicePathBytes(String rootPath) {
+    return getCachedDevicePath(rootPath).bytes;
+  }
+
+  private DevicePath getCachedDevicePath(String rootPath) {
+    DevicePath cached = devicePath;
+    if (cached == null || !cached.rootPath.equals(rootPath)) {
+      // racing threads may build the same path twice, which is harmless
+      cached = new DevicePath(rootPath, rootPath + "." + group + "." + device);
+      devicePath = cached;
+    }
+    return cached;
+  }
+
   /**
    * serialize to output stream
    *
@@ -197,4 +268,17 @@ public class DeviceSchema implements Cloneable {
   public Object clone() throws CloneNotSupportedException {
     return super.clone();
   }
+
+  /** Immutable holder of a device path and its encoding */
+  private static class DevicePath {
+    private final String rootPath;
+    private final String path;
+    private final byte[] bytes;
+
+    DevicePath(String rootPath, String path) {
+      this.rootPath = rootPath;
+      this.path = path;
+      this.bytes = path.getBytes(StandardCharsets.UTF_8);
+    }
+  }
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Generate one batch by workload */
+@Name("cn.edu.tsinghua.iotdb.benchmark.Generate")
+@Label("Benchmark Generate")
+@Description("Generate one batch of data by workload")
+@Category("IoTDB Benchmark")
+@StackTrace(false)
+public class JfrGenerateEvent extends jdk.jfr.Event implements GenerateEvent {
+
+  @Label("Workload")
+  String workload;
+
+  @Label("Device")
+  String device;
+
+  @Label("Point Number")
+  int pointNum;
+
+  @Override
+  public void commit(String workload, String device, int pointNum) {
+    this.workload = workload;
+    this.device = device;
+    this.pointNum = pointNum;
+    commit();
+  }
+}
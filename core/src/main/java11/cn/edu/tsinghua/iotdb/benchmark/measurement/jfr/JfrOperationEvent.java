@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One insert or query sent to database by DBWrapper, duration is the latency of operation */
+@Name("cn.edu.tsinghua.iotdb.benchmark.Operation")
+@Label("Benchmark Operation")
+@Description("One insert or query operation executed by a benchmark client")
+@Category("IoTDB Benchmark")
+@StackTrace(false)
+public class JfrOperationEvent extends jdk.jfr.Event implements OperationEvent {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Device")
+  @Description("Device of batch, or devices of query separated by comma")
+  String device;
+
+  @Label("Point Number")
+  @Description("Points of batch, or result points of query")
+  int pointNum;
+
+  @Label("Ok")
+  boolean ok;
+
+  @Label("Error")
+  String error;
+
+  @Override
+  public void commit(String operation, String device, int pointNum, boolean ok, String error) {
+    this.operation = operation;
+    this.device = device;
+    this.pointNum = pointNum;
+    this.ok = ok;
+    this.error = error;
+    commit();
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Save result of one operation by recorder, see ITestDataPersistence */
+@Name("cn.edu.tsinghua.iotdb.benchmark.Record")
+@Label("Benchmark Record")
+@Description("Save the result of one operation by test data persistence")
+@Category("IoTDB Benchmark")
+@StackTrace(false)
+public class JfrRecordEvent extends jdk.jfr.Event implements RecordEvent {
+
+  @Label("Persistence")
+  String persistence;
+
+  @Label("Operation")
+  String operation;
+
+  @Override
+  public void commit(String persistence, String operation) {
+    this.persistence = persistence;
+    this.operation = operation;
+    commit();
+  }
+}
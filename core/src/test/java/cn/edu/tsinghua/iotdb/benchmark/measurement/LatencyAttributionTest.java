@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.utils.IntObjectHashMap;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyAttributionTest {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private boolean byGroup;
+  private int deviceSampleStep;
+
+  @Before
+  public void before() {
+    byGroup = config.isLATENCY_BY_GROUP();
+    deviceSampleStep = config.getLATENCY_DEVICE_SAMPLE_STEP();
+    config.setLATENCY_BY_GROUP(true);
+    config.setLATENCY_DEVICE_SAMPLE_STEP(1);
+  }
+
+  @After
+  public void after() {
+    config.setLATENCY_BY_GROUP(byGroup);
+    config.setLATENCY_DEVICE_SAMPLE_STEP(deviceSampleStep);
+  }
+
+  /** Method: record(), merge(), getSlowestGroups(), getSlowestDevices() */
+  @Test
+  public void testSlowest() {
+    DeviceSchema fast = new DeviceSchema("fast", "1", null);
+    DeviceSchema slow = new DeviceSchema("slow", "2", null);
+    LatencyAttribution client1 = new LatencyAttribution();
+    LatencyAttribution client2 = new LatencyAttribution();
+    for (int i = 0; i < 100; i++) {
+      client1.record(Operation.INGESTION, fast, 1);
+      client2.record(Operation.INGESTION, slow, 10);
+    }
+    // the query touches both groups, and is recorded once for each of them
+    client2.record(Operation.PRECISE_QUERY, Arrays.asList(fast, slow, fast), 5);
+
+    LatencyAttribution merged = new LatencyAttribution();
+    merged.merge(client1);
+    merged.merge(client2);
+    List<LatencyAttribution.NamedHistogram> groups =
+        merged.getSlowestGroups(Operation.INGESTION, 10);
+    assertEquals(2, groups.size());
+    assertEquals(slow.getGroup(), groups.get(0).getName());
+    assertEquals(100, groups.get(0).getHistogram().getTotalCount());
+    assertEquals(fast.getGroup(), groups.get(1).getName());
+    assertEquals(1, merged.getSlowestGroups(Operation.INGESTION, 1).size());
+    assertEquals(
+        slow.getDevice(), merged.getSlowestDevices(Operation.INGESTION, 1).get(0).getName());
+    groups = merged.getSlowestGroups(Operation.PRECISE_QUERY, 10);
+    assertEquals(2, groups.size());
+    assertEquals(1, groups.get(0).getHistogram().getTotalCount());
+  }
+
+  /** Method: drainIntervalGroupLatency() */
+  @Test
+  public void testIntervalGroupLatency() {
+    DeviceSchema device = new DeviceSchema("interval", "1", null);
+    LatencyAttribution attribution = new LatencyAttribution();
+    attribution.record(Operation.INGESTION, device, 1);
+    attribution.record(Operation.INGESTION, device, 3);
+    IntObjectHashMap<long[]> target = new IntObjectHashMap<>();
+    attribution.drainIntervalGroupLatency(target);
+    assertEquals(1, target.size());
+    target.forEach(
+        (groupId, cell) -> {
+          assertEquals(device.getGroup(), LatencyAttribution.getGroupName(groupId));
+          assertEquals(2, cell[LatencyAttribution.COUNT]);
+          assertEquals(4000, cell[LatencyAttribution.LATENCY_SUM]);
+        });
+    IntObjectHashMap<long[]> next = new IntObjectHashMap<>();
+    attribution.drainIntervalGroupLatency(next);
+    assertEquals(0, next.size());
+  }
+}
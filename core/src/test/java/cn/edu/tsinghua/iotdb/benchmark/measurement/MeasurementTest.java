@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.Metric;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MeasurementTest {
+
+  /** Method: mergeMeasurement(), calculateMetrics() */
+  @Test
+  public void testMergeLatency() {
+    Measurement client1 = new Measurement();
+    Measurement client2 = new Measurement();
+    for (int i = 1; i <= 100; i++) {
+      client1.addOperationLatency(Operation.INGESTION, i);
+      client1.addOkOperationNum(Operation.INGESTION);
+      client2.addOperationLatency(Operation.INGESTION, i + 100);
+      client2.addOkOperationNum(Operation.INGESTION);
+    }
+    Measurement measurement = new Measurement();
+    measurement.mergeMeasurement(client1);
+    measurement.mergeMeasurement(client2);
+    measurement.calculateMetrics();
+
+    double delta = 0.5;
+    assertEquals(1, Metric.MIN_LATENCY.getTypeValueMap().get(Operation.INGESTION), delta);
+    assertEquals(200, Metric.MAX_LATENCY.getTypeValueMap().get(Operation.INGESTION), delta);
+    assertEquals(100, Metric.MEDIAN_LATENCY.getTypeValueMap().get(Operation.INGESTION), delta);
+    assertEquals(198, Metric.P99_LATENCY.getTypeValueMap().get(Operation.INGESTION), delta);
+  }
+
+  /** Method: getIntervalLatencyHistogram() */
+  @Test
+  public void testIntervalLatency() {
+    Measurement measurement = new Measurement();
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 1.5);
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 2.5);
+    Histogram interval = measurement.getIntervalLatencyHistogram(Operation.PRECISE_QUERY);
+    assertEquals(2, interval.getTotalCount());
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 3.5);
+    interval = measurement.getIntervalLatencyHistogram(Operation.PRECISE_QUERY);
+    assertEquals(1, interval.getTotalCount());
+    assertEquals(3, measurement.getLatencyHistogram(Operation.PRECISE_QUERY).getTotalCount());
+  }
+
+  /** Method: addIntervalLatencyHistogram() */
+  @Test
+  public void testAddIntervalLatency() {
+    Measurement measurement = new Measurement();
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 1.5);
+    Histogram target = new Histogram(Measurement.LATENCY_SIGNIFICANT_DIGITS);
+    measurement.addIntervalLatencyHistogram(Operation.PRECISE_QUERY, target);
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 2.5);
+    measurement.addIntervalLatencyHistogram(Operation.PRECISE_QUERY, target);
+    // the interval histogram recycled by the second call is not shared with target
+    measurement.addOperationLatency(Operation.PRECISE_QUERY, 3.5);
+    assertEquals(3, measurement.getLatencyHistogram(Operation.PRECISE_QUERY).getTotalCount());
+    assertEquals(2, target.getTotalCount());
+  }
+
+  /** Method: addQueryCost(), mergeMeasurement() */
+  @Test
+  public void testMergeQueryCost() {
+    Measurement client1 = new Measurement();
+    Measurement client2 = new Measurement();
+    Status status = new Status(true, 30);
+    status.setQueryRowNum(10);
+    status.setQueryResultBytes(400);
+    client1.addQueryCost(Operation.RANGE_QUERY, status);
+    status = new Status(true, 10);
+    status.setQueryRowNum(5);
+    status.setQueryResultBytes(100);
+    status.setServerTimeCost(2000000);
+    // 3ms of explain is excluded from 7ms by DBWrapper
+    status.setAccountingTimeCost(3000000);
+    status.setTimeCost(4000000);
+    client2.addQueryCost(Operation.RANGE_QUERY, status);
+    Measurement measurement = new Measurement();
+    measurement.mergeMeasurement(client1);
+    measurement.mergeMeasurement(client2);
+
+    QueryCost queryCost = measurement.getQueryCost(Operation.RANGE_QUERY);
+    assertEquals(2, queryCost.getQueryNum());
+    assertEquals(15, queryCost.getRowNum());
+    assertEquals(40, queryCost.getPointNum());
+    assertEquals(500, queryCost.getResultBytes());
+    assertEquals(1, queryCost.getServerTimeQueryNum());
+    assertEquals(2, queryCost.getAvgServerTime(), 0.001);
+    assertEquals(0.5, queryCost.getServerTimeRatio(), 0.001);
+    assertEquals(-1, measurement.getQueryCost(Operation.PRECISE_QUERY).getAvgServerTime(), 0.001);
+  }
+}
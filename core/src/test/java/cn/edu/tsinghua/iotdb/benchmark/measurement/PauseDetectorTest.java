@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PauseDetectorTest {
+
+  /** Method: nextInterval() */
+  @Test
+  public void testGcPause() throws InterruptedException {
+    PauseDetector detector = new PauseDetector();
+    detector.start();
+    try {
+      // GC notifications are sent asynchronously, and an explicit GC may be skipped by the JVM
+      long gcCount = 0;
+      for (int i = 0; i < 50 && gcCount == 0; i++) {
+        System.gc();
+        Thread.sleep(100);
+        PauseDetector.Interval interval = detector.nextInterval();
+        assertTrue(interval.getMaxPauseMillis() >= 0);
+        gcCount += interval.getGcCount();
+      }
+      assertTrue(gcCount > 0);
+    } finally {
+      detector.stop();
+    }
+  }
+
+  /** Method: isTainted() */
+  @Test
+  public void testTainted() {
+    PauseDetector.Interval interval = new PauseDetector.Interval(20, 150, 3, 80);
+    assertTrue(interval.isTainted(20));
+    assertTrue(interval.isTainted(80));
+    assertFalse(interval.isTainted(100));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.compare;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultComparatorTest {
+
+  private static final String HEAD =
+      "timestamp,elapsed(s),operation,okOperation,okPoint,failOperation,failPoint,"
+          + "throughput(point/s),p50(ms),p99(ms),max(ms),clientPause(ms),gcPause(ms),gcCount,tainted";
+
+  private final List<File> files = new ArrayList<>();
+
+  @After
+  public void after() {
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
+  /**
+   * Write an interval result, throughput and latency of each interval vary around the given value
+   */
+  private String writeResult(double throughput, double p99, boolean withTaintedInterval)
+      throws IOException {
+    File file = File.createTempFile("compare", "-interval-result.csv");
+    files.add(file);
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write(HEAD);
+      writer.newLine();
+      for (int i = 0; i < 30; i++) {
+        double noise = (i % 5 - 2) / 100.0;
+        writer.write(
+            String.format(
+                "%d,%d,INGESTION,10,1000,0,0,%.2f,%.2f,%.2f,%.2f,1.00,0,0,false",
+                i, i, throughput * (1 + noise), p99 / 2, p99 * (1 - noise), p99 * 2));
+        writer.newLine();
+      }
+      if (withTaintedInterval) {
+        writer.write("30,30,INGESTION,1,100,0,0,1.00,1000.00,1000.00,1000.00,900.00,900,1,true");
+        writer.newLine();
+        writer.write("31,31,,,,,,,,,,500.00,0,0,true");
+        writer.newLine();
+      }
+    }
+    return file.getPath();
+  }
+
+  /** Method: compare() */
+  @Test
+  public void testRegression() throws IOException {
+    IntervalResult baseline = IntervalResult.load(writeResult(1000, 10, false));
+    IntervalResult target = IntervalResult.load(writeResult(800, 12, false));
+    List<ResultComparator.Comparison> comparisons =
+        new ResultComparator(1000, 5).compare(baseline, target);
+    assertEquals(IntervalResult.METRICS.length, comparisons.size());
+    for (ResultComparator.Comparison comparison : comparisons) {
+      if (comparison.getMetric().equals(IntervalResult.THROUGHPUT)) {
+        assertEquals(-20, comparison.getDeltaPercent(), 0.1);
+        assertTrue(comparison.getUpperPercent() < 0);
+      }
+      if (!comparison.getMetric().equals(IntervalResult.P50)) {
+        assertEquals(ResultComparator.Verdict.REGRESSION, comparison.getVerdict());
+      }
+    }
+  }
+
+  /** Method: compareFiles() */
+  @Test
+  public void testCompareFiles() throws IOException {
+    String baseline = writeResult(1000, 10, false);
+    // tainted intervals are skipped, so they do not break the comparison
+    String same = writeResult(1000, 10, true);
+    String faster = writeResult(1200, 8, false);
+    assertEquals(1, IntervalResult.load(same).getTaintedNum());
+    assertTrue(new ResultComparator(1000, 5).compareFiles(Arrays.asList(baseline, same, faster)));
+    assertFalse(new ResultComparator(1000, 5).compareFiles(Arrays.asList(faster, baseline)));
+    assertFalse(new ResultComparator(1000, 5).compareFiles(Arrays.asList(baseline)));
+  }
+
+  /** Method: load(), intervals of zero count have zero throughput but no latency */
+  @Test
+  public void testZeroCountInterval() throws IOException {
+    String file = writeResult(1000, 10, false);
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+      for (int i = 30; i < 60; i++) {
+        writer.write(i + "," + i + ",INGESTION,0,0,0,0,0.00,,,,1.00,0,0,false");
+        writer.newLine();
+      }
+    }
+    IntervalResult stalled = IntervalResult.load(file);
+    assertEquals(60, stalled.getValues("INGESTION", IntervalResult.THROUGHPUT).length);
+    assertEquals(30, stalled.getValues("INGESTION", IntervalResult.P99).length);
+    IntervalResult baseline = IntervalResult.load(writeResult(1000, 10, false));
+    for (ResultComparator.Comparison comparison :
+        new ResultComparator(1000, 5).compare(baseline, stalled)) {
+      if (comparison.getMetric().equals(IntervalResult.THROUGHPUT)) {
+        assertEquals(-50, comparison.getDeltaPercent(), 0.1);
+        assertEquals(ResultComparator.Verdict.REGRESSION, comparison.getVerdict());
+      } else {
+        assertEquals(ResultComparator.Verdict.NO_CHANGE, comparison.getVerdict());
+      }
+    }
+  }
+
+  /** Method: compareFiles(), compare() without resampling */
+  @Test
+  public void testNonPositiveBootstrapNumber() throws IOException {
+    String baseline = writeResult(1000, 10, false);
+    String target = writeResult(800, 12, false);
+    assertFalse(new ResultComparator(0, 5).compareFiles(Arrays.asList(baseline, target)));
+    for (ResultComparator.Comparison comparison :
+        new ResultComparator(-1, 5)
+            .compare(IntervalResult.load(baseline), IntervalResult.load(target))) {
+      assertEquals(ResultComparator.Verdict.INSUFFICIENT_DATA, comparison.getVerdict());
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRecorderTest {
+
+  /** Log the calls and the threads calling them */
+  private static class LogRecorder implements ITestDataPersistence {
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+
+    private void log(String call) {
+      calls.add(call);
+      threads.add(Thread.currentThread().getName());
+    }
+
+    @Override
+    public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {
+      log("insertSystemMetrics");
+    }
+
+    @Override
+    public void saveTestConfig() {
+      log("saveTestConfig");
+    }
+
+    @Override
+    public void saveOperationResult(
+        long recordTime,
+        String clientName,
+        String operation,
+        int okPoint,
+        int failPoint,
+        double latency,
+        String remark) {
+      log(operation);
+    }
+
+    @Override
+    public void saveResult(String operation, String key, String value) {
+      log("saveResult");
+    }
+
+    @Override
+    public void flush() {
+      log("flush");
+    }
+
+    @Override
+    public void close() {
+      log("close");
+    }
+  }
+
+  /**
+   * Method: close(), every call is run by the drainer after the results offered before it, and
+   * close comes after a flush
+   */
+  @Test
+  public void testCallsRunByDrainer() {
+    LogRecorder recorder = new LogRecorder();
+    AsyncRecorder asyncRecorder = new AsyncRecorder(recorder);
+    asyncRecorder.saveOperationResult("INGESTION", 1, 0, 1.0, "");
+    asyncRecorder.saveTestConfig();
+    asyncRecorder.insertSystemMetrics(Collections.emptyMap());
+    asyncRecorder.saveResult("INGESTION", "key", "value");
+    asyncRecorder.close();
+    assertEquals(Collections.singleton("record-drainer"), recorder.threads);
+    List<String> calls = new ArrayList<>(recorder.calls);
+    // the drainer may flush whenever it is idle
+    calls.removeIf("flush"::equals);
+    assertEquals(
+        Arrays.asList("INGESTION", "saveTestConfig", "insertSystemMetrics", "saveResult", "close"),
+        calls);
+    List<String> all = new ArrayList<>(recorder.calls);
+    assertTrue(all.subList(all.indexOf("INGESTION"), all.size() - 1).contains("flush"));
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperationResultRingTest {
+
+  /** Collect the saved results as okPoint */
+  private static class CollectRecorder implements ITestDataPersistence {
+    private final List<Integer> okPoints = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> clientNames = Collections.synchronizedList(new ArrayList<>());
+    private volatile int flushNum = 0;
+    private boolean closed = false;
+
+    @Override
+    public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {}
+
+    @Override
+    public void saveTestConfig() {}
+
+    @Override
+    public void saveOperationResult(
+        long recordTime,
+        String clientName,
+        String operation,
+        int okPoint,
+        int failPoint,
+        double latency,
+        String remark) {
+      okPoints.add(okPoint);
+      clientNames.add(clientName);
+    }
+
+    @Override
+    public void saveResult(String operation, String key, String value) {}
+
+    @Override
+    public void flush() {
+      flushNum++;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /** Method: offer() drain() */
+  @Test
+  public void testOfferAndDrain() {
+    OperationResultRing ring = new OperationResultRing(3);
+    Set<ITestDataPersistence> drained = new HashSet<>();
+    assertEquals(4, ring.getCapacity());
+    CollectRecorder recorder = new CollectRecorder();
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.offer(recorder, i, "client", "INGESTION", i, 0, 1.0, ""));
+    }
+    assertFalse(ring.offer(recorder, 4, "client", "INGESTION", 4, 0, 1.0, ""));
+    assertEquals(3, ring.drain(3, drained));
+    assertTrue(ring.offer(recorder, 4, "client", "INGESTION", 4, 0, 1.0, ""));
+    assertEquals(2, ring.drain(10, drained));
+    assertEquals(0, ring.drain(10, drained));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, (int) recorder.okPoints.get(i));
+    }
+    assertEquals(5, ring.getReadSequence());
+    assertTrue(drained.contains(recorder));
+  }
+
+  /** Method: offer() from several producers */
+  @Test
+  public void testConcurrentOffer() throws InterruptedException {
+    OperationResultRing ring = new OperationResultRing(1024);
+    CollectRecorder recorder = new CollectRecorder();
+    int producerNum = 4;
+    int resultNum = 10000;
+    List<Thread> producers = new ArrayList<>();
+    for (int p = 0; p < producerNum; p++) {
+      int producer = p;
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int i = 0; i < resultNum; i++) {
+                  while (!ring.offer(recorder, i, "client", "INGESTION", producer, 0, 1.0, "")) {
+                    Thread.yield();
+                  }
+                }
+              });
+      producers.add(thread);
+      thread.start();
+    }
+    Set<ITestDataPersistence> drainedRecorders = new HashSet<>();
+    long drained = 0;
+    while (drained < (long) producerNum * resultNum) {
+      drained += ring.drain(100, drainedRecorders);
+    }
+    for (Thread thread : producers) {
+      thread.join();
+    }
+    int[] counts = new int[producerNum];
+    for (int okPoint : recorder.okPoints) {
+      counts[okPoint]++;
+    }
+    for (int count : counts) {
+      assertEquals(resultNum, count);
+    }
+  }
+
+  /** Method: AsyncRecorder.close() */
+  @Test
+  public void testAsyncRecorder() {
+    CollectRecorder recorder = new CollectRecorder();
+    AsyncRecorder asyncRecorder = new AsyncRecorder(recorder);
+    for (int i = 0; i < 100; i++) {
+      asyncRecorder.saveOperationResult("INGESTION", i, 0, 1.0, "");
+    }
+    asyncRecorder.close();
+    assertTrue(recorder.closed);
+    // the drainer flushes the recorder when idle
+    long deadline = System.currentTimeMillis() + 5000;
+    while (recorder.flushNum == 0 && System.currentTimeMillis() < deadline) {
+      Thread.yield();
+    }
+    assertTrue(recorder.flushNum > 0);
+    assertEquals(100 - asyncRecorder.getDroppedNum(), recorder.okPoints.size());
+    // the name of the client is kept although saved by the drainer
+    assertEquals(Thread.currentThread().getName(), recorder.clientNames.get(0));
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence;
+
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RollupRecorderTest {
+
+  /** Keep the saved results */
+  private static class CollectRecorder implements ITestDataPersistence {
+    private final List<Object[]> results = new ArrayList<>();
+
+    @Override
+    public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {}
+
+    @Override
+    public void saveTestConfig() {}
+
+    @Override
+    public void saveOperationResult(
+        long recordTime,
+        String clientName,
+        String operation,
+        int okPoint,
+        int failPoint,
+        double latency,
+        String remark) {
+      results.add(new Object[] {recordTime, operation, okPoint, failPoint, latency, remark});
+    }
+
+    @Override
+    public void saveResult(String operation, String key, String value) {}
+
+    @Override
+    public void close() {}
+  }
+
+  /** Method: saveOperationResult() close() */
+  @Test
+  public void testRollup() throws DataFormatException {
+    CollectRecorder collect = new CollectRecorder();
+    RollupRecorder recorder = new RollupRecorder(collect, 1000, 0);
+    for (int i = 0; i < 10; i++) {
+      recorder.saveOperationResult(100L * i, "client", "INGESTION", 10, 0, i + 1, "");
+    }
+    recorder.saveOperationResult(500L, "client", "INGESTION", 0, 10, 0, "timeout");
+    // the next interval saves the rollup of the first one
+    recorder.saveOperationResult(1500L, "client", "PRECISE_POINT", 1, 0, 2, "");
+    assertEquals(2, collect.results.size());
+    assertEquals("timeout", collect.results.get(0)[5]);
+    Object[] rollup = collect.results.get(1);
+    assertEquals(0L, rollup[0]);
+    assertEquals(100, rollup[2]);
+    assertEquals(10, rollup[3]);
+    assertEquals(55.0 / 11, (double) rollup[4], 1e-9);
+    String remark = (String) rollup[5];
+    assertTrue(remark.startsWith(RollupRecorder.REMARK_PREFIX + "count=11,"));
+
+    recorder.close();
+    assertEquals(3, collect.results.size());
+    assertEquals(1000L, collect.results.get(2)[0]);
+
+    // the histograms of rollups are mergeable
+    Histogram merged = RollupRecorder.decodeHistogram(remark);
+    merged.add(RollupRecorder.decodeHistogram((String) collect.results.get(2)[5]));
+    assertEquals(12, merged.getTotalCount());
+    assertEquals(10000, merged.getMaxValue(), 100);
+    assertNull(RollupRecorder.decodeHistogram("timeout"));
+  }
+
+  /** Method: saveOperationResult() with raw sample */
+  @Test
+  public void testRawSample() {
+    CollectRecorder collect = new CollectRecorder();
+    RollupRecorder recorder = new RollupRecorder(collect, 1000, 0.25);
+    for (int i = 0; i < 100; i++) {
+      recorder.saveOperationResult(i, "client", "INGESTION", 10, 0, 1, "");
+    }
+    recorder.close();
+    // 25 raw results and one rollup
+    assertEquals(26, collect.results.size());
+  }
+}
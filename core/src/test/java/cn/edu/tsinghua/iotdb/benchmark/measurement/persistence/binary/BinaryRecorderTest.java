@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.binary;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.SystemMetrics;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.ITestDataPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryRecorderTest {
+
+  private File dir;
+
+  /** Keep the saved results as lines */
+  private static class CollectRecorder implements ITestDataPersistence {
+    private final List<String> lines = new ArrayList<>();
+
+    @Override
+    public void insertSystemMetrics(Map<SystemMetrics, Float> systemMetricsMap) {}
+
+    @Override
+    public void saveTestConfig() {}
+
+    @Override
+    public void saveOperationResult(
+        long recordTime,
+        String clientName,
+        String operation,
+        int okPoint,
+        int failPoint,
+        double latency,
+        String remark) {
+      lines.add(
+          String.format(
+              "%d,%s,%s,%d,%d,%.1f,%s",
+              recordTime, clientName, operation, okPoint, failPoint, latency, remark));
+    }
+
+    @Override
+    public void saveResult(String operation, String key, String value) {}
+
+    @Override
+    public void close() {}
+  }
+
+  @Before
+  public void before() throws IOException {
+    dir = Files.createTempDirectory("binaryLog").toFile();
+  }
+
+  @After
+  public void after() {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  /** Method: saveOperationResult() Reader.next() */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    // a region holds 4 records, so the log spans several regions
+    BinaryRecorder recorder = new BinaryRecorder(dir, BinaryOperationLog.RECORD_SIZE * 4);
+    for (int i = 0; i < 10; i++) {
+      recorder.saveOperationResult(
+          1000L + i, "pool-1-thread-1", Operation.INGESTION.getName(), i, 0, i / 2.0, "");
+    }
+    recorder.saveOperationResult(
+        2000L, "pool-1-thread-1", Operation.RANGE_QUERY.getName(), 0, 5, 0, "timeout\nat line");
+    recorder.close();
+    assertEquals(
+        BinaryOperationLog.HEADER_SIZE + 11 * BinaryOperationLog.RECORD_SIZE,
+        recorder.getLogFile().length());
+
+    try (BinaryOperationLog.Reader reader = new BinaryOperationLog.Reader(recorder.getLogFile())) {
+      assertEquals("pool-1-thread-1", reader.getClientName());
+      assertEquals(1000L, reader.getStartTime());
+      for (int i = 0; i < 10; i++) {
+        assertTrue(reader.next());
+        assertEquals(1000L + i, reader.getRecordTime());
+        assertEquals(Operation.INGESTION, reader.getOperation());
+        assertEquals(i, reader.getOkPoint());
+        assertEquals(i / 2.0, reader.getLatency(), 0);
+        assertEquals("", reader.getRemark());
+      }
+      assertTrue(reader.next());
+      assertEquals(Operation.RANGE_QUERY, reader.getOperation());
+      assertEquals(5, reader.getFailPoint());
+      assertEquals("timeout at line", reader.getRemark());
+      assertFalse(reader.next());
+    }
+  }
+
+  /** Method: BinaryOperationLog.Reader.next(), records of unknown operation are skipped */
+  @Test
+  public void testSkipUnknownOperation() throws IOException {
+    BinaryRecorder recorder = new BinaryRecorder(dir, BinaryOperationLog.RECORD_SIZE * 4);
+    recorder.saveOperationResult(1000L, "client", Operation.INGESTION.getName(), 1, 0, 1, "");
+    recorder.saveOperationResult(2000L, "client", "NO_SUCH_OPERATION", 2, 0, 2, "");
+    recorder.saveOperationResult(3000L, "client", Operation.INGESTION.getName(), 3, 0, 3, "");
+    recorder.close();
+
+    try (BinaryOperationLog.Reader reader = new BinaryOperationLog.Reader(recorder.getLogFile())) {
+      assertTrue(reader.next());
+      assertEquals(1000L, reader.getRecordTime());
+      assertTrue(reader.next());
+      assertEquals(3000L, reader.getRecordTime());
+      assertFalse(reader.next());
+    }
+  }
+
+  /** Method: BinaryLogConverter.convert() */
+  @Test
+  public void testConvert() throws IOException {
+    BinaryRecorder recorder = new BinaryRecorder(dir, BinaryOperationLog.RECORD_SIZE * 4);
+    for (int i = 0; i < 10; i++) {
+      recorder.saveOperationResult(
+          1000L * i, "client", Operation.INGESTION.getName(), 10, 0, i, i == 9 ? "failed" : "");
+    }
+    recorder.close();
+
+    CollectRecorder raw = new CollectRecorder();
+    assertEquals(10, new BinaryLogConverter(raw, 0).convertDir(dir));
+    assertEquals(10, raw.lines.size());
+    assertEquals("9000,client,INGESTION,10,0,9.0,failed", raw.lines.get(9));
+
+    CollectRecorder aggregated = new CollectRecorder();
+    assertEquals(10, new BinaryLogConverter(aggregated, 5000).convertDir(dir));
+    assertEquals(2, aggregated.lines.size());
+    assertEquals("0,client,INGESTION,50,0,2.0,operations=5", aggregated.lines.get(0));
+    assertEquals("5000,client,INGESTION,50,0,7.0,operations=5", aggregated.lines.get(1));
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.csv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CSVRecorderTest {
+
+  /** Method: quote(String field) */
+  @Test
+  public void testQuote() {
+    assertNull(CSVRecorder.quote(null));
+    assertEquals("", CSVRecorder.quote(""));
+    assertEquals("timeout", CSVRecorder.quote("timeout"));
+    assertEquals("\"rollup:count=2,p50=1.0\"", CSVRecorder.quote("rollup:count=2,p50=1.0"));
+    assertEquals("\"say \"\"hi\"\"\"", CSVRecorder.quote("say \"hi\""));
+    assertEquals("\"line\nbreak\"", CSVRecorder.quote("line\nbreak"));
+  }
+}
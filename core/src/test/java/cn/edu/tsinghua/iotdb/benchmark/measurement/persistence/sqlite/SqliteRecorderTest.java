@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.sqlite;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.persistence.RollupRecorder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqliteRecorderTest {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  /** Method: saveOperationResult() saveResult() SqliteResultQuery.queryHistory() */
+  @Test
+  public void testSaveAndQuery() throws IOException, SQLException {
+    File file = File.createTempFile("benchmark-result", ".db");
+    file.deleteOnExit();
+    config.setSQLITE_RESULT_FILE(file.getPath());
+
+    SqliteRecorder recorder = new SqliteRecorder();
+    recorder.saveTestConfig();
+    RollupRecorder rollupRecorder = new RollupRecorder(recorder, 1000, 0);
+    for (int i = 0; i < 10; i++) {
+      rollupRecorder.saveOperationResult(i * 300L, "client", "INGESTION", 10, 0, i, "");
+    }
+    rollupRecorder.saveOperationResult(500L, "client", "INGESTION", 0, 10, 0, "it's failed");
+    rollupRecorder.close();
+    recorder.saveResult("INGESTION", "P99", "12.5");
+
+    try (SqliteResultQuery query = new SqliteResultQuery(file.getPath())) {
+      // 4 rollups and the failed result
+      assertEquals("5", query.query("SELECT count(*) FROM operation_result").get(1)[0]);
+      assertEquals("4", query.query("SELECT count(*) FROM latency_histogram").get(1)[0]);
+      assertEquals(
+          "it's failed",
+          query.query("SELECT remark FROM operation_result WHERE fail_point > 0").get(1)[0]);
+
+      List<String[]> history =
+          query.queryHistory("INGESTION", "P99", "DB_SWITCH=" + config.getDB_SWITCH(), 30);
+      assertEquals(2, history.size());
+      assertEquals("12.5", history.get(1)[4]);
+      assertEquals(1, query.queryHistory("INGESTION", "P99", "DB_SWITCH=none", 30).size());
+    }
+  }
+}
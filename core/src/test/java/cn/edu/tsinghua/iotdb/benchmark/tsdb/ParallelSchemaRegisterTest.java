@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelSchemaRegisterTest {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private final int retryNum = config.getCREATE_SCHEMA_RETRY_NUM();
+
+  @After
+  public void tearDown() {
+    config.setCREATE_SCHEMA_RETRY_NUM(retryNum);
+  }
+
+  /** Method: register(), every item is registered once and a connection is never shared */
+  @Test
+  public void testRegister() throws TsdbException {
+    List<Integer> items = new ArrayList<>();
+    for (int i = 0; i < 1003; i++) {
+      items.add(i);
+    }
+    Set<Integer> busy = ConcurrentHashMap.newKeySet();
+    List<Integer> registered = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger chunkNum = new AtomicInteger();
+    new ParallelSchemaRegister<>(Arrays.asList(0, 1, 2, 3))
+        .register(
+            "items",
+            items,
+            10,
+            (connection, chunk) -> {
+              assertTrue(busy.add(connection));
+              assertTrue(chunk.size() <= 10);
+              registered.addAll(chunk);
+              chunkNum.incrementAndGet();
+              busy.remove(connection);
+            });
+    Collections.sort(registered);
+    assertEquals(items, registered);
+    assertEquals(101, chunkNum.get());
+  }
+
+  /** Method: register(), a failed chunk is retried */
+  @Test
+  public void testRetry() throws TsdbException {
+    config.setCREATE_SCHEMA_RETRY_NUM(1);
+    AtomicInteger attempts = new AtomicInteger();
+    new ParallelSchemaRegister<>(Collections.singletonList(0))
+        .register(
+            "items",
+            Collections.singletonList(0),
+            1,
+            (connection, chunk) -> {
+              if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("first attempt fails");
+              }
+            });
+    assertEquals(2, attempts.get());
+  }
+
+  /** Method: register(), the failure is thrown when retries are used up */
+  @Test
+  public void testFailure() {
+    config.setCREATE_SCHEMA_RETRY_NUM(0);
+    TsdbException expected = new TsdbException("always fails");
+    try {
+      new ParallelSchemaRegister<>(Arrays.asList(0, 1))
+          .register(
+              "items",
+              Arrays.asList(0, 1, 2),
+              1,
+              (connection, chunk) -> {
+                throw expected;
+              });
+      fail();
+    } catch (TsdbException e) {
+      assertEquals(expected, e);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryTimeoutTest {
+
+  /** Method: toQueryTimeoutSeconds(long timeoutMillis) */
+  @Test
+  public void testToQueryTimeoutSeconds() {
+    assertEquals(1, QueryTimeout.toQueryTimeoutSeconds(1));
+    assertEquals(1, QueryTimeout.toQueryTimeoutSeconds(1000));
+    assertEquals(2, QueryTimeout.toQueryTimeoutSeconds(1001));
+    assertEquals(Integer.MAX_VALUE, QueryTimeout.toQueryTimeoutSeconds(Long.MAX_VALUE / 2));
+  }
+
+  /** Method: start(Statement statement, long timeoutMillis), driver accepts but ignores timeout */
+  @Test
+  public void testTimerCancelsIgnoredTimeout() throws Exception {
+    AtomicInteger queryTimeout = new AtomicInteger();
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Statement statement = mockStatement(queryTimeout, cancelled);
+    QueryTimeout timeout = QueryTimeout.start(statement, 50);
+    assertEquals(1, queryTimeout.get());
+    assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+    try {
+      timeout.stop();
+      fail();
+    } catch (SQLTimeoutException e) {
+      // expected
+    }
+  }
+
+  /** Method: stop(), the query finishes in time */
+  @Test
+  public void testStopInTime() throws Exception {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Statement statement = mockStatement(new AtomicInteger(), cancelled);
+    QueryTimeout.start(statement, 60000).stop();
+    QueryTimeout.start(statement, 0).stop();
+    assertEquals(1, cancelled.getCount());
+  }
+
+  /** Method: close(), the query fails before the timeout expires */
+  @Test
+  public void testCloseAfterFailure() throws Exception {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Statement statement = mockStatement(new AtomicInteger(), cancelled);
+    try (QueryTimeout timeout = QueryTimeout.start(statement, 50)) {
+      // the query fails here, the statement is not cancelled after it is closed
+    }
+    assertFalse(cancelled.await(200, TimeUnit.MILLISECONDS));
+  }
+
+  private static Statement mockStatement(AtomicInteger queryTimeout, CountDownLatch cancelled) {
+    return (Statement)
+        Proxy.newProxyInstance(
+            Statement.class.getClassLoader(),
+            new Class<?>[] {Statement.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "setQueryTimeout":
+                  queryTimeout.set((int) args[0]);
+                  return null;
+                case "cancel":
+                  cancelled.countDown();
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
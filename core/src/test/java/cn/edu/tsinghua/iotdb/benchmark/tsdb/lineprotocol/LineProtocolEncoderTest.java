@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol;
+
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineProtocolEncoderTest {
+
+  private static final DeviceSchema DEVICE =
+      new DeviceSchema("group_0", "d_0", Arrays.asList("s_0", "s_1", "s_2", "s_3", "s_4", "s_5"));
+
+  /** e.g. group_0,device=d_0, note that DeviceSchema adds prefixes to the names */
+  private static final String PREFIX = DEVICE.getGroup() + ",device=" + DEVICE.getDevice();
+
+  private static Batch buildBatch() {
+    List<Record> records = new ArrayList<>();
+    records.add(new Record(1000L, Arrays.asList(true, 1, -20L, 1.5f, 2.25d, "a\"b\\c")));
+    records.add(new Record(2000L, Arrays.asList(false, 0, Long.MIN_VALUE, 0.0f, -1.0d, "文本")));
+    return new Batch(DEVICE, records);
+  }
+
+  /** Method: encode(), a line per record */
+  @Test
+  public void testEncode() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    encoder.encode(buildBatch());
+    assertEquals(
+        PREFIX
+            + " s_0=true,s_1=1i,s_2=-20i,s_3=1.5,s_4=2.25,s_5=\"a\\\"b\\\\c\" 1000\n"
+            + PREFIX
+            + " s_0=false,s_1=0i,s_2=-9223372036854775808i,s_3=0.0,s_4=-1.0,"
+            + "s_5=\"文本\" 2000\n",
+        encoder.toString());
+  }
+
+  /** Method: encode(), a line per value with the sensor as tag */
+  @Test
+  public void testEncodeSensorAsTag() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(true);
+    List<Record> records = Collections.singletonList(new Record(1000L, Arrays.asList(true, 3)));
+    encoder.encode(new Batch(new DeviceSchema(DEVICE, Arrays.asList("s_0", "s_1")), records));
+    assertEquals(
+        PREFIX + ",sensor=s_0 value=true 1000\n" + PREFIX + ",sensor=s_1 value=3i 1000\n",
+        encoder.toString());
+  }
+
+  /** Method: encode(), the only value of each record belongs to the sensor at colIndex */
+  @Test
+  public void testEncodeOneSensor() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    Batch batch =
+        new Batch(DEVICE, Collections.singletonList(new Record(1000L, Arrays.asList(1.5d))));
+    batch.setColIndex(4);
+    encoder.encode(batch);
+    assertEquals(PREFIX + " s_4=1.5 1000\n", encoder.toString());
+    // the schema of a sensor batch usually only keeps the sensor
+    encoder.reset();
+    batch = new Batch(new DeviceSchema(DEVICE, Arrays.asList("s_3")), batch.getRecords());
+    batch.setColIndex(3);
+    encoder.encode(batch);
+    assertEquals(PREFIX + " s_3=1.5 1000\n", encoder.toString());
+  }
+
+  /** Method: encode(), names are escaped and values which can not be written are skipped */
+  @Test
+  public void testEscapeAndSkip() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    DeviceSchema device = new DeviceSchema("g 0,x", "d=0", Arrays.asList("s 0", "s,1"));
+    List<Record> records = new ArrayList<>();
+    records.add(new Record(1000L, Arrays.asList(Double.NaN, 1.0d)));
+    records.add(new Record(2000L, Arrays.asList(Double.NaN, Float.POSITIVE_INFINITY)));
+    encoder.encode(new Batch(device, records));
+    String prefix =
+        device.getGroup().replace(" ", "\\ ").replace(",", "\\,")
+            + ",device="
+            + device.getDevice().replace("=", "\\=");
+    assertEquals(prefix + " s\\,1=1.0 1000\n", encoder.toString());
+  }
+
+  /** Method: reset(), the buffer is reused and grows when needed */
+  @Test
+  public void testReset() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    for (int i = 0; i < 10000; i++) {
+      encoder.encode(buildBatch());
+    }
+    String twoLines = toString(buildBatch());
+    assertEquals(twoLines.length() * 10000, encoder.toString().length());
+    encoder.reset();
+    assertEquals(0, encoder.size());
+    encoder.encode(buildBatch());
+    assertEquals(twoLines, encoder.toString());
+  }
+
+  private static String toString(Batch batch) {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    encoder.encode(batch);
+    return encoder.toString();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LineProtocolSenderTest {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+  private final boolean compression = config.isENABLE_HTTP_COMPRESSION();
+
+  private HttpServer server;
+  private String url;
+  /** body of each request, decompressed if gzipped, or the authorization header */
+  private final List<String> received = new CopyOnWriteArrayList<>();
+
+  private volatile int responseCode = 204;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/write",
+        exchange -> {
+          InputStream in = exchange.getRequestBody();
+          if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+          }
+          received.add(read(in));
+          received.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+          byte[] response =
+              responseCode == 204 ? new byte[0] : "bad line".getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(responseCode, responseCode == 204 ? -1 : response.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+          }
+        });
+    server.start();
+    url = "http://127.0.0.1:" + server.getAddress().getPort() + "/write?db=test&precision=ms";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    config.setENABLE_HTTP_COMPRESSION(compression);
+  }
+
+  /** Method: send(), plain and gzipped bodies are received as encoded */
+  @Test
+  public void testSend() throws TsdbException {
+    LineProtocolEncoder encoder = encode();
+    config.setENABLE_HTTP_COMPRESSION(false);
+    new LineProtocolSender(url, "Token t").send(encoder);
+    config.setENABLE_HTTP_COMPRESSION(true);
+    LineProtocolSender sender = new LineProtocolSender(url, null);
+    sender.send(encoder);
+    sender.send(encoder);
+    assertEquals(
+        Arrays.asList(
+            encoder.toString(), "Token t", encoder.toString(), "null", encoder.toString(), "null"),
+        received);
+  }
+
+  /** Method: send(), a response other than 2xx is an exception with the response body */
+  @Test
+  public void testSendFailure() {
+    responseCode = 400;
+    try {
+      new LineProtocolSender(url, null).send(encode());
+      fail();
+    } catch (TsdbException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("400: bad line"));
+    }
+  }
+
+  private static LineProtocolEncoder encode() {
+    LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+    List<Record> records = Collections.singletonList(new Record(1000L, Arrays.asList(1.5d, 2)));
+    encoder.encode(
+        new Batch(new DeviceSchema("group_0", "d_0", Arrays.asList("s_0", "s_1")), records));
+    return encoder;
+  }
+
+  private static String read(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
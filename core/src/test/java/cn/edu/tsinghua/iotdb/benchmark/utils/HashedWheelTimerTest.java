@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelTimerTest {
+
+  /** Method: newTimeout(), Timeout.cancel() */
+  @Test
+  public void testExpireAndCancel() throws InterruptedException {
+    // a small wheel, so that the timeout of 50 ms needs more than one round
+    HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, 4);
+    AtomicInteger cancelledRun = new AtomicInteger();
+    HashedWheelTimer.Timeout cancelled = timer.newTimeout(cancelledRun::incrementAndGet, 20);
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    HashedWheelTimer.Timeout expired = timer.newTimeout(latch::countDown, 50);
+    assertTrue(cancelled.cancel());
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertTrue(expired.isExpired());
+    assertFalse(expired.cancel());
+    assertEquals(0, cancelledRun.get());
+  }
+}
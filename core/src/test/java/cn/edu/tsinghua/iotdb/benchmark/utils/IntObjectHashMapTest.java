@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IntObjectHashMapTest {
+
+  /** Method: put(), get(), forEach() */
+  @Test
+  public void testPutAndGet() {
+    IntObjectHashMap<String> map = new IntObjectHashMap<>(2);
+    for (int i = -500; i < 500; i++) {
+      map.put(i * 7, String.valueOf(i));
+    }
+    map.put(0, "zero");
+    assertEquals(1000, map.size());
+    assertEquals("zero", map.get(0));
+    assertEquals("-500", map.get(-3500));
+    assertEquals("499", map.get(3493));
+    assertNull(map.get(1));
+    AtomicLong keySum = new AtomicLong();
+    map.forEach((key, value) -> keySum.addAndGet(key));
+    assertEquals(-3500, keySum.get());
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(0));
+  }
+}
@@ -25,7 +25,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class DeviceSchemaTest {
 
@@ -68,4 +71,20 @@ public class DeviceSchemaTest {
 
     ConfigDescriptor.getInstance().getConfig().setGROUP_NUMBER(ori);
   }
+
+  /** Method: getDevicePath() */
+  @Test
+  public void testGetDevicePath() {
+    DeviceSchema schema = new DeviceSchema(1);
+    String path = schema.getDevicePath("root.test");
+    assertEquals("root.test." + schema.getGroup() + ".d_1", path);
+    assertSame(path, schema.getDevicePath("root.test"));
+
+    DeviceSchema querySchema = new DeviceSchema(schema, Collections.singletonList("s_0"));
+    assertSame(path, querySchema.getDevicePath("root.test"));
+    assertSame(schema.getSensors(), new DeviceSchema(2).getSensors());
+
+    schema.setDevice("d_2");
+    assertEquals("root.test." + schema.getGroup() + ".d_2", schema.getDevicePath("root.test"));
+  }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package cn.edu.tsinghua.iotdb.benchmark.measurement.jfr;
+
+import cn.edu.tsinghua.iotdb.benchmark.client.Operation;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BenchmarkEventsTest {
+
+  /** Method: beginOperation(), commitOperation() */
+  @Test
+  public void testOperationEvent() throws Exception {
+    Batch batch = new Batch();
+    batch.add(1L, Arrays.asList((Object) 1, 2));
+    batch.setDeviceSchema(new DeviceSchema(1));
+    List<RecordedEvent> events;
+    File file = File.createTempFile("benchmark", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(JfrOperationEvent.class);
+      recording.start();
+      OperationEvent event = BenchmarkEvents.beginOperation();
+      BenchmarkEvents.commitOperation(event, Operation.INGESTION, batch, new Status(true));
+      event = BenchmarkEvents.beginOperation();
+      BenchmarkEvents.commitOperation(
+          event, Operation.PRECISE_QUERY, Arrays.asList(new DeviceSchema(1)), null);
+      recording.stop();
+      recording.dump(file.toPath());
+      events = RecordingFile.readAllEvents(file.toPath());
+    } finally {
+      file.delete();
+    }
+
+    assertEquals(2, events.size());
+    RecordedEvent insert = events.get(0);
+    assertEquals(Operation.INGESTION.getName(), insert.getString("operation"));
+    assertEquals(batch.getDeviceSchema().getDevice(), insert.getString("device"));
+    assertEquals(2, insert.getInt("pointNum"));
+    assertTrue(insert.getBoolean("ok"));
+    RecordedEvent query = events.get(1);
+    assertEquals(Operation.PRECISE_QUERY.getName(), query.getString("operation"));
+    assertFalse(query.getBoolean("ok"));
+  }
+}
@@ -23,11 +23,11 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
-import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolEncoder;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolSender;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
-import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import com.influxdb.client.InfluxDBClient;
@@ -40,10 +40,7 @@ import com.influxdb.query.FluxTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 public class InfluxDB implements IDatabase {
 
@@ -58,6 +55,8 @@ public class InfluxDB implements IDatabase {
   private String influxDbName;
   private InfluxDBClient client;
   private WritePrecision writePrecision;
+  private final LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+  private LineProtocolSender sender;
 
   /** constructor. */
   public InfluxDB() {
@@ -76,6 +75,7 @@ public class InfluxDB implements IDatabase {
   public void init() throws TsdbException {
     try {
       client = InfluxDBClientFactory.create(influxUrl, token.toCharArray(), org, influxDbName);
+      sender = new LineProtocolSender(CREATE_URL, "Token " + token);
       switch (config.getTIMESTAMP_PRECISION()) {
         case "ms":
           writePrecision = WritePrecision.MS;
@@ -150,124 +150,34 @@ public class InfluxDB implements IDatabase {
 
   @Override
   public Status insertOneBatch(Batch batch) {
-    try {
-      LinkedList<InfluxDBModel> influxDBModels = createDataModelByBatch(batch);
-      List<String> lines = new ArrayList<>();
-      for (InfluxDBModel influxDBModel : influxDBModels) {
-        lines.add(model2write(influxDBModel));
-      }
-      HttpRequestUtil.sendPost(
-          CREATE_URL, String.join("\n", lines), "text/plain; version=0.0.4; charset=utf-8", token);
-      return new Status(true);
-    } catch (Exception e) {
-      return new Status(false, 0, e, e.getMessage());
-    }
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
   }
 
   @Override
-  public Status insertOneSensorBatch(Batch batch) {
-    return null;
-  }
-
-  private String model2write(InfluxDBModel influxDBModel) {
-    StringBuffer result = new StringBuffer(influxDBModel.getMetric());
-    if (influxDBModel.getTags() != null) {
-      for (Map.Entry<String, String> pair : influxDBModel.getTags().entrySet()) {
-        result.append(",");
-        result.append(pair.getKey());
-        result.append("=");
-        result.append(pair.getValue());
-      }
-    }
-    result.append(" ");
-    if (influxDBModel.getFields() != null) {
-      boolean first = true;
-      for (Map.Entry<String, Object> pair : influxDBModel.getFields().entrySet()) {
-        if (first) {
-          first = false;
-        } else {
-          result.append(",");
-        }
-        result.append(pair.getKey());
-        result.append("=");
-        // get value
-        int index = Integer.parseInt(pair.getKey().split("_")[1]);
-        String type = typeMap(DBUtil.getDataType(index));
-        switch (type) {
-          case "BOOLEAN":
-            result.append(((boolean) pair.getValue()) ? "true" : "false");
-            break;
-          case "INT32":
-            result.append((int) pair.getValue());
-            break;
-          case "INT64":
-            result.append((long) pair.getValue());
-            break;
-          case "FLOAT":
-            result.append((float) pair.getValue());
-            break;
-          case "DOUBLE":
-            result.append((double) pair.getValue());
-            break;
-          case "TEXT":
-            result.append("\"").append(pair.getValue()).append("\"");
-            break;
-          default:
-            LOGGER.error("Unsupported data type {}, use default data type: BINARY.", type);
-            return "TEXT";
-        }
-      }
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    encoder.reset();
+    for (Batch batch : batches) {
+      encoder.encode(batch);
     }
-    result.append(" ");
-    result.append(influxDBModel.getTimestamp());
-    return result.toString();
+    return write();
   }
 
-  private LinkedList<InfluxDBModel> createDataModelByBatch(Batch batch) {
-    DeviceSchema deviceSchema = batch.getDeviceSchema();
-    List<Record> records = batch.getRecords();
-    List<String> sensors = deviceSchema.getSensors();
-    int sensorNum = sensors.size();
-    LinkedList<InfluxDBModel> models = new LinkedList<>();
-
-    for (Record record : records) {
-      if (batch.getColIndex() != -1) {
-        // insert one line
-        InfluxDBModel model =
-            createModel(
-                deviceSchema.getGroup(),
-                deviceSchema.getDevice(),
-                record,
-                deviceSchema.getSensors());
-        models.addLast(model);
-      } else {
-        // insert align data
-        for (int j = 0; j < sensorNum; j++) {
-          InfluxDBModel model =
-              createModel(
-                  deviceSchema.getGroup(),
-                  deviceSchema.getDevice(),
-                  record,
-                  deviceSchema.getSensors());
-          models.addLast(model);
-        }
-      }
-    }
-    return models;
+  @Override
+  public Status insertOneSensorBatch(Batch batch) {
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
   }
 
-  private InfluxDBModel createModel(
-      String metric, String device, Record record, List<String> sensors) {
-    InfluxDBModel model = new InfluxDBModel();
-    model.setMetric(metric);
-    model.setTimestamp(record.getTimestamp());
-
-    model.addTag("device", device);
-
-    for (int i = 0; i < record.getRecordDataValue().size(); i++) {
-      model.addField(sensors.get(i), record.getRecordDataValue().get(i));
+  private Status write() {
+    try {
+      sender.send(encoder);
+      return new Status(true);
+    } catch (Exception e) {
+      return new Status(false, 0, e, e.getMessage());
     }
-    return model;
   }
 
   @Override
@@ -21,15 +21,17 @@ package cn.edu.tsinghua.iotdb.benchmark.influxdb;
 
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.LatencyPhaseTimer;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolEncoder;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolSender;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
-import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import okhttp3.OkHttpClient.Builder;
-import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.influxdb.dto.QueryResult.Result;
@@ -37,7 +39,7 @@ import org.influxdb.dto.QueryResult.Series;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.net.URLEncoder;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -51,8 +53,11 @@ public class InfluxDB implements IDatabase {
   private final String influxUrl;
   private final String influxDbName;
   private final String defaultRp = "autogen";
+  private static final String WRITE_URL = "%s/write?db=%s&rp=%s&consistency=all&precision=%s";
 
   private org.influxdb.InfluxDB influxDbInstance;
+  private final LineProtocolEncoder encoder = new LineProtocolEncoder(false);
+  private LineProtocolSender sender;
   private static final long TIMESTAMP_TO_NANO = getToNanoConst(config.getTIMESTAMP_PRECISION());
 
   /** constructor. */
@@ -71,6 +76,15 @@ public class InfluxDB implements IDatabase {
               .writeTimeout(5, TimeUnit.MINUTES)
               .retryOnConnectionFailure(true);
       influxDbInstance = org.influxdb.InfluxDBFactory.connect(influxUrl, client);
+      sender =
+          new LineProtocolSender(
+              String.format(
+                  WRITE_URL,
+                  influxUrl,
+                  URLEncoder.encode(influxDbName, "UTF-8"),
+                  defaultRp,
+                  LineProtocolSender.getV1Precision(config.getTIMESTAMP_PRECISION())),
+              null);
     } catch (Exception e) {
       LOGGER.error("Initialize InfluxDB failed because ", e);
       throw new TsdbException(e);
@@ -108,51 +122,32 @@ public class InfluxDB implements IDatabase {
 
   @Override
   public Status insertOneBatch(Batch batch) {
-    BatchPoints batchPoints =
-        BatchPoints.database(influxDbName)
-            .retentionPolicy(defaultRp)
-            .consistency(org.influxdb.InfluxDB.ConsistencyLevel.ALL)
-            .build();
-    try {
-      InfluxDataModel model;
-      for (Record record : batch.getRecords()) {
-        model =
-            createDataModel(
-                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue());
-        batchPoints.point(model.toInfluxPoint());
-      }
-
-      influxDbInstance.write(batchPoints);
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
+  }
 
-      return new Status(true);
-    } catch (Exception e) {
-      LOGGER.warn(e.getMessage());
-      return new Status(false, 0, e, e.toString());
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    encoder.reset();
+    for (Batch batch : batches) {
+      encoder.encode(batch);
     }
+    return write();
   }
 
   @Override
   public Status insertOneSensorBatch(Batch batch) {
-    BatchPoints batchPoints =
-        BatchPoints.database(influxDbName)
-            .retentionPolicy(defaultRp)
-            .consistency(org.influxdb.InfluxDB.ConsistencyLevel.ALL)
-            .build();
-    try {
-      InfluxDataModel model;
-      int colIndex = batch.getColIndex();
-      for (Record record : batch.getRecords()) {
-        model =
-            createDataModel(
-                batch.getDeviceSchema(),
-                record.getTimestamp(),
-                record.getRecordDataValue(),
-                colIndex);
-        batchPoints.point(model.toInfluxPoint());
-      }
-
-      influxDbInstance.write(batchPoints);
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
+  }
 
+  private Status write() {
+    try {
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+      sender.send(encoder);
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (Exception e) {
       LOGGER.warn(e.getMessage());
@@ -278,45 +273,13 @@ public class InfluxDB implements IDatabase {
     return sql + " ORDER BY time DESC";
   }
 
-  private InfluxDataModel createDataModel(
-      DeviceSchema deviceSchema, Long time, List<Object> valueList) throws TsdbException {
-    InfluxDataModel model = new InfluxDataModel();
-    model.setMeasurement(deviceSchema.getGroup());
-    HashMap<String, String> tags = new HashMap<>();
-    tags.put("device", deviceSchema.getDevice());
-    model.setTagSet(tags);
-    model.setTimestamp(time);
-    model.setTimestampPrecision(config.getTIMESTAMP_PRECISION());
-    HashMap<String, Object> fields = new HashMap<>();
-    List<String> sensors = deviceSchema.getSensors();
-    for (int i = 0; i < sensors.size(); i++) {
-      fields.put(sensors.get(i), valueList.get(i));
-    }
-    model.setFields(fields);
-    return model;
-  }
-
-  private InfluxDataModel createDataModel(
-      DeviceSchema deviceSchema, Long time, List<Object> valueList, int colIndex) {
-    InfluxDataModel model = new InfluxDataModel();
-    model.setMeasurement(deviceSchema.getGroup());
-    HashMap<String, String> tags = new HashMap<>();
-    tags.put("device", deviceSchema.getDevice());
-    model.setTagSet(tags);
-    model.setTimestamp(time);
-    model.setTimestampPrecision(config.getTIMESTAMP_PRECISION());
-    HashMap<String, Object> fields = new HashMap<>();
-    List<String> sensors = deviceSchema.getSensors();
-    // 值只有一个，在get(0)处，但是schema为了复用，没有改，所以在colIndex处
-    fields.put(sensors.get(colIndex), valueList.get(0));
-    model.setFields(fields);
-    return model;
-  }
-
   private Status executeQueryAndGetStatus(String sql) {
     LOGGER.debug("{} query SQL: {}", Thread.currentThread().getName(), sql);
 
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+    // the response is parsed into QueryResult by influxdb-java, so parsing is mostly included here
     QueryResult results = influxDbInstance.query(new Query(sql, influxDbName));
+    LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
     int cnt = 0;
     for (Result result : results.getResults()) {
       List<Series> series = result.getSeries();
@@ -332,6 +295,7 @@ public class InfluxDB implements IDatabase {
       }
     }
 
+    LatencyPhaseTimer.mark(LatencyPhase.PARSE_RESPONSE);
     LOGGER.debug("{} 查到数据点数: {}", Thread.currentThread().getName(), cnt);
     return new Status(true, cnt);
   }
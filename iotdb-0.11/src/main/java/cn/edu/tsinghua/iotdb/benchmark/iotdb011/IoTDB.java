@@ -22,9 +22,11 @@ package cn.edu.tsinghua.iotdb.benchmark.iotdb011;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.exception.DBConnectException;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.QueryResultCounter;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.QueryTimeout;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
@@ -34,9 +36,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IoTDB implements IDatabase {
 
@@ -51,6 +56,18 @@ public class IoTDB implements IDatabase {
   private static final String DELETE_SERIES_SQL = "delete timeseries root." + config.getDB_NAME();
   private Connection connection;
   private static final String ALREADY_KEYWORD = "already";
+  // columns of query result which are not counted as points, e.g. in align by device and last query
+  private static final String[] QUERY_KEY_COLUMNS = {"Time", "Device", "timeseries"};
+  /**
+   * Cached prefix of insert SQL of the last sensors of each device, indexed by device path, see
+   * getInsertSql
+   */
+  private static final Map<String, InsertSqlPrefix> INSERT_SQL_PREFIXES =
+      new ConcurrentHashMap<>();
+  /** Whether each sensor is of TEXT type, whose values are quoted in insert SQL */
+  private static final boolean[] TEXT_SENSORS = getTextSensors();
+  /** Reused to build insert SQLs of this client, see getInsertSql */
+  private final StringBuilder insertSqlBuilder = new StringBuilder();
 
   public IoTDB() {}
 
@@ -179,10 +196,9 @@ public class IoTDB implements IDatabase {
   public Status insertOneBatch(Batch batch) throws DBConnectException {
     try (Statement statement = connection.createStatement()) {
       for (Record record : batch.getRecords()) {
-        String sql =
-            getInsertOneBatchSql(
-                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue());
-        statement.addBatch(sql);
+        statement.addBatch(
+            getInsertSql(
+                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue()));
       }
       statement.executeBatch();
       return new Status(true);
@@ -191,6 +207,58 @@ public class IoTDB implements IDatabase {
     }
   }
 
+  /**
+   * Same SQL as getInsertOneBatchSql, but the column-list prefix of device is cached and the
+   * builder of this client is reused, so that building the SQLs costs little compared with
+   * executing them.
+   */
+  private String getInsertSql(DeviceSchema deviceSchema, long timestamp, List<Object> values) {
+    String devicePath = deviceSchema.getDevicePath(ROOT_SERIES_NAME);
+    List<String> sensors = deviceSchema.getSensors();
+    // the sensors of a device may differ between batches, e.g. a single-sensor batch
+    InsertSqlPrefix prefix = INSERT_SQL_PREFIXES.get(devicePath);
+    if (prefix == null || !prefix.sensors.equals(sensors)) {
+      prefix = new InsertSqlPrefix(sensors, getInsertSqlPrefix(devicePath, sensors));
+      INSERT_SQL_PREFIXES.put(devicePath, prefix);
+    }
+    StringBuilder builder = insertSqlBuilder;
+    builder.setLength(0);
+    builder.append(prefix.sql).append(timestamp);
+    for (int sensorIndex = 0; sensorIndex < values.size(); sensorIndex++) {
+      if (isTextSensor(sensorIndex)) {
+        builder.append(",'").append(values.get(sensorIndex)).append("'");
+      } else {
+        builder.append(",").append(values.get(sensorIndex));
+      }
+    }
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /** e.g. insert into root.test.g_0.d_0(timestamp,s_0,s_1) values( */
+  private static String getInsertSqlPrefix(String devicePath, List<String> sensors) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("insert into ").append(devicePath).append("(timestamp");
+    for (String sensor : sensors) {
+      builder.append(",").append(sensor);
+    }
+    return builder.append(") values(").toString();
+  }
+
+  private static boolean isTextSensor(int sensorIndex) {
+    return sensorIndex < TEXT_SENSORS.length
+        ? TEXT_SENSORS[sensorIndex]
+        : "TEXT".equals(DBUtil.getDataType(sensorIndex));
+  }
+
+  private static boolean[] getTextSensors() {
+    boolean[] textSensors = new boolean[config.getSENSOR_NUMBER()];
+    for (int i = 0; i < textSensors.length; i++) {
+      textSensors[i] = "TEXT".equals(DBUtil.getDataType(i));
+    }
+    return textSensors;
+  }
+
   @Override
   public Status insertOneSensorBatch(Batch batch) throws DBConnectException {
     try (Statement statement = connection.createStatement()) {
@@ -466,7 +534,7 @@ public class IoTDB implements IDatabase {
 
   // convert deviceSchema to the format: root.group_1.d_1
   private String getDevicePath(DeviceSchema deviceSchema) {
-    return ROOT_SERIES_NAME + "." + deviceSchema.getGroup() + "." + deviceSchema.getDevice();
+    return deviceSchema.getDevicePath(ROOT_SERIES_NAME);
   }
 
   private String getPreciseQuerySql(PreciseQuery preciseQuery) {
@@ -478,20 +546,22 @@ public class IoTDB implements IDatabase {
     if (!config.isIS_QUIET_MODE()) {
       LOGGER.info("{} query SQL: {}", Thread.currentThread().getName(), sql);
     }
-    int line = 0;
-    int queryResultPointNum = 0;
     try (Statement statement = connection.createStatement()) {
-      try (ResultSet resultSet = statement.executeQuery(sql)) {
+      try (QueryTimeout timeout =
+              QueryTimeout.start(statement, config.getREAD_OPERATION_TIMEOUT_MS());
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        QueryResultCounter counter =
+            new QueryResultCounter(resultSet.getMetaData(), QUERY_KEY_COLUMNS);
         while (resultSet.next()) {
-          line++;
+          counter.countRow(resultSet);
         }
+        timeout.stop();
+        return counter.toStatus();
       }
-      queryResultPointNum = line * config.getQUERY_SENSOR_NUM() * config.getQUERY_DEVICE_NUM();
-      return new Status(true, queryResultPointNum);
     } catch (Exception e) {
-      return new Status(false, queryResultPointNum, e, sql);
+      return new Status(false, 0, e, sql);
     } catch (Throwable t) {
-      return new Status(false, queryResultPointNum, new Exception(t), sql);
+      return new Status(false, 0, new Exception(t), sql);
     }
   }
 
@@ -508,4 +578,14 @@ public class IoTDB implements IDatabase {
   private String addGroupByClause(String prefix, long start, long end, long granularity) {
     return prefix + " group by ([" + start + "," + end + ")," + granularity + "ms) ";
   }
+
+  private static class InsertSqlPrefix {
+    private final List<String> sensors;
+    private final String sql;
+
+    private InsertSqlPrefix(List<String> sensors, String sql) {
+      this.sensors = new ArrayList<>(sensors);
+      this.sql = sql;
+    }
+  }
 }
@@ -460,7 +460,7 @@ public class IoTDBSessionPool implements IDatabase {
 
   // convert deviceSchema to the format: root.group_1.d_1
   private String getDevicePath(DeviceSchema deviceSchema) {
-    return ROOT_SERIES_NAME + "." + deviceSchema.getGroup() + "." + deviceSchema.getDevice();
+    return deviceSchema.getDevicePath(ROOT_SERIES_NAME);
   }
 
   private Status executeQueryAndGetStatus(String sql) {
@@ -26,6 +26,7 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.kafka.BatchProducer;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.ParallelSchemaRegister;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
@@ -134,9 +135,10 @@ public class DoubleIOTDB implements IDatabase {
         }
       }
       // create time series for db1
-      CreateTimeSeries(connection1, schemaList);
+      CreateTimeSeries(config.getHOST().get(0), config.getPORT().get(0), schemaList);
       // create time series for db2
-      CreateTimeSeries(connection2, schemaList);
+      CreateTimeSeries(
+          config.getANOTHER_HOST().get(0), config.getANOTHER_PORT().get(0), schemaList);
     }
   }
 
@@ -151,10 +153,37 @@ public class DoubleIOTDB implements IDatabase {
     }
   }
 
-  // create time series for both db
-  private void CreateTimeSeries(Connection connection, List<DeviceSchema> schemaList)
+  // create time series for both db, using SCHEMA_CLIENT_NUMBER connections concurrently
+  private void CreateTimeSeries(String host, String port, List<DeviceSchema> schemaList)
+      throws TsdbException {
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < Math.max(1, config.getSCHEMA_CLIENT_NUMBER()); i++) {
+        connections.add(
+            DriverManager.getConnection(
+                String.format(JDBC_URL, host, port), config.getUSERNAME(), config.getPASSWORD()));
+      }
+      int devicesPerChunk =
+          Math.max(
+              1, config.getCREATE_SCHEMA_BATCH_SIZE() / Math.max(1, config.getSENSOR_NUMBER()));
+      new ParallelSchemaRegister<>(connections)
+          .register("devices", schemaList, devicesPerChunk, this::CreateTimeSeriesBatch);
+    } catch (SQLException e) {
+      LOGGER.error("Register IoTDB schema failed because ", e);
+      throw new TsdbException(e);
+    } finally {
+      for (Connection connection : connections) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          LOGGER.error("Failed to close IoTDB connection because ", e);
+        }
+      }
+    }
+  }
+
+  private void CreateTimeSeriesBatch(Connection connection, List<DeviceSchema> schemaList)
       throws TsdbException {
-    int count = 0;
     try (Statement statement = connection.createStatement()) {
       for (DeviceSchema deviceSchema : schemaList) {
         int sensorIndex = 0;
@@ -173,12 +202,7 @@ public class DoubleIOTDB implements IDatabase {
                   dataType,
                   getEncodingType(dataType));
           statement.addBatch(createSeriesSql);
-          count++;
           sensorIndex++;
-          if (count % 5000 == 0) {
-            statement.executeBatch();
-            statement.clearBatch();
-          }
         }
       }
       statement.executeBatch();
@@ -28,9 +28,14 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.exception.DBConnectException;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.LatencyPhaseTimer;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.QueryResultCounter;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.ParallelSchemaRegister;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.QueryTimeout;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
@@ -44,7 +49,6 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /** this class will create more than one connection. */
 public class IoTDB implements IDatabase {
@@ -58,8 +62,21 @@ public class IoTDB implements IDatabase {
   private static final String SET_STORAGE_GROUP_SQL = "SET STORAGE GROUP TO %s";
   private static final String DELETE_SERIES_SQL = "delete timeseries root." + config.getDB_NAME();
   private static final String ALREADY_KEYWORD = "already";
+  // columns of query result which are not counted as points, e.g. in align by device and last query
+  private static final String[] QUERY_KEY_COLUMNS = {"Time", "Device", "timeseries"};
+  /**
+   * Cached prefix of insert SQL of the last sensors of each device, indexed by device path, see
+   * getInsertSql
+   */
+  private static final Map<String, InsertSqlPrefix> INSERT_SQL_PREFIXES =
+      new ConcurrentHashMap<>();
+  /** Whether each sensor is of TEXT type, whose values are quoted in insert SQL */
+  private static final boolean[] TEXT_SENSORS = getTextSensors();
 
   protected SingleNodeJDBCConnection ioTDBConnection;
+  /** Reused to build insert SQLs of this client, see getInsertSql */
+  private final StringBuilder insertSqlBuilder = new StringBuilder();
+
   protected ExecutorService service;
   protected Future<?> future;
 
@@ -100,68 +117,66 @@ public class IoTDB implements IDatabase {
   @Override
   public void registerSchema(List<DeviceSchema> schemaList) throws TsdbException {
     // create timeseries one by one is too slow in current cluster server.
-    // therefore, we use session to create time series in batch.
+    // therefore, we use sessions to create time series in batch concurrently.
 
     if (!config.getOPERATION_PROPORTION().split(":")[0].equals("0")) {
-      Map<Session, List<DeviceSchema>> sessionListMap = new HashMap<>();
-
+      List<Session> sessions = new ArrayList<>();
       try {
-        if (!config.isIS_ALL_NODES_VISIBLE()) {
+        int nodeNumber = config.isIS_ALL_NODES_VISIBLE() ? config.getHOST().size() : 1;
+        int sessionNumber = Math.max(config.getSCHEMA_CLIENT_NUMBER(), nodeNumber);
+        for (int i = 0; i < sessionNumber; i++) {
           Session metaSession =
               new Session(
-                  config.getHOST().get(0),
-                  config.getPORT().get(0),
+                  config.getHOST().get(i % nodeNumber),
+                  config.getPORT().get(i % nodeNumber),
                   config.getUSERNAME(),
                   config.getPASSWORD());
           metaSession.open(config.isENABLE_THRIFT_COMPRESSION());
-          sessionListMap.put(metaSession, schemaList);
-        } else {
-          int sessionNumber = config.getHOST().size();
-          List<Session> keys = new ArrayList<>();
-          for (int i = 0; i < sessionNumber; i++) {
-            Session metaSession =
-                new Session(
-                    config.getHOST().get(i),
-                    config.getPORT().get(i),
-                    config.getUSERNAME(),
-                    config.getPASSWORD());
-            metaSession.open(config.isENABLE_THRIFT_COMPRESSION());
-            keys.add(metaSession);
-            sessionListMap.put(metaSession, new ArrayList<>());
-          }
-          for (int i = 0; i < schemaList.size(); i++) {
-            sessionListMap.get(keys.get(i % sessionNumber)).add(schemaList.get(i));
-          }
+          sessions.add(metaSession);
         }
-        for (Map.Entry<Session, List<DeviceSchema>> pair : sessionListMap.entrySet()) {
-          registerStorageGroups(pair.getKey(), pair.getValue());
-          registerTimeseries(pair.getKey(), pair.getValue());
+        ParallelSchemaRegister<Session> register = new ParallelSchemaRegister<>(sessions);
+
+        Set<String> groupSet = new HashSet<>();
+        for (DeviceSchema schema : schemaList) {
+          groupSet.add(schema.getGroup());
         }
+        List<String> groups = new ArrayList<>(groupSet);
+        register.register(
+            "storage groups",
+            groups,
+            (groups.size() + sessionNumber - 1) / sessionNumber,
+            this::registerStorageGroups);
+
+        long seriesNumber = 0;
+        for (DeviceSchema schema : schemaList) {
+          seriesNumber += schema.getSensors().size();
+        }
+        int devicesPerChunk =
+            (int)
+                Math.max(
+                    1,
+                    config.getCREATE_SCHEMA_BATCH_SIZE()
+                        * (long) schemaList.size()
+                        / Math.max(1, seriesNumber));
+        register.register("devices", schemaList, devicesPerChunk, this::registerTimeseries);
+      } catch (TsdbException e) {
+        throw e;
       } catch (Exception e) {
         throw new TsdbException(e);
       } finally {
-        if (sessionListMap.size() != 0) {
-          Set<Session> sessions = sessionListMap.keySet();
-          for (Session session : sessions) {
-            try {
-              session.close();
-            } catch (IoTDBConnectionException e) {
-              LOGGER.error("Schema-register session cannot be closed: {}", e.getMessage());
-            }
+        for (Session session : sessions) {
+          try {
+            session.close();
+          } catch (IoTDBConnectionException e) {
+            LOGGER.error("Schema-register session cannot be closed: {}", e.getMessage());
           }
         }
       }
     }
   }
 
-  private void registerStorageGroups(Session metaSession, List<DeviceSchema> schemaList)
+  private void registerStorageGroups(Session metaSession, List<String> groups)
       throws TsdbException {
-    // get all storage groups
-    Set<String> groups = new HashSet<>();
-    for (DeviceSchema schema : schemaList) {
-      groups.add(schema.getGroup());
-    }
-    // register storage groups
     for (String group : groups) {
       try {
         metaSession.setStorageGroup(ROOT_SERIES_NAME + "." + group);
@@ -179,7 +194,7 @@ public class IoTDB implements IDatabase {
     List<TSEncoding> tsEncodings = new ArrayList<>();
     List<CompressionType> compressionTypes = new ArrayList<>();
     int count = 0;
-    int createSchemaBatchNum = 10000;
+    int createSchemaBatchNum = config.getCREATE_SCHEMA_BATCH_SIZE();
     for (DeviceSchema deviceSchema : schemaList) {
       int sensorIndex = 0;
       for (String sensor : deviceSchema.getSensors()) {
@@ -227,7 +242,7 @@ public class IoTDB implements IDatabase {
     }
   }
 
-  String getEncodingType(String dataType) {
+  static String getEncodingType(String dataType) {
     switch (dataType) {
       case "BOOLEAN":
       case "INT32":
@@ -244,31 +259,98 @@ public class IoTDB implements IDatabase {
 
   // convert deviceSchema and sensor to the format: root.group_1.d_1.s_1
   private String getSensorPath(DeviceSchema deviceSchema, String sensor) {
-    return ROOT_SERIES_NAME
-        + "."
-        + deviceSchema.getGroup()
-        + "."
-        + deviceSchema.getDevice()
-        + "."
-        + sensor;
+    return deviceSchema.getDevicePath(ROOT_SERIES_NAME) + "." + sensor;
   }
 
   @Override
   public Status insertOneBatch(Batch batch) throws DBConnectException {
     try (Statement statement = ioTDBConnection.getConnection().createStatement()) {
-      for (Record record : batch.getRecords()) {
-        String sql =
-            getInsertOneBatchSql(
-                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue());
-        statement.addBatch(sql);
+      addInsertSql(statement, batch);
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+      statement.executeBatch();
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+      return new Status(true);
+    } catch (Exception e) {
+      return new Status(false, 0, e, e.toString());
+    }
+  }
+
+  /** Insert the SQLs of all batches by one executeBatch */
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) throws DBConnectException {
+    try (Statement statement = ioTDBConnection.getConnection().createStatement()) {
+      for (Batch batch : batches) {
+        addInsertSql(statement, batch);
       }
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
       statement.executeBatch();
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (Exception e) {
       return new Status(false, 0, e, e.toString());
     }
   }
 
+  private void addInsertSql(Statement statement, Batch batch) throws SQLException {
+    for (Record record : batch.getRecords()) {
+      statement.addBatch(
+          getInsertSql(
+              batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue()));
+    }
+  }
+
+  /**
+   * Same SQL as getInsertOneBatchSql, but the column-list prefix of device is cached and the
+   * builder of this client is reused, so that building the SQLs costs little compared with
+   * executing them.
+   */
+  private String getInsertSql(DeviceSchema deviceSchema, long timestamp, List<Object> values) {
+    String devicePath = deviceSchema.getDevicePath(ROOT_SERIES_NAME);
+    List<String> sensors = deviceSchema.getSensors();
+    // the sensors of a device may differ between batches, e.g. a single-sensor batch
+    InsertSqlPrefix prefix = INSERT_SQL_PREFIXES.get(devicePath);
+    if (prefix == null || !prefix.sensors.equals(sensors)) {
+      prefix = new InsertSqlPrefix(sensors, getInsertSqlPrefix(devicePath, sensors));
+      INSERT_SQL_PREFIXES.put(devicePath, prefix);
+    }
+    StringBuilder builder = insertSqlBuilder;
+    builder.setLength(0);
+    builder.append(prefix.sql).append(timestamp);
+    for (int sensorIndex = 0; sensorIndex < values.size(); sensorIndex++) {
+      if (isTextSensor(sensorIndex)) {
+        builder.append(",'").append(values.get(sensorIndex)).append("'");
+      } else {
+        builder.append(",").append(values.get(sensorIndex));
+      }
+    }
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /** e.g. insert into root.test.g_0.d_0(timestamp,s_0,s_1) values( */
+  private static String getInsertSqlPrefix(String devicePath, List<String> sensors) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("insert into ").append(devicePath).append("(timestamp");
+    for (String sensor : sensors) {
+      builder.append(",").append(sensor);
+    }
+    return builder.append(") values(").toString();
+  }
+
+  private static boolean isTextSensor(int sensorIndex) {
+    return sensorIndex < TEXT_SENSORS.length
+        ? TEXT_SENSORS[sensorIndex]
+        : "TEXT".equals(DBUtil.getDataType(sensorIndex));
+  }
+
+  private static boolean[] getTextSensors() {
+    boolean[] textSensors = new boolean[config.getSENSOR_NUMBER()];
+    for (int i = 0; i < textSensors.length; i++) {
+      textSensors[i] = "TEXT".equals(DBUtil.getDataType(i));
+    }
+    return textSensors;
+  }
+
   @Override
   public Status insertOneSensorBatch(Batch batch) throws DBConnectException {
     try (Statement statement = ioTDBConnection.getConnection().createStatement()) {
@@ -283,7 +365,9 @@ public class IoTDB implements IDatabase {
                 colType);
         statement.addBatch(sql);
       }
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
       statement.executeBatch();
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (Exception e) {
       return new Status(false, 0, e, e.toString());
@@ -449,11 +533,7 @@ public class IoTDB implements IDatabase {
     StringBuilder builder = new StringBuilder();
     builder
         .append("insert into ")
-        .append(ROOT_SERIES_NAME)
-        .append(".")
-        .append(deviceSchema.getGroup())
-        .append(".")
-        .append(deviceSchema.getDevice())
+        .append(deviceSchema.getDevicePath(ROOT_SERIES_NAME))
         .append("(timestamp");
     for (String sensor : deviceSchema.getSensors()) {
       builder.append(",").append(sensor);
@@ -512,7 +592,7 @@ public class IoTDB implements IDatabase {
 
   // convert deviceSchema to the format: root.group_1.d_1
   private String getDevicePath(DeviceSchema deviceSchema) {
-    return ROOT_SERIES_NAME + "." + deviceSchema.getGroup() + "." + deviceSchema.getDevice();
+    return deviceSchema.getDevicePath(ROOT_SERIES_NAME);
   }
 
   private String getPreciseQuerySql(PreciseQuery preciseQuery) {
@@ -524,55 +604,25 @@ public class IoTDB implements IDatabase {
     if (!config.isIS_QUIET_MODE()) {
       LOGGER.info("{} query SQL: {}", Thread.currentThread().getName(), sql);
     }
-    //    int line = 0;
-    //    int queryResultPointNum = 0;
-    //    try (Statement statement = ioTDBConnection.getConnection().createStatement()) {
-    //      try (ResultSet resultSet = statement.executeQuery(sql)) {
-    //        while (resultSet.next()) {
-    //          line++;
-    //        }
-    //      }
-    //      queryResultPointNum = line * config.getQUERY_SENSOR_NUM() *
-    // config.getQUERY_DEVICE_NUM();
-    //      return new Status(true, queryResultPointNum);
-    //    } catch (Exception e) {
-    //      return new Status(false, queryResultPointNum, e, sql);
-    //    } catch (Throwable t) {
-    //      return new Status(false, queryResultPointNum, new Exception(t), sql);
-    //    }
-
-    // current, we use Future to support read time out
-
-    AtomicInteger line = new AtomicInteger();
-    AtomicInteger queryResultPointNum = new AtomicInteger();
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
     try (Statement statement = ioTDBConnection.getConnection().createStatement()) {
-      future =
-          service.submit(
-              () -> {
-                try {
-                  try (ResultSet resultSet = statement.executeQuery(sql)) {
-                    while (resultSet.next()) {
-                      line.getAndIncrement();
-                    }
-                  }
-                } catch (SQLException e) {
-                  LOGGER.error("exception occurred when execute query={}", sql, e);
-                }
-                queryResultPointNum.set(
-                    line.get() * config.getQUERY_SENSOR_NUM() * config.getQUERY_DEVICE_NUM());
-              });
-
-      try {
-        future.get(config.getREAD_OPERATION_TIMEOUT_MS(), TimeUnit.MILLISECONDS);
-      } catch (InterruptedException | ExecutionException | TimeoutException e) {
-        future.cancel(true);
-        return new Status(false, queryResultPointNum.get(), e, sql);
+      try (QueryTimeout timeout =
+              QueryTimeout.start(statement, config.getREAD_OPERATION_TIMEOUT_MS());
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+        QueryResultCounter counter =
+            new QueryResultCounter(resultSet.getMetaData(), QUERY_KEY_COLUMNS);
+        while (resultSet.next()) {
+          counter.countRow(resultSet);
+        }
+        LatencyPhaseTimer.mark(LatencyPhase.PARSE_RESPONSE);
+        timeout.stop();
+        return counter.toStatus();
       }
-      return new Status(true, queryResultPointNum.get());
     } catch (Exception e) {
-      return new Status(false, queryResultPointNum.get(), e, sql);
+      return new Status(false, 0, e, sql);
     } catch (Throwable t) {
-      return new Status(false, queryResultPointNum.get(), new Exception(t), sql);
+      return new Status(false, 0, new Exception(t), sql);
     }
   }
 
@@ -595,11 +645,7 @@ public class IoTDB implements IDatabase {
     StringBuilder builder = new StringBuilder();
     builder
         .append("insert into ")
-        .append(ROOT_SERIES_NAME)
-        .append(".")
-        .append(deviceSchema.getGroup())
-        .append(".")
-        .append(deviceSchema.getDevice())
+        .append(deviceSchema.getDevicePath(ROOT_SERIES_NAME))
         .append("(timestamp");
     for (String sensor : deviceSchema.getSensors()) {
       builder.append(",").append(sensor);
@@ -626,4 +672,14 @@ public class IoTDB implements IDatabase {
     LOGGER.debug("getInsertOneBatchSql: {}", builder);
     return builder.toString();
   }
+
+  private static class InsertSqlPrefix {
+    private final List<String> sensors;
+    private final String sql;
+
+    private InsertSqlPrefix(List<String> sensors, String sql) {
+      this.sensors = new ArrayList<>(sensors);
+      this.sql = sql;
+    }
+  }
 }
@@ -21,95 +21,234 @@ package cn.edu.tsinghua.iotdb.benchmark.iotdb012;
 
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
-import org.apache.iotdb.session.pool.SessionPool;
+import org.apache.iotdb.service.rpc.thrift.EndPoint;
+import org.apache.iotdb.session.Session;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.write.record.Tablet;
 
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.LatencyPhaseTimer;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+import cn.edu.tsinghua.iotdb.benchmark.utils.HashedWheelTimer;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class IoTDBClusterSession extends IoTDBSessionBase {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(IoTDBClusterSession.class);
   private static Config config = ConfigDescriptor.getInstance().getConfig();
-  private SessionPool[] sessions;
-  private int currSession;
-  private static final int MAX_SESSION_CONNECTION_PER_CLIENT = 3;
+  /**
+   * Node index of the leader of each storage group, seeded at schema registration and refreshed
+   * when a node recommends another leader for the written device
+   */
+  private static final Map<String, Integer> GROUP_LEADERS = new ConcurrentHashMap<>();
+
+  private static final int TICK_MILLIS = 10;
+  private static final int WHEEL_SIZE = 512;
+
+  private NodeSessions[] nodes;
+  private final Map<String, Integer> nodeIndexes = new HashMap<>();
+  private final AtomicLong directBatchNum = new AtomicLong();
+  private final AtomicLong forwardedBatchNum = new AtomicLong();
+  /** Slots of reusable tablets which are not used by pending insertions */
+  private final Queue<Integer> freeTabletSlots = new ConcurrentLinkedQueue<>();
+
+  private int tabletSlotNum = 0;
+  /** Set if an insertion timed out and may still be reading its tablet */
+  private final AtomicBoolean tabletsExpired = new AtomicBoolean();
+
+  private final String insertMode;
 
   public IoTDBClusterSession() {
     super();
     createSessions();
+    String[] params = config.getDB_SWITCH().split("-");
+    insertMode = params[params.length - 1];
   }
 
   private void createSessions() {
-    sessions = new SessionPool[config.getHOST().size()];
-    for (int i = 0; i < sessions.length; i++) {
-      sessions[i] =
-          new SessionPool(
-              config.getHOST().get(i),
-              Integer.parseInt(config.getPORT().get(i)),
-              config.getUSERNAME(),
-              config.getPASSWORD(),
-              MAX_SESSION_CONNECTION_PER_CLIENT,
-              config.isENABLE_THRIFT_COMPRESSION(),
-              true);
+    nodes = new NodeSessions[config.getHOST().size()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new NodeSessions(i, Math.max(1, config.getWRITE_PIPELINE_DEPTH()));
+      nodeIndexes.put(config.getHOST().get(i) + ":" + config.getPORT().get(i), i);
     }
   }
 
   @Override
-  public Status insertOneBatchByRecord(Batch batch) {
-    String deviceId =
-        ROOT_SERIES_NAME
-            + "."
-            + batch.getDeviceSchema().getGroup()
-            + "."
-            + batch.getDeviceSchema().getDevice();
-    int failRecord = 0;
-    for (Record record : batch.getRecords()) {
-      long timestamp = record.getTimestamp();
-      List<TSDataType> dataTypes = constructDataTypes(record.getRecordDataValue().size());
-      try {
-        sessions[currSession].insertRecord(
-            deviceId,
-            timestamp,
-            batch.getDeviceSchema().getSensors(),
-            dataTypes,
-            record.getRecordDataValue());
-      } catch (IoTDBConnectionException | StatementExecutionException e) {
-        LOGGER.error("insert record failed", e);
-        failRecord++;
-      }
+  public void init() throws TsdbException {
+    super.init();
+    if (config.getWRITE_PIPELINE_DEPTH() > 1) {
+      service.shutdown();
+      service = Executors.newFixedThreadPool(config.getWRITE_PIPELINE_DEPTH());
     }
-    currSession = (currSession + 1) % sessions.length;
+  }
 
-    if (failRecord == 0) {
-      return new Status(true);
-    } else {
-      Exception e = new Exception("failRecord number is " + failRecord);
-      return new Status(false, 0, e, e.toString());
+  @Override
+  public void close() throws TsdbException {
+    super.close();
+    for (NodeSessions node : nodes) {
+      node.close();
+    }
+    if (directBatchNum.get() + forwardedBatchNum.get() > 0) {
+      LOGGER.info(
+          "{} wrote {} batches to storage group leaders directly, {} batches were forwarded",
+          Thread.currentThread().getName(),
+          directBatchNum.get(),
+          forwardedBatchNum.get());
     }
   }
 
+  /** Spread the storage groups over the nodes until the real leaders are recommended by writes */
+  @Override
+  public void registerSchema(List<DeviceSchema> schemaList) throws TsdbException {
+    super.registerSchema(schemaList);
+    Set<String> groups = new TreeSet<>();
+    for (DeviceSchema schema : schemaList) {
+      groups.add(schema.getGroup());
+    }
+    int nodeIndex = 0;
+    for (String group : groups) {
+      GROUP_LEADERS.putIfAbsent(group, nodeIndex++ % config.getHOST().size());
+    }
+  }
+
+  private int getLeader(Batch batch) {
+    return GROUP_LEADERS.computeIfAbsent(
+        batch.getDeviceSchema().getGroup(), group -> Math.floorMod(group.hashCode(), nodes.length));
+  }
+
+  /**
+   * Check whether the batch sent by session was forwarded, i.e. the node recommended another leader
+   * for the device, and route the storage group of batch to that leader.
+   *
+   * @param target the node that the session sent batch to
+   */
+  private void updateRoute(RoutingSession session, Batch batch, EndPoint target) {
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
+    EndPoint leader = session.getCachedLeader(deviceId);
+    if (leader == null || leader.equals(target)) {
+      directBatchNum.incrementAndGet();
+      return;
+    }
+    forwardedBatchNum.incrementAndGet();
+    Integer leaderIndex = nodeIndexes.get(leader.getIp() + ":" + leader.getPort());
+    if (leaderIndex != null) {
+      GROUP_LEADERS.put(batch.getDeviceSchema().getGroup(), leaderIndex);
+    }
+  }
+
+  /** @return the node that session of nodeIndex will send the batch to */
+  private EndPoint getTarget(RoutingSession session, Batch batch, int nodeIndex) {
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
+    EndPoint cached = session.getCachedLeader(deviceId);
+    return cached != null
+        ? cached
+        : new EndPoint(
+            config.getHOST().get(nodeIndex), Integer.parseInt(config.getPORT().get(nodeIndex)));
+  }
+
+  @Override
+  public CompletableFuture<Status> insertOneBatchAsync(Batch batch) {
+    switch (insertMode) {
+      case Constants.INSERT_USE_SESSION_TABLET:
+        return insertByTabletAsync(batch);
+      case Constants.INSERT_USE_SESSION_RECORD:
+        return insertByRecordAsync(batch);
+      case Constants.INSERT_USE_SESSION_RECORDS:
+        return insertByRecordsAsync(batch);
+      default:
+        throw new IllegalStateException("Unexpected INSERT_MODE value: " + insertMode);
+    }
+  }
+
+  @Override
+  public Status insertOneBatchByRecord(Batch batch) {
+    return join(insertByRecordAsync(batch));
+  }
+
   @Override
   public Status insertOneBatchByRecords(Batch batch) {
+    return join(insertByRecordsAsync(batch));
+  }
+
+  @Override
+  public Status insertOneBatchByTablet(Batch batch) {
+    return join(insertByTabletAsync(batch));
+  }
+
+  /**
+   * Wait for the insertion on the client thread. The wait for a worker and a session is marked as
+   * ACQUIRE_CONNECTION, the rest of insertion as SEND_AND_WAIT.
+   */
+  private static Status join(InsertFuture future) {
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+    Status status = future.join();
+    if (future.acquiredTime != 0) {
+      LatencyPhaseTimer.markAt(LatencyPhase.ACQUIRE_CONNECTION, future.acquiredTime);
+    }
+    LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+    return status;
+  }
+
+  private InsertFuture insertByRecordAsync(Batch batch) {
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
+    return insertAsync(
+        batch,
+        session -> {
+          int failRecord = 0;
+          for (Record record : batch.getRecords()) {
+            long timestamp = record.getTimestamp();
+            List<TSDataType> dataTypes = constructDataTypes(record.getRecordDataValue().size());
+            try {
+              session.insertRecord(
+                  deviceId,
+                  timestamp,
+                  batch.getDeviceSchema().getSensors(),
+                  dataTypes,
+                  record.getRecordDataValue());
+            } catch (IoTDBConnectionException | StatementExecutionException e) {
+              LOGGER.error("insert record failed", e);
+              failRecord++;
+            }
+          }
+          if (failRecord == 0) {
+            return new Status(true);
+          } else {
+            Exception e = new Exception("failRecord number is " + failRecord);
+            return new Status(false, 0, e, e.toString());
+          }
+        });
+  }
+
+  private InsertFuture insertByRecordsAsync(Batch batch) {
     List<String> deviceIds = new ArrayList<>();
-    String deviceId =
-        ROOT_SERIES_NAME
-            + "."
-            + batch.getDeviceSchema().getGroup()
-            + "."
-            + batch.getDeviceSchema().getDevice();
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
     List<Long> times = new ArrayList<>();
     List<List<String>> measurementsList = new ArrayList<>();
     List<List<TSDataType>> typesList = new ArrayList<>();
@@ -121,50 +260,169 @@ public class IoTDBClusterSession extends IoTDBSessionBase {
       valuesList.add(record.getRecordDataValue());
       typesList.add(constructDataTypes(record.getRecordDataValue().size()));
     }
+    return insertAsync(
+        batch,
+        session -> {
+          session.insertRecords(deviceIds, times, measurementsList, typesList, valuesList);
+          return new Status(true);
+        });
+  }
+
+  private InsertFuture insertByTabletAsync(Batch batch) {
+    Integer slot = freeTabletSlots.poll();
+    if (slot == null) {
+      slot = tabletSlotNum++;
+    }
+    // check after taking the slot, whose insertion may have timed out
+    if (tabletsExpired.getAndSet(false)) {
+      discardTablets();
+    }
+    Tablet tablet = genTablet(batch, slot);
+    Integer tabletSlot = slot;
+    InsertFuture result =
+        insertAsync(
+            batch,
+            session -> {
+              session.insertTablet(tablet);
+              return new Status(true);
+            });
+    result.whenComplete((status, e) -> freeTabletSlots.add(tabletSlot));
+    return result;
+  }
 
-    future =
+  /**
+   * Insert batch into the leader of its storage group in the thread pool of this client. The
+   * returned future is completed with a failed status if the insertion does not finish within
+   * WRITE_OPERATION_TIMEOUT_MS.
+   */
+  private InsertFuture insertAsync(Batch batch, SessionInsertion insertion) {
+    int nodeIndex = getLeader(batch);
+    InsertFuture result = new InsertFuture();
+    Future<?> task =
         service.submit(
             () -> {
+              RoutingSession session = null;
               try {
-                sessions[currSession].insertRecords(
-                    deviceIds, times, measurementsList, typesList, valuesList);
-              } catch (IoTDBConnectionException | StatementExecutionException e) {
-                LOGGER.error("insert records failed", e);
+                session = nodes[nodeIndex].borrow();
+                result.acquiredTime = System.nanoTime();
+                EndPoint target = getTarget(session, batch, nodeIndex);
+                Status status = insertion.insert(session);
+                if (status.isOk()) {
+                  updateRoute(session, batch, target);
+                }
+                result.complete(status);
+              } catch (Exception e) {
+                LOGGER.error("insert batch failed", e);
+                result.complete(new Status(false, 0, e, e.toString()));
+              } finally {
+                if (session != null) {
+                  nodes[nodeIndex].release(session);
+                }
               }
             });
+    HashedWheelTimer.Timeout timeout =
+        TimerHolder.TIMER.newTimeout(
+            () -> {
+              // the timed out insertion may still be reading the tablet
+              tabletsExpired.set(true);
+              TimeoutException e =
+                  new TimeoutException(
+                      "Insertion timed out after " + config.getWRITE_OPERATION_TIMEOUT_MS() + "ms");
+              if (result.complete(new Status(false, 0, e, e.toString()))) {
+                task.cancel(true);
+              }
+            },
+            config.getWRITE_OPERATION_TIMEOUT_MS());
+    result.whenComplete((status, e) -> timeout.cancel());
+    return result;
+  }
 
-    Status status = waitFuture();
-    currSession = (currSession + 1) % sessions.length;
-    return status;
+  /** Status of an insertion, and when its session is borrowed by the worker */
+  private static class InsertFuture extends CompletableFuture<Status> {
+    private volatile long acquiredTime;
   }
 
-  @Override
-  public Status insertOneBatchByTablet(Batch batch) {
-    Tablet tablet = genTablet(batch);
+  @FunctionalInterface
+  private interface SessionInsertion {
+    Status insert(RoutingSession session)
+        throws IoTDBConnectionException, StatementExecutionException;
+  }
 
-    future =
-        service.submit(
-            () -> {
-              try {
-                sessions[currSession].insertTablet(tablet);
-              } catch (IoTDBConnectionException | StatementExecutionException e) {
-                LOGGER.error("insert tablet failed", e);
-              }
-            });
+  /**
+   * Sessions of this client connected to one node. They are created lazily and each one is used by
+   * one insertion at a time, so that up to WRITE_PIPELINE_DEPTH insertions can be sent to the node
+   * concurrently.
+   */
+  private static class NodeSessions {
 
-    Status status = waitFuture();
-    currSession = (currSession + 1) % sessions.length;
-    return status;
+    private final int nodeIndex;
+    private final int maxSize;
+    private final BlockingQueue<RoutingSession> idleSessions = new LinkedBlockingQueue<>();
+    private final List<RoutingSession> sessions = new ArrayList<>();
+
+    private NodeSessions(int nodeIndex, int maxSize) {
+      this.nodeIndex = nodeIndex;
+      this.maxSize = maxSize;
+    }
+
+    private RoutingSession borrow() throws IoTDBConnectionException, InterruptedException {
+      RoutingSession session = idleSessions.poll();
+      if (session != null) {
+        return session;
+      }
+      synchronized (this) {
+        if (sessions.size() < maxSize) {
+          session =
+              new RoutingSession(
+                  config.getHOST().get(nodeIndex),
+                  Integer.parseInt(config.getPORT().get(nodeIndex)),
+                  config.getUSERNAME(),
+                  config.getPASSWORD());
+          session.open(config.isENABLE_THRIFT_COMPRESSION());
+          sessions.add(session);
+          return session;
+        }
+      }
+      return idleSessions.take();
+    }
+
+    private void release(RoutingSession session) {
+      idleSessions.add(session);
+    }
+
+    private synchronized void close() {
+      for (RoutingSession session : sessions) {
+        try {
+          session.close();
+        } catch (IoTDBConnectionException e) {
+          LOGGER.error("Cluster session cannot be closed: {}", e.getMessage());
+        }
+      }
+      sessions.clear();
+    }
   }
 
-  private Status waitFuture() {
-    try {
-      future.get(config.getWRITE_OPERATION_TIMEOUT_MS(), TimeUnit.MILLISECONDS);
-    } catch (InterruptedException | ExecutionException | TimeoutException e) {
-      future.cancel(true);
-      return new Status(false, 0, e, e.toString());
+  /** Session that caches the leader of each written device recommended by the cluster */
+  private static class RoutingSession extends Session {
+
+    RoutingSession(String host, int port, String username, String password) {
+      super(
+          host,
+          port,
+          username,
+          password,
+          org.apache.iotdb.session.Config.DEFAULT_FETCH_SIZE,
+          ZoneId.systemDefault(),
+          true);
+    }
+
+    EndPoint getCachedLeader(String deviceId) {
+      return deviceIdToEndpoint == null ? null : deviceIdToEndpoint.get(deviceId);
     }
+  }
 
-    return new Status(true);
+  private static class TimerHolder {
+    private static final HashedWheelTimer TIMER =
+        new HashedWheelTimer("write-timeout", TICK_MILLIS, WHEEL_SIZE);
   }
 }
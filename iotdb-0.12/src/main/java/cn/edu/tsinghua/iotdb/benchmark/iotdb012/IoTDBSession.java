@@ -27,14 +27,19 @@ import org.apache.iotdb.tsfile.write.record.Tablet;
 
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.LatencyPhaseTimer;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class IoTDBSession extends IoTDBSessionBase {
 
@@ -79,16 +84,12 @@ public class IoTDBSession extends IoTDBSessionBase {
 
   @Override
   public Status insertOneBatchByRecord(Batch batch) {
-    String deviceId =
-        ROOT_SERIES_NAME
-            + "."
-            + batch.getDeviceSchema().getGroup()
-            + "."
-            + batch.getDeviceSchema().getDevice();
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
     int failRecord = 0;
     for (Record record : batch.getRecords()) {
       long timestamp = record.getTimestamp();
       List<TSDataType> dataTypes = constructDataTypes(record.getRecordDataValue().size());
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
       try {
         session.insertRecord(
             deviceId,
@@ -99,6 +100,7 @@ public class IoTDBSession extends IoTDBSessionBase {
       } catch (IoTDBConnectionException | StatementExecutionException e) {
         failRecord++;
       }
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
     }
     if (failRecord == 0) {
       return new Status(true);
@@ -110,26 +112,51 @@ public class IoTDBSession extends IoTDBSessionBase {
 
   @Override
   public Status insertOneBatchByRecords(Batch batch) {
-    String deviceId =
-        ROOT_SERIES_NAME
-            + "."
-            + batch.getDeviceSchema().getGroup()
-            + "."
-            + batch.getDeviceSchema().getDevice();
+    return insertRecords(Collections.singletonList(batch));
+  }
+
+  @Override
+  public Status insertMultiDeviceBatchByRecords(List<Batch> batches) {
+    return insertRecords(batches);
+  }
+
+  private Status insertRecords(List<Batch> batches) {
     List<String> deviceIds = new ArrayList<>();
     List<Long> times = new ArrayList<>();
     List<List<String>> measurementsList = new ArrayList<>();
     List<List<TSDataType>> typesList = new ArrayList<>();
     List<List<Object>> valuesList = new ArrayList<>();
-    for (Record record : batch.getRecords()) {
-      deviceIds.add(deviceId);
-      times.add(record.getTimestamp());
-      measurementsList.add(batch.getDeviceSchema().getSensors());
-      valuesList.add(record.getRecordDataValue());
-      typesList.add(constructDataTypes(record.getRecordDataValue().size()));
+    for (Batch batch : batches) {
+      String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
+      for (Record record : batch.getRecords()) {
+        deviceIds.add(deviceId);
+        times.add(record.getTimestamp());
+        measurementsList.add(batch.getDeviceSchema().getSensors());
+        valuesList.add(record.getRecordDataValue());
+        typesList.add(constructDataTypes(record.getRecordDataValue().size()));
+      }
     }
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
     try {
       session.insertRecords(deviceIds, times, measurementsList, typesList, valuesList);
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+      return new Status(true);
+    } catch (IoTDBConnectionException | StatementExecutionException e) {
+      return new Status(false, 0, e, e.toString());
+    }
+  }
+
+  @Override
+  public Status insertMultiDeviceBatchByTablets(List<Batch> batches) {
+    Map<String, Tablet> tablets = new HashMap<>(batches.size() * 2);
+    for (int i = 0; i < batches.size(); i++) {
+      Tablet tablet = genTablet(batches.get(i), i);
+      tablets.put(tablet.deviceId, tablet);
+    }
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+    try {
+      session.insertTablets(tablets);
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (IoTDBConnectionException | StatementExecutionException e) {
       return new Status(false, 0, e, e.toString());
@@ -139,8 +166,10 @@ public class IoTDBSession extends IoTDBSessionBase {
   @Override
   public Status insertOneBatchByTablet(Batch batch) {
     Tablet tablet = genTablet(batch);
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
     try {
       session.insertTablet(tablet);
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (IoTDBConnectionException | StatementExecutionException e) {
       return new Status(false, 0, e, e.toString());
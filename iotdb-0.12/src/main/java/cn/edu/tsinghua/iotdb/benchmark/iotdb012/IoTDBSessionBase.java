@@ -30,13 +30,38 @@ import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IoTDBSessionBase extends IoTDB {
+
+  /**
+   * Measurement schemas of the last sensors of each device, indexed by device path. Devices with the
+   * same sensors share the same list, so that a client can reuse one Tablet for all of them. The
+   * sensors of a device may differ between batches, e.g. a single-sensor batch, so a cached list is
+   * only used if its sensors are the same as those of batch.
+   */
+  private static final Map<String, List<MeasurementSchema>> DEVICE_SCHEMAS =
+      new ConcurrentHashMap<>();
+
+  private static final Map<List<String>, List<MeasurementSchema>> SENSOR_SCHEMAS =
+      new ConcurrentHashMap<>();
+
+  /** Reusable tablets of this client, indexed by the identity of shared schema list and slot */
+  private final Map<List<MeasurementSchema>, List<Tablet>> tablets = new IdentityHashMap<>();
+
+  private final String insertMode;
+
   public IoTDBSessionBase() {
     super();
+    String[] params = config.getDB_SWITCH().split("-");
+    insertMode = params[params.length - 1];
   }
 
   public Status insertOneBatchByTablet(Batch batch) {
@@ -51,72 +76,154 @@ public class IoTDBSessionBase extends IoTDB {
     return new Status(true);
   }
 
-  protected Tablet genTablet(Batch batch) {
+  /** Insert batches of multiple devices by tablets, one by one by default */
+  public Status insertMultiDeviceBatchByTablets(List<Batch> batches) {
+    return insertOneByOne(batches);
+  }
+
+  /** Insert batches of multiple devices by records, one by one by default */
+  public Status insertMultiDeviceBatchByRecords(List<Batch> batches) {
+    return insertOneByOne(batches);
+  }
+
+  /** Same as IDatabase.insertMultiDeviceBatch: go on past a failed device and count its points */
+  private Status insertOneByOne(List<Batch> batches) {
+    Status firstFailed = null;
+    int failBatchNum = 0;
+    int failPointNum = 0;
+    for (Batch batch : batches) {
+      Status status = insertOneBatch(batch);
+      if (!status.isOk()) {
+        if (firstFailed == null) {
+          firstFailed = status;
+        }
+        failBatchNum++;
+        failPointNum += batch.pointNum();
+      }
+    }
+    if (firstFailed == null) {
+      return new Status(true);
+    }
+    Status status =
+        new Status(
+            false,
+            0,
+            firstFailed.getException(),
+            failBatchNum
+                + " of "
+                + batches.size()
+                + " devices failed, the first because: "
+                + firstFailed.getErrorMessage());
+    status.setFailPointNum(failPointNum);
+    return status;
+  }
+
+  private List<MeasurementSchema> getSchemas(DeviceSchema deviceSchema, String deviceId) {
+    List<String> sensors = deviceSchema.getSensors();
+    List<MeasurementSchema> schemas = DEVICE_SCHEMAS.get(deviceId);
+    if (schemas == null || !isSchemaOf(schemas, sensors)) {
+      schemas =
+          SENSOR_SCHEMAS.computeIfAbsent(new ArrayList<>(sensors), IoTDBSessionBase::createSchemas);
+      DEVICE_SCHEMAS.put(deviceId, schemas);
+    }
+    return schemas;
+  }
+
+  private static boolean isSchemaOf(List<MeasurementSchema> schemas, List<String> sensors) {
+    if (schemas.size() != sensors.size()) {
+      return false;
+    }
+    for (int i = 0; i < sensors.size(); i++) {
+      if (!schemas.get(i).getMeasurementId().equals(sensors.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<MeasurementSchema> createSchemas(List<String> sensors) {
     List<MeasurementSchema> schemaList = new ArrayList<>();
-    int sensorIndex = 0;
-    for (String sensor : batch.getDeviceSchema().getSensors()) {
+    for (int sensorIndex = 0; sensorIndex < sensors.size(); sensorIndex++) {
       String dataType = DBUtil.getDataType(sensorIndex);
       schemaList.add(
           new MeasurementSchema(
-              sensor,
+              sensors.get(sensorIndex),
               Enum.valueOf(TSDataType.class, dataType),
               Enum.valueOf(TSEncoding.class, getEncodingType(dataType))));
-      sensorIndex++;
     }
-    String deviceId =
-        ROOT_SERIES_NAME
-            + "."
-            + batch.getDeviceSchema().getGroup()
-            + "."
-            + batch.getDeviceSchema().getDevice();
-    Tablet tablet = new Tablet(deviceId, schemaList, batch.getRecords().size());
+    return Collections.unmodifiableList(schemaList);
+  }
+
+  protected Tablet genTablet(Batch batch) {
+    return genTablet(batch, 0);
+  }
+
+  /**
+   * Fill a reusable tablet of this client with batch. The tablet is only valid until the next call
+   * with the same slot, so it must not be used after the insertion of batch is finished.
+   *
+   * @param slot index of reusable tablet, batches inserted in one request must use different slots
+   */
+  protected Tablet genTablet(Batch batch, int slot) {
+    String deviceId = batch.getDeviceSchema().getDevicePath(ROOT_SERIES_NAME);
+    List<MeasurementSchema> schemas = getSchemas(batch.getDeviceSchema(), deviceId);
+    List<Record> records = batch.getRecords();
+    List<Tablet> slots = tablets.computeIfAbsent(schemas, k -> new ArrayList<>());
+    while (slots.size() <= slot) {
+      slots.add(null);
+    }
+    Tablet tablet = slots.get(slot);
+    if (tablet == null || tablet.getMaxRowNumber() < records.size()) {
+      tablet =
+          new Tablet(deviceId, schemas, Math.max(records.size(), config.getBATCH_SIZE_PER_WRITE()));
+      slots.set(slot, tablet);
+    }
+    tablet.deviceId = deviceId;
+    tablet.reset();
     long[] timestamps = tablet.timestamps;
     Object[] values = tablet.values;
 
-    for (int recordIndex = 0; recordIndex < batch.getRecords().size(); recordIndex++) {
+    for (int recordIndex = 0; recordIndex < records.size(); recordIndex++) {
       tablet.rowSize++;
-      Record record = batch.getRecords().get(recordIndex);
-      sensorIndex = 0;
-      long currentTime = record.getTimestamp();
-      timestamps[recordIndex] = currentTime;
-      for (int recordValueIndex = 0;
-          recordValueIndex < record.getRecordDataValue().size();
-          recordValueIndex++) {
-        switch (DBUtil.getDataType(sensorIndex)) {
-          case "BOOLEAN":
-            boolean[] sensorsBool = (boolean[]) values[recordValueIndex];
-            sensorsBool[recordIndex] =
-                (boolean) (record.getRecordDataValue().get(recordValueIndex));
+      Record record = records.get(recordIndex);
+      timestamps[recordIndex] = record.getTimestamp();
+      List<Object> recordValues = record.getRecordDataValue();
+      for (int recordValueIndex = 0; recordValueIndex < recordValues.size(); recordValueIndex++) {
+        Object value = recordValues.get(recordValueIndex);
+        switch (schemas.get(recordValueIndex).getType()) {
+          case BOOLEAN:
+            ((boolean[]) values[recordValueIndex])[recordIndex] = (boolean) value;
+            break;
+          case INT32:
+            ((int[]) values[recordValueIndex])[recordIndex] = (int) value;
             break;
-          case "INT32":
-            int[] sensorsInt = (int[]) values[recordValueIndex];
-            sensorsInt[recordIndex] = (int) (record.getRecordDataValue().get(recordValueIndex));
+          case INT64:
+            ((long[]) values[recordValueIndex])[recordIndex] = (long) value;
             break;
-          case "INT64":
-            long[] sensorsLong = (long[]) values[recordValueIndex];
-            sensorsLong[recordIndex] = (long) (record.getRecordDataValue().get(recordValueIndex));
+          case FLOAT:
+            ((float[]) values[recordValueIndex])[recordIndex] = (float) value;
             break;
-          case "FLOAT":
-            float[] sensorsFloat = (float[]) values[recordValueIndex];
-            sensorsFloat[recordIndex] = (float) (record.getRecordDataValue().get(recordValueIndex));
+          case DOUBLE:
+            ((double[]) values[recordValueIndex])[recordIndex] = (double) value;
             break;
-          case "DOUBLE":
-            double[] sensorsDouble = (double[]) values[recordValueIndex];
-            sensorsDouble[recordIndex] =
-                (double) (record.getRecordDataValue().get(recordValueIndex));
+          case TEXT:
+            ((Binary[]) values[recordValueIndex])[recordIndex] = Binary.valueOf((String) value);
             break;
-          case "TEXT":
-            Binary[] sensorsText = (Binary[]) values[recordValueIndex];
-            sensorsText[recordIndex] =
-                Binary.valueOf((String) record.getRecordDataValue().get(recordValueIndex));
+          default:
             break;
         }
-        sensorIndex++;
       }
     }
     return tablet;
   }
 
+  /**
+   * Drop the reusable tablets, e.g. when an insertion timed out and may still be reading its tablet
+   */
+  protected void discardTablets() {
+    tablets.clear();
+  }
+
   public List<TSDataType> constructDataTypes(int recordValueSize) {
     List<TSDataType> dataTypes = new ArrayList<>();
     for (int sensorIndex = 0; sensorIndex < recordValueSize; sensorIndex++) {
@@ -144,11 +251,22 @@ public class IoTDBSessionBase extends IoTDB {
     return dataTypes;
   }
 
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    switch (insertMode) {
+      case Constants.INSERT_USE_SESSION_TABLET:
+        return insertMultiDeviceBatchByTablets(batches);
+      case Constants.INSERT_USE_SESSION_RECORD:
+      case Constants.INSERT_USE_SESSION_RECORDS:
+        return insertMultiDeviceBatchByRecords(batches);
+      default:
+        throw new IllegalStateException("Unexpected INSERT_MODE value: " + insertMode);
+    }
+  }
+
   @Override
   public Status insertOneBatch(Batch batch) {
-    String[] params = config.getDB_SWITCH().split("-");
-    String insert_mode = params[params.length - 1];
-    switch (insert_mode) {
+    switch (insertMode) {
       case Constants.INSERT_USE_SESSION_TABLET:
         return insertOneBatchByTablet(batch);
       case Constants.INSERT_USE_SESSION_RECORD:
@@ -156,7 +274,7 @@ public class IoTDBSessionBase extends IoTDB {
       case Constants.INSERT_USE_SESSION_RECORDS:
         return insertOneBatchByRecords(batch);
       default:
-        throw new IllegalStateException("Unexpected INSERT_MODE value: " + insert_mode);
+        throw new IllegalStateException("Unexpected INSERT_MODE value: " + insertMode);
     }
   }
 }
@@ -25,6 +25,7 @@ import cn.edu.tsinghua.iotdb.benchmark.exception.DBConnectException;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.QueryTimeout;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
@@ -508,9 +509,13 @@ public class QuestDB implements IDatabase {
     int line = 0;
     int queryResultPointNum = 0;
     try (Statement statement = connection.createStatement()) {
-      ResultSet resultSet = statement.executeQuery(sql);
-      while (resultSet.next()) {
-        line++;
+      try (QueryTimeout timeout =
+              QueryTimeout.start(statement, config.getREAD_OPERATION_TIMEOUT_MS());
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        while (resultSet.next()) {
+          line++;
+        }
+        timeout.stop();
       }
       queryResultPointNum = line * config.getQUERY_SENSOR_NUM() * config.getDEVICE_NUMBER();
       return new Status(true, queryResultPointNum);
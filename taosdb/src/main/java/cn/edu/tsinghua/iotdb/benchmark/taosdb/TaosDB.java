@@ -24,6 +24,8 @@ import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.ParallelSchemaRegister;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.QueryTimeout;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
@@ -34,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -48,7 +51,10 @@ public class TaosDB implements IDatabase {
   private static final String USE_DB = "use %s";
   private static final String CREATE_STABLE =
       "create table if not exists %s (time timestamp, %s) tags(device binary(20))";
-  private static final String CREATE_TABLE = "create table if not exists %s using %s tags('%s')";
+  private static final String CREATE_TABLES_CLAUSE = " if not exists %s using %s tags('%s')";
+  /** Tables created by one statement, limited by the max SQL length of TDengine (64KB) */
+  private static final int MAX_TABLES_PER_STATEMENT = 500;
+
   private Connection connection;
   private static Config config;
   private SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -127,42 +133,67 @@ public class TaosDB implements IDatabase {
         throw new TsdbException(e);
       }
 
-      // create tables
-      try (Statement statement = connection.createStatement()) {
-        statement.execute(String.format(USE_DB, TEST_DB));
-        for (DeviceSchema deviceSchema : schemaList) {
-          statement.execute(
-              String.format(
-                  CREATE_TABLE, deviceSchema.getDevice(), SUPER_TABLE, deviceSchema.getDevice()));
-          //          createTableSql.append(String.format(CREATE_TABLE,
-          // deviceSchema.getDevice())).append(" (ts timestamp,");
-          //          for (String sensor : deviceSchema.getSensors()) {
-          //            String dataType = getNextDataType(sensorIndex);
-          //            createTableSql.append(sensor).append(" ").append(dataType).append(",");
-          //            sensorIndex++;
-          //          }
-          //          createTableSql.deleteCharAt(createTableSql.length() - 1).append(")");
+      // create tables concurrently, each statement creates a chunk of tables
+      List<Connection> connections = new ArrayList<>();
+      try {
+        for (int i = 0; i < Math.max(1, config.getSCHEMA_CLIENT_NUMBER()); i++) {
+          Connection schemaConnection =
+              DriverManager.getConnection(
+                  String.format(
+                      URL_TAOS,
+                      config.getHOST().get(i % config.getHOST().size()),
+                      config.getPORT().get(i % config.getPORT().size()),
+                      config.getUSERNAME(),
+                      config.getPASSWORD()));
+          connections.add(schemaConnection);
+          try (Statement statement = schemaConnection.createStatement()) {
+            statement.execute(String.format(USE_DB, TEST_DB));
+          }
         }
+        new ParallelSchemaRegister<>(connections)
+            .register(
+                "tables",
+                schemaList,
+                Math.min(config.getCREATE_SCHEMA_BATCH_SIZE(), MAX_TABLES_PER_STATEMENT),
+                this::createTables);
       } catch (SQLException e) {
-        // ignore if already has the time series
         LOGGER.error("Register TaosDB schema failed because ", e);
         throw new TsdbException(e);
+      } finally {
+        for (Connection schemaConnection : connections) {
+          try {
+            schemaConnection.close();
+          } catch (SQLException e) {
+            LOGGER.error("Failed to close TaosDB connection because ", e);
+          }
+        }
       }
     }
   }
 
+  /** eg. create table if not exists d_0 using super tags('d_0') if not exists d_1 using ... */
+  private void createTables(Connection schemaConnection, List<DeviceSchema> schemaList)
+      throws SQLException {
+    StringBuilder builder = new StringBuilder("create table");
+    for (DeviceSchema deviceSchema : schemaList) {
+      builder.append(
+          String.format(
+              CREATE_TABLES_CLAUSE,
+              deviceSchema.getDevice(),
+              SUPER_TABLE,
+              deviceSchema.getDevice()));
+    }
+    try (Statement statement = schemaConnection.createStatement()) {
+      statement.execute(builder.toString());
+    }
+  }
+
   @Override
   public Status insertOneBatch(Batch batch) {
     try (Statement statement = connection.createStatement()) {
       statement.execute(String.format(USE_DB, TEST_DB));
-      StringBuilder builder = new StringBuilder();
-      DeviceSchema deviceSchema = batch.getDeviceSchema();
-      builder.append("insert into ").append(deviceSchema.getDevice()).append(" values ");
-      for (Record record : batch.getRecords()) {
-        builder.append(
-            getInsertOneRecordSql(
-                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue()));
-      }
+      StringBuilder builder = new StringBuilder("insert into");
+      appendDeviceValues(builder, batch);
       LOGGER.debug("getInsertOneBatchSql: {}", builder.toString());
       statement.addBatch(builder.toString());
       statement.executeBatch();
@@ -172,6 +203,32 @@ public class TaosDB implements IDatabase {
     }
   }
 
+  /** eg. insert into d_0 values (...) (...) d_1 values (...) (...) */
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(String.format(USE_DB, TEST_DB));
+      StringBuilder builder = new StringBuilder("insert into");
+      for (Batch batch : batches) {
+        appendDeviceValues(builder, batch);
+      }
+      LOGGER.debug("getInsertMultiDeviceBatchSql: {}", builder.toString());
+      statement.execute(builder.toString());
+      return new Status(true);
+    } catch (Exception e) {
+      return new Status(false, 0, e, e.toString());
+    }
+  }
+
+  private void appendDeviceValues(StringBuilder builder, Batch batch) {
+    DeviceSchema deviceSchema = batch.getDeviceSchema();
+    builder.append(" ").append(deviceSchema.getDevice()).append(" values ");
+    for (Record record : batch.getRecords()) {
+      builder.append(
+          getInsertOneRecordSql(deviceSchema, record.getTimestamp(), record.getRecordDataValue()));
+    }
+  }
+
   @Override
   public Status insertOneSensorBatch(Batch batch) {
     try (Statement statement = connection.createStatement()) {
@@ -429,10 +486,13 @@ public class TaosDB implements IDatabase {
     int queryResultPointNum = 0;
     try (Statement statement = connection.createStatement()) {
       statement.execute(String.format(USE_DB, TEST_DB));
-      try (ResultSet resultSet = statement.executeQuery(sql)) {
+      try (QueryTimeout timeout =
+              QueryTimeout.start(statement, config.getREAD_OPERATION_TIMEOUT_MS());
+          ResultSet resultSet = statement.executeQuery(sql)) {
         while (resultSet.next()) {
           line++;
         }
+        timeout.stop();
       }
       queryResultPointNum = line * config.getQUERY_SENSOR_NUM() * config.getQUERY_DEVICE_NUM();
       return new Status(true, queryResultPointNum);
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.timescaledb;
+
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Stream batches into COPY ... FROM STDIN WITH CSV. Rows are encoded into a byte buffer, which is
+ * sent to the server whenever it is full and reused by the following copies, so one writer should
+ * only be used by one client.
+ *
+ * <p>e.g. 1535558400000,"group_0","d_0",true,1,1.5,"text"
+ */
+public class CsvCopyWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CsvCopyWriter.class);
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int size = 0;
+  private CopyIn copyIn;
+
+  /**
+   * Start a copy
+   *
+   * @param sql e.g. COPY test (time, sGroup, device, s_0) FROM STDIN WITH CSV
+   */
+  public void begin(CopyManager copyManager, String sql) throws SQLException {
+    begin(copyManager.copyIn(sql));
+  }
+
+  void begin(CopyIn copyIn) {
+    size = 0;
+    this.copyIn = copyIn;
+  }
+
+  /**
+   * Write the records of a batch as rows of time, group, device and the values. For a batch of one
+   * sensor (colIndex != -1), only the first value of each record is written.
+   */
+  public void write(Batch batch) throws SQLException {
+    byte[] group = quote(batch.getDeviceSchema().getGroup());
+    byte[] device = quote(batch.getDeviceSchema().getDevice());
+    boolean oneSensor = batch.getColIndex() != -1;
+    for (Record record : batch.getRecords()) {
+      appendAscii(Long.toString(record.getTimestamp()));
+      append((byte) ',');
+      append(group);
+      append((byte) ',');
+      append(device);
+      List<Object> values = record.getRecordDataValue();
+      int valueNum = oneSensor ? 1 : values.size();
+      for (int i = 0; i < valueNum; i++) {
+        append((byte) ',');
+        appendValue(values.get(i));
+      }
+      append((byte) '\n');
+    }
+  }
+
+  /** Finish the copy, and return the number of copied rows */
+  public long end() throws SQLException {
+    flush();
+    long rows = copyIn.endCopy();
+    copyIn = null;
+    return rows;
+  }
+
+  /** Abort the copy after a failure, so that the connection can be used again */
+  public void cancel() {
+    if (copyIn != null && copyIn.isActive()) {
+      try {
+        copyIn.cancelCopy();
+      } catch (SQLException e) {
+        LOGGER.warn("Failed to cancel copy: {}", e.getMessage());
+      }
+    }
+    copyIn = null;
+  }
+
+  /** null is an unquoted empty field, and strings are quoted */
+  private void appendValue(Object value) throws SQLException {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof Boolean) {
+      append((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof Number) {
+      appendAscii(value.toString());
+    } else {
+      append(quote(value.toString()));
+    }
+  }
+
+  private void appendAscii(String value) throws SQLException {
+    for (int i = 0; i < value.length(); i++) {
+      append((byte) value.charAt(i));
+    }
+  }
+
+  private void append(byte b) throws SQLException {
+    if (size == buffer.length) {
+      flush();
+    }
+    buffer[size++] = b;
+  }
+
+  private void append(byte[] bytes) throws SQLException {
+    if (size + bytes.length > buffer.length) {
+      flush();
+      if (bytes.length > buffer.length) {
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        return;
+      }
+    }
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  private void flush() throws SQLException {
+    if (size > 0) {
+      copyIn.writeToCopy(buffer, 0, size);
+      size = 0;
+    }
+  }
+
+  /** e.g. "a""b" for a"b */
+  private static byte[] quote(String value) {
+    return ('"' + value.replace("\"", "\"\"") + '"').getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -21,19 +21,32 @@ package cn.edu.tsinghua.iotdb.benchmark.timescaledb;
 
 import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
 import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.conf.Constants;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.LatencyPhaseTimer;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.QueryResultCounter;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.enums.LatencyPhase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.DBUtil;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.QueryTimeout;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class TimescaleDB implements IDatabase {
 
@@ -47,10 +60,36 @@ public class TimescaleDB implements IDatabase {
   private static final String dropTable = "DROP TABLE %s;";
   private static final String POSTGRESQL_JDBC_NAME = "org.postgresql.Driver";
   private static final String POSTGRESQL_URL = "jdbc:postgresql://%s:%s/%s";
+  // columns of query result which are not counted as points
+  private static final String[] QUERY_KEY_COLUMNS = {"time", "device", "sampleTime"};
+  private static final String EXPLAIN_ANALYZE = "EXPLAIN (ANALYZE, FORMAT JSON) ";
+  private static final String EXECUTION_TIME_KEY = "\"Execution Time\":";
+  private static final String COPY_SQL = "COPY %s (%s) FROM STDIN WITH CSV";
+  // the number of parameters of a statement is limited to 32767 by PgJDBC
+  private static final int MAX_PARAMETER_NUM = 32767;
+  private static final int MAX_CACHED_STATEMENT_NUM = 16;
+
+  /**
+   * COPY or MULTI_ROW given as the last part of DB_SWITCH, e.g. TimescaleDB-COPY, otherwise a batch
+   * of one INSERT per record is used
+   */
+  private final String insertMode;
+
+  private CopyManager copyManager;
+  private final CsvCopyWriter copyWriter = new CsvCopyWriter();
+  private final Map<String, PreparedStatement> multiRowStatements = new HashMap<>();
 
   public TimescaleDB() {
     config = ConfigDescriptor.getInstance().getConfig();
     tableName = config.getDB_NAME();
+    String[] params = config.getDB_SWITCH().split("-");
+    insertMode = params[params.length - 1];
+  }
+
+  /** Use the given connection instead of the one connected by init */
+  TimescaleDB(Connection connection) {
+    this();
+    this.connection = connection;
   }
 
   @Override
@@ -67,6 +106,9 @@ public class TimescaleDB implements IDatabase {
                   config.getDB_NAME()),
               config.getUSERNAME(),
               config.getPASSWORD());
+      if (Constants.INSERT_USE_COPY.equals(insertMode)) {
+        copyManager = ((PGConnection) connection).getCopyAPI();
+      }
     } catch (Exception e) {
       LOGGER.error("Initialize TimescaleDB failed because ", e);
       throw new TsdbException(e);
@@ -91,6 +133,7 @@ public class TimescaleDB implements IDatabase {
     if (connection == null) {
       return;
     }
+    closeMultiRowStatements();
     try {
       connection.close();
     } catch (Exception e) {
@@ -137,24 +180,193 @@ public class TimescaleDB implements IDatabase {
 
   @Override
   public Status insertOneBatch(Batch batch) {
+    return insertMultiDeviceBatch(Collections.singletonList(batch));
+  }
+
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    switch (insertMode) {
+      case Constants.INSERT_USE_COPY:
+        return copy(batches);
+      case Constants.INSERT_USE_MULTI_ROW:
+        return insertMultiRow(batches);
+      default:
+        return insertByStatement(batches);
+    }
+  }
+
+  private Status insertByStatement(List<Batch> batches) {
     try (Statement statement = connection.createStatement()) {
-      for (Record record : batch.getRecords()) {
-        String sql =
-            getInsertOneBatchSql(
-                batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue());
-        statement.addBatch(sql);
+      for (Batch batch : batches) {
+        addInsertSql(statement, batch);
       }
-
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
       statement.executeBatch();
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+      return new Status(true);
+    } catch (Exception e) {
+      return new Status(false, 0, e, e.toString());
+    }
+  }
+
+  private void addInsertSql(Statement statement, Batch batch) throws SQLException {
+    for (Record record : batch.getRecords()) {
+      String sql =
+          getInsertOneBatchSql(
+              batch.getDeviceSchema(), record.getTimestamp(), record.getRecordDataValue());
+      statement.addBatch(sql);
+    }
+  }
+
+  /**
+   * Stream the batches by COPY, one COPY for the batches of the same columns. eg. COPY test (time,
+   * sGroup, device, s_0, s_1) FROM STDIN WITH CSV
+   */
+  private Status copy(List<Batch> batches) {
+    try {
+      for (Map.Entry<String, List<Batch>> entry : groupByColumns(batches).entrySet()) {
+        copyWriter.begin(copyManager, String.format(COPY_SQL, tableName, entry.getKey()));
+        for (Batch batch : entry.getValue()) {
+          copyWriter.write(batch);
+        }
+        LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+        copyWriter.end();
+        LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+      }
+      return new Status(true);
+    } catch (Exception e) {
+      copyWriter.cancel();
+      return new Status(false, 0, e, e.toString());
+    }
+  }
 
+  /**
+   * Insert the records of the batches of the same columns by prepared statements of multiple rows,
+   * at most MAX_PARAMETER_NUM parameters each. eg. INSERT INTO test (time, sGroup, device, s_0)
+   * VALUES (?,?,?,?),(?,?,?,?)
+   */
+  private Status insertMultiRow(List<Batch> batches) {
+    try {
+      for (Map.Entry<String, List<Batch>> entry : groupByColumns(batches).entrySet()) {
+        List<Batch> sameColumnBatches = entry.getValue();
+        int columnNum = 3 + getSensors(sameColumnBatches.get(0)).size();
+        int maxRowNum = Math.max(1, MAX_PARAMETER_NUM / columnNum);
+        List<Batch> rowBatches = new ArrayList<>();
+        List<Record> rows = new ArrayList<>();
+        for (Batch batch : sameColumnBatches) {
+          for (Record record : batch.getRecords()) {
+            rowBatches.add(batch);
+            rows.add(record);
+            if (rows.size() == maxRowNum) {
+              executeMultiRow(entry.getKey(), columnNum, rowBatches, rows);
+              rowBatches.clear();
+              rows.clear();
+            }
+          }
+        }
+        if (!rows.isEmpty()) {
+          executeMultiRow(entry.getKey(), columnNum, rowBatches, rows);
+        }
+      }
       return new Status(true);
     } catch (Exception e) {
       return new Status(false, 0, e, e.toString());
     }
   }
 
+  /** @param rowBatches the batch of each row, which gives the group and device of the row */
+  private void executeMultiRow(
+      String columns, int columnNum, List<Batch> rowBatches, List<Record> rows)
+      throws SQLException {
+    PreparedStatement statement = getMultiRowStatement(columns, columnNum, rows.size());
+    int index = 1;
+    for (int i = 0; i < rows.size(); i++) {
+      Batch batch = rowBatches.get(i);
+      Record record = rows.get(i);
+      statement.setLong(index++, record.getTimestamp());
+      statement.setString(index++, batch.getDeviceSchema().getGroup());
+      statement.setString(index++, batch.getDeviceSchema().getDevice());
+      List<Object> values = record.getRecordDataValue();
+      for (int j = 0; j < columnNum - 3; j++) {
+        Object value = values.get(j);
+        if (value == null) {
+          statement.setNull(index++, Types.NULL);
+        } else {
+          statement.setObject(index++, value);
+        }
+      }
+    }
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
+    statement.executeUpdate();
+    LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+  }
+
+  /** Prepared statements are cached by their SQL, which only differs in columns and row number */
+  private PreparedStatement getMultiRowStatement(String columns, int columnNum, int rowNum)
+      throws SQLException {
+    StringBuilder builder = new StringBuilder("INSERT INTO ");
+    builder.append(tableName).append(" (").append(columns).append(") VALUES ");
+    for (int i = 0; i < rowNum; i++) {
+      builder.append(i == 0 ? "(" : ",(");
+      for (int j = 0; j < columnNum; j++) {
+        builder.append(j == 0 ? "?" : ",?");
+      }
+      builder.append(")");
+    }
+    String sql = builder.toString();
+    PreparedStatement statement = multiRowStatements.get(sql);
+    if (statement == null) {
+      if (multiRowStatements.size() >= MAX_CACHED_STATEMENT_NUM) {
+        closeMultiRowStatements();
+      }
+      statement = connection.prepareStatement(sql);
+      multiRowStatements.put(sql, statement);
+    }
+    return statement;
+  }
+
+  private void closeMultiRowStatements() {
+    for (PreparedStatement statement : multiRowStatements.values()) {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        LOGGER.warn("Failed to close prepared statement: {}", e.getMessage());
+      }
+    }
+    multiRowStatements.clear();
+  }
+
+  /** Group the batches by their columns, e.g. time, sGroup, device, s_0, s_1 */
+  private static Map<String, List<Batch>> groupByColumns(List<Batch> batches) {
+    Map<String, List<Batch>> groups = new LinkedHashMap<>();
+    for (Batch batch : batches) {
+      StringBuilder columns = new StringBuilder("time, sGroup, device");
+      for (String sensor : getSensors(batch)) {
+        columns.append(", ").append(sensor);
+      }
+      groups.computeIfAbsent(columns.toString(), key -> new ArrayList<>()).add(batch);
+    }
+    return groups;
+  }
+
+  /**
+   * The sensors of the values of a batch. A batch of one sensor (colIndex != -1) only has the
+   * sensor at colIndex, which is the only sensor of its schema in most cases.
+   */
+  private static List<String> getSensors(Batch batch) {
+    List<String> sensors = batch.getDeviceSchema().getSensors();
+    if (batch.getColIndex() == -1 || sensors.size() == 1) {
+      return sensors;
+    }
+    return Collections.singletonList(sensors.get(batch.getColIndex()));
+  }
+
   @Override
   public Status insertOneSensorBatch(Batch batch) {
+    if (Constants.INSERT_USE_COPY.equals(insertMode)
+        || Constants.INSERT_USE_MULTI_ROW.equals(insertMode)) {
+      return insertMultiDeviceBatch(Collections.singletonList(batch));
+    }
     try (Statement statement = connection.createStatement()) {
       int colIndex = batch.getColIndex();
       for (Record record : batch.getRecords()) {
@@ -166,8 +378,9 @@ public class TimescaleDB implements IDatabase {
                 colIndex);
         statement.addBatch(sql);
       }
+      LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
       statement.executeBatch();
-
+      LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
       return new Status(true);
     } catch (Exception e) {
       return new Status(false, 0, e, e.toString());
@@ -181,10 +394,9 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status preciseQuery(PreciseQuery preciseQuery) {
-    int sensorNum = preciseQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder = getSampleQuerySqlHead(preciseQuery.getDeviceSchema());
     builder.append(" AND time = ").append(preciseQuery.getTimestamp());
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -195,10 +407,9 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status rangeQuery(RangeQuery rangeQuery) {
-    int sensorNum = rangeQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder = getSampleQuerySqlHead(rangeQuery.getDeviceSchema());
     addWhereTimeClause(builder, rangeQuery);
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -208,11 +419,10 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status valueRangeQuery(ValueRangeQuery valueRangeQuery) {
-    int sensorNum = valueRangeQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder = getSampleQuerySqlHead(valueRangeQuery.getDeviceSchema());
     addWhereValueClause(
         valueRangeQuery.getDeviceSchema(), builder, valueRangeQuery.getValueThreshold());
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -223,12 +433,11 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status aggRangeQuery(AggRangeQuery aggRangeQuery) {
-    int sensorNum = aggRangeQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder =
         getAggQuerySqlHead(aggRangeQuery.getDeviceSchema(), aggRangeQuery.getAggFun());
     addWhereTimeClause(builder, aggRangeQuery);
     builder.append("GROUP BY device");
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -238,13 +447,12 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status aggValueQuery(AggValueQuery aggValueQuery) {
-    int sensorNum = aggValueQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder =
         getAggQuerySqlHead(aggValueQuery.getDeviceSchema(), aggValueQuery.getAggFun());
     addWhereValueClause(
         aggValueQuery.getDeviceSchema(), builder, aggValueQuery.getValueThreshold());
     builder.append(" GROUP BY device");
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -256,14 +464,13 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status aggRangeValueQuery(AggRangeValueQuery aggRangeValueQuery) {
-    int sensorNum = aggRangeValueQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder =
         getAggQuerySqlHead(aggRangeValueQuery.getDeviceSchema(), aggRangeValueQuery.getAggFun());
     addWhereTimeClause(builder, aggRangeValueQuery);
     addWhereValueClause(
         aggRangeValueQuery.getDeviceSchema(), builder, aggRangeValueQuery.getValueThreshold());
     builder.append("GROUP BY device");
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -274,7 +481,6 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status groupByQuery(GroupByQuery groupByQuery) {
-    int sensorNum = groupByQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder =
         getGroupByQuerySqlHead(
             groupByQuery.getDeviceSchema(),
@@ -282,7 +488,7 @@ public class TimescaleDB implements IDatabase {
             groupByQuery.getGranularity());
     addWhereTimeClause(builder, groupByQuery);
     builder.append(" GROUP BY time, device");
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   /**
@@ -296,10 +502,9 @@ public class TimescaleDB implements IDatabase {
    */
   @Override
   public Status latestPointQuery(LatestPointQuery latestPointQuery) {
-    int sensorNum = latestPointQuery.getDeviceSchema().get(0).getSensors().size();
     StringBuilder builder = getSampleQuerySqlHead(latestPointQuery.getDeviceSchema());
     builder.append("ORDER BY time DESC LIMIT 1");
-    return executeQueryAndGetStatus(builder.toString(), sensorNum);
+    return executeQueryAndGetStatus(builder.toString());
   }
 
   @Override
@@ -312,22 +517,59 @@ public class TimescaleDB implements IDatabase {
     return null;
   }
 
-  private Status executeQueryAndGetStatus(String sql, int sensorNum) {
+  private Status executeQueryAndGetStatus(String sql) {
     LOGGER.debug("{} the query SQL: {}", Thread.currentThread().getName(), sql);
-    int line = 0;
-    int queryResultPointNum = 0;
+    LatencyPhaseTimer.mark(LatencyPhase.BUILD_REQUEST);
     try (Statement statement = connection.createStatement()) {
-      try (ResultSet resultSet = statement.executeQuery(sql)) {
+      Status status;
+      try (QueryTimeout timeout =
+              QueryTimeout.start(statement, config.getREAD_OPERATION_TIMEOUT_MS());
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        LatencyPhaseTimer.mark(LatencyPhase.SEND_AND_WAIT);
+        QueryResultCounter counter =
+            new QueryResultCounter(resultSet.getMetaData(), QUERY_KEY_COLUMNS);
         while (resultSet.next()) {
-          line++;
+          counter.countRow(resultSet);
         }
+        LatencyPhaseTimer.mark(LatencyPhase.PARSE_RESPONSE);
+        timeout.stop();
+        status = counter.toStatus();
       }
-
-      queryResultPointNum = line * sensorNum * config.getQUERY_DEVICE_NUM();
-      return new Status(true, queryResultPointNum);
+      if (ThreadLocalRandom.current().nextDouble() < config.getQUERY_EXPLAIN_SAMPLE_RATE()) {
+        long start = System.nanoTime();
+        status.setServerTimeCost(explainExecutionTime(statement, sql));
+        status.setAccountingTimeCost(System.nanoTime() - start);
+      }
+      return status;
     } catch (Exception e) {
-      return new Status(false, queryResultPointNum, e, sql);
+      return new Status(false, 0, e, sql);
+    }
+  }
+
+  /**
+   * Execute the query again by EXPLAIN ANALYZE to get its execution time on server. Note that the
+   * explained execution may hit the cache warmed by the query.
+   *
+   * @return execution time in nanoseconds, -1 if it is not reported
+   */
+  private long explainExecutionTime(Statement statement, String sql) {
+    try (ResultSet resultSet = statement.executeQuery(EXPLAIN_ANALYZE + sql)) {
+      if (resultSet.next()) {
+        String plan = resultSet.getString(1);
+        int index = plan.indexOf(EXECUTION_TIME_KEY);
+        if (index >= 0) {
+          int begin = index + EXECUTION_TIME_KEY.length();
+          int end = begin;
+          while (end < plan.length() && "0123456789. ".indexOf(plan.charAt(end)) >= 0) {
+            end++;
+          }
+          return (long) (Double.parseDouble(plan.substring(begin, end).trim()) * 1000000);
+        }
+      }
+    } catch (SQLException | NumberFormatException e) {
+      LOGGER.warn("Failed to explain query {}", sql, e);
     }
+    return -1;
   }
 
   /**
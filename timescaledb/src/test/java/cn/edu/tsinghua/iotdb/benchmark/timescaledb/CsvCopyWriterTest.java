@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.timescaledb;
+
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.junit.Test;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvCopyWriterTest {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Collect the bytes and the size of each write */
+  private static class CollectCopyIn implements CopyIn {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final List<Integer> writeSizes = new ArrayList<>();
+    private boolean active = true;
+    private boolean cancelled = false;
+
+    @Override
+    public void writeToCopy(byte[] buf, int off, int siz) {
+      bytes.write(buf, off, siz);
+      writeSizes.add(siz);
+    }
+
+    @Override
+    public void flushCopy() {}
+
+    @Override
+    public long endCopy() {
+      active = false;
+      return 1;
+    }
+
+    @Override
+    public int getFieldCount() {
+      return 0;
+    }
+
+    @Override
+    public int getFormat() {
+      return 0;
+    }
+
+    @Override
+    public int getFieldFormat(int field) {
+      return 0;
+    }
+
+    @Override
+    public boolean isActive() {
+      return active;
+    }
+
+    @Override
+    public void cancelCopy() {
+      active = false;
+      cancelled = true;
+    }
+
+    @Override
+    public long getHandledRowCount() {
+      return 0;
+    }
+
+    private String getString() {
+      return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static Batch newBatch(List<String> sensors) {
+    Batch batch = new Batch();
+    batch.setDeviceSchema(new DeviceSchema("g", "d", sensors));
+    return batch;
+  }
+
+  private static String getPrefix(Batch batch) {
+    return "\""
+        + batch.getDeviceSchema().getGroup()
+        + "\",\""
+        + batch.getDeviceSchema().getDevice()
+        + "\"";
+  }
+
+  /** Method: write(Batch batch), quoting and null */
+  @Test
+  public void testWrite() throws Exception {
+    Batch batch = newBatch(Arrays.asList("s_0", "s_1", "s_2", "s_3", "s_4"));
+    batch.add(1L, Arrays.asList(true, 1, 1.5, "a\"b,c", null));
+    batch.add(2L, Arrays.asList(false, -2, 0.0, "", null));
+    CollectCopyIn copyIn = new CollectCopyIn();
+    CsvCopyWriter writer = new CsvCopyWriter();
+    writer.begin(copyIn);
+    writer.write(batch);
+    assertEquals(0, copyIn.writeSizes.size());
+    assertEquals(1, writer.end());
+    String prefix = getPrefix(batch);
+    assertEquals(
+        "1," + prefix + ",true,1,1.5,\"a\"\"b,c\",\n" + "2," + prefix + ",false,-2,0.0,\"\",\n",
+        copyIn.getString());
+    assertEquals(Collections.singletonList(copyIn.bytes.size()), copyIn.writeSizes);
+  }
+
+  /** Method: write(Batch batch), only the first value of a batch of one sensor */
+  @Test
+  public void testWriteOneSensor() throws Exception {
+    Batch batch = newBatch(Collections.singletonList("s_1"));
+    batch.setColIndex(1);
+    batch.add(1L, Collections.singletonList(7));
+    CollectCopyIn copyIn = new CollectCopyIn();
+    CsvCopyWriter writer = new CsvCopyWriter();
+    writer.begin(copyIn);
+    writer.write(batch);
+    writer.end();
+    assertEquals("1," + getPrefix(batch) + ",7\n", copyIn.getString());
+  }
+
+  /** Method: write(Batch batch), the buffer is sent whenever it is full */
+  @Test
+  public void testFlushAtBufferBoundary() throws Exception {
+    Batch batch = newBatch(Collections.singletonList("s_0"));
+    StringBuilder expected = new StringBuilder();
+    for (long i = 0; expected.length() <= 3 * BUFFER_SIZE; i++) {
+      batch.add(i, Collections.singletonList(i));
+      expected.append(i).append(',').append(getPrefix(batch)).append(',').append(i).append('\n');
+    }
+    CollectCopyIn copyIn = new CollectCopyIn();
+    CsvCopyWriter writer = new CsvCopyWriter();
+    writer.begin(copyIn);
+    writer.write(batch);
+    writer.end();
+    assertEquals(expected.toString(), copyIn.getString());
+    // a quoted field is not split, so the rest of buffer smaller than it may be left unused
+    int maxUnused = getPrefix(batch).length();
+    for (int i = 0; i < copyIn.writeSizes.size() - 1; i++) {
+      assertTrue(copyIn.writeSizes.get(i) <= BUFFER_SIZE);
+      assertTrue(copyIn.writeSizes.get(i) > BUFFER_SIZE - maxUnused);
+    }
+    assertTrue(copyIn.writeSizes.size() >= 4);
+  }
+
+  /** Method: write(Batch batch), a value larger than the buffer is sent as it is */
+  @Test
+  public void testValueLargerThanBuffer() throws Exception {
+    char[] chars = new char[BUFFER_SIZE + 1];
+    Arrays.fill(chars, 'x');
+    String large = new String(chars);
+    Batch batch = newBatch(Collections.singletonList("s_0"));
+    batch.add(1L, Collections.singletonList(large));
+    batch.add(2L, Collections.singletonList("y"));
+    CollectCopyIn copyIn = new CollectCopyIn();
+    CsvCopyWriter writer = new CsvCopyWriter();
+    writer.begin(copyIn);
+    writer.write(batch);
+    writer.end();
+    String prefix = getPrefix(batch);
+    assertEquals(
+        "1," + prefix + ",\"" + large + "\"\n2," + prefix + ",\"y\"\n", copyIn.getString());
+    assertEquals(BUFFER_SIZE + 3, (int) copyIn.writeSizes.get(1));
+  }
+
+  /** Method: cancel() */
+  @Test
+  public void testCancel() throws Exception {
+    CollectCopyIn copyIn = new CollectCopyIn();
+    CsvCopyWriter writer = new CsvCopyWriter();
+    writer.begin(copyIn);
+    writer.cancel();
+    assertTrue(copyIn.cancelled);
+    assertFalse(copyIn.isActive());
+    // nothing to cancel after the copy is cancelled
+    copyIn.cancelled = false;
+    writer.cancel();
+    assertFalse(copyIn.cancelled);
+  }
+}
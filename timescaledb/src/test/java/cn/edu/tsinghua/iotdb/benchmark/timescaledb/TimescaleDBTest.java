@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package cn.edu.tsinghua.iotdb.benchmark.timescaledb;
+
+import cn.edu.tsinghua.iotdb.benchmark.conf.Config;
+import cn.edu.tsinghua.iotdb.benchmark.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
+import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
+import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimescaleDBTest {
+
+  private static final int MAX_PARAMETER_NUM = 32767;
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private String dbSwitch;
+  /** Number of rows and parameters of each executed statement */
+  private final List<int[]> executed = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    dbSwitch = config.getDB_SWITCH();
+    config.setDB_SWITCH("TimescaleDB-MULTI_ROW");
+  }
+
+  @After
+  public void tearDown() {
+    config.setDB_SWITCH(dbSwitch);
+  }
+
+  /** Method: insertMultiDeviceBatch(List<Batch> batches), rows are chunked by parameter limit */
+  @Test
+  public void testMultiRowChunks() {
+    // 3 + 1 columns, so 8191 rows per statement
+    Batch batch = newBatch("d_0", Collections.singletonList("s_0"), 8191 * 2 + 5);
+    // 3 + 10 columns, so 2520 rows per statement, with the rows of two devices in one statement
+    List<String> sensors = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sensors.add("s_" + i);
+    }
+    Batch wide0 = newBatch("d_1", sensors, 2000);
+    Batch wide1 = newBatch("d_2", sensors, 1000);
+    Status status =
+        new TimescaleDB(mockConnection())
+            .insertMultiDeviceBatch(Arrays.asList(batch, wide0, wide1));
+    assertTrue(status.isOk());
+
+    int[][] expected = {
+      {8191, 8191 * 4}, {8191, 8191 * 4}, {5, 5 * 4}, {2520, 2520 * 13}, {480, 480 * 13}
+    };
+    assertEquals(expected.length, executed.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i][0], executed.get(i)[0]);
+      assertEquals(expected[i][1], executed.get(i)[1]);
+      assertTrue(executed.get(i)[1] <= MAX_PARAMETER_NUM);
+    }
+  }
+
+  private static Batch newBatch(String device, List<String> sensors, int rowNum) {
+    Batch batch = new Batch();
+    batch.setDeviceSchema(new DeviceSchema("g_0", device, sensors));
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < sensors.size(); i++) {
+      values.add(i);
+    }
+    for (long i = 0; i < rowNum; i++) {
+      batch.add(i, values);
+    }
+    return batch;
+  }
+
+  /** Each prepared statement records its row number and the max parameter index when executed */
+  private Connection mockConnection() {
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              if (!method.getName().equals("prepareStatement")) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              String sql = (String) args[0];
+              int rowNum = sql.split("\\(\\?").length - 1;
+              int[] maxIndex = {0};
+              return Proxy.newProxyInstance(
+                  PreparedStatement.class.getClassLoader(),
+                  new Class<?>[] {PreparedStatement.class},
+                  (statement, statementMethod, statementArgs) -> {
+                    String name = statementMethod.getName();
+                    if (name.equals("executeUpdate")) {
+                      executed.add(new int[] {rowNum, maxIndex[0]});
+                      maxIndex[0] = 0;
+                      return rowNum;
+                    }
+                    if (name.startsWith("set")) {
+                      maxIndex[0] = Math.max(maxIndex[0], (int) statementArgs[0]);
+                      return null;
+                    }
+                    throw new UnsupportedOperationException(name);
+                  });
+            });
+  }
+}
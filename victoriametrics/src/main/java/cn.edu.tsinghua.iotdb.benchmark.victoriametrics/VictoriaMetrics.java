@@ -26,8 +26,9 @@ import cn.edu.tsinghua.iotdb.benchmark.exception.DBConnectException;
 import cn.edu.tsinghua.iotdb.benchmark.measurement.Status;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.IDatabase;
 import cn.edu.tsinghua.iotdb.benchmark.tsdb.TsdbException;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolEncoder;
+import cn.edu.tsinghua.iotdb.benchmark.tsdb.lineprotocol.LineProtocolSender;
 import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Batch;
-import cn.edu.tsinghua.iotdb.benchmark.workload.ingestion.Record;
 import cn.edu.tsinghua.iotdb.benchmark.workload.query.impl.*;
 import cn.edu.tsinghua.iotdb.benchmark.workload.schema.DeviceSchema;
 import com.alibaba.fastjson.JSONArray;
@@ -43,8 +44,14 @@ public class VictoriaMetrics implements IDatabase {
   private static final Config config = ConfigDescriptor.getInstance().getConfig();
 
   private static final String URL = config.getHOST().get(0) + ":" + config.getPORT().get(0);
+  /** Influx line protocol, written as metric {group}_value with labels db, device and sensor */
   private static final String CREATE_URL =
-      URL + "/api/v1/import/prometheus?extra_label=db=" + config.getDB_NAME();
+      URL
+          + "/write?db="
+          + config.getDB_NAME()
+          + "&precision="
+          + LineProtocolSender.getV1Precision(config.getTIMESTAMP_PRECISION());
+
   private static final String DELETE_URL =
       URL + "/api/v1/admin/tsdb/delete_series?match={db=%22" + config.getDB_NAME() + "%22}";
   private static final Random sensorRandom = new Random(1 + config.getDATA_SEED());
@@ -52,13 +59,16 @@ public class VictoriaMetrics implements IDatabase {
   private static final String QUERY_URL = URL + "/api/v1/query?query=";
   private static final String QUERY_RANGE_URL = URL + "/api/v1/query_range?query=";
 
+  private final LineProtocolEncoder encoder = new LineProtocolEncoder(true);
+  private LineProtocolSender sender;
+
   /**
    * Initialize any state for this DB. Called once per DB instance; there is one DB instance per
    * client thread.
    */
   @Override
   public void init() throws TsdbException {
-    // no need to init
+    sender = new LineProtocolSender(CREATE_URL, null);
   }
 
   /**
@@ -102,19 +112,24 @@ public class VictoriaMetrics implements IDatabase {
    */
   @Override
   public Status insertOneBatch(Batch batch) throws DBConnectException {
-    try {
-      LinkedList<VictoriaMetricsModel> models = createDataModelByBatch(batch);
-      StringBuffer body = new StringBuffer();
-      for (VictoriaMetricsModel victoriaMetricsModel : models) {
-        body.append(victoriaMetricsModel.toString() + "\n");
-      }
-      HttpRequestUtil.sendPost(
-          CREATE_URL, body.toString(), "text/plain; version=0.0.4; charset=utf-8");
-      return new Status(true);
-    } catch (Exception e) {
-      e.printStackTrace();
-      return new Status(false, 0, e, e.toString());
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
+  }
+
+  /**
+   * Insert batches of several devices in one request
+   *
+   * @param batches batches of different devices
+   * @return status which contains successfully executed flag, error message and so on.
+   */
+  @Override
+  public Status insertMultiDeviceBatch(List<Batch> batches) {
+    encoder.reset();
+    for (Batch batch : batches) {
+      encoder.encode(batch);
     }
+    return write();
   }
 
   /**
@@ -127,70 +142,21 @@ public class VictoriaMetrics implements IDatabase {
    */
   @Override
   public Status insertOneSensorBatch(Batch batch) throws DBConnectException {
+    encoder.reset();
+    encoder.encode(batch);
+    return write();
+  }
+
+  private Status write() {
     try {
-      LinkedList<VictoriaMetricsModel> models = createDataModelByBatch(batch);
-      StringBuffer body = new StringBuffer();
-      for (VictoriaMetricsModel victoriaMetricsModel : models) {
-        body.append(victoriaMetricsModel.toString() + "\n");
-      }
-      HttpRequestUtil.sendPost(
-          CREATE_URL, body.toString(), "text/plain; version=0.0.4; charset=utf-8");
+      sender.send(encoder);
       return new Status(true);
     } catch (Exception e) {
-      e.printStackTrace();
+      LOGGER.warn(e.getMessage());
       return new Status(false, 0, e, e.toString());
     }
   }
 
-  private LinkedList<VictoriaMetricsModel> createDataModelByBatch(Batch batch) {
-    DeviceSchema deviceSchema = batch.getDeviceSchema();
-    String device = deviceSchema.getDevice();
-    List<Record> records = batch.getRecords();
-    List<String> sensors = deviceSchema.getSensors();
-    int sensorNum = sensors.size();
-    LinkedList<VictoriaMetricsModel> models = new LinkedList<>();
-
-    for (Record record : records) {
-      if (batch.getColIndex() != -1) {
-        // insert one line
-        VictoriaMetricsModel model =
-            createModel(
-                deviceSchema.getGroup(),
-                record.getTimestamp(),
-                record.getRecordDataValue().get(0),
-                device,
-                deviceSchema.getSensors().get(batch.getColIndex()));
-        models.addLast(model);
-      } else {
-        // insert align data
-        for (int j = 0; j < sensorNum; j++) {
-          VictoriaMetricsModel model =
-              createModel(
-                  deviceSchema.getGroup(),
-                  record.getTimestamp(),
-                  record.getRecordDataValue().get(j),
-                  device,
-                  deviceSchema.getSensors().get(j));
-          models.addLast(model);
-        }
-      }
-    }
-    return models;
-  }
-
-  private VictoriaMetricsModel createModel(
-      String metric, long timestamp, Object value, String device, String sensor) {
-    VictoriaMetricsModel model = new VictoriaMetricsModel();
-    model.setMetric(metric);
-    model.setTimestamp(timestamp);
-    model.setValue(value);
-    Map<String, String> tags = new HashMap<>();
-    tags.put("device", device);
-    tags.put("sensor", sensor);
-    model.setTags(tags);
-    return model;
-  }
-
   /**
    * Query data of one or multiple sensors at a precise timestamp. /api/v1/query?query={db="test",
    * device="d_1", sensor="s_0"}&time=1609430405